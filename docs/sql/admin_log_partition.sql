@@ -0,0 +1,10 @@
+-- ----------------------------
+-- 已有数据库升级：操作日志和任务日志改为按时间分区
+-- 分区字段必须包含在主键中；之后的分区由 PartitionManager 按 fsocity.partition 的配置自动创建和删除
+-- 数据量大时建议在业务低峰执行，重建表期间会锁表
+-- ----------------------------
+ALTER TABLE `tb_admin_operation_log` DROP PRIMARY KEY, ADD PRIMARY KEY (`id`,`operation_time`) USING BTREE;
+ALTER TABLE `tb_admin_operation_log` PARTITION BY RANGE COLUMNS(`operation_time`) (PARTITION p_future VALUES LESS THAN (MAXVALUE));
+
+ALTER TABLE `tb_admin_job_log` DROP PRIMARY KEY, ADD PRIMARY KEY (`id`,`create_time`) USING BTREE;
+ALTER TABLE `tb_admin_job_log` PARTITION BY RANGE COLUMNS(`create_time`) (PARTITION p_future VALUES LESS THAN (MAXVALUE));
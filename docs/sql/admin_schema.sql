@@ -220,8 +220,9 @@ CREATE TABLE `tb_admin_job_log` (
   `status` int(11) NOT NULL DEFAULT '0' COMMENT '状态（0：正常；1：删除）',
   `exception_info` varchar(2000) COLLATE utf8mb4_bin NOT NULL COMMENT '异常信息',
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
-  PRIMARY KEY (`id`) USING BTREE
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_bin COMMENT='定时任务调度日志表';
+  PRIMARY KEY (`id`,`create_time`) USING BTREE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_bin COMMENT='定时任务调度日志表'
+PARTITION BY RANGE COLUMNS(`create_time`) (PARTITION p_future VALUES LESS THAN (MAXVALUE));
 
 -- ----------------------------
 -- Records of tb_admin_job_log
@@ -390,8 +391,9 @@ CREATE TABLE `tb_admin_operation_log` (
   `status` int(11) NOT NULL DEFAULT '0' COMMENT '状态（0：正常；1：删除）',
   `error_msg` varchar(2000) COLLATE utf8mb4_bin NOT NULL DEFAULT '' COMMENT '错误消息',
   `operation_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '操作时间',
-  PRIMARY KEY (`id`) USING BTREE
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_bin COMMENT='操作日志记录';
+  PRIMARY KEY (`id`,`operation_time`) USING BTREE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_bin COMMENT='操作日志记录'
+PARTITION BY RANGE COLUMNS(`operation_time`) (PARTITION p_future VALUES LESS THAN (MAXVALUE));
 
 -- ----------------------------
 -- Records of tb_admin_operation_log
@@ -0,0 +1,61 @@
+package com.fsocity.framework.security.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不同 BCrypt 强度下校验一次密码的耗时，用于评估登录接口的 CPU 占用
+ *
+ * @author zail
+ * @date 2022/7/21
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+    
+    // BCrypt 强度，默认是10
+    @Param({"8", "10", "12"})
+    private int strength;
+    
+    private PasswordEncoder passwordEncoder;
+    
+    private String encodedPassword;
+    
+    @Setup
+    public void setup() {
+        // 与 WebSecurityBeanConfig 中的配置一致
+        passwordEncoder = new DelegatingPasswordEncoder("BCrypt",
+                Collections.singletonMap("BCrypt", new BCryptPasswordEncoder(strength)));
+        encodedPassword = passwordEncoder.encode("admin123456");
+    }
+    
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches("admin123456", encodedPassword);
+    }
+    
+    @Benchmark
+    public boolean mismatches() {
+        return passwordEncoder.matches("wrong-password", encodedPassword);
+    }
+    
+}
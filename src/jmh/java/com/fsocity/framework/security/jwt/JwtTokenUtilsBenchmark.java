@@ -0,0 +1,83 @@
+package com.fsocity.framework.security.jwt;
+
+import com.fsocity.framework.security.properties.JWTProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 生成、解析、校验的耗时
+ *
+ * @author zail
+ * @date 2022/7/21
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenUtilsBenchmark {
+    
+    // 已验证负载的缓存数量，0表示不缓存
+    @Param({"0", "10000"})
+    private long claimsCacheSize;
+    
+    // 是否把权限写入负载
+    @Param({"false", "true"})
+    private boolean embedAuthorities;
+    
+    private JwtTokenUtils jwtTokenUtils;
+    
+    private UserDetails userDetails;
+    
+    private String token;
+    
+    private JwtTokenClaims claims;
+    
+    @Setup
+    public void setup() {
+        JWTProperties properties = new JWTProperties();
+        properties.setClaimsCacheSize(claimsCacheSize);
+        properties.setEmbedAuthorities(embedAuthorities);
+        jwtTokenUtils = new JwtTokenUtils(properties);
+        userDetails = new User("admin", "", Arrays.asList(
+                new SimpleGrantedAuthority("ROLE_admin"),
+                new SimpleGrantedAuthority("admin:user:list"),
+                new SimpleGrantedAuthority("admin:user:edit"),
+                new SimpleGrantedAuthority("admin:role:list"),
+                new SimpleGrantedAuthority("admin:menu:list")));
+        token = jwtTokenUtils.generateToken(userDetails);
+        claims = jwtTokenUtils.parseToken(token);
+    }
+    
+    @Benchmark
+    public String generateToken() {
+        return jwtTokenUtils.generateToken(userDetails);
+    }
+    
+    @Benchmark
+    public JwtTokenClaims parseToken() {
+        return jwtTokenUtils.parseToken(token);
+    }
+    
+    @Benchmark
+    public boolean validateToken() {
+        return jwtTokenUtils.validateToken(claims, userDetails);
+    }
+    
+}
@@ -0,0 +1,132 @@
+package com.fsocity.framework.security.matcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 过滤器中判断请求是否需要认证的耗时，使用与 application.yml 相近的链接配置。
+ * <p>
+ * 每次调用匹配一批路径，结果是每批的耗时。
+ *
+ * @author zail
+ * @date 2022/7/21
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityUrlMatcherBenchmark {
+    
+    private static final String[] AUTHENTICATED_URLS = {"/admin", "/admin/**", "/actuator/**"};
+    
+    private static final String[] UNAUTHENTICATED_URLS = {
+            "/admin/login", "/admin/api/login", "/admin/logout", "/admin/authenticationRequire",
+            "/admin/accessDenied", "/admin/validationCode/**", "/static/**", "/favicon.ico",
+            "/swagger-ui/**", "/v3/api-docs/**", "/swagger-resources/**"
+    };
+    
+    private static final String[] MODULES = {
+            "adminConfig", "adminDepartment", "adminDictionaryData", "adminDictionaryType", "adminJob",
+            "adminJobLog", "adminMenu", "adminNotice", "adminOperationLog", "adminPersistentLogins",
+            "adminRole", "adminRoleMenu", "adminUser", "adminUserRole"
+    };
+    
+    // 请求路径：接口、页面、静态资源、登录
+    private String[] paths;
+    
+    private SecurityUrlMatcher securityUrlMatcher;
+    
+    private UrlPatternTrie authenticatedTrie;
+    
+    private UrlPatternTrie unauthenticatedTrie;
+    
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+    
+    @Setup
+    public void setup() {
+        List<String> paths = new ArrayList<>();
+        for (String module : MODULES) {
+            paths.add("/admin/api/" + module + "/findAll");
+            paths.add("/admin/api/" + module + "/findById/" + module.length());
+            paths.add("/admin/" + module + "/list");
+        }
+        paths.add("/static/admin/plugins/jquery/jquery.min.js");
+        paths.add("/static/admin/dist/css/adminlte.min.css");
+        paths.add("/admin/login");
+        paths.add("/admin/api/login");
+        paths.add("/admin/validationCode/image");
+        paths.add("/admin/index");
+        paths.add("/actuator/metrics");
+        this.paths = paths.toArray(new String[0]);
+        securityUrlMatcher = new SecurityUrlMatcher(AUTHENTICATED_URLS, UNAUTHENTICATED_URLS, 10000L);
+        authenticatedTrie = new UrlPatternTrie(AUTHENTICATED_URLS);
+        unauthenticatedTrie = new UrlPatternTrie(UNAUTHENTICATED_URLS);
+    }
+    
+    /**
+     * 过滤器中实际使用的方式：前缀树 + 结果缓存
+     */
+    @Benchmark
+    public int securityUrlMatcher() {
+        int count = 0;
+        for (String path : paths) {
+            if (securityUrlMatcher.requiresAuthentication(path)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 只用前缀树，不使用缓存
+     */
+    @Benchmark
+    public int urlPatternTrie() {
+        int count = 0;
+        for (String path : paths) {
+            if (!unauthenticatedTrie.matches(path) && authenticatedTrie.matches(path)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 对比：逐个用 AntPathMatcher 匹配
+     */
+    @Benchmark
+    public int antPathMatcher() {
+        int count = 0;
+        for (String path : paths) {
+            if (!anyMatch(UNAUTHENTICATED_URLS, path) && anyMatch(AUTHENTICATED_URLS, path)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    private boolean anyMatch(String[] patterns, String path) {
+        for (String pattern : patterns) {
+            if (antPathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+}
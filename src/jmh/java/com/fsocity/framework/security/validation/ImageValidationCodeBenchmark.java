@@ -0,0 +1,81 @@
+package com.fsocity.framework.security.validation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图形验证码生成和 PNG 编码的耗时，以及从预先生成的池中取出的耗时
+ *
+ * @author zail
+ * @date 2022/7/21
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ImageValidationCodeBenchmark {
+    
+    private ImageValidationCodeGenerator generator;
+    
+    private ImageValidationCodePool pool;
+    
+    @Setup
+    public void setup() {
+        // 与 WebSecurityBeanConfig 中的配置一致
+        generator = new ImageValidationCodeGenerator();
+        generator.setWidth(80);
+        generator.setHeight(80);
+        generator.setFontSize(30);
+        generator.setLines(5);
+        generator.setLength(4);
+        generator.setExpireIn(1800);
+        pool = new ImageValidationCodePool(generator, 200, 600, 50);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+    
+    @Benchmark
+    public ImageValidationCode generate() {
+        return generator.generate();
+    }
+    
+    @Benchmark
+    public byte[] generateAndEncode() throws IOException {
+        ImageValidationCode code = generator.generate();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2048);
+        try (ImageOutputStream imageOut = new MemoryCacheImageOutputStream(out)) {
+            ImageIO.write(code.getImage(), "png", imageOut);
+        }
+        return out.toByteArray();
+    }
+    
+    /**
+     * 池的补充速度有限，测量时间内大部分调用会退回到直接生成，结果是两者的混合
+     */
+    @Benchmark
+    public ImageValidationCodePool.PngValidationCode poolTake() {
+        return pool.take();
+    }
+    
+}
@@ -0,0 +1,24 @@
+package com.fsocity.framework.job;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 定时任务新增、修改或删除后发布，调度器重新加载这个任务
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+public class AdminJobChangedEvent extends ApplicationEvent {
+    
+    private final Integer jobId;
+    
+    public AdminJobChangedEvent(Object source, Integer jobId) {
+        super(source);
+        this.jobId = jobId;
+    }
+    
+    public Integer getJobId() {
+        return jobId;
+    }
+    
+}
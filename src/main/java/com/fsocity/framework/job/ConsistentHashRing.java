@@ -0,0 +1,69 @@
+package com.fsocity.framework.job;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 一致性哈希环，每个节点放多个虚拟节点使分布均匀。
+ * 节点加入或离开时只有相邻区间的 key 换节点，其它 key 仍然在原来的节点上。
+ * 创建后不再修改，节点变化时创建新的对象。
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+public final class ConsistentHashRing {
+    
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    
+    private final Set<String> nodes;
+    
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = Collections.unmodifiableSet(new TreeSet<>(nodes));
+        for (String node : this.nodes) {
+            for (int i = 0; i < Math.max(virtualNodes, 1); i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+    
+    public Set<String> getNodes() {
+        return nodes;
+    }
+    
+    /**
+     * key 所在的节点，没有节点时返回null
+     */
+    public String nodeFor(String key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+    
+    /**
+     * MD5 的前8个字节
+     */
+    private static long hash(String key) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        long hash = 0;
+        for (int i = 0; i < 8; i++) {
+            hash = (hash << 8) | (digest[i] & 0xFF);
+        }
+        return hash;
+    }
+    
+}
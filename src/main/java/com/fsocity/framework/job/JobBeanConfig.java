@@ -0,0 +1,53 @@
+package com.fsocity.framework.job;
+
+import com.fsocity.framework.redis.RedisService;
+import com.fsocity.modules.admin.mapper.AdminJobMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 定时任务配置，fsocity.job.enable=false 时不执行 tb_admin_job 中的任务
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "fsocity.job", name = "enable", havingValue = "true", matchIfMissing = true)
+public class JobBeanConfig {
+    
+    @Bean
+    public JobLogWriter jobLogWriter(JdbcTemplate jdbcTemplate, JobProperties jobProperties,
+                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        JobLogWriter writer = new JobLogWriter(jdbcTemplate, jobProperties);
+        meterRegistry.ifAvailable(registry -> Gauge.builder("fsocity.job.log.dropped", writer, JobLogWriter::getDropped)
+                .description("丢弃的任务日志数量")
+                .register(registry));
+        return writer;
+    }
+    
+    /**
+     * fsocity.job.cluster.mode=local 时不做协调，只能部署一个节点
+     */
+    @Bean
+    public JobCoordinator jobCoordinator(JobProperties jobProperties,
+                                         ObjectProvider<RedisService> redisService) {
+        if (jobProperties.getCluster().getMode() == JobProperties.Mode.LOCAL) {
+            return new LocalJobCoordinator();
+        }
+        return new RedisJobCoordinator(redisService.getObject(), jobProperties.getCluster());
+    }
+    
+    @Bean
+    public JobScheduler jobScheduler(AdminJobMapper adminJobMapper, JobLogWriter jobLogWriter,
+                                     JobCoordinator jobCoordinator, JobProperties jobProperties,
+                                     ApplicationContext applicationContext) {
+        return new JobScheduler(adminJobMapper, jobLogWriter, jobCoordinator, jobProperties, applicationContext);
+    }
+    
+}
@@ -0,0 +1,38 @@
+package com.fsocity.framework.job;
+
+import com.fsocity.modules.admin.entity.AdminJob;
+
+import java.time.Duration;
+
+/**
+ * 多节点部署时协调任务的执行，保证每个任务的每次执行在集群中只执行一次。
+ * <p>
+ * 负责的节点下线后，其它节点要过一段时间才能发现并接管，这期间的计划执行由下线的节点负责。
+ * 为了不丢失这些执行，不负责的节点也记录最近 {@link #getRecoveryWindow()} 内的计划执行时间，
+ * 接管任务后逐个 {@link #tryAcquire(AdminJob, long)}，抢到的(下线节点没有执行的)按错过策略补执行。
+ * 超过这个时间才接管的计划执行，以及所有节点都不在线期间的计划执行会丢失。
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+public interface JobCoordinator {
+    
+    /**
+     * 任务是否由当前节点负责，不负责的任务不会触发。只查询本地状态，不能阻塞
+     */
+    boolean isOwner(AdminJob job);
+    
+    /**
+     * 抢占任务的一次执行，返回false时其它节点已经执行或无法确认，本节点不执行
+     *
+     * @param job      任务
+     * @param fireTime 计划执行时间(毫秒)，所有节点计算出的值相同
+     */
+    boolean tryAcquire(AdminJob job, long fireTime);
+    
+    /**
+     * 不负责的节点记录计划执行时间的时长，应覆盖从节点下线到其它节点接管的时间，为0时不记录
+     */
+    Duration getRecoveryWindow();
+    
+}
@@ -0,0 +1,142 @@
+package com.fsocity.framework.job;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 解析后的调用目标。
+ * <p>
+ * 格式：Bean名称.方法名(参数) 或 完整类名.方法名(参数)，没有参数时可以省略括号，例如
+ * ryTask.ryParams('ry')、com.fsocity.task.DemoTask.run(true, 2000L, 316.50D, 100)。
+ * 参数支持：单引号或双引号括起来的字符串、true/false、L 结尾的 Long、D 结尾的 Double、其它整数为 Integer。
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+public final class JobInvokeTarget {
+    
+    // Bean 名称或完整类名
+    private final String target;
+    
+    private final String method;
+    
+    private final List<Object> args;
+    
+    private JobInvokeTarget(String target, String method, List<Object> args) {
+        this.target = target;
+        this.method = method;
+        this.args = args;
+    }
+    
+    public String getTarget() {
+        return target;
+    }
+    
+    public String getMethod() {
+        return method;
+    }
+    
+    public List<Object> getArgs() {
+        return args;
+    }
+    
+    /**
+     * 目标是否是完整类名，否则是 Bean 名称
+     */
+    public boolean isClassName() {
+        return target.indexOf('.') > 0;
+    }
+    
+    /**
+     * 解析调用目标字符串
+     *
+     * @throws IllegalArgumentException 格式错误
+     */
+    public static JobInvokeTarget parse(String invokeTarget) {
+        String value = invokeTarget == null ? "" : invokeTarget.trim();
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("调用目标不能为空");
+        }
+        String head = value;
+        List<Object> args = Collections.emptyList();
+        int paren = value.indexOf('(');
+        if (paren >= 0) {
+            if (!value.endsWith(")")) {
+                throw new IllegalArgumentException("调用目标缺少')'：" + invokeTarget);
+            }
+            head = value.substring(0, paren).trim();
+            args = parseArgs(value.substring(paren + 1, value.length() - 1));
+        }
+        int dot = head.lastIndexOf('.');
+        if (dot <= 0 || dot == head.length() - 1) {
+            throw new IllegalArgumentException("调用目标格式错误：" + invokeTarget);
+        }
+        return new JobInvokeTarget(head.substring(0, dot), head.substring(dot + 1), args);
+    }
+    
+    private static List<Object> parseArgs(String value) {
+        List<Object> args = new ArrayList<>();
+        if (value.trim().isEmpty()) {
+            return args;
+        }
+        // 按引号外的逗号分隔
+        StringBuilder token = new StringBuilder();
+        char quote = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            }
+            else if (c == '\'' || c == '"') {
+                quote = c;
+            }
+            else if (c == ',') {
+                args.add(parseArg(token.toString()));
+                token.setLength(0);
+                continue;
+            }
+            token.append(c);
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("参数缺少结束引号：" + value);
+        }
+        args.add(parseArg(token.toString()));
+        return args;
+    }
+    
+    private static Object parseArg(String token) {
+        String value = token.trim();
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("参数不能为空");
+        }
+        char first = value.charAt(0);
+        if ((first == '\'' || first == '"') && value.length() >= 2 && value.charAt(value.length() - 1) == first) {
+            return value.substring(1, value.length() - 1);
+        }
+        if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+            return Boolean.valueOf(value);
+        }
+        char last = Character.toUpperCase(value.charAt(value.length() - 1));
+        try {
+            if (last == 'L') {
+                return Long.valueOf(value.substring(0, value.length() - 1));
+            }
+            if (last == 'D') {
+                return Double.valueOf(value.substring(0, value.length() - 1));
+            }
+            return Integer.valueOf(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无法识别的参数：" + value);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return target + "." + method + args;
+    }
+    
+}
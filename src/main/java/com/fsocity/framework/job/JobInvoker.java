@@ -0,0 +1,102 @@
+package com.fsocity.framework.job;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.ApplicationContext;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * 调用目标对应的方法句柄，加载任务时解析一次，绑定好 Bean 和参数，每次执行时直接调用
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+public final class JobInvoker {
+    
+    private final MethodHandle handle;
+    
+    /**
+     * @param handle 没有参数、返回 Object 的方法句柄
+     */
+    JobInvoker(MethodHandle handle) {
+        this.handle = handle;
+    }
+    
+    /**
+     * 执行，返回方法的返回值，void 方法返回null
+     */
+    public Object invoke() throws Throwable {
+        return (Object) handle.invokeExact();
+    }
+    
+    /**
+     * 查找调用目标对应的 Bean 和方法
+     *
+     * @param target          调用目标
+     * @param context         Spring 容器
+     * @param allowedPackages 允许调用的包
+     * @throws IllegalArgumentException 找不到或不允许调用
+     */
+    public static JobInvoker resolve(JobInvokeTarget target, ApplicationContext context, List<String> allowedPackages) {
+        Object bean;
+        try {
+            bean = target.isClassName()
+                    ? context.getBean(ClassUtils.forName(target.getTarget(), context.getClassLoader()))
+                    : context.getBean(target.getTarget());
+        }
+        catch (Exception e) {
+            throw new IllegalArgumentException("找不到调用目标：" + target.getTarget(), e);
+        }
+        // 在原始类上查找方法，代理类的方法都声明在代理类中，无法判断是否允许调用
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        Method method = findMethod(targetClass, target);
+        if (!isAllowed(method.getDeclaringClass(), allowedPackages)) {
+            throw new IllegalArgumentException("不允许调用的方法：" + method);
+        }
+        // 通过代理调用，事务等切面仍然生效
+        Method invocable = AopUtils.selectInvocableMethod(method, bean.getClass());
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(invocable).bindTo(bean);
+            handle = MethodHandles.insertArguments(handle, 0, target.getArgs().toArray());
+            return new JobInvoker(handle.asType(MethodType.methodType(Object.class)));
+        }
+        catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("无法调用的方法：" + method, e);
+        }
+    }
+    
+    private static Method findMethod(Class<?> type, JobInvokeTarget target) {
+        List<Object> args = target.getArgs();
+        for (Method method : type.getMethods()) {
+            if (!method.getName().equals(target.getMethod()) || method.getParameterCount() != args.size()) {
+                continue;
+            }
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            boolean matched = true;
+            for (int i = 0; i < parameterTypes.length && matched; i++) {
+                matched = ClassUtils.isAssignableValue(parameterTypes[i], args.get(i));
+            }
+            if (matched) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("找不到方法：" + type.getName() + "." + target.getMethod()
+                + "，参数：" + args);
+    }
+    
+    private static boolean isAllowed(Class<?> type, List<String> allowedPackages) {
+        String name = type.getName();
+        for (String allowedPackage : allowedPackages) {
+            if (name.startsWith(allowedPackage + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+}
@@ -0,0 +1,153 @@
+package com.fsocity.framework.job;
+
+import com.fsocity.framework.log.MpscRingBuffer;
+import com.fsocity.modules.admin.entity.AdminJobLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 任务日志的后台写入线程，与操作日志一样攒够一批或等待超过 logFlushInterval 后用一条多行 INSERT 写入。
+ * 任务日志量不大，队列满或写入失败时直接丢弃。
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+@Slf4j
+public class JobLogWriter implements AutoCloseable {
+    
+    private static final String INSERT_SQL = "INSERT INTO tb_admin_job_log (`group`, name, invoke_target, "
+            + "job_message, status, exception_info, create_time) VALUES ";
+    
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final int COLUMN_COUNT = 7;
+    
+    // 队列为空时的等待时间
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final int batchSize;
+    
+    private final long flushIntervalNanos;
+    
+    private final MpscRingBuffer<AdminJobLog> buffer;
+    
+    private final AtomicLong dropped = new AtomicLong();
+    
+    private volatile boolean running = true;
+    
+    private final Thread thread;
+    
+    public JobLogWriter(JdbcTemplate jdbcTemplate, JobProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(properties.getLogBatchSize(), 1);
+        this.flushIntervalNanos = properties.getLogFlushInterval().toNanos();
+        this.buffer = new MpscRingBuffer<>(properties.getLogBufferSize());
+        this.thread = new Thread(this::run, "admin-job-log-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+    
+    /**
+     * 提交一条日志，不等待写入数据库
+     */
+    public void submit(AdminJobLog jobLog) {
+        if (!buffer.offer(jobLog)) {
+            long total = dropped.incrementAndGet();
+            log.warn("任务日志队列已满，丢弃 name = {}, 累计丢弃 {} 条", jobLog.getName(), total);
+        }
+    }
+    
+    /**
+     * 累计丢弃的数量
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+    
+    private void run() {
+        List<AdminJobLog> batch = new ArrayList<>(batchSize);
+        long flushDeadline = 0L;
+        while (running || buffer.size() > 0) {
+            boolean wasEmpty = batch.isEmpty();
+            int count = buffer.drainTo(batch, batchSize - batch.size());
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            if (wasEmpty) {
+                flushDeadline = System.nanoTime() + flushIntervalNanos;
+            }
+            if (batch.size() >= batchSize || System.nanoTime() - flushDeadline >= 0 || !running) {
+                write(batch);
+                batch.clear();
+            }
+            else if (count == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+    
+    /**
+     * 多行 INSERT，一批只执行一条语句
+     */
+    private void write(List<AdminJobLog> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_SQL.length() + batch.size() * (ROW_PLACEHOLDERS.length() + 2));
+        sql.append(INSERT_SQL);
+        Object[] args = new Object[batch.size() * COLUMN_COUNT];
+        int i = 0;
+        for (AdminJobLog jobLog : batch) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+            args[i++] = text(jobLog.getGroup());
+            args[i++] = text(jobLog.getName());
+            args[i++] = text(jobLog.getInvokeTarget());
+            args[i++] = text(jobLog.getJobMessage());
+            args[i++] = jobLog.getStatus() != null ? jobLog.getStatus() : 0;
+            args[i++] = text(jobLog.getExceptionInfo());
+            LocalDateTime createTime = jobLog.getCreateTime();
+            args[i++] = Timestamp.valueOf(createTime != null ? createTime : LocalDateTime.now());
+        }
+        try {
+            jdbcTemplate.update(sql.toString(), args);
+        }
+        catch (Exception e) {
+            long total = dropped.addAndGet(batch.size());
+            log.error("写入任务日志失败，丢弃 count = {}, 累计丢弃 {} 条", batch.size(), total, e);
+        }
+    }
+    
+    private static String text(String value) {
+        return value != null ? value : "";
+    }
+    
+    /**
+     * 停止时写完队列中剩余的日志
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+}
@@ -0,0 +1,83 @@
+package com.fsocity.framework.job;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 定时任务配置
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+@Data
+@ConfigurationProperties(prefix = "fsocity.job")
+@Component
+public class JobProperties {
+    
+    // 是否开启
+    private boolean enable = true;
+    
+    // 执行任务的线程数
+    private int poolSize = 4;
+    
+    // 超过计划时间多久开始执行算作错过
+    private Duration misfireThreshold = Duration.ofSeconds(5);
+    
+    // 错过策略为立即执行时，最多补执行多少次
+    private int maxMisfireRuns = 10;
+    
+    // 定时从数据库重新加载任务的间隔，其它节点或直接修改数据库的变更在这个时间内生效
+    private Duration reloadInterval = Duration.ofMinutes(1);
+    
+    // 调用目标允许的包，只放专门的任务类，防止通过任务调用 Service、调度器等任意 Bean 的方法
+    private List<String> allowedPackages = new ArrayList<>(Collections.singletonList("com.fsocity.task"));
+    
+    // 任务日志队列容量
+    private int logBufferSize = 1024;
+    
+    // 任务日志每次批量写入的最大条数
+    private int logBatchSize = 100;
+    
+    // 任务日志不满一批时最多等待多久写入
+    private Duration logFlushInterval = Duration.ofSeconds(1);
+    
+    // 多节点部署时的协调方式
+    private Cluster cluster = new Cluster();
+    
+    @Data
+    public static class Cluster {
+        
+        // 协调方式
+        private Mode mode = Mode.REDIS;
+        
+        // Redis key 前缀
+        private String keyPrefix = "fsocity:job:";
+        
+        // 节点多久没有心跳算作下线，下线节点的任务由其它节点接管
+        private Duration nodeTtl = Duration.ofSeconds(30);
+        
+        // 心跳间隔，同时刷新节点列表
+        private Duration heartbeatInterval = Duration.ofSeconds(10);
+        
+        // 每次执行的租约保留多久，需要大于节点间的时钟误差和 misfireThreshold
+        private Duration fireLeaseTtl = Duration.ofMinutes(10);
+        
+        // 每个节点在一致性哈希环上的虚拟节点数
+        private int virtualNodes = 160;
+    
+    }
+    
+    public enum Mode {
+        // 单节点，不做协调
+        LOCAL,
+        // 通过 Redis 登记节点和抢占每次执行
+        REDIS,
+    }
+    
+}
@@ -0,0 +1,523 @@
+package com.fsocity.framework.job;
+
+import com.fsocity.framework.web.enums.DeleteStatusEnum;
+import com.fsocity.modules.admin.entity.AdminJob;
+import com.fsocity.modules.admin.entity.AdminJobLog;
+import com.fsocity.modules.admin.mapper.AdminJobMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * tb_admin_job 的调度器。
+ * <p>
+ * 启动时加载所有任务，解析 cron 表达式和调用目标(见 {@link JobInvokeTarget})，
+ * 每个任务的下一次执行时间放在按时间排序的 {@link DelayQueue} 中，由一个触发线程取出到期的任务交给线程池执行，
+ * 执行结果通过 {@link JobLogWriter} 异步批量写入 tb_admin_job_log。
+ * <p>
+ * 禁止并发(concurrent=0)的任务，上一次还没执行完时本次算作错过；开始执行时已经超过 misfireThreshold 也算作错过，
+ * 错过后按 {@link MisfirePolicy} 处理。停机期间错过的执行时间不会补执行。
+ * 多节点部署时，接管下线节点的任务后，它在 {@link JobCoordinator#getRecoveryWindow()} 内没有执行的计划同样按错过策略处理。
+ * <p>
+ * 通过 AdminJobService 修改任务后发布 {@link AdminJobChangedEvent}，立即重新加载；
+ * 另外每隔 reloadInterval 从数据库重新加载一次，其它节点的修改也能生效。
+ * <p>
+ * 多节点部署时由 {@link JobCoordinator} 决定每个任务由哪个节点触发，并保证每次执行只在一个节点执行。
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+@Slf4j
+public class JobScheduler implements ApplicationRunner, DisposableBean {
+    
+    // 任务日志中异常信息的最大长度
+    private static final int EXCEPTION_INFO_LENGTH = 2000;
+    
+    private final AdminJobMapper adminJobMapper;
+    
+    private final JobLogWriter jobLogWriter;
+    
+    private final JobCoordinator jobCoordinator;
+    
+    private final JobProperties properties;
+    
+    private final ApplicationContext applicationContext;
+    
+    // 计算执行时间、判断错过和过期用的时钟
+    private final Clock clock;
+    
+    // 任务ID -> 已加载的任务
+    private final ConcurrentMap<Integer, ScheduledJob> jobs = new ConcurrentHashMap<>();
+    
+    // 任务ID -> 加载失败的任务定义，任务没有修改时不重复打印错误
+    private final Map<Integer, String> failedDefinitions = new ConcurrentHashMap<>();
+    
+    // 记录了其它节点计划执行时间的任务ID，只在触发线程中访问
+    private final Set<Integer> pendingJobs = new HashSet<>();
+    
+    private final DelayQueue<Trigger> triggers = new DelayQueue<>();
+    
+    private final ThreadPoolExecutor executor;
+    
+    private final Thread triggerThread;
+    
+    private volatile boolean running = true;
+    
+    public JobScheduler(AdminJobMapper adminJobMapper, JobLogWriter jobLogWriter, JobCoordinator jobCoordinator,
+                        JobProperties properties, ApplicationContext applicationContext) {
+        this(adminJobMapper, jobLogWriter, jobCoordinator, properties, applicationContext, Clock.systemDefaultZone());
+    }
+    
+    JobScheduler(AdminJobMapper adminJobMapper, JobLogWriter jobLogWriter, JobCoordinator jobCoordinator,
+                 JobProperties properties, ApplicationContext applicationContext, Clock clock) {
+        this.adminJobMapper = adminJobMapper;
+        this.jobLogWriter = jobLogWriter;
+        this.jobCoordinator = jobCoordinator;
+        this.properties = properties;
+        this.applicationContext = applicationContext;
+        this.clock = clock;
+        int poolSize = Math.max(properties.getPoolSize(), 1);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("admin-job-"));
+        this.triggerThread = new Thread(this::triggerLoop, "admin-job-trigger");
+        this.triggerThread.setDaemon(true);
+    }
+    
+    /**
+     * 容器启动完成后再加载任务，调用目标的 Bean 都已经创建
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        // 数据库暂时不可用时不影响启动，之后定时重新加载
+        reloadAllQuietly();
+        triggerThread.start();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onJobChanged(AdminJobChangedEvent event) {
+        try {
+            reload(event.getJobId());
+        }
+        catch (Exception e) {
+            log.error("重新加载任务失败 id = {}", event.getJobId(), e);
+        }
+    }
+    
+    /**
+     * 从数据库重新加载所有任务，没有修改的任务保持原来的执行时间
+     */
+    public synchronized void reloadAll() {
+        List<AdminJob> list = adminJobMapper.selectList(null);
+        Set<Integer> ids = new HashSet<>();
+        for (AdminJob job : list) {
+            ids.add(job.getId());
+            schedule(job);
+        }
+        for (Integer id : new ArrayList<>(jobs.keySet())) {
+            if (!ids.contains(id)) {
+                unschedule(id);
+            }
+        }
+        failedDefinitions.keySet().retainAll(ids);
+    }
+    
+    /**
+     * 从数据库重新加载一个任务
+     */
+    public synchronized void reload(Integer id) {
+        AdminJob job = id != null ? adminJobMapper.selectById(id) : null;
+        if (job == null) {
+            unschedule(id);
+            failedDefinitions.remove(id);
+            return;
+        }
+        schedule(job);
+    }
+    
+    private void schedule(AdminJob job) {
+        Integer id = job.getId();
+        if (DeleteStatusEnum.DELETED.getCode().equals(job.getStatus())) {
+            unschedule(id);
+            return;
+        }
+        String definition = ScheduledJob.definitionOf(job);
+        ScheduledJob previous = jobs.get(id);
+        if ((previous != null && previous.getDefinition().equals(definition))
+                || definition.equals(failedDefinitions.get(id))) {
+            return;
+        }
+        
+        ScheduledJob scheduledJob;
+        try {
+            CronExpression cron = CronExpression.parse(job.getCronExpression());
+            JobInvoker invoker = JobInvoker.resolve(JobInvokeTarget.parse(job.getInvokeTarget()),
+                    applicationContext, properties.getAllowedPackages());
+            scheduledJob = new ScheduledJob(job, definition, cron, invoker, previous);
+        }
+        catch (IllegalArgumentException e) {
+            failedDefinitions.put(id, definition);
+            unschedule(id);
+            log.error("加载任务失败 id = {}, name = {}, {}", id, job.getName(), e.getMessage());
+            return;
+        }
+        failedDefinitions.remove(id);
+        schedule(scheduledJob);
+    }
+    
+    /**
+     * 替换同一个ID的任务，从当前时间开始计算下一次执行时间
+     */
+    void schedule(ScheduledJob scheduledJob) {
+        AdminJob job = scheduledJob.getJob();
+        Integer id = job.getId();
+        unschedule(id);
+        jobs.put(id, scheduledJob);
+        
+        ZonedDateTime next = scheduledJob.getCron().next(ZonedDateTime.now(clock));
+        if (next == null) {
+            log.warn("任务没有下一次执行时间 id = {}, name = {}", id, job.getName());
+            return;
+        }
+        triggers.add(new Trigger(scheduledJob, next));
+        log.info("加载任务 id = {}, name = {}, cron = {}, next = {}", id, job.getName(), job.getCronExpression(), next);
+    }
+    
+    private void unschedule(Integer id) {
+        ScheduledJob previous = jobs.remove(id);
+        if (previous != null) {
+            previous.cancel();
+            triggers.removeIf(trigger -> trigger.getJob() == previous);
+        }
+    }
+    
+    private void triggerLoop() {
+        long reloadIntervalMillis = properties.getReloadInterval().toMillis();
+        long nextReload = reloadIntervalMillis > 0 ? System.currentTimeMillis() + reloadIntervalMillis : Long.MAX_VALUE;
+        while (running) {
+            Trigger trigger;
+            long timeout = Math.max(nextReload - System.currentTimeMillis(), 1L);
+            if (!pendingJobs.isEmpty()) {
+                // 有待接管的任务时每秒检查一次，哈希环在心跳线程中刷新
+                timeout = Math.min(timeout, 1000L);
+            }
+            try {
+                trigger = triggers.poll(timeout, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (System.currentTimeMillis() >= nextReload) {
+                nextReload = System.currentTimeMillis() + reloadIntervalMillis;
+                submit(this::reloadAllQuietly);
+            }
+            if (trigger != null) {
+                fire(trigger);
+            }
+            recoverPendingJobs();
+        }
+    }
+    
+    void fire(Trigger trigger) {
+        ScheduledJob job = trigger.getJob();
+        if (job.isCancelled()) {
+            return;
+        }
+        // 下一次执行时间从本次的计划时间算起，不会因为触发晚了而漂移；
+        // 触发线程被耽误(例如长时间GC)期间已经过去的执行时间只计数，由错过策略决定是否补执行
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        ZonedDateTime next = job.getCron().next(trigger.getFireTime());
+        int skipped = 0;
+        while (next != null && next.isBefore(now)) {
+            if (++skipped > properties.getMaxMisfireRuns()) {
+                next = job.getCron().next(now);
+                break;
+            }
+            next = job.getCron().next(next);
+        }
+        if (next != null) {
+            triggers.add(new Trigger(job, next));
+        }
+        // 其它节点负责的任务只计算执行时间并记录本次计划，节点下线后可以立即接管
+        if (!jobCoordinator.isOwner(job.getJob())) {
+            addPendingFire(job, trigger.getFireTime().toInstant().toEpochMilli());
+            return;
+        }
+        recoverPending(job);
+        int missed = skipped;
+        submit(() -> execute(job, trigger.getFireTime(), missed));
+    }
+    
+    private void addPendingFire(ScheduledJob job, long fireTime) {
+        long window = jobCoordinator.getRecoveryWindow().toMillis();
+        if (window <= 0) {
+            return;
+        }
+        Deque<Long> pendingFires = job.getPendingFires();
+        pendingFires.addLast(fireTime);
+        removeExpired(pendingFires, window);
+        pendingJobs.add(job.getJob().getId());
+    }
+    
+    /**
+     * 检查记录了计划执行时间的任务是否已经由本节点负责
+     */
+    void recoverPendingJobs() {
+        if (pendingJobs.isEmpty()) {
+            return;
+        }
+        long window = jobCoordinator.getRecoveryWindow().toMillis();
+        Iterator<Integer> iterator = pendingJobs.iterator();
+        while (iterator.hasNext()) {
+            ScheduledJob job = jobs.get(iterator.next());
+            if (job == null) {
+                iterator.remove();
+                continue;
+            }
+            removeExpired(job.getPendingFires(), window);
+            if (job.getPendingFires().isEmpty()) {
+                iterator.remove();
+            }
+            else if (jobCoordinator.isOwner(job.getJob())) {
+                recoverPending(job);
+                iterator.remove();
+            }
+        }
+    }
+    
+    private void recoverPending(ScheduledJob job) {
+        Deque<Long> pendingFires = job.getPendingFires();
+        removeExpired(pendingFires, jobCoordinator.getRecoveryWindow().toMillis());
+        if (pendingFires.isEmpty()) {
+            return;
+        }
+        List<Long> fireTimes = new ArrayList<>(pendingFires);
+        pendingFires.clear();
+        submit(() -> recover(job, fireTimes));
+    }
+    
+    private void removeExpired(Deque<Long> pendingFires, long window) {
+        long expiredBefore = clock.millis() - window;
+        while (!pendingFires.isEmpty() && pendingFires.peekFirst() < expiredBefore) {
+            pendingFires.pollFirst();
+        }
+    }
+    
+    private void submit(Runnable task) {
+        try {
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException e) {
+            // 正在停止
+            log.debug("调度器已停止，忽略任务");
+        }
+    }
+    
+    /**
+     * 执行一次触发
+     *
+     * @param fireTime 计划执行时间
+     * @param skipped  本次之前已经错过的次数
+     */
+    void execute(ScheduledJob job, ZonedDateTime fireTime, int skipped) {
+        if (job.isCancelled()) {
+            return;
+        }
+        if (!jobCoordinator.tryAcquire(job.getJob(), fireTime.toInstant().toEpochMilli())) {
+            log.debug("任务已由其它节点执行 name = {}, fireTime = {}", job.getJob().getName(), fireTime);
+            return;
+        }
+        int runs = 1;
+        long lateMillis = clock.millis() - fireTime.toInstant().toEpochMilli();
+        if (skipped > 0 || lateMillis > properties.getMisfireThreshold().toMillis()) {
+            runs = job.getMisfirePolicy().runs(skipped + 1, properties.getMaxMisfireRuns());
+            if (runs == 0) {
+                log.debug("任务错过执行时间，放弃执行 name = {}, fireTime = {}", job.getJob().getName(), fireTime);
+                return;
+            }
+        }
+        if (job.isConcurrent()) {
+            invoke(job, runs);
+            return;
+        }
+        executeExclusive(job, runs);
+    }
+    
+    /**
+     * 接管任务后处理原来的节点下线前的计划：抢占每一次执行，抢到的说明原来的节点没有执行，按错过策略补执行
+     *
+     * @param fireTimes 计划执行时间(毫秒)
+     */
+    private void recover(ScheduledJob job, List<Long> fireTimes) {
+        int missed = 0;
+        for (Long fireTime : fireTimes) {
+            if (!job.isCancelled() && jobCoordinator.tryAcquire(job.getJob(), fireTime)) {
+                missed++;
+            }
+        }
+        if (missed == 0) {
+            return;
+        }
+        int runs = job.getMisfirePolicy().runs(missed, properties.getMaxMisfireRuns());
+        log.info("接管任务，下线节点错过的执行 name = {}, missed = {}, runs = {}", job.getJob().getName(), missed, runs);
+        if (runs == 0) {
+            return;
+        }
+        if (job.isConcurrent()) {
+            invoke(job, runs);
+            return;
+        }
+        executeExclusive(job, runs);
+    }
+    
+    /**
+     * 禁止并发的任务：拿不到锁时记为错过，由正在执行的线程结束后按错过策略补执行
+     */
+    private void executeExclusive(ScheduledJob job, int runs) {
+        boolean handedOver = false;
+        while (true) {
+            if (!job.tryLock()) {
+                if (handedOver) {
+                    return;
+                }
+                job.getMissed().addAndGet(runs);
+                // 再尝试一次，正在执行的线程可能刚好在记录错过之前检查完并结束了
+                handedOver = true;
+                continue;
+            }
+            try {
+                if (!handedOver) {
+                    invoke(job, runs);
+                    handedOver = true;
+                }
+                int missed;
+                while ((missed = job.getMissed().getAndSet(0)) > 0 && !job.isCancelled()) {
+                    invoke(job, job.getMisfirePolicy().runs(missed, properties.getMaxMisfireRuns()));
+                }
+            }
+            finally {
+                job.unlock();
+            }
+            if (job.getMissed().get() == 0 || job.isCancelled()) {
+                return;
+            }
+        }
+    }
+    
+    private void invoke(ScheduledJob job, int times) {
+        for (int i = 0; i < times && !job.isCancelled(); i++) {
+            invoke(job);
+        }
+    }
+    
+    private void invoke(ScheduledJob job) {
+        AdminJob adminJob = job.getJob();
+        LocalDateTime startTime = LocalDateTime.now(clock);
+        long start = System.nanoTime();
+        Throwable error = null;
+        try {
+            job.getInvoker().invoke();
+        }
+        catch (Throwable e) {
+            error = e;
+            log.error("执行任务失败 id = {}, name = {}", adminJob.getId(), adminJob.getName(), e);
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        jobLogWriter.submit(AdminJobLog.builder()
+                .group(adminJob.getGroup())
+                .name(adminJob.getName())
+                .invokeTarget(adminJob.getInvokeTarget())
+                .jobMessage(adminJob.getName() + (error == null ? " 执行成功" : " 执行失败") + "，耗时：" + millis + "毫秒")
+                .status(DeleteStatusEnum.EXISTS.getCode())
+                .exceptionInfo(error == null ? "" : StringUtils.abbreviate(
+                        ExceptionUtils.getStackTrace(error), EXCEPTION_INFO_LENGTH))
+                .createTime(startTime)
+                .build());
+    }
+    
+    private void reloadAllQuietly() {
+        try {
+            reloadAll();
+        }
+        catch (Exception e) {
+            log.error("重新加载任务失败", e);
+        }
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        triggerThread.interrupt();
+        for (ScheduledJob job : jobs.values()) {
+            job.cancel();
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("等待任务执行结束超时，剩余 {} 个", executor.getActiveCount());
+        }
+    }
+    
+    /**
+     * 一次计划执行
+     */
+    static final class Trigger implements Delayed {
+        
+        private final ScheduledJob job;
+        
+        private final ZonedDateTime fireTime;
+        
+        private final long fireTimeMillis;
+        
+        Trigger(ScheduledJob job, ZonedDateTime fireTime) {
+            this.job = job;
+            this.fireTime = fireTime;
+            this.fireTimeMillis = fireTime.toInstant().toEpochMilli();
+        }
+        
+        ScheduledJob getJob() {
+            return job;
+        }
+        
+        ZonedDateTime getFireTime() {
+            return fireTime;
+        }
+        
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(fireTimeMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+        
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(fireTimeMillis, ((Trigger) other).fireTimeMillis);
+        }
+    
+    }
+    
+}
@@ -0,0 +1,30 @@
+package com.fsocity.framework.job;
+
+import com.fsocity.modules.admin.entity.AdminJob;
+
+import java.time.Duration;
+
+/**
+ * 单节点部署，所有任务都在本节点执行
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+public class LocalJobCoordinator implements JobCoordinator {
+    
+    @Override
+    public boolean isOwner(AdminJob job) {
+        return true;
+    }
+    
+    @Override
+    public boolean tryAcquire(AdminJob job, long fireTime) {
+        return true;
+    }
+    
+    @Override
+    public Duration getRecoveryWindow() {
+        return Duration.ZERO;
+    }
+    
+}
@@ -0,0 +1,63 @@
+package com.fsocity.framework.job;
+
+/**
+ * 错过执行时间(上一次还没执行完、线程池繁忙等)时的处理策略，对应 tb_admin_job.misfire_policy
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+public enum MisfirePolicy {
+    
+    /**
+     * 放弃执行，等下一次执行时间
+     */
+    DO_NOTHING,
+    
+    /**
+     * 立即执行，错过几次补执行几次
+     */
+    FIRE_NOW,
+    
+    /**
+     * 执行一次，错过多次也只补执行一次
+     */
+    FIRE_ONCE;
+    
+    /**
+     * 根据 misfire_policy 获取：1 立即执行，2 执行一次，其它为放弃执行
+     */
+    public static MisfirePolicy of(Integer code) {
+        if (code == null) {
+            return DO_NOTHING;
+        }
+        switch (code) {
+            case 1:
+                return FIRE_NOW;
+            case 2:
+                return FIRE_ONCE;
+            default:
+                return DO_NOTHING;
+        }
+    }
+    
+    /**
+     * 错过 missed 次后需要执行的次数
+     *
+     * @param missed 错过的次数
+     * @param max    最多执行的次数
+     */
+    public int runs(int missed, int max) {
+        if (missed <= 0) {
+            return 0;
+        }
+        switch (this) {
+            case FIRE_NOW:
+                return Math.min(missed, Math.max(max, 1));
+            case FIRE_ONCE:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+    
+}
@@ -0,0 +1,155 @@
+package com.fsocity.framework.job;
+
+import com.fsocity.framework.redis.RedisService;
+import com.fsocity.modules.admin.entity.AdminJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过 Redis 协调多个节点：
+ * <ul>
+ *     <li>每个节点定时把自己的过期时间写入有序集合 {keyPrefix}nodes，没过期的成员就是在线节点</li>
+ *     <li>任务按 group/name 在一致性哈希环上分配给在线节点，只有负责的节点触发，节点越多分担的任务越多</li>
+ *     <li>节点下线(心跳超过 nodeTtl)后其它节点重新计算哈希环，接管它的任务，
+ *     并补执行下线节点在 nodeTtl + 2 * heartbeatInterval 内没有执行的计划</li>
+ *     <li>节点变化期间两个节点可能同时认为自己负责同一个任务，执行前用 SET NX 抢占
+ *     {keyPrefix}fire:{任务ID}:{计划执行时间}，只有抢到的节点执行</li>
+ * </ul>
+ * Redis 不可用时不执行任务，避免重复执行。Redis 命令都通过 {@link RedisService} 执行，和其它 Redis 调用一起记录监控指标。
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+@Slf4j
+public class RedisJobCoordinator implements JobCoordinator, AutoCloseable {
+    
+    private final RedisService redisService;
+    
+    private final JobProperties.Cluster properties;
+    
+    // 计算节点过期时间用的时钟
+    private final Clock clock;
+    
+    private final String nodeId;
+    
+    private final String nodesKey;
+    
+    private final ScheduledExecutorService heartbeatExecutor;
+    
+    // 当前的哈希环，为null时还没有成功读取过节点列表
+    private volatile ConsistentHashRing ring;
+    
+    public RedisJobCoordinator(RedisService redisService, JobProperties.Cluster properties) {
+        this(redisService, properties, Clock.systemDefaultZone());
+    }
+    
+    RedisJobCoordinator(RedisService redisService, JobProperties.Cluster properties, Clock clock) {
+        this.redisService = redisService;
+        this.properties = properties;
+        this.clock = clock;
+        // pid@主机名，加上随机数避免容器中pid相同
+        this.nodeId = ManagementFactory.getRuntimeMXBean().getName() + ":"
+                + UUID.randomUUID().toString().substring(0, 8);
+        this.nodesKey = properties.getKeyPrefix() + "nodes";
+        this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("admin-job-heartbeat-"));
+        heartbeat();
+        long interval = Math.max(properties.getHeartbeatInterval().toMillis(), 1000L);
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+    
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    /**
+     * 当前的在线节点
+     */
+    public Set<String> getNodes() {
+        ConsistentHashRing current = ring;
+        return current != null ? current.getNodes() : Collections.emptySet();
+    }
+    
+    @Override
+    public boolean isOwner(AdminJob job) {
+        ConsistentHashRing current = ring;
+        // 还没有读取到节点列表时都尝试执行，由 tryAcquire 决定
+        return current == null || nodeId.equals(current.nodeFor(job.getGroup() + "/" + job.getName()));
+    }
+    
+    @Override
+    public boolean tryAcquire(AdminJob job, long fireTime) {
+        String key = properties.getKeyPrefix() + "fire:" + job.getId() + ":" + fireTime;
+        try {
+            return Boolean.TRUE.equals(redisService.setIfAbsent(key, nodeId,
+                    Math.max(properties.getFireLeaseTtl().getSeconds(), 1L)));
+        }
+        catch (Exception e) {
+            log.warn("抢占任务执行失败，本次不执行 id = {}, name = {}", job.getId(), job.getName(), e);
+            return false;
+        }
+    }
+    
+    /**
+     * 节点最后一次心跳之后最多 nodeTtl 才过期，其它节点最多再过一个心跳间隔才刷新哈希环；
+     * 补执行依赖抢占记录判断是否已经执行过，不能超过抢占记录的保留时间
+     */
+    @Override
+    public Duration getRecoveryWindow() {
+        Duration window = properties.getNodeTtl().plus(properties.getHeartbeatInterval().multipliedBy(2));
+        return window.compareTo(properties.getFireLeaseTtl()) < 0 ? window : properties.getFireLeaseTtl();
+    }
+    
+    /**
+     * 写入本节点的过期时间，删除过期的节点，并刷新哈希环
+     */
+    void heartbeat() {
+        try {
+            long now = clock.millis();
+            redisService.zAdd(nodesKey, nodeId, now + properties.getNodeTtl().toMillis());
+            redisService.zRemoveRangeByScore(nodesKey, 0, now);
+            Set<Object> members = redisService.zRangeByScore(nodesKey, now, Double.POSITIVE_INFINITY);
+            Set<String> nodes = new TreeSet<>();
+            if (members != null) {
+                for (Object member : members) {
+                    nodes.add(String.valueOf(member));
+                }
+            }
+            nodes.add(nodeId);
+            ConsistentHashRing current = ring;
+            if (current == null || !current.getNodes().equals(nodes)) {
+                ring = new ConsistentHashRing(nodes, properties.getVirtualNodes());
+                log.info("任务节点变化 node = {}, nodes = {}", nodeId, nodes);
+            }
+        }
+        catch (Exception e) {
+            log.warn("任务节点心跳失败 node = {}", nodeId, e);
+        }
+    }
+    
+    /**
+     * 停止时立即移除本节点，其它节点下次心跳时接管任务
+     */
+    @Override
+    public void close() {
+        heartbeatExecutor.shutdownNow();
+        try {
+            redisService.zRemove(nodesKey, nodeId);
+        }
+        catch (Exception e) {
+            log.warn("移除任务节点失败 node = {}", nodeId, e);
+        }
+    }
+    
+}
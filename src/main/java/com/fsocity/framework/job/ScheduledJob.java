@@ -0,0 +1,110 @@
+package com.fsocity.framework.job;
+
+import com.fsocity.modules.admin.entity.AdminJob;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 已加载的任务：解析好的 cron 表达式、调用句柄和执行状态。任务修改后创建新的对象，旧的标记为取消
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+final class ScheduledJob {
+    
+    private final AdminJob job;
+    
+    // 影响调度的字段，用于判断任务是否修改过
+    private final String definition;
+    
+    private final CronExpression cron;
+    
+    private final JobInvoker invoker;
+    
+    private final MisfirePolicy misfirePolicy;
+    
+    private final boolean concurrent;
+    
+    // 禁止并发时的执行锁，任务修改后沿用旧的锁，修改前开始的执行结束前不会同时执行
+    private final AtomicBoolean running;
+    
+    // 禁止并发时，因为上一次还没执行完而错过的次数
+    private final AtomicInteger missed = new AtomicInteger();
+    
+    // 其它节点负责时最近的计划执行时间(毫秒)，接管后补执行。只在触发线程中访问，任务修改后沿用
+    private final Deque<Long> pendingFires;
+    
+    private volatile boolean cancelled;
+    
+    ScheduledJob(AdminJob job, String definition, CronExpression cron, JobInvoker invoker, ScheduledJob previous) {
+        this.job = job;
+        this.definition = definition;
+        this.cron = cron;
+        this.invoker = invoker;
+        this.misfirePolicy = MisfirePolicy.of(job.getMisfirePolicy());
+        this.concurrent = Integer.valueOf(1).equals(job.getConcurrent());
+        this.running = previous != null ? previous.running : new AtomicBoolean();
+        this.pendingFires = previous != null ? previous.pendingFires : new ArrayDeque<>();
+    }
+    
+    /**
+     * 影响调度的字段
+     */
+    static String definitionOf(AdminJob job) {
+        return job.getGroup() + '|' + job.getName() + '|' + job.getInvokeTarget() + '|' + job.getCronExpression()
+                + '|' + job.getMisfirePolicy() + '|' + job.getConcurrent() + '|' + job.getStatus();
+    }
+    
+    AdminJob getJob() {
+        return job;
+    }
+    
+    String getDefinition() {
+        return definition;
+    }
+    
+    CronExpression getCron() {
+        return cron;
+    }
+    
+    JobInvoker getInvoker() {
+        return invoker;
+    }
+    
+    MisfirePolicy getMisfirePolicy() {
+        return misfirePolicy;
+    }
+    
+    boolean isConcurrent() {
+        return concurrent;
+    }
+    
+    AtomicInteger getMissed() {
+        return missed;
+    }
+    
+    Deque<Long> getPendingFires() {
+        return pendingFires;
+    }
+    
+    boolean tryLock() {
+        return running.compareAndSet(false, true);
+    }
+    
+    void unlock() {
+        running.set(false);
+    }
+    
+    boolean isCancelled() {
+        return cancelled;
+    }
+    
+    void cancel() {
+        cancelled = true;
+    }
+    
+}
@@ -0,0 +1,30 @@
+package com.fsocity.framework.log;
+
+/**
+ * 操作日志的业务类型，对应 tb_admin_operation_log.business_type
+ *
+ * @author zail
+ * @date 2022/7/21
+ */
+public enum BusinessType {
+    
+    OTHER(0),
+    INSERT(1),
+    UPDATE(2),
+    DELETE(3),
+    // 保存：按参数中实体的主键是否为空记录为新增或修改
+    SAVE(-1),
+    
+    ;
+    
+    private final int code;
+    
+    BusinessType(int code) {
+        this.code = code;
+    }
+    
+    public int getCode() {
+        return code;
+    }
+    
+}
@@ -0,0 +1,118 @@
+package com.fsocity.framework.log;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形队列，多个线程写入，一个线程读取。
+ * <p>
+ * 每个槽位有一个序号：序号等于写入位置时可以写，等于写入位置+1时可以读，
+ * 写入线程之间只竞争 tail 的 CAS，队列满时立即返回 false，不会阻塞。
+ *
+ * @author zail
+ * @date 2022/7/21
+ */
+public class MpscRingBuffer<E> {
+    
+    private final int mask;
+    
+    private final AtomicReferenceArray<E> elements;
+    
+    private final AtomicLongArray sequences;
+    
+    // 下一个写入位置
+    private final AtomicLong tail = new AtomicLong();
+    
+    // 下一个读取位置，只有读取线程修改
+    private final AtomicLong head = new AtomicLong();
+    
+    /**
+     * @param capacity 容量，向上取整为2的幂
+     */
+    public MpscRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+    
+    /**
+     * 写入，队列满时返回false
+     */
+    public boolean offer(E element) {
+        long position = tail.get();
+        for (; ; ) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    // 序号在元素之后发布，读取线程看到序号时一定能看到元素
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            }
+            else if (diff < 0) {
+                // 槽位还没有被读取，队列已满
+                return false;
+            }
+            else {
+                // 其它线程已经写入这个位置
+                position = tail.get();
+            }
+        }
+    }
+    
+    /**
+     * 读取，队列为空时返回null。只能在一个线程中调用
+     */
+    public E poll() {
+        long position = head.get();
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        // 槽位留给下一圈写入
+        sequences.lazySet(index, position + mask + 1);
+        head.lazySet(position + 1);
+        return element;
+    }
+    
+    /**
+     * 最多读取 max 个元素到 list 中，只能在一个线程中调用
+     *
+     * @return 读取的数量
+     */
+    public int drainTo(List<E> list, int max) {
+        int count = 0;
+        E element;
+        while (count < max && (element = poll()) != null) {
+            list.add(element);
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * 大约的元素数量
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+    
+    public int capacity() {
+        return mask + 1;
+    }
+    
+}
@@ -0,0 +1,40 @@
+package com.fsocity.framework.log;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 操作日志：方法执行后异步写入 tb_admin_operation_log，不影响请求的耗时。
+ *
+ * @author zail
+ * @date 2022/7/21
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface OperationLog {
+    
+    /**
+     * 模块标题
+     */
+    String title();
+    
+    /**
+     * 业务类型
+     */
+    BusinessType businessType() default BusinessType.OTHER;
+    
+    /**
+     * 是否保存请求参数
+     */
+    boolean saveParam() default true;
+    
+    /**
+     * 是否保存返回值
+     */
+    boolean saveResult() default true;
+    
+}
@@ -0,0 +1,225 @@
+package com.fsocity.framework.log;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fsocity.framework.security.admin.AdminUserDetails;
+import com.fsocity.framework.web.JsonResult;
+import com.fsocity.framework.web.ResponseStatusEnum;
+import com.fsocity.modules.admin.entity.AdminOperationLog;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * 记录 {@link OperationLog} 方法的操作日志。
+ * <p>
+ * 请求线程只收集信息，写入数据库由 {@link OperationLogWriter} 在后台完成。
+ *
+ * @author zail
+ * @date 2022/7/21
+ */
+@Aspect
+@Slf4j
+public class OperationLogAspect {
+    
+    // 操作对象类别：后台用户
+    private static final int OPERATOR_TYPE_ADMIN = 1;
+    
+    // 表字段长度
+    private static final int TITLE_LENGTH = 50;
+    private static final int METHOD_LENGTH = 100;
+    private static final int URL_LENGTH = 255;
+    
+    // 敏感字段替换后的值
+    private static final String MASK = "******";
+    
+    private final OperationLogWriter operationLogWriter;
+    
+    private final ObjectMapper objectMapper;
+    
+    private final int maxTextLength;
+    
+    // 敏感字段名，小写
+    private final List<String> sensitiveFields;
+    
+    public OperationLogAspect(OperationLogWriter operationLogWriter, ObjectMapper objectMapper, int maxTextLength,
+                              List<String> sensitiveFields) {
+        this.operationLogWriter = operationLogWriter;
+        this.objectMapper = objectMapper;
+        this.maxTextLength = maxTextLength;
+        this.sensitiveFields = sensitiveFields.stream()
+                .map(field -> field.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toList());
+    }
+    
+    @Around("@annotation(operationLog)")
+    public Object around(ProceedingJoinPoint joinPoint, OperationLog operationLog) throws Throwable {
+        Object result = null;
+        Throwable error = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        }
+        catch (Throwable e) {
+            error = e;
+            throw e;
+        }
+        finally {
+            // 记录日志失败不能影响业务
+            try {
+                operationLogWriter.submit(createLog(joinPoint, operationLog, result, error));
+            }
+            catch (Exception e) {
+                log.warn("记录操作日志失败 method = {}", joinPoint.getSignature().toShortString(), e);
+            }
+        }
+    }
+    
+    private AdminOperationLog createLog(ProceedingJoinPoint joinPoint, OperationLog operationLog,
+                                        Object result, Throwable error) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        AdminOperationLog adminOperationLog = new AdminOperationLog();
+        adminOperationLog.setTitle(StringUtils.abbreviate(operationLog.title(), TITLE_LENGTH));
+        adminOperationLog.setBusinessType(resolveBusinessType(operationLog.businessType(), joinPoint.getArgs()));
+        adminOperationLog.setMethod(StringUtils.abbreviate(
+                signature.getDeclaringType().getSimpleName() + "." + signature.getName() + "()", METHOD_LENGTH));
+        adminOperationLog.setOperationTime(LocalDateTime.now());
+        adminOperationLog.setStatus(0);
+        
+        // 请求信息
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes instanceof ServletRequestAttributes) {
+            HttpServletRequest request = ((ServletRequestAttributes) requestAttributes).getRequest();
+            adminOperationLog.setRequestMethod(request.getMethod());
+            adminOperationLog.setUrl(StringUtils.abbreviate(request.getRequestURI(), URL_LENGTH));
+            adminOperationLog.setIp(request.getRemoteAddr());
+        }
+        
+        // 操作人员
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AdminUserDetails) {
+            adminOperationLog.setOperatorType(OPERATOR_TYPE_ADMIN);
+            adminOperationLog.setOperatorName(((AdminUserDetails) authentication.getPrincipal()).getUsername());
+        }
+        
+        if (operationLog.saveParam()) {
+            adminOperationLog.setParam(toJson(filterArgs(joinPoint.getArgs())));
+        }
+        if (operationLog.saveResult() && result != null) {
+            adminOperationLog.setResult(toJson(result));
+        }
+        if (error != null) {
+            adminOperationLog.setErrorMsg(StringUtils.abbreviate(error.toString(), maxTextLength));
+        }
+        else if (result instanceof JsonResult && !ResponseStatusEnum.OK.getCode().equals(((JsonResult) result).getCode())) {
+            adminOperationLog.setErrorMsg(StringUtils.abbreviate(((JsonResult) result).getMessage(), maxTextLength));
+        }
+        return adminOperationLog;
+    }
+    
+    /**
+     * 保存操作按实体的主键是否为空区分新增和修改
+     */
+    private static int resolveBusinessType(BusinessType businessType, Object[] args) {
+        if (businessType != BusinessType.SAVE) {
+            return businessType.getCode();
+        }
+        for (Object arg : args) {
+            if (arg != null && arg.getClass().isAnnotationPresent(TableName.class)) {
+                TableInfo tableInfo = TableInfoHelper.getTableInfo(arg.getClass());
+                if (tableInfo != null && tableInfo.getKeyProperty() != null) {
+                    return tableInfo.getPropertyValue(arg, tableInfo.getKeyProperty()) == null
+                            ? BusinessType.INSERT.getCode() : BusinessType.UPDATE.getCode();
+                }
+            }
+        }
+        return BusinessType.OTHER.getCode();
+    }
+    
+    /**
+     * 去掉请求、响应、校验结果、上传文件等不能或不需要序列化的参数
+     */
+    private static List<Object> filterArgs(Object[] args) {
+        List<Object> result = new ArrayList<>(args.length);
+        for (Object arg : args) {
+            if (arg instanceof ServletRequest || arg instanceof ServletResponse
+                    || arg instanceof BindingResult || arg instanceof MultipartFile) {
+                continue;
+            }
+            result.add(arg);
+        }
+        return result;
+    }
+    
+    /**
+     * 序列化为 JSON，敏感字段的值替换为 {@link #MASK}，不依赖各个注解关闭 saveParam
+     */
+    String toJson(Object value) {
+        try {
+            JsonNode node = objectMapper.valueToTree(value);
+            mask(node);
+            return StringUtils.abbreviate(objectMapper.writeValueAsString(node), maxTextLength);
+        }
+        catch (Exception e) {
+            // 不能退回 toString，其中的敏感字段没有脱敏
+            log.debug("操作日志序列化失败 type = {}", value.getClass().getName(), e);
+            return "[unserializable " + value.getClass().getName() + "]";
+        }
+    }
+    
+    private void mask(JsonNode node) {
+        if (node.isObject()) {
+            ObjectNode objectNode = (ObjectNode) node;
+            List<String> names = new ArrayList<>();
+            objectNode.fieldNames().forEachRemaining(names::add);
+            for (String name : names) {
+                JsonNode value = objectNode.get(name);
+                if (isSensitive(name) && !value.isNull()) {
+                    objectNode.put(name, MASK);
+                }
+                else {
+                    mask(value);
+                }
+            }
+        }
+        else if (node.isArray()) {
+            for (JsonNode element : node) {
+                mask(element);
+            }
+        }
+    }
+    
+    private boolean isSensitive(String name) {
+        String lowerCaseName = name.toLowerCase(Locale.ROOT);
+        for (String sensitiveField : sensitiveFields) {
+            if (lowerCaseName.contains(sensitiveField)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+}
@@ -0,0 +1,48 @@
+package com.fsocity.framework.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 操作日志配置，fsocity.operation-log.enable=false 时不记录
+ *
+ * @author zail
+ * @date 2022/7/21
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "fsocity.operation-log", name = "enable", havingValue = "true", matchIfMissing = true)
+public class OperationLogBeanConfig {
+    
+    @Bean
+    public OperationLogWriter operationLogWriter(JdbcTemplate jdbcTemplate,
+                                                 ObjectMapper objectMapper,
+                                                 OperationLogProperties operationLogProperties,
+                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        OperationLogWriter writer = new OperationLogWriter(jdbcTemplate, objectMapper, operationLogProperties);
+        // 队列中等待写入的数量和丢弃的数量
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("fsocity.operation-log.pending", writer, OperationLogWriter::getPending)
+                    .description("等待写入的操作日志数量")
+                    .register(registry);
+            Gauge.builder("fsocity.operation-log.dropped", writer, OperationLogWriter::getDropped)
+                    .description("丢弃的操作日志数量")
+                    .register(registry);
+        });
+        return writer;
+    }
+    
+    @Bean
+    public OperationLogAspect operationLogAspect(OperationLogWriter operationLogWriter,
+                                                 ObjectMapper objectMapper,
+                                                 OperationLogProperties operationLogProperties) {
+        return new OperationLogAspect(operationLogWriter, objectMapper, operationLogProperties.getMaxTextLength(),
+                operationLogProperties.getSensitiveFields());
+    }
+    
+}
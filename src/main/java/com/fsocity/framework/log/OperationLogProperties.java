@@ -0,0 +1,60 @@
+package com.fsocity.framework.log;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 操作日志配置
+ *
+ * @author zail
+ * @date 2022/7/21
+ */
+@Data
+@ConfigurationProperties(prefix = "fsocity.operation-log")
+@Component
+public class OperationLogProperties {
+    
+    // 是否开启
+    private boolean enable = true;
+    
+    // 队列容量，向上取整为2的幂
+    private int bufferSize = 8192;
+    
+    // 每次批量写入的最大条数
+    private int batchSize = 200;
+    
+    // 不满一批时最多等待多久写入
+    private Duration flushInterval = Duration.ofSeconds(1);
+    
+    // 队列满时的处理方式
+    private OverflowPolicy overflowPolicy = OverflowPolicy.SPILL;
+    
+    // BLOCK 时最多等待多久，超时后丢弃
+    private Duration blockTimeout = Duration.ofMillis(100);
+    
+    // SPILL 时写入的本地文件，数据库恢复后重新写入数据库，单独写入也失败的日志保存到同名的 .rejected 文件
+    private String spillFile = "./logs/operation-log-spill.jsonl";
+    
+    // 参数、返回值、错误消息保存的最大长度
+    private int maxTextLength = 2000;
+    
+    // 敏感字段，参数和返回值中属性名包含这些词(不区分大小写)的值替换为 ******
+    private List<String> sensitiveFields = new ArrayList<>(Arrays.asList(
+            "password", "pwd", "token", "secret", "series", "credential"));
+    
+    public enum OverflowPolicy {
+        // 丢弃
+        DROP,
+        // 等待队列有空位
+        BLOCK,
+        // 写入本地文件
+        SPILL,
+    }
+    
+}
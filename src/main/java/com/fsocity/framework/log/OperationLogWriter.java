@@ -0,0 +1,458 @@
+package com.fsocity.framework.log;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fsocity.modules.admin.entity.AdminOperationLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 操作日志的后台写入线程。
+ * <p>
+ * 请求线程只把日志放进 {@link MpscRingBuffer}，后台线程攒够一批或等待超过 flushInterval 后
+ * 用一条多行 INSERT 写入数据库。队列满(数据库变慢)时按 {@link OperationLogProperties.OverflowPolicy} 处理；
+ * SPILL 时写入本地文件，队列空闲时再读回来写入数据库。
+ *
+ * @author zail
+ * @date 2022/7/21
+ */
+@Slf4j
+public class OperationLogWriter implements AutoCloseable {
+    
+    private static final String INSERT_SQL = "INSERT INTO tb_admin_operation_log (title, business_type, method, "
+            + "request_method, operator_type, operator_name, department_name, url, ip, location, param, result, "
+            + "status, error_msg, operation_time) VALUES ";
+    
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final int COLUMN_COUNT = 15;
+    
+    // 队列为空时的等待时间
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    
+    // 重新写入本地文件失败后的重试间隔
+    private static final long REPLAY_RETRY_MILLIS = 10_000L;
+    
+    // 丢弃日志时的警告间隔
+    private static final long DROP_WARNING_MILLIS = 10_000L;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final ObjectMapper objectMapper;
+    
+    private final OperationLogProperties properties;
+    
+    private final MpscRingBuffer<AdminOperationLog> buffer;
+    
+    private final File spillFile;
+    
+    // 正在重新写入数据库的文件
+    private final File replayFile;
+    
+    // replayFile 中已经写入数据库的行数
+    private final File replayOffsetFile;
+    
+    // 单独写入也失败的日志，需要人工处理
+    private final File rejectedFile;
+    
+    private final Object spillLock = new Object();
+    
+    // 由 spillLock 保护
+    private Writer spillWriter;
+    
+    // 本地文件中是否有等待写入的日志
+    private volatile boolean spillPending;
+    
+    private long nextReplayTime;
+    
+    private final AtomicLong dropped = new AtomicLong();
+    
+    private volatile long lastDropWarning;
+    
+    private volatile boolean running = true;
+    
+    private final Thread thread;
+    
+    public OperationLogWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, OperationLogProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.buffer = new MpscRingBuffer<>(properties.getBufferSize());
+        this.spillFile = new File(properties.getSpillFile());
+        this.replayFile = new File(properties.getSpillFile() + ".replay");
+        this.replayOffsetFile = new File(properties.getSpillFile() + ".replay.offset");
+        this.rejectedFile = new File(properties.getSpillFile() + ".rejected");
+        // 上次运行时没有写入的日志
+        this.spillPending = spillFile.exists() || replayFile.exists();
+        this.thread = new Thread(this::run, "operation-log-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+    
+    /**
+     * 提交一条日志，不等待写入数据库
+     */
+    public void submit(AdminOperationLog operationLog) {
+        if (buffer.offer(operationLog)) {
+            return;
+        }
+        switch (properties.getOverflowPolicy()) {
+            case BLOCK:
+                long deadline = System.nanoTime() + properties.getBlockTimeout().toNanos();
+                while (System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                    if (buffer.offer(operationLog)) {
+                        return;
+                    }
+                }
+                drop(1);
+                break;
+            case SPILL:
+                List<AdminOperationLog> logs = new ArrayList<>(1);
+                logs.add(operationLog);
+                spill(logs);
+                break;
+            default:
+                drop(1);
+                break;
+        }
+    }
+    
+    /**
+     * 队列中等待写入的数量
+     */
+    public int getPending() {
+        return buffer.size();
+    }
+    
+    /**
+     * 累计丢弃的数量
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+    
+    private void run() {
+        int batchSize = Math.max(properties.getBatchSize(), 1);
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        List<AdminOperationLog> batch = new ArrayList<>(batchSize);
+        long flushDeadline = 0L;
+        while (running || buffer.size() > 0) {
+            boolean wasEmpty = batch.isEmpty();
+            int count = buffer.drainTo(batch, batchSize - batch.size());
+            if (batch.isEmpty()) {
+                replaySpill();
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            if (wasEmpty) {
+                flushDeadline = System.nanoTime() + flushIntervalNanos;
+            }
+            if (batch.size() >= batchSize || System.nanoTime() - flushDeadline >= 0 || !running) {
+                write(batch);
+                batch.clear();
+            }
+            else if (count == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+    
+    private void write(List<AdminOperationLog> batch) {
+        try {
+            insert(batch);
+        }
+        catch (Exception e) {
+            if (properties.getOverflowPolicy() == OperationLogProperties.OverflowPolicy.SPILL) {
+                log.warn("写入操作日志失败，保存到本地文件 count = {}", batch.size(), e);
+                spill(batch);
+            }
+            else {
+                log.error("写入操作日志失败，丢弃 count = {}", batch.size(), e);
+                drop(batch.size());
+            }
+        }
+    }
+    
+    /**
+     * 多行 INSERT，一批只执行一条语句
+     */
+    private void insert(List<AdminOperationLog> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_SQL.length() + batch.size() * (ROW_PLACEHOLDERS.length() + 2));
+        sql.append(INSERT_SQL);
+        Object[] args = new Object[batch.size() * COLUMN_COUNT];
+        int i = 0;
+        for (AdminOperationLog operationLog : batch) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+            // 表中的字段都不能为null
+            args[i++] = text(operationLog.getTitle());
+            args[i++] = number(operationLog.getBusinessType());
+            args[i++] = text(operationLog.getMethod());
+            args[i++] = text(operationLog.getRequestMethod());
+            args[i++] = number(operationLog.getOperatorType());
+            args[i++] = text(operationLog.getOperatorName());
+            args[i++] = text(operationLog.getDepartmentName());
+            args[i++] = text(operationLog.getUrl());
+            args[i++] = text(operationLog.getIp());
+            args[i++] = text(operationLog.getLocation());
+            args[i++] = text(operationLog.getParam());
+            args[i++] = text(operationLog.getResult());
+            args[i++] = number(operationLog.getStatus());
+            args[i++] = text(operationLog.getErrorMsg());
+            LocalDateTime operationTime = operationLog.getOperationTime();
+            args[i++] = Timestamp.valueOf(operationTime != null ? operationTime : LocalDateTime.now());
+        }
+        jdbcTemplate.update(sql.toString(), args);
+    }
+    
+    private void spill(List<AdminOperationLog> logs) {
+        synchronized (spillLock) {
+            try {
+                if (spillWriter == null) {
+                    File parent = spillFile.getAbsoluteFile().getParentFile();
+                    if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                        throw new IOException("无法创建目录：" + parent);
+                    }
+                    spillWriter = new BufferedWriter(new OutputStreamWriter(
+                            new FileOutputStream(spillFile, true), StandardCharsets.UTF_8));
+                }
+                for (AdminOperationLog operationLog : logs) {
+                    spillWriter.write(objectMapper.writeValueAsString(operationLog));
+                    spillWriter.write('\n');
+                }
+                spillWriter.flush();
+                spillPending = true;
+            }
+            catch (IOException e) {
+                log.error("操作日志写入本地文件失败，丢弃 count = {}", logs.size(), e);
+                drop(logs.size());
+            }
+        }
+    }
+    
+    /**
+     * 队列空闲时把本地文件中的日志写入数据库。
+     * <p>
+     * 每写入一批就记录已处理的行数，中途失败(或进程退出)后从记录的位置继续，最多重复写入一批。
+     * 单独写入仍然违反约束或无法解析的行移到 rejectedFile，不会让整个文件一直重试。
+     */
+    private void replaySpill() {
+        if (!spillPending || System.currentTimeMillis() < nextReplayTime) {
+            return;
+        }
+        synchronized (spillLock) {
+            // 换一个文件名，之后溢出的日志写到新文件中
+            if (!replayFile.exists()) {
+                closeSpillWriter();
+                // 上一个文件已经写完，只是没来得及删除位置
+                if (replayOffsetFile.exists() && !replayOffsetFile.delete()) {
+                    log.warn("删除操作日志文件位置失败 file = {}", replayOffsetFile);
+                    nextReplayTime = System.currentTimeMillis() + REPLAY_RETRY_MILLIS;
+                    return;
+                }
+                if (spillFile.exists() && !spillFile.renameTo(replayFile)) {
+                    log.warn("重命名操作日志文件失败 file = {}", spillFile);
+                    nextReplayTime = System.currentTimeMillis() + REPLAY_RETRY_MILLIS;
+                    return;
+                }
+            }
+            spillPending = false;
+        }
+        if (!replayFile.exists()) {
+            return;
+        }
+        int batchSize = Math.max(properties.getBatchSize(), 1);
+        int count = 0;
+        int rejected = 0;
+        try (BufferedReader reader = Files.newBufferedReader(replayFile.toPath(), StandardCharsets.UTF_8)) {
+            long offset = readReplayOffset();
+            long lineNumber = 0;
+            List<String> lines = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber <= offset || line.isEmpty()) {
+                    continue;
+                }
+                lines.add(line);
+                if (lines.size() >= batchSize) {
+                    int batchRejected = replayBatch(lines);
+                    writeReplayOffset(lineNumber);
+                    count += lines.size() - batchRejected;
+                    rejected += batchRejected;
+                    lines.clear();
+                }
+            }
+            if (!lines.isEmpty()) {
+                int batchRejected = replayBatch(lines);
+                count += lines.size() - batchRejected;
+                rejected += batchRejected;
+            }
+            // 先删除文件再删除位置，中间退出时由重命名前的检查删除位置
+            Files.delete(replayFile.toPath());
+            Files.deleteIfExists(replayOffsetFile.toPath());
+            log.info("本地文件中的操作日志已写入数据库 count = {}, rejected = {}", count, rejected);
+            // 重新写入期间又溢出的日志
+            synchronized (spillLock) {
+                if (spillFile.exists()) {
+                    spillPending = true;
+                }
+            }
+        }
+        catch (Exception e) {
+            log.warn("本地文件中的操作日志写入数据库失败，稍后重试 file = {}", replayFile, e);
+            spillPending = true;
+            nextReplayTime = System.currentTimeMillis() + REPLAY_RETRY_MILLIS;
+        }
+    }
+    
+    /**
+     * 写入本地文件中的一批日志。整批违反约束时逐条写入，找出有问题的行保存到 rejectedFile；
+     * 数据库不可用等其它错误直接抛出，稍后从这一批重新开始。
+     *
+     * @return 保存到 rejectedFile 的行数
+     */
+    private int replayBatch(List<String> lines) throws IOException {
+        List<AdminOperationLog> batch = new ArrayList<>(lines.size());
+        List<String> batchLines = new ArrayList<>(lines.size());
+        List<String> rejected = new ArrayList<>();
+        for (String line : lines) {
+            try {
+                batch.add(objectMapper.readValue(line, AdminOperationLog.class));
+                batchLines.add(line);
+            }
+            catch (JsonProcessingException e) {
+                log.warn("无法解析本地文件中的操作日志，保存到 {}", rejectedFile, e);
+                rejected.add(line);
+            }
+        }
+        if (!batch.isEmpty()) {
+            try {
+                insert(batch);
+            }
+            catch (DataIntegrityViolationException e) {
+                for (int i = 0; i < batch.size(); i++) {
+                    try {
+                        insert(Collections.singletonList(batch.get(i)));
+                    }
+                    catch (DataIntegrityViolationException rowError) {
+                        log.warn("本地文件中的操作日志无法写入数据库，保存到 {}", rejectedFile, rowError);
+                        rejected.add(batchLines.get(i));
+                    }
+                }
+            }
+        }
+        if (!rejected.isEmpty()) {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(rejectedFile, true), StandardCharsets.UTF_8))) {
+                for (String line : rejected) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        }
+        return rejected.size();
+    }
+    
+    /**
+     * replayFile 中已经写入数据库的行数
+     */
+    private long readReplayOffset() throws IOException {
+        if (!replayOffsetFile.exists()) {
+            return 0L;
+        }
+        String content = new String(Files.readAllBytes(replayOffsetFile.toPath()), StandardCharsets.UTF_8).trim();
+        try {
+            return Long.parseLong(content);
+        }
+        catch (NumberFormatException e) {
+            // 从头重新写入，已经写入的部分会重复
+            log.warn("操作日志文件位置无效 file = {}, content = {}", replayOffsetFile, content);
+            return 0L;
+        }
+    }
+    
+    /**
+     * 先写临时文件再替换，避免退出时留下不完整的位置
+     */
+    private void writeReplayOffset(long offset) throws IOException {
+        File tmpFile = new File(replayOffsetFile.getPath() + ".tmp");
+        Files.write(tmpFile.toPath(), Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmpFile.toPath(), replayOffsetFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private void drop(int count) {
+        long total = dropped.addAndGet(count);
+        long now = System.currentTimeMillis();
+        if (now - lastDropWarning >= DROP_WARNING_MILLIS) {
+            lastDropWarning = now;
+            log.warn("操作日志队列已满，累计丢弃 {} 条", total);
+        }
+    }
+    
+    private void closeSpillWriter() {
+        if (spillWriter != null) {
+            try {
+                spillWriter.close();
+            }
+            catch (IOException e) {
+                log.warn("关闭操作日志文件失败", e);
+            }
+            spillWriter = null;
+        }
+    }
+    
+    private static String text(String value) {
+        return value != null ? value : "";
+    }
+    
+    private static Integer number(Integer value) {
+        return value != null ? value : 0;
+    }
+    
+    /**
+     * 停止时写完队列中剩余的日志
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (spillLock) {
+            closeSpillWriter();
+        }
+    }
+    
+}
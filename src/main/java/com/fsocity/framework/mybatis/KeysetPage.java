@@ -0,0 +1,30 @@
+package com.fsocity.framework.mybatis;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标(keyset)分页的结果。
+ * <p>
+ * 不返回总数，也没有页码；下一页用 nextCursor 请求，hasNext 为 false 时已经是最后一页。
+ *
+ * @author zail
+ * @date 2022/7/16
+ */
+@Data
+public class KeysetPage<T> {
+    
+    // 当前页的数据
+    private List<T> records;
+    
+    // 每页数量
+    private Integer size;
+    
+    // 下一页的游标，没有下一页时为null
+    private String nextCursor;
+    
+    // 是否有下一页
+    private boolean hasNext;
+    
+}
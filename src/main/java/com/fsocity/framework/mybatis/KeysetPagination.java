@@ -0,0 +1,94 @@
+package com.fsocity.framework.mybatis;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.fsocity.framework.exception.ApiException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 游标(keyset / seek)分页。
+ * <p>
+ * 按自增主键倒序，下一页的条件是 {@code id < 上一页最后一条的id}，直接走主键索引定位，
+ * 不需要 {@code LIMIT offset, size} 扫描并丢弃前面的行，也不执行 COUNT，翻到多深都一样快。
+ * 多查一条用来判断是否还有下一页。
+ *
+ * @author zail
+ * @date 2022/7/16
+ */
+public final class KeysetPagination {
+    
+    // 每页最大数量
+    public static final int MAX_PAGE_SIZE = 1000;
+    
+    // 游标的版本前缀，以后游标格式变化时可以兼容旧游标
+    private static final String CURSOR_PREFIX = "v1:";
+    
+    private KeysetPagination() {
+    }
+    
+    /**
+     * 按主键倒序的游标分页
+     *
+     * @param service      Service
+     * @param queryWrapper 查询条件
+     * @param idColumn     自增主键
+     * @param cursor       上一页返回的游标，第一页为空
+     * @param pageSize     每页数量
+     */
+    public static <T> KeysetPage<T> page(IService<T> service,
+                                         LambdaQueryWrapper<T> queryWrapper,
+                                         SFunction<T, Integer> idColumn,
+                                         String cursor,
+                                         Integer pageSize) {
+        int size = pageSize == null ? 10 : Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        Integer lastId = decodeCursor(cursor);
+        if (lastId != null) {
+            queryWrapper.lt(idColumn, lastId);
+        }
+        queryWrapper.orderByDesc(idColumn);
+        queryWrapper.last("LIMIT " + (size + 1));
+        List<T> records = service.list(queryWrapper);
+        
+        KeysetPage<T> page = new KeysetPage<>();
+        page.setSize(size);
+        page.setHasNext(records.size() > size);
+        if (page.isHasNext()) {
+            records = records.subList(0, size);
+            page.setNextCursor(encodeCursor(idColumn.apply(records.get(size - 1))));
+        }
+        page.setRecords(records);
+        return page;
+    }
+    
+    /**
+     * 把主键编码成不透明的游标
+     */
+    public static String encodeCursor(Integer id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 解析游标，为空时返回null
+     */
+    public static Integer decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(CURSOR_PREFIX)) {
+                throw new ApiException("无效的分页游标");
+            }
+            return Integer.valueOf(value.substring(CURSOR_PREFIX.length()));
+        }
+        catch (IllegalArgumentException e) {
+            throw new ApiException("无效的分页游标", e);
+        }
+    }
+    
+}
@@ -1,7 +1,14 @@
 package com.fsocity.framework.mybatis;
 
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.fsocity.framework.mybatis.datascope.DataScopeInnerInterceptor;
+import com.fsocity.framework.mybatis.pagination.PageCountCache;
+import com.fsocity.framework.mybatis.pagination.PageCountInvalidationInterceptor;
+import com.fsocity.framework.mybatis.pagination.PaginationCountInnerInterceptor;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
@@ -13,5 +20,49 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 @EnableTransactionManagement
 @MapperScan({"com.fsocity.modules.*.mapper"})
 public class MyBatisConfiguration {
+    
+    // 分页 COUNT 缓存数量
+    @Value("${fsocity.mybatis.count-cache-size:1000}")
+    private long countCacheSize;
+    
+    // 分页 COUNT 缓存时间(秒)
+    @Value("${fsocity.mybatis.count-cache-seconds:30}")
+    private long countCacheSeconds;
+    
+    /**
+     * MyBatis Plus 插件，数据权限需要在分页之前
+     */
+    @Bean
+    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+        MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        interceptor.addInnerInterceptor(dataScopeInnerInterceptor());
+        interceptor.addInnerInterceptor(new PaginationCountInnerInterceptor(DbType.MYSQL, pageCountCache()));
+        return interceptor;
+    }
+    
+    /**
+     * 按部门归属的表
+     */
+    @Bean
+    public DataScopeInnerInterceptor dataScopeInnerInterceptor() {
+        return new DataScopeInnerInterceptor()
+                .addTable("tb_admin_user", "department_id", "id");
+    }
+    
+    /**
+     * 分页 COUNT 结果缓存
+     */
+    @Bean
+    public PageCountCache pageCountCache() {
+        return new PageCountCache(countCacheSize, countCacheSeconds);
+    }
+    
+    /**
+     * 表有增删改时使分页 COUNT 缓存失效，事务中等提交后再失效
+     */
+    @Bean
+    public PageCountInvalidationInterceptor pageCountInvalidationInterceptor() {
+        return new PageCountInvalidationInterceptor(pageCountCache());
+    }
 
 }
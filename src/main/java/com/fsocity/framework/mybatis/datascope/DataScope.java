@@ -0,0 +1,21 @@
+package com.fsocity.framework.mybatis.datascope;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 数据权限：方法执行期间的查询按当前用户的数据范围过滤。
+ * <p>
+ * 过滤由 {@link DataScopeInnerInterceptor} 在 SQL 中完成，只对注册过的表生效。
+ *
+ * @author zail
+ * @date 2022/7/16
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface DataScope {
+}
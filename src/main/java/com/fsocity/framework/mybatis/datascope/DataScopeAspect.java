@@ -0,0 +1,70 @@
+package com.fsocity.framework.mybatis.datascope;
+
+import com.fsocity.framework.security.admin.AdminUserDetails;
+import com.fsocity.modules.admin.service.AdminDepartmentHierarchyService;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+
+/**
+ * 在 {@link DataScope} 方法执行期间设置当前用户的数据范围
+ *
+ * @author zail
+ * @date 2022/7/16
+ */
+@Aspect
+@Component
+public class DataScopeAspect {
+    
+    @Autowired
+    private AdminDepartmentHierarchyService adminDepartmentHierarchyService;
+    
+    @Around("@annotation(com.fsocity.framework.mybatis.datascope.DataScope)")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        DataScopeCondition previous = DataScopeContext.get();
+        DataScopeContext.set(resolve());
+        try {
+            return joinPoint.proceed();
+        }
+        finally {
+            DataScopeContext.set(previous);
+        }
+    }
+    
+    /**
+     * 当前用户的数据范围，没有登录用户(例如定时任务)时不过滤
+     */
+    private DataScopeCondition resolve() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof AdminUserDetails)) {
+            return null;
+        }
+        AdminUserDetails userDetails = (AdminUserDetails) authentication.getPrincipal();
+        DataScopeType type = DataScopeType.of(userDetails.getDataScope());
+        // 没有角色时只能访问本人的数据
+        if (type == null) {
+            type = DataScopeType.SELF;
+        }
+        Integer departmentId = userDetails.getDepartmentId();
+        switch (type) {
+            case ALL:
+                return DataScopeCondition.ALL;
+            case CUSTOM:
+            case DEPARTMENT:
+                return DataScopeCondition.departments(departmentId == null
+                        ? Collections.emptyList() : Collections.singletonList(departmentId));
+            case DEPARTMENT_AND_CHILD:
+                return DataScopeCondition.departments(departmentId == null
+                        ? Collections.emptyList() : adminDepartmentHierarchyService.getDescendantIds(departmentId));
+            default:
+                return DataScopeCondition.self(userDetails.getUserId());
+        }
+    }
+    
+}
@@ -0,0 +1,56 @@
+package com.fsocity.framework.mybatis.datascope;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * 当前用户的数据范围过滤条件
+ *
+ * @author zail
+ * @date 2022/7/16
+ */
+public class DataScopeCondition {
+    
+    // 不过滤
+    public static final DataScopeCondition ALL = new DataScopeCondition(true, null, Collections.emptyList());
+    
+    private final boolean all;
+    
+    // 仅本人数据时的用户ID
+    private final Integer userId;
+    
+    // 可以访问的部门ID
+    private final Collection<Integer> departmentIds;
+    
+    private DataScopeCondition(boolean all, Integer userId, Collection<Integer> departmentIds) {
+        this.all = all;
+        this.userId = userId;
+        this.departmentIds = departmentIds;
+    }
+    
+    /**
+     * 只能访问指定部门的数据
+     */
+    public static DataScopeCondition departments(Collection<Integer> departmentIds) {
+        return new DataScopeCondition(false, null, departmentIds);
+    }
+    
+    /**
+     * 只能访问本人的数据
+     */
+    public static DataScopeCondition self(Integer userId) {
+        return new DataScopeCondition(false, userId, Collections.emptyList());
+    }
+    
+    public boolean isAll() {
+        return all;
+    }
+    
+    public Integer getUserId() {
+        return userId;
+    }
+    
+    public Collection<Integer> getDepartmentIds() {
+        return departmentIds;
+    }
+}
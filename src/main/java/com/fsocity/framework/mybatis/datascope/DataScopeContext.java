@@ -0,0 +1,32 @@
+package com.fsocity.framework.mybatis.datascope;
+
+/**
+ * 当前线程的数据范围，由 {@link DataScopeAspect} 设置，{@link DataScopeInnerInterceptor} 读取
+ *
+ * @author zail
+ * @date 2022/7/16
+ */
+public final class DataScopeContext {
+    
+    private static final ThreadLocal<DataScopeCondition> HOLDER = new ThreadLocal<>();
+    
+    private DataScopeContext() {
+    }
+    
+    public static DataScopeCondition get() {
+        return HOLDER.get();
+    }
+    
+    public static void set(DataScopeCondition condition) {
+        if (condition == null) {
+            HOLDER.remove();
+        }
+        else {
+            HOLDER.set(condition);
+        }
+    }
+    
+    public static void clear() {
+        HOLDER.remove();
+    }
+}
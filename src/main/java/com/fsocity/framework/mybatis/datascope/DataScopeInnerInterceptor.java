@@ -0,0 +1,174 @@
+package com.fsocity.framework.mybatis.datascope;
+
+import com.baomidou.mybatisplus.core.plugins.InterceptorIgnoreHelper;
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import com.baomidou.mybatisplus.extension.parser.JsqlParserSupport;
+import com.baomidou.mybatisplus.extension.plugins.inner.InnerInterceptor;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.expression.operators.relational.InExpression;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.select.FromItem;
+import net.sf.jsqlparser.statement.select.Join;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectBody;
+import net.sf.jsqlparser.statement.select.SetOperationList;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 数据权限拦截器。
+ * <p>
+ * 在 {@link DataScope} 方法中执行查询时，给注册过的表追加数据范围条件，例如：
+ * <pre>
+ * SELECT ... FROM tb_admin_user WHERE (status = 0) AND (tb_admin_user.department_id IN (103, 105))
+ * </pre>
+ * 过滤在数据库中完成，分页和 COUNT 都基于过滤后的结果。
+ * 需要放在分页拦截器之前注册；不需要过滤的 Mapper 方法可以加 {@code @InterceptorIgnore(dataPermission = "true")}。
+ *
+ * @author zail
+ * @date 2022/7/16
+ */
+public class DataScopeInnerInterceptor extends JsqlParserSupport implements InnerInterceptor {
+    
+    // 表名 -> 数据范围字段
+    private final Map<String, TableColumns> tables = new HashMap<>();
+    
+    /**
+     * 注册需要按数据范围过滤的表
+     *
+     * @param table            表名
+     * @param departmentColumn 部门ID字段
+     * @param userColumn       所属用户ID字段，用于仅本人数据权限
+     */
+    public DataScopeInnerInterceptor addTable(String table, String departmentColumn, String userColumn) {
+        tables.put(table.toLowerCase(Locale.ROOT), new TableColumns(departmentColumn, userColumn));
+        return this;
+    }
+    
+    @Override
+    public void beforeQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                            ResultHandler resultHandler, BoundSql boundSql) {
+        DataScopeCondition condition = DataScopeContext.get();
+        if (condition == null || condition.isAll()) {
+            return;
+        }
+        if (InterceptorIgnoreHelper.willIgnoreDataPermission(ms.getId())) {
+            return;
+        }
+        PluginUtils.MPBoundSql mpBoundSql = PluginUtils.mpBoundSql(boundSql);
+        mpBoundSql.sql(parserSingle(mpBoundSql.sql(), condition));
+    }
+    
+    @Override
+    protected void processSelect(Select select, int index, String sql, Object obj) {
+        processSelectBody(select.getSelectBody(), (DataScopeCondition) obj);
+    }
+    
+    private void processSelectBody(SelectBody selectBody, DataScopeCondition condition) {
+        if (selectBody instanceof PlainSelect) {
+            processPlainSelect((PlainSelect) selectBody, condition);
+        }
+        else if (selectBody instanceof SetOperationList) {
+            for (SelectBody body : ((SetOperationList) selectBody).getSelects()) {
+                processSelectBody(body, condition);
+            }
+        }
+    }
+    
+    private void processPlainSelect(PlainSelect plainSelect, DataScopeCondition condition) {
+        List<Expression> expressions = new ArrayList<>();
+        addExpression(plainSelect.getFromItem(), condition, expressions);
+        if (plainSelect.getJoins() != null) {
+            for (Join join : plainSelect.getJoins()) {
+                addExpression(join.getRightItem(), condition, expressions);
+            }
+        }
+        if (expressions.isEmpty()) {
+            return;
+        }
+        Expression where = plainSelect.getWhere();
+        for (Expression expression : expressions) {
+            where = where == null ? expression : new AndExpression(wrap(where), expression);
+        }
+        plainSelect.setWhere(where);
+    }
+    
+    private void addExpression(FromItem fromItem, DataScopeCondition condition, List<Expression> expressions) {
+        if (!(fromItem instanceof Table)) {
+            return;
+        }
+        Table table = (Table) fromItem;
+        TableColumns columns = tables.get(unquote(table.getName()).toLowerCase(Locale.ROOT));
+        if (columns == null) {
+            return;
+        }
+        Table qualifier = new Table(table.getAlias() != null ? table.getAlias().getName() : table.getName());
+        expressions.add(buildExpression(qualifier, columns, condition));
+    }
+    
+    /**
+     * 部门条件和本人条件之间是 OR 的关系，都不满足时不返回任何数据
+     */
+    private Expression buildExpression(Table qualifier, TableColumns columns, DataScopeCondition condition) {
+        Expression expression = null;
+        if (columns.departmentColumn != null && !condition.getDepartmentIds().isEmpty()) {
+            List<Expression> values = new ArrayList<>();
+            for (Integer departmentId : condition.getDepartmentIds()) {
+                values.add(new LongValue(departmentId));
+            }
+            expression = new InExpression(new Column(qualifier, columns.departmentColumn), new ExpressionList(values));
+        }
+        if (columns.userColumn != null && condition.getUserId() != null) {
+            EqualsTo equalsTo = new EqualsTo(new Column(qualifier, columns.userColumn), new LongValue(condition.getUserId()));
+            expression = expression == null ? equalsTo : new OrExpression(expression, equalsTo);
+        }
+        if (expression == null) {
+            return new EqualsTo(new LongValue(1), new LongValue(0));
+        }
+        return new Parenthesis(expression);
+    }
+    
+    private static Expression wrap(Expression expression) {
+        return expression instanceof OrExpression ? new Parenthesis(expression) : expression;
+    }
+    
+    private static String unquote(String name) {
+        if (name.length() > 1 && name.charAt(0) == '`' && name.charAt(name.length() - 1) == '`') {
+            return name.substring(1, name.length() - 1);
+        }
+        return name;
+    }
+    
+    /**
+     * 表的数据范围字段
+     */
+    private static class TableColumns {
+        
+        private final String departmentColumn;
+        
+        private final String userColumn;
+        
+        TableColumns(String departmentColumn, String userColumn) {
+            this.departmentColumn = departmentColumn;
+            this.userColumn = userColumn;
+        }
+    }
+    
+}
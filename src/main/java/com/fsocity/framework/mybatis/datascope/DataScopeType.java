@@ -0,0 +1,70 @@
+package com.fsocity.framework.mybatis.datascope;
+
+import java.util.Collection;
+
+/**
+ * 数据范围，对应 AdminRole.dataScope
+ *
+ * @author zail
+ * @date 2022/7/16
+ */
+public enum DataScopeType {
+    
+    ALL(1, "全部数据权限", 4),
+    // 没有角色和部门的关联表，自定数据权限按本部门处理
+    CUSTOM(2, "自定数据权限", 2),
+    DEPARTMENT(3, "本部门数据权限", 2),
+    DEPARTMENT_AND_CHILD(4, "本部门及以下数据权限", 3),
+    SELF(5, "仅本人数据权限", 1),
+    ;
+    
+    private final int code;
+    
+    private final String name;
+    
+    // 范围大小，多个角色时取范围最大的
+    private final int rank;
+    
+    DataScopeType(int code, String name, int rank) {
+        this.code = code;
+        this.name = name;
+        this.rank = rank;
+    }
+    
+    public int getCode() {
+        return code;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * 根据编码查找，不存在时返回null
+     */
+    public static DataScopeType of(Integer code) {
+        if (code == null) {
+            return null;
+        }
+        for (DataScopeType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 多个数据范围中范围最大的，全部无效时返回null
+     */
+    public static DataScopeType widest(Collection<Integer> codes) {
+        DataScopeType widest = null;
+        for (Integer code : codes) {
+            DataScopeType type = of(code);
+            if (type != null && (widest == null || type.rank > widest.rank)) {
+                widest = type;
+            }
+        }
+        return widest;
+    }
+}
@@ -0,0 +1,50 @@
+package com.fsocity.framework.mybatis.pagination;
+
+import java.util.Locale;
+
+/**
+ * 分页查询时总数(COUNT)的查询方式
+ *
+ * @author zail
+ * @date 2022/7/17
+ */
+public enum CountMode {
+    
+    /**
+     * 每次都执行 COUNT
+     */
+    EXACT,
+    
+    /**
+     * 相同查询条件的 COUNT 结果缓存一段时间，表有写入时失效
+     */
+    CACHED,
+    
+    /**
+     * 不执行 COUNT，只返回是否有下一页
+     */
+    NONE;
+    
+    /**
+     * 根据请求参数获取，为空或不认识时使用 EXACT
+     */
+    public static CountMode of(String name) {
+        if (name == null || name.isEmpty()) {
+            return EXACT;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+        catch (IllegalArgumentException e) {
+            return EXACT;
+        }
+    }
+    
+    /**
+     * 创建对应方式的分页对象
+     */
+    public <T> CountModePage<T> newPage(long current, long size) {
+        return new CountModePage<>(current, size, this);
+    }
+    
+}
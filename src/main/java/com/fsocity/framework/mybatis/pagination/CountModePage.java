@@ -0,0 +1,76 @@
+package com.fsocity.framework.mybatis.pagination;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+
+import java.util.List;
+
+/**
+ * 带总数查询方式的分页对象，由 {@link PaginationCountInnerInterceptor} 处理。
+ * <p>
+ * NONE 方式下 searchCount 为 false，total 为 0，查询时多取一条用来判断 hasNext。
+ *
+ * @author zail
+ * @date 2022/7/17
+ */
+public class CountModePage<T> extends Page<T> {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final CountMode countMode;
+    
+    // 正在生成分页SQL，此时 getSize 多返回一条
+    private transient boolean probing;
+    
+    // NONE 方式下是否有下一页
+    private boolean hasNext;
+    
+    public CountModePage(long current, long size, CountMode countMode) {
+        super(current, size, countMode != CountMode.NONE);
+        this.countMode = countMode;
+    }
+    
+    public CountMode getCountMode() {
+        return countMode;
+    }
+    
+    /**
+     * 是否有下一页
+     */
+    public boolean getHasNext() {
+        if (countMode == CountMode.NONE) {
+            return hasNext;
+        }
+        return getCurrent() < getPages();
+    }
+    
+    @Override
+    public long getSize() {
+        return probing ? super.getSize() + 1 : super.getSize();
+    }
+    
+    /**
+     * 偏移量始终按实际每页数量计算
+     */
+    @Override
+    public long offset() {
+        long current = getCurrent();
+        if (current <= 1L) {
+            return 0L;
+        }
+        return Math.max((current - 1) * super.getSize(), 0L);
+    }
+    
+    @Override
+    public Page<T> setRecords(List<T> records) {
+        if (countMode == CountMode.NONE && records != null && records.size() > super.getSize()) {
+            hasNext = true;
+            records = records.subList(0, (int) super.getSize());
+        }
+        return super.setRecords(records);
+    }
+    
+    void setProbing(boolean probing) {
+        this.probing = probing;
+    }
+    
+}
@@ -0,0 +1,38 @@
+package com.fsocity.framework.mybatis.pagination;
+
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import org.apache.ibatis.mapping.MappedStatement;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Mapper 方法对应的表名，按命名空间缓存
+ *
+ * @author zail
+ * @date 2022/7/17
+ */
+class MapperTables {
+    
+    // Mapper 命名空间 -> 表名
+    private final ConcurrentMap<String, Optional<String>> tables = new ConcurrentHashMap<>();
+    
+    /**
+     * Mapper 对应的表名，没有对应实体的 Mapper 返回null
+     */
+    String getTable(MappedStatement ms) {
+        String id = ms.getId();
+        String namespace = id.substring(0, id.lastIndexOf('.'));
+        return tables.computeIfAbsent(namespace, k -> {
+            for (TableInfo tableInfo : TableInfoHelper.getTableInfos()) {
+                if (k.equals(tableInfo.getCurrentNamespace())) {
+                    return Optional.of(tableInfo.getTableName());
+                }
+            }
+            return Optional.empty();
+        }).orElse(null);
+    }
+    
+}
@@ -0,0 +1,68 @@
+package com.fsocity.framework.mybatis.pagination;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分页 COUNT 结果的本地缓存。
+ * <p>
+ * 缓存键由表名、表的版本号和 COUNT 查询的 SQL 及参数组成。表有写入时版本号加一，
+ * 旧的缓存不会再被命中，等 TTL 到期后自然淘汰，不需要遍历删除。
+ * <p>
+ * 注意：缓存只在当前节点有效，其它节点的写入最多在 TTL 后可见。
+ *
+ * @author zail
+ * @date 2022/7/17
+ */
+public class PageCountCache {
+    
+    // 表名 -> 版本号
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    
+    private final Cache<String, Long> cache;
+    
+    public PageCountCache(long maximumSize, long expireSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+    
+    /**
+     * 生成缓存键
+     *
+     * @param table 表名
+     * @param query 规范化后的查询条件
+     */
+    public String key(String table, String query) {
+        return table + '@' + version(table).get() + '#' + query;
+    }
+    
+    /**
+     * 获取缓存的总数，不存在时返回null
+     */
+    public Long get(String key) {
+        return cache.getIfPresent(key);
+    }
+    
+    public void put(String key, long total) {
+        cache.put(key, total);
+    }
+    
+    /**
+     * 使某个表的全部 COUNT 缓存失效
+     */
+    public void invalidate(String table) {
+        version(table).incrementAndGet();
+    }
+    
+    private AtomicLong version(String table) {
+        return versions.computeIfAbsent(table, k -> new AtomicLong());
+    }
+    
+}
@@ -0,0 +1,54 @@
+package com.fsocity.framework.mybatis.pagination;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Mapper 对应的表有增删改时，使分页 COUNT 缓存失效。
+ * <p>
+ * 必须在写入对其它连接可见之后再失效：如果先失效，提交前并发的 COUNT 查询会读到旧数据，
+ * 再以新的版本号写回缓存，提交后仍然命中旧的总数直到 TTL 过期。
+ * 因此在 Spring 事务中等提交后失效，回滚时不失效；没有事务时(自动提交)在 update 返回后失效。
+ *
+ * @author zail
+ * @date 2022/7/17
+ */
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class PageCountInvalidationInterceptor implements Interceptor {
+    
+    private final PageCountCache pageCountCache;
+    
+    private final MapperTables mapperTables = new MapperTables();
+    
+    public PageCountInvalidationInterceptor(PageCountCache pageCountCache) {
+        this.pageCountCache = pageCountCache;
+    }
+    
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        String table = mapperTables.getTable((MappedStatement) invocation.getArgs()[0]);
+        if (table == null) {
+            return result;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pageCountCache.invalidate(table);
+                }
+            });
+        }
+        else {
+            pageCountCache.invalidate(table);
+        }
+        return result;
+    }
+    
+}
@@ -0,0 +1,116 @@
+package com.fsocity.framework.mybatis.pagination;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.ParameterUtils;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+import java.sql.SQLException;
+
+/**
+ * 支持 {@link CountMode} 的分页拦截器。
+ * <p>
+ * <ul>
+ *     <li>EXACT：与 MyBatis Plus 的分页拦截器相同</li>
+ *     <li>CACHED：以数据权限处理后的SQL和参数作为键缓存 COUNT 结果，
+ *     Mapper 对应的表有增删改时由 {@link PageCountInvalidationInterceptor} 失效</li>
+ *     <li>NONE：不执行 COUNT，多查一条判断是否有下一页</li>
+ * </ul>
+ * 缓存只按 Mapper 自己的表失效，联表查询的其它表变化时只能等 TTL 过期。
+ *
+ * @author zail
+ * @date 2022/7/17
+ */
+public class PaginationCountInnerInterceptor extends PaginationInnerInterceptor {
+    
+    private final PageCountCache pageCountCache;
+    
+    private final MapperTables mapperTables = new MapperTables();
+    
+    public PaginationCountInnerInterceptor(DbType dbType, PageCountCache pageCountCache) {
+        super(dbType);
+        this.pageCountCache = pageCountCache;
+    }
+    
+    @Override
+    public boolean willDoQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                               ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+        IPage<?> page = ParameterUtils.findPage(parameter).orElse(null);
+        if (!(page instanceof CountModePage) || ((CountModePage<?>) page).getCountMode() != CountMode.CACHED) {
+            return super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+        String table = mapperTables.getTable(ms);
+        if (table == null) {
+            return super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+        String key = pageCountCache.key(table, buildQueryKey(ms, parameter, boundSql));
+        Long total = pageCountCache.get(key);
+        if (total == null) {
+            boolean result = super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+            pageCountCache.put(key, page.getTotal());
+            return result;
+        }
+        page.setTotal(total);
+        return total > 0 && page.getCurrent() <= page.getPages();
+    }
+    
+    @Override
+    public void beforeQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                            ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+        IPage<?> page = ParameterUtils.findPage(parameter).orElse(null);
+        if (!(page instanceof CountModePage) || ((CountModePage<?>) page).getCountMode() != CountMode.NONE) {
+            super.beforeQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+            return;
+        }
+        // 生成 LIMIT 时多取一条
+        CountModePage<?> countModePage = (CountModePage<?>) page;
+        countModePage.setProbing(true);
+        try {
+            super.beforeQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+        finally {
+            countModePage.setProbing(false);
+        }
+    }
+    
+    /**
+     * 查询SQL加上按顺序取出的参数值，与 DefaultParameterHandler 取参数的方式一致
+     */
+    private static String buildQueryKey(MappedStatement ms, Object parameter, BoundSql boundSql) {
+        StringBuilder key = new StringBuilder(boundSql.getSql().replaceAll("\\s+", " "));
+        Configuration configuration = ms.getConfiguration();
+        TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+        MetaObject metaObject = null;
+        for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+            String property = parameterMapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(property)) {
+                value = boundSql.getAdditionalParameter(property);
+            }
+            else if (parameter == null) {
+                value = null;
+            }
+            else if (typeHandlerRegistry.hasTypeHandler(parameter.getClass())) {
+                value = parameter;
+            }
+            else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameter);
+                }
+                value = metaObject.getValue(property);
+            }
+            key.append('|').append(value);
+        }
+        return key.toString();
+    }
+    
+}
@@ -0,0 +1,28 @@
+package com.fsocity.framework.mybatis.partition;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 分区表维护配置，fsocity.partition.enable=false 时不维护
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "fsocity.partition", name = "enable", havingValue = "true", matchIfMissing = true)
+public class PartitionBeanConfig {
+    
+    @Bean
+    public PartitionManager partitionManager(JdbcTemplate jdbcTemplate, PartitionProperties partitionProperties,
+                                             ObjectProvider<StringRedisTemplate> stringRedisTemplate) {
+        return new PartitionManager(jdbcTemplate, partitionProperties, stringRedisTemplate.getIfAvailable());
+    }
+    
+}
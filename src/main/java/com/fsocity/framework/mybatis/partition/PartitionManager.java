@@ -0,0 +1,272 @@
+package com.fsocity.framework.mybatis.partition;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 按时间分区的表维护：提前创建新的分区，删除过期的分区。
+ * <p>
+ * 表需要按 RANGE COLUMNS(时间字段) 分区，并且最后一个分区是 VALUES LESS THAN (MAXVALUE)，
+ * 见 docs/sql/admin_log_partition.sql。新分区从 MAXVALUE 分区中拆分出来，这个分区正常情况下是空的，拆分很快；
+ * 过期的分区直接 DROP PARTITION，不需要逐行删除。
+ * 启动时执行一次，之后按 fsocity.partition.cron 定时执行。
+ * <p>
+ * 多节点部署时所有节点同时触发，通过 Redis 锁只让一个节点执行，其它节点的 ALTER TABLE 不会因为分区已存在或已删除而失败；
+ * 没有 Redis 或 Redis 不可用时直接执行。
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+@Slf4j
+public class PartitionManager implements ApplicationRunner {
+    
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z0-9_]+");
+    
+    private static final String MAXVALUE = "MAXVALUE";
+    
+    private static final String LIST_PARTITIONS_SQL = "SELECT PARTITION_NAME, PARTITION_EXPRESSION, PARTITION_DESCRIPTION "
+            + "FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? "
+            + "ORDER BY PARTITION_ORDINAL_POSITION";
+    
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end",
+            Long.class);
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final PartitionProperties properties;
+    
+    // 为null时不加锁
+    private final StringRedisTemplate redisTemplate;
+    
+    public PartitionManager(JdbcTemplate jdbcTemplate, PartitionProperties properties, StringRedisTemplate redisTemplate) {
+        for (PartitionProperties.Table table : properties.getTables()) {
+            if (table.getName() == null || !IDENTIFIER.matcher(table.getName()).matches()
+                    || table.getColumn() == null || !IDENTIFIER.matcher(table.getColumn()).matches()) {
+                throw new IllegalArgumentException("分区表配置错误：" + table);
+            }
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        maintain();
+    }
+    
+    /**
+     * 拿到锁后维护所有配置的分区表，其它节点正在维护时跳过
+     */
+    @Scheduled(cron = "${fsocity.partition.cron:0 10 0 * * ?}")
+    public void maintain() {
+        if (redisTemplate == null) {
+            maintainAll();
+            return;
+        }
+        String token = UUID.randomUUID().toString();
+        Boolean locked;
+        try {
+            locked = redisTemplate.opsForValue().setIfAbsent(properties.getLockKey(), token, properties.getLockTtl());
+        }
+        catch (Exception e) {
+            // 分区按已有的分区计算，重复执行最多是某个节点的 ALTER TABLE 失败，不影响数据
+            log.warn("获取分区维护锁失败，不加锁执行", e);
+            maintainAll();
+            return;
+        }
+        if (!Boolean.TRUE.equals(locked)) {
+            log.info("其它节点正在维护分区，跳过");
+            return;
+        }
+        try {
+            maintainAll();
+        }
+        finally {
+            try {
+                redisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(properties.getLockKey()), token);
+            }
+            catch (Exception e) {
+                log.warn("释放分区维护锁失败，{} 后自动过期", properties.getLockTtl(), e);
+            }
+        }
+    }
+    
+    /**
+     * 维护所有配置的分区表，一张表失败不影响其它表
+     */
+    private void maintainAll() {
+        LocalDate today = LocalDate.now();
+        for (PartitionProperties.Table table : properties.getTables()) {
+            try {
+                maintain(table, today);
+            }
+            catch (Exception e) {
+                log.error("维护分区失败 table = {}", table.getName(), e);
+            }
+        }
+    }
+    
+    private void maintain(PartitionProperties.Table table, LocalDate today) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, table.getName());
+        if (rows.isEmpty()) {
+            log.warn("分区表不存在 table = {}", table.getName());
+            return;
+        }
+        // 未分区的表只有一行，分区名为null
+        Object expression = rows.get(0).get("PARTITION_EXPRESSION");
+        if (rows.get(0).get("PARTITION_NAME") == null || expression == null
+                || !expression.toString().contains(table.getColumn())) {
+            log.warn("表没有按 {} 分区，跳过 table = {}，见 docs/sql/admin_log_partition.sql",
+                    table.getColumn(), table.getName());
+            return;
+        }
+        
+        String maxValuePartition = null;
+        List<Partition> partitions = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            String name = (String) row.get("PARTITION_NAME");
+            String description = String.valueOf(row.get("PARTITION_DESCRIPTION"));
+            if (MAXVALUE.equalsIgnoreCase(description)) {
+                maxValuePartition = name;
+            }
+            else {
+                partitions.add(new Partition(name, parseBound(description)));
+            }
+        }
+        
+        Plan plan = plan(partitions, table.getUnit(), table.getRetention(), table.getPrecreate(), today);
+        if (!plan.getAdd().isEmpty()) {
+            String sql = addPartitionSql(table.getName(), plan.getAdd(), maxValuePartition);
+            jdbcTemplate.execute(sql);
+            log.info("创建分区 table = {}, partitions = {}", table.getName(), plan.getAdd());
+        }
+        if (!plan.getDrop().isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE `" + table.getName() + "` DROP PARTITION "
+                    + String.join(",", plan.getDrop()));
+            log.info("删除过期分区 table = {}, partitions = {}", table.getName(), plan.getDrop());
+        }
+    }
+    
+    /**
+     * 计算需要创建和删除的分区
+     *
+     * @param partitions 已有的分区(不包括 MAXVALUE 分区)，按上界从小到大
+     * @param unit       分区的时间跨度
+     * @param retention  保留最近多少个分区(不包括当前分区)，小于等于0表示不删除
+     * @param precreate  提前创建多少个分区
+     * @param today      当前日期
+     */
+    static Plan plan(List<Partition> partitions, PartitionUnit unit, int retention, int precreate, LocalDate today) {
+        LocalDate current = unit.start(today);
+        
+        // 从最后一个分区的上界开始，创建到当前分区之后的第 precreate 个分区。
+        // 没有分区时第一个分区是当前分区，之前的数据也都在这个分区中
+        List<Partition> add = new ArrayList<>();
+        LocalDate start = partitions.isEmpty() ? current : partitions.get(partitions.size() - 1).getBound();
+        LocalDate end = unit.plus(current, precreate + 1L);
+        while (start.isBefore(end)) {
+            LocalDate bound = unit.plus(unit.start(start), 1);
+            add.add(new Partition(unit.partitionName(start), bound));
+            start = bound;
+        }
+        
+        // 上界不晚于保留的第一个分区起始日期的分区，其中的数据都已过期
+        List<String> drop = new ArrayList<>();
+        if (retention > 0) {
+            LocalDate expire = unit.plus(current, -retention);
+            drop = partitions.stream()
+                    .filter(partition -> !partition.getBound().isAfter(expire))
+                    .map(Partition::getName)
+                    .collect(Collectors.toList());
+        }
+        return new Plan(add, drop);
+    }
+    
+    static String addPartitionSql(String table, List<Partition> add, String maxValuePartition) {
+        String definitions = add.stream()
+                .map(partition -> "PARTITION " + partition.getName()
+                        + " VALUES LESS THAN ('" + partition.getBound() + " 00:00:00')")
+                .collect(Collectors.joining(", "));
+        if (maxValuePartition == null) {
+            return "ALTER TABLE `" + table + "` ADD PARTITION (" + definitions + ")";
+        }
+        return "ALTER TABLE `" + table + "` REORGANIZE PARTITION " + maxValuePartition + " INTO (" + definitions
+                + ", PARTITION " + maxValuePartition + " VALUES LESS THAN (MAXVALUE))";
+    }
+    
+    /**
+     * 分区上界，例如 '2022-08-01 00:00:00'
+     */
+    static LocalDate parseBound(String description) {
+        String value = description.replace("'", "").trim();
+        return LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value);
+    }
+    
+    /**
+     * 分区，数据的时间小于上界
+     */
+    static final class Partition {
+        
+        private final String name;
+        
+        private final LocalDate bound;
+        
+        Partition(String name, LocalDate bound) {
+            this.name = name;
+            this.bound = bound;
+        }
+        
+        String getName() {
+            return name;
+        }
+        
+        LocalDate getBound() {
+            return bound;
+        }
+        
+        @Override
+        public String toString() {
+            return name + "<" + bound;
+        }
+    
+    }
+    
+    static final class Plan {
+        
+        private final List<Partition> add;
+        
+        private final List<String> drop;
+        
+        Plan(List<Partition> add, List<String> drop) {
+            this.add = add;
+            this.drop = drop;
+        }
+        
+        List<Partition> getAdd() {
+            return add;
+        }
+        
+        List<String> getDrop() {
+            return drop;
+        }
+    
+    }
+    
+}
@@ -0,0 +1,57 @@
+package com.fsocity.framework.mybatis.partition;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按时间分区的表配置
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+@Data
+@ConfigurationProperties(prefix = "fsocity.partition")
+@Component
+public class PartitionProperties {
+    
+    // 是否开启
+    private boolean enable = true;
+    
+    // 创建新分区、删除过期分区的时间
+    private String cron = "0 10 0 * * ?";
+    
+    // 多节点同时维护时使用的 Redis 锁，只有拿到锁的节点执行
+    private String lockKey = "fsocity:partition:lock";
+    
+    // 锁的有效期，应大于一次维护的耗时，节点异常退出后超过这个时间其它节点才能维护
+    private Duration lockTtl = Duration.ofMinutes(10);
+    
+    // 分区表
+    private List<Table> tables = new ArrayList<>();
+    
+    @Data
+    public static class Table {
+        
+        // 表名
+        private String name;
+        
+        // 分区字段，必须是 datetime 类型并且包含在主键中
+        private String column;
+        
+        // 每个分区的时间跨度
+        private PartitionUnit unit = PartitionUnit.MONTH;
+        
+        // 保留最近多少个分区(不包括当前分区)，小于等于0表示不删除
+        private int retention = 6;
+        
+        // 提前创建多少个分区
+        private int precreate = 2;
+    
+    }
+    
+}
@@ -0,0 +1,61 @@
+package com.fsocity.framework.mybatis.partition;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 分区的时间跨度，分区名为 p + 分区起始日期，例如 p202207、p20220722
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+public enum PartitionUnit {
+    
+    DAY(DateTimeFormatter.ofPattern("yyyyMMdd")) {
+        @Override
+        public LocalDate start(LocalDate date) {
+            return date;
+        }
+        
+        @Override
+        public LocalDate plus(LocalDate start, long amount) {
+            return start.plusDays(amount);
+        }
+    },
+    
+    MONTH(DateTimeFormatter.ofPattern("yyyyMM")) {
+        @Override
+        public LocalDate start(LocalDate date) {
+            return date.withDayOfMonth(1);
+        }
+        
+        @Override
+        public LocalDate plus(LocalDate start, long amount) {
+            return start.plusMonths(amount);
+        }
+    };
+    
+    private final DateTimeFormatter nameFormatter;
+    
+    PartitionUnit(DateTimeFormatter nameFormatter) {
+        this.nameFormatter = nameFormatter;
+    }
+    
+    /**
+     * 日期所在分区的起始日期
+     */
+    public abstract LocalDate start(LocalDate date);
+    
+    /**
+     * 分区起始日期加上若干个分区
+     */
+    public abstract LocalDate plus(LocalDate start, long amount);
+    
+    /**
+     * 起始日期为 start 的分区名
+     */
+    public String partitionName(LocalDate start) {
+        return "p" + nameFormatter.format(start);
+    }
+    
+}
@@ -0,0 +1,85 @@
+package com.fsocity.framework.redis;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步的 redis 操作Service，基于 Lettuce 的响应式连接，调用线程不等待 Redis 返回。
+ * <p>
+ * 返回的 CompletableFuture 已经开始执行，不需要结果时可以直接忽略(fire-and-forget)，
+ * 多个操作可以并行发出后再组合结果。
+ * 与 {@link RedisService} 使用相同的序列化方式，两者写入的数据可以互相读取。
+ *
+ * @author zail
+ * @date 2022/7/19
+ */
+public interface AsyncRedisService {
+    
+    /**
+     * 保存属性
+     */
+    CompletableFuture<Boolean> set(String key, Object value, long time);
+    
+    /**
+     * 保存属性
+     */
+    CompletableFuture<Boolean> set(String key, Object value);
+    
+    /**
+     * 获取属性，不存在时结果为null
+     */
+    CompletableFuture<Object> get(String key);
+    
+    /**
+     * 批量获取属性，不存在的key对应null
+     */
+    CompletableFuture<List<Object>> mGet(Collection<String> keys);
+    
+    /**
+     * 批量保存属性
+     */
+    CompletableFuture<Boolean> mSet(Map<String, ?> map);
+    
+    /**
+     * 删除属性
+     */
+    CompletableFuture<Long> del(String... keys);
+    
+    /**
+     * 设置过期时间
+     */
+    CompletableFuture<Boolean> expire(String key, long time);
+    
+    /**
+     * 按delta递增
+     */
+    CompletableFuture<Long> incr(String key, long delta);
+    
+    /**
+     * 获取Hash结构中的属性
+     */
+    CompletableFuture<Object> hGet(String key, String hashKey);
+    
+    /**
+     * 向Hash结构中放入一个属性
+     */
+    CompletableFuture<Boolean> hSet(String key, String hashKey, Object value);
+    
+    /**
+     * 直接获取整个Hash结构
+     */
+    CompletableFuture<Map<Object, Object>> hGetAll(String key);
+    
+    /**
+     * 向Set结构中添加属性
+     */
+    CompletableFuture<Long> sAdd(String key, Object... values);
+    
+    /**
+     * 向List结构中添加属性
+     */
+    CompletableFuture<Long> lPush(String key, Object value);
+    
+}
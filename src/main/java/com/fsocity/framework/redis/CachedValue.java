@@ -0,0 +1,43 @@
+package com.fsocity.framework.redis;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link RedisService#getOrLoad} 保存到 Redis 中的值，带有过期时间和加载耗时，用于提前刷新。
+ * <p>
+ * 提前刷新使用 XFetch 算法：越接近过期、加载越慢，提前刷新的概率越大，
+ * 多个请求不会在过期的同一时刻一起去加载。
+ *
+ * @author zail
+ * @date 2022/7/19
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedValue {
+    
+    // 提前刷新的力度，越大越早刷新
+    private static final double BETA = 1.0;
+    
+    // 缓存的值，可以为null
+    private Object value;
+    
+    // 过期时间(毫秒)
+    private long expireAt;
+    
+    // 加载耗时(毫秒)
+    private long loadMillis;
+    
+    /**
+     * 是否需要提前刷新
+     */
+    public boolean shouldRefresh(long now) {
+        double random = ThreadLocalRandom.current().nextDouble();
+        return now - loadMillis * BETA * Math.log(random) >= expireAt;
+    }
+    
+}
@@ -1,25 +1,60 @@
 package com.fsocity.framework.redis;
 
+import com.baomidou.mybatisplus.annotation.TableName;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fsocity.framework.redis.RedisService;
+import com.fsocity.framework.redis.cache.CacheInvalidationTopic;
+import com.fsocity.framework.redis.cache.LocalCacheInvalidationListener;
+import com.fsocity.framework.redis.cache.TwoLevelCacheManager;
+import com.fsocity.framework.redis.cache.TwoLevelCacheProperties;
+import com.fsocity.framework.redis.impl.AsyncRedisServiceImpl;
 import com.fsocity.framework.redis.impl.RedisServiceImpl;
+import com.fsocity.framework.redis.metrics.MeteredRedisSerializer;
+import com.fsocity.framework.redis.metrics.RedisHotKeysEndpoint;
+import com.fsocity.framework.redis.metrics.RedisMetrics;
+import com.fsocity.framework.redis.metrics.RedisMetricsAspect;
+import com.fsocity.framework.redis.metrics.RedisMetricsProperties;
+import com.fsocity.framework.redis.serializer.CompactRedisSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.util.ClassUtils;
 
-import java.time.Duration;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
 
 /**
  * @author zail
@@ -29,6 +64,13 @@ import java.time.Duration;
 @Configuration
 public class RedisBeanConfig {
     
+    // 实体类所在的包
+    private static final String ENTITY_BASE_PACKAGE = "com.fsocity.modules";
+    
+    // 缓存失效通知的 Redis 频道
+    @Value("${fsocity.cache.invalidation-topic:fsocity:cache:invalidation}")
+    private String invalidationTopic;
+    
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory) {
         RedisSerializer<Object> serializer = redisSerializer();
@@ -42,8 +84,59 @@ public class RedisBeanConfig {
         return redisTemplate;
     }
     
+    /**
+     * 写入使用的序列化格式：compact(二进制) 或 json(旧格式)，两种格式都可以读取
+     */
+    @Value("${fsocity.redis.serializer:compact}")
+    private String serializerFormat;
+    
+    // 超过多少字节时压缩
+    @Value("${fsocity.redis.compress-threshold:1024}")
+    private int compressThreshold;
+    
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+    
+    @Autowired
+    private RedisMetricsProperties redisMetricsProperties;
+    
     @Bean
     public RedisSerializer<Object> redisSerializer() {
+        RedisSerializer<Object> legacySerializer = jsonRedisSerializer();
+        RedisSerializer<Object> serializer = "json".equalsIgnoreCase(serializerFormat)
+                ? legacySerializer
+                : new CompactRedisSerializer(typeAliases(), legacySerializer, compressThreshold);
+        if (redisMetricsProperties.isEnable()) {
+            // 记录序列化后的大小和耗时
+            serializer = new MeteredRedisSerializer(serializer, redisMetrics());
+        }
+        return serializer;
+    }
+    
+    /**
+     * Redis 监控指标，没有 actuator 时注册到全局的 MeterRegistry
+     */
+    @Bean
+    public RedisMetrics redisMetrics() {
+        return new RedisMetrics(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), redisMetricsProperties);
+    }
+    
+    @Bean
+    @ConditionalOnProperty(prefix = "fsocity.redis.metrics", name = "enable", havingValue = "true", matchIfMissing = true)
+    public RedisMetricsAspect redisMetricsAspect() {
+        return new RedisMetricsAspect(redisMetrics());
+    }
+    
+    @Bean
+    @ConditionalOnProperty(prefix = "fsocity.redis.metrics", name = "enable", havingValue = "true", matchIfMissing = true)
+    public RedisHotKeysEndpoint redisHotKeysEndpoint() {
+        return new RedisHotKeysEndpoint(redisMetrics());
+    }
+    
+    /**
+     * 旧的JSON序列化器，值中带有完整类名
+     */
+    private RedisSerializer<Object> jsonRedisSerializer() {
         //创建JSON序列化器
         Jackson2JsonRedisSerializer<Object> serializer = new Jackson2JsonRedisSerializer<>(Object.class);
         ObjectMapper objectMapper = new ObjectMapper();
@@ -54,20 +147,109 @@ public class RedisBeanConfig {
         return serializer;
     }
     
+    /**
+     * 类型别名：实体类使用类名，常用集合使用简写。别名写入了Redis中的数据，不要修改已有的别名
+     */
+    private Map<String, Class<?>> typeAliases() {
+        Map<String, Class<?>> aliases = new HashMap<>();
+        aliases.put("L", ArrayList.class);
+        aliases.put("LL", LinkedList.class);
+        aliases.put("M", HashMap.class);
+        aliases.put("LM", LinkedHashMap.class);
+        aliases.put("S", HashSet.class);
+        aliases.put("LS", LinkedHashSet.class);
+        aliases.put("D", Date.class);
+        aliases.put("BD", BigDecimal.class);
+        aliases.put("CV", CachedValue.class);
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(TableName.class));
+        for (BeanDefinition beanDefinition : scanner.findCandidateComponents(ENTITY_BASE_PACKAGE)) {
+            Class<?> type = ClassUtils.resolveClassName(beanDefinition.getBeanClassName(), getClass().getClassLoader());
+            Class<?> existing = aliases.putIfAbsent(type.getSimpleName(), type);
+            if (existing != null) {
+                throw new IllegalStateException("实体类名重复，无法作为Redis类型别名：" + existing.getName() + ", " + type.getName());
+            }
+        }
+        return aliases;
+    }
+    
+    /**
+     * Redis 缓存，有效期按缓存名称配置
+     */
     @Bean
-    public RedisCacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public RedisCacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory,
+                                               TwoLevelCacheProperties twoLevelCacheProperties) {
         RedisCacheWriter redisCacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory);
-        //设置Redis缓存有效期为1天
-        RedisCacheConfiguration redisCacheConfiguration = RedisCacheConfiguration
+        RedisCacheConfiguration defaultConfiguration = RedisCacheConfiguration
                 .defaultCacheConfig()
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(redisSerializer()))
-                .entryTtl(Duration.ofDays(1));
-        return new RedisCacheManager(redisCacheWriter, redisCacheConfiguration);
+                .entryTtl(twoLevelCacheProperties.getDefaults().getTtl());
+        Map<String, RedisCacheConfiguration> configurations = new HashMap<>();
+        for (String cacheName : twoLevelCacheProperties.getSpecs().keySet()) {
+            configurations.put(cacheName, defaultConfiguration.entryTtl(twoLevelCacheProperties.getSpec(cacheName).getTtl()));
+        }
+        return RedisCacheManager.builder(redisCacheWriter)
+                .cacheDefaults(defaultConfiguration)
+                .withInitialCacheConfigurations(configurations)
+                .build();
+    }
+    
+    /**
+     * 两级缓存(本地 + Redis)，@Cacheable 等注解默认使用
+     */
+    @Bean
+    @Primary
+    public TwoLevelCacheManager cacheManager(RedisCacheManager redisCacheManager,
+                                             CacheInvalidationTopic cacheInvalidationTopic,
+                                             TwoLevelCacheProperties twoLevelCacheProperties) {
+        return new TwoLevelCacheManager(redisCacheManager, cacheInvalidationTopic, twoLevelCacheProperties,
+                redisMetricsProperties.isEnable() ? redisMetrics() : null);
+    }
+    
+    /**
+     * 本地缓存失效通知
+     */
+    @Bean
+    public CacheInvalidationTopic cacheInvalidationTopic(RedisTemplate<String, Object> redisTemplate,
+                                                         ObjectProvider<LocalCacheInvalidationListener> listeners) {
+        return new CacheInvalidationTopic(redisTemplate, invalidationTopic, listeners);
+    }
+    
+    /**
+     * 订阅缓存失效消息
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       CacheInvalidationTopic cacheInvalidationTopic) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheInvalidationTopic, new ChannelTopic(cacheInvalidationTopic.getTopic()));
+        return container;
     }
     
     @Bean
     public RedisService redisService(){
         return new RedisServiceImpl();
     }
+    
+    /**
+     * 响应式 RedisTemplate，与 redisTemplate 使用相同的序列化方式
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate(ReactiveRedisConnectionFactory reactiveRedisConnectionFactory) {
+        RedisSerializer<Object> serializer = redisSerializer();
+        RedisSerializationContext<String, Object> serializationContext = RedisSerializationContext
+                .<String, Object>newSerializationContext(new StringRedisSerializer())
+                .value(serializer)
+                .hashKey(new StringRedisSerializer())
+                .hashValue(serializer)
+                .build();
+        return new ReactiveRedisTemplate<>(reactiveRedisConnectionFactory, serializationContext);
+    }
+    
+    @Bean
+    public AsyncRedisService asyncRedisService(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate) {
+        return new AsyncRedisServiceImpl(reactiveRedisTemplate);
+    }
 
 }
@@ -1,10 +1,14 @@
 package com.fsocity.framework.redis;
 
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * redis操作Service
@@ -23,11 +27,48 @@ public interface RedisService {
      */
     void set(String key, Object value);
 
+    /**
+     * 不存在时保存属性并设置过期时间，原子操作，返回是否保存成功
+     */
+    Boolean setIfAbsent(String key, Object value, long time);
+
     /**
      * 获取属性
      */
     Object get(String key);
 
+    /**
+     * 批量获取属性，不存在的key对应null
+     */
+    List<Object> mGet(Collection<String> keys);
+
+    /**
+     * 批量保存属性
+     */
+    void mSet(Map<String, ?> map);
+
+    /**
+     * 批量保存属性并设置过期时间，一次往返
+     */
+    void mSet(Map<String, ?> map, long time);
+
+    /**
+     * 获取属性，不存在时调用 loader 加载并保存(null也会保存)。
+     * 同一个节点上同一个key只有一个线程加载，其它线程等待加载结果；
+     * 快过期时会按概率提前刷新，刷新期间其它线程继续使用旧值
+     *
+     * @param key    key
+     * @param time   过期时间(秒)
+     * @param loader 加载数据，只能抛出非受检异常
+     */
+    <T> T getOrLoad(String key, long time, Supplier<T> loader);
+
+    /**
+     * 同 {@link #getOrLoad(String, long, Supplier)}，distributed 为 true 时
+     * 使用 Redis 锁保证多个节点中只有一个加载，其它节点等待加载结果
+     */
+    <T> T getOrLoad(String key, long time, boolean distributed, Supplier<T> loader);
+
     /**
      * 删除属性
      */
@@ -69,7 +110,12 @@ public interface RedisService {
     Object hGet(String key, String hashKey);
 
     /**
-     * 向Hash结构中放入一个属性
+     * 批量获取Hash结构中的属性，不存在的hashKey对应null
+     */
+    List<Object> hMultiGet(String key, Collection<String> hashKeys);
+
+    /**
+     * 向Hash结构中放入一个属性并设置过期时间，原子操作
      */
     Boolean hSet(String key, String hashKey, Object value, long time);
 
@@ -84,7 +130,7 @@ public interface RedisService {
     Map<Object, Object> hGetAll(String key);
 
     /**
-     * 直接设置整个Hash结构
+     * 直接设置整个Hash结构并设置过期时间，原子操作
      */
     Boolean hSetAll(String key, Map<String, Object> map, long time);
 
@@ -124,7 +170,7 @@ public interface RedisService {
     Long sAdd(String key, Object... values);
 
     /**
-     * 向Set结构中添加属性
+     * 向Set结构中添加属性并设置过期时间，原子操作
      */
     Long sAdd(String key, long time, Object... values);
 
@@ -164,7 +210,7 @@ public interface RedisService {
     Long lPush(String key, Object value);
 
     /**
-     * 向List结构中添加属性
+     * 向List结构中添加属性并设置过期时间，原子操作
      */
     Long lPush(String key, Object value, long time);
 
@@ -174,7 +220,7 @@ public interface RedisService {
     Long lPushAll(String key, Object... values);
 
     /**
-     * 向List结构中批量添加属性
+     * 向List结构中批量添加属性并设置过期时间，原子操作
      */
     Long lPushAll(String key, Long time, Object... values);
 
@@ -182,4 +228,30 @@ public interface RedisService {
      * 从List结构中移除属性
      */
     Long lRemove(String key, long count, Object value);
+
+    /**
+     * 向ZSet结构中添加属性，已存在时更新分数
+     */
+    Boolean zAdd(String key, Object value, double score);
+
+    /**
+     * 获取ZSet结构中分数在[min, max]之间的属性
+     */
+    Set<Object> zRangeByScore(String key, double min, double max);
+
+    /**
+     * 删除ZSet结构中分数在[min, max]之间的属性
+     */
+    Long zRemoveRangeByScore(String key, double min, double max);
+
+    /**
+     * 删除ZSet结构中的属性
+     */
+    Long zRemove(String key, Object... values);
+
+    /**
+     * 以管道方式执行一批命令，一次往返，返回每条命令的结果。
+     * 回调中的命令返回值都是null，结果只能从返回的列表中取得
+     */
+    List<Object> executePipelined(Consumer<RedisOperations<String, Object>> commands);
 }
\ No newline at end of file
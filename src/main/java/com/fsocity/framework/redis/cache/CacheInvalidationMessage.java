@@ -0,0 +1,27 @@
+package com.fsocity.framework.redis.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 通过 Redis 发布的缓存失效消息
+ *
+ * @author zail
+ * @date 2022/7/13
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationMessage {
+    
+    // 发送消息的节点，节点收到自己发送的消息时忽略
+    private String nodeId;
+    
+    // 缓存名称
+    private String cacheName;
+    
+    // 缓存键，为null时清空整个缓存
+    private String key;
+    
+}
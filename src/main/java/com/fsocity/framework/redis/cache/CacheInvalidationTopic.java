@@ -0,0 +1,85 @@
+package com.fsocity.framework.redis.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.UUID;
+
+/**
+ * 本地缓存失效通知的 Redis 频道。
+ * <p>
+ * 某个节点修改数据后发布 {@link CacheInvalidationMessage}，其它节点收到后交给
+ * {@link LocalCacheInvalidationListener} 删除或重建本地缓存。Redis 的发布订阅不保证送达
+ * (例如订阅连接断开期间的消息会丢失)，需要强一致的缓存还要有自己的过期兜底。
+ *
+ * @author zail
+ * @date 2022/7/13
+ */
+@Slf4j
+public class CacheInvalidationTopic implements MessageListener {
+    
+    // 当前节点ID
+    private final String nodeId = UUID.randomUUID().toString();
+    
+    private final RedisTemplate<String, Object> redisTemplate;
+    
+    // 频道名称
+    private final String topic;
+    
+    // 收到消息时才获取，避免和依赖本类发布消息的 Bean 循环依赖
+    private final ObjectProvider<LocalCacheInvalidationListener> listeners;
+    
+    public CacheInvalidationTopic(RedisTemplate<String, Object> redisTemplate, String topic,
+                                  ObjectProvider<LocalCacheInvalidationListener> listeners) {
+        this.redisTemplate = redisTemplate;
+        this.topic = topic;
+        this.listeners = listeners;
+    }
+    
+    public String getTopic() {
+        return topic;
+    }
+    
+    /**
+     * 通知其它节点删除本地缓存
+     *
+     * @param cacheName 缓存名称
+     * @param key       缓存键，为null时清空整个缓存
+     */
+    public void publish(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(topic, new CacheInvalidationMessage(nodeId, cacheName, key));
+        }
+        catch (Exception e) {
+            // 本节点已经修改成功，其它节点最多在本地缓存过期后读到新值
+            log.warn("发送缓存失效消息失败 cacheName = {}, key = {}", cacheName, key, e);
+        }
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        RedisSerializer<?> serializer = redisTemplate.getValueSerializer();
+        Object body = serializer.deserialize(message.getBody());
+        if (!(body instanceof CacheInvalidationMessage)) {
+            return;
+        }
+        CacheInvalidationMessage invalidation = (CacheInvalidationMessage) body;
+        if (nodeId.equals(invalidation.getNodeId())) {
+            return;
+        }
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onInvalidation(invalidation.getCacheName(), invalidation.getKey());
+            }
+            catch (Exception e) {
+                log.warn("处理缓存失效消息失败 cacheName = {}, key = {}",
+                        invalidation.getCacheName(), invalidation.getKey(), e);
+            }
+        });
+    }
+    
+}
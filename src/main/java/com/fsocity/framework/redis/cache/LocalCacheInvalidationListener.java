@@ -0,0 +1,22 @@
+package com.fsocity.framework.redis.cache;
+
+/**
+ * 本地缓存(登录用户信息、权限位图、菜单树、部门层级等)的失效监听器。
+ * <p>
+ * 本地缓存变更时调用 {@link CacheInvalidationTopic#publish(String, String)} 通知其它节点，
+ * 其它节点收到失效消息后回调所有监听器；自己发送的消息不会回调。
+ *
+ * @author zail
+ * @date 2022/7/13
+ */
+public interface LocalCacheInvalidationListener {
+    
+    /**
+     * 其它节点的缓存已经失效，只处理自己的缓存名称，只修改本节点的缓存，不要再次发布
+     *
+     * @param cacheName 缓存名称
+     * @param key       缓存键，为null时表示全部失效
+     */
+    void onInvalidation(String cacheName, String key);
+    
+}
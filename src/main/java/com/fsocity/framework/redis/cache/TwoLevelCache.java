@@ -0,0 +1,127 @@
+package com.fsocity.framework.redis.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 两级缓存：本地 Caffeine 缓存在前，Redis 缓存在后。
+ * <p>
+ * 读取时先查本地，未命中再查 Redis 并回填本地；写入和删除时同时操作两级，
+ * 并通过 Redis 发布失效消息，其它节点收到后删除本地缓存。
+ * 本地缓存的键是缓存键的字符串形式，与 RedisCache 生成 Redis 键的方式一致。
+ *
+ * @author zail
+ * @date 2022/7/18
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+    
+    private final String name;
+    
+    private final Cache<String, Object> localCache;
+    
+    private final org.springframework.cache.Cache redisCache;
+    
+    private final TwoLevelCacheManager cacheManager;
+    
+    public TwoLevelCache(String name, Cache<String, Object> localCache,
+                         org.springframework.cache.Cache redisCache, TwoLevelCacheManager cacheManager) {
+        // 是否允许null由Redis缓存决定，本地缓存保存的是包装后的值
+        super(true);
+        this.name = name;
+        this.localCache = localCache;
+        this.redisCache = redisCache;
+        this.cacheManager = cacheManager;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+    
+    public Cache<String, Object> getLocalCache() {
+        return localCache;
+    }
+    
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        Object value = localCache.getIfPresent(localKey);
+        if (value != null) {
+            return value;
+        }
+        ValueWrapper wrapper = redisCache.get(key);
+        cacheManager.recordRedisLookup(name, wrapper != null);
+        if (wrapper == null) {
+            return null;
+        }
+        value = toStoreValue(wrapper.get());
+        localCache.put(localKey, value);
+        return value;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // 同一个节点上同一个键只加载一次
+        Object value = localCache.get(localKey(key), k -> toStoreValue(redisCache.get(key, valueLoader)));
+        return (T) fromStoreValue(value);
+    }
+    
+    @Override
+    public void put(Object key, Object value) {
+        redisCache.put(key, value);
+        String localKey = localKey(key);
+        localCache.put(localKey, toStoreValue(value));
+        cacheManager.publish(name, localKey);
+    }
+    
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = redisCache.putIfAbsent(key, value);
+        String localKey = localKey(key);
+        localCache.invalidate(localKey);
+        if (existing == null) {
+            cacheManager.publish(name, localKey);
+        }
+        return existing;
+    }
+    
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        String localKey = localKey(key);
+        localCache.invalidate(localKey);
+        cacheManager.publish(name, localKey);
+    }
+    
+    @Override
+    public void clear() {
+        redisCache.clear();
+        localCache.invalidateAll();
+        cacheManager.publish(name, null);
+    }
+    
+    /**
+     * 删除本地缓存，收到其它节点的失效消息时调用
+     */
+    void evictLocal(String localKey) {
+        if (localKey == null) {
+            localCache.invalidateAll();
+        }
+        else {
+            localCache.invalidate(localKey);
+        }
+    }
+    
+    private static String localKey(Object key) {
+        return key instanceof String ? (String) key : String.valueOf(key);
+    }
+    
+}
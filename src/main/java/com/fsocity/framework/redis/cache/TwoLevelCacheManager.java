@@ -0,0 +1,106 @@
+package com.fsocity.framework.redis.cache;
+
+import com.fsocity.framework.redis.metrics.RedisMetrics;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 两级缓存管理器，包装 RedisCacheManager，给每个缓存加上本地缓存。
+ * <p>
+ * 同时作为本地缓存失效通知的监听器：其它节点修改缓存后，本节点删除对应的本地缓存。
+ * 本地缓存的有效期比 Redis 短，即使丢失了失效消息，过期后也会重新从 Redis 读取。
+ *
+ * @author zail
+ * @date 2022/7/18
+ */
+public class TwoLevelCacheManager implements CacheManager, LocalCacheInvalidationListener {
+    
+    private final RedisCacheManager redisCacheManager;
+    
+    private final CacheInvalidationTopic invalidationTopic;
+    
+    private final TwoLevelCacheProperties properties;
+    
+    // 监控指标，为null时不记录
+    private final RedisMetrics redisMetrics;
+    
+    // 缓存名称 -> 缓存
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+    
+    public TwoLevelCacheManager(RedisCacheManager redisCacheManager, CacheInvalidationTopic invalidationTopic,
+                                TwoLevelCacheProperties properties, RedisMetrics redisMetrics) {
+        this.redisCacheManager = redisCacheManager;
+        this.invalidationTopic = invalidationTopic;
+        this.properties = properties;
+        this.redisMetrics = redisMetrics;
+    }
+    
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+    
+    @Override
+    public Collection<String> getCacheNames() {
+        Set<String> names = new LinkedHashSet<>(redisCacheManager.getCacheNames());
+        names.addAll(caches.keySet());
+        return Collections.unmodifiableSet(names);
+    }
+    
+    private Cache createCache(String name) {
+        Cache redisCache = redisCacheManager.getCache(name);
+        TwoLevelCacheProperties.Spec spec = properties.getSpec(name);
+        if (redisCache == null || spec.getLocalMaximumSize() <= 0) {
+            return redisCache;
+        }
+        com.github.benmanes.caffeine.cache.Cache<String, Object> localCache = Caffeine.newBuilder()
+                .maximumSize(spec.getLocalMaximumSize())
+                .expireAfterWrite(spec.getLocalTtl())
+                .recordStats()
+                .build();
+        if (redisMetrics != null) {
+            // 本地缓存的命中、未命中、淘汰次数
+            CaffeineCacheMetrics.monitor(redisMetrics.getRegistry(), localCache, name, "level", "local");
+        }
+        return new TwoLevelCache(name, localCache, redisCache, this);
+    }
+    
+    /**
+     * 记录本地未命中后查询 Redis 的结果
+     */
+    void recordRedisLookup(String cacheName, boolean hit) {
+        if (redisMetrics != null) {
+            redisMetrics.recordCacheLookup(cacheName, hit);
+        }
+    }
+    
+    /**
+     * 通知其它节点删除本地缓存
+     *
+     * @param cacheName 缓存名称
+     * @param key       缓存键，为null时清空整个缓存
+     */
+    void publish(String cacheName, String key) {
+        invalidationTopic.publish(cacheName, key);
+    }
+    
+    @Override
+    public void onInvalidation(String cacheName, String key) {
+        // 只处理本节点已经创建的两级缓存，其它本地缓存的通知忽略
+        Cache cache = caches.get(cacheName);
+        if (cache instanceof TwoLevelCache) {
+            ((TwoLevelCache) cache).evictLocal(key);
+        }
+    }
+    
+}
@@ -0,0 +1,63 @@
+package com.fsocity.framework.redis.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 两级缓存(本地 + Redis)配置
+ *
+ * @author zail
+ * @date 2022/7/18
+ */
+@Data
+@ConfigurationProperties(prefix = "fsocity.cache")
+@Component
+public class TwoLevelCacheProperties {
+    
+    // 默认配置
+    private Spec defaults = new Spec();
+    
+    // 缓存名称 -> 配置，没有配置的缓存使用默认配置
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+    
+    public TwoLevelCacheProperties() {
+        defaults.setTtl(Duration.ofDays(1));
+        defaults.setLocalTtl(Duration.ofMinutes(5));
+        defaults.setLocalMaximumSize(1000L);
+    }
+    
+    /**
+     * 获取某个缓存的配置，未配置的项使用默认值
+     */
+    public Spec getSpec(String cacheName) {
+        Spec spec = specs.get(cacheName);
+        if (spec == null) {
+            return defaults;
+        }
+        Spec merged = new Spec();
+        merged.setTtl(spec.getTtl() != null ? spec.getTtl() : defaults.getTtl());
+        merged.setLocalTtl(spec.getLocalTtl() != null ? spec.getLocalTtl() : defaults.getLocalTtl());
+        merged.setLocalMaximumSize(spec.getLocalMaximumSize() != null ? spec.getLocalMaximumSize() : defaults.getLocalMaximumSize());
+        return merged;
+    }
+    
+    @Data
+    public static class Spec {
+        
+        // Redis 中的有效期
+        private Duration ttl;
+        
+        // 本地缓存的有效期，应小于等于 Redis 中的有效期
+        private Duration localTtl;
+        
+        // 本地缓存的最大数量，0表示不使用本地缓存
+        private Long localMaximumSize;
+    
+    }
+    
+}
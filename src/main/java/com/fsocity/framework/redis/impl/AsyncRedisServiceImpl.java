@@ -0,0 +1,101 @@
+package com.fsocity.framework.redis.impl;
+
+import com.fsocity.framework.redis.AsyncRedisService;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步的 redis 操作实现类
+ *
+ * @author zail
+ * @date 2022/7/19
+ */
+public class AsyncRedisServiceImpl implements AsyncRedisService {
+    
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+    
+    public AsyncRedisServiceImpl(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> set(String key, Object value, long time) {
+        return toFuture(reactiveRedisTemplate.opsForValue().set(key, value, Duration.ofSeconds(time)));
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> set(String key, Object value) {
+        return toFuture(reactiveRedisTemplate.opsForValue().set(key, value));
+    }
+    
+    @Override
+    public CompletableFuture<Object> get(String key) {
+        return toFuture(reactiveRedisTemplate.opsForValue().get(key));
+    }
+    
+    @Override
+    public CompletableFuture<List<Object>> mGet(Collection<String> keys) {
+        return toFuture(reactiveRedisTemplate.opsForValue().multiGet(new ArrayList<>(keys)));
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> mSet(Map<String, ?> map) {
+        return toFuture(reactiveRedisTemplate.opsForValue().multiSet(map));
+    }
+    
+    @Override
+    public CompletableFuture<Long> del(String... keys) {
+        return toFuture(reactiveRedisTemplate.delete(keys));
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> expire(String key, long time) {
+        return toFuture(reactiveRedisTemplate.expire(key, Duration.ofSeconds(time)));
+    }
+    
+    @Override
+    public CompletableFuture<Long> incr(String key, long delta) {
+        return toFuture(reactiveRedisTemplate.opsForValue().increment(key, delta));
+    }
+    
+    @Override
+    public CompletableFuture<Object> hGet(String key, String hashKey) {
+        return toFuture(reactiveRedisTemplate.<String, Object>opsForHash().get(key, hashKey));
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> hSet(String key, String hashKey, Object value) {
+        return toFuture(reactiveRedisTemplate.<String, Object>opsForHash().put(key, hashKey, value));
+    }
+    
+    @Override
+    public CompletableFuture<Map<Object, Object>> hGetAll(String key) {
+        return toFuture(reactiveRedisTemplate.<Object, Object>opsForHash().entries(key)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+    
+    @Override
+    public CompletableFuture<Long> sAdd(String key, Object... values) {
+        return toFuture(reactiveRedisTemplate.opsForSet().add(key, values));
+    }
+    
+    @Override
+    public CompletableFuture<Long> lPush(String key, Object value) {
+        return toFuture(reactiveRedisTemplate.opsForList().rightPush(key, value));
+    }
+    
+    /**
+     * 立即订阅并转换成 CompletableFuture，没有结果时为null
+     */
+    private static <T> CompletableFuture<T> toFuture(Mono<T> mono) {
+        return mono.toFuture();
+    }
+    
+}
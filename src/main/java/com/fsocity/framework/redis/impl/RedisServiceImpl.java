@@ -1,13 +1,32 @@
 package com.fsocity.framework.redis.impl;
 
+import com.fsocity.framework.redis.CachedValue;
 import com.fsocity.framework.redis.RedisService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
-
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * redis操作实现类
@@ -15,8 +34,38 @@ import java.util.concurrent.TimeUnit;
  */
 public class RedisServiceImpl implements RedisService {
     
+    /**
+     * 写入并设置过期时间。ARGV[1]为写入命令，ARGV[2]为过期时间(秒)，其余为命令参数，返回写入命令的结果
+     */
+    private static final RedisScript<Long> WRITE_WITH_EXPIRE_SCRIPT = new DefaultRedisScript<>(
+            "local result = redis.call(ARGV[1], KEYS[1], unpack(ARGV, 3)) " +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+                    "return result", Long.class);
+    
+    /**
+     * 值等于 ARGV[1] 时才删除，避免删除其它节点的锁
+     */
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end",
+            Long.class);
+    
+    // 加载锁的后缀
+    private static final String LOCK_SUFFIX = ":loading";
+    
+    // 加载锁的有效期(毫秒)，加载超过这个时间时其它节点也会开始加载
+    private static final long LOCK_MILLIS = 10000L;
+    
+    // 没有拿到锁时等待其它节点加载的最长时间(毫秒)
+    private static final long LOCK_WAIT_MILLIS = 3000L;
+    
+    // 没有拿到锁时查询结果的间隔(毫秒)
+    private static final long LOCK_RETRY_MILLIS = 50L;
+    
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
+    
+    // 当前节点正在加载的key -> 加载结果
+    private final ConcurrentMap<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
 
     @Override
     public void set(String key, Object value, long time) {
@@ -28,11 +77,78 @@ public class RedisServiceImpl implements RedisService {
         redisTemplate.opsForValue().set(key, value);
     }
 
+    @Override
+    public Boolean setIfAbsent(String key, Object value, long time) {
+        return redisTemplate.opsForValue().setIfAbsent(key, value, time, TimeUnit.SECONDS);
+    }
+
     @Override
     public Object get(String key) {
         return redisTemplate.opsForValue().get(key);
     }
 
+    @Override
+    public <T> T getOrLoad(String key, long time, Supplier<T> loader) {
+        return getOrLoad(key, time, false, loader);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getOrLoad(String key, long time, boolean distributed, Supplier<T> loader) {
+        Object cached = get(key);
+        CachedValue previous = cached instanceof CachedValue ? (CachedValue) cached : null;
+        if (previous != null && !previous.shouldRefresh(System.currentTimeMillis())) {
+            return (T) previous.getValue();
+        }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            // 提前刷新时不等待，继续使用旧值
+            return previous != null ? (T) previous.getValue() : (T) join(existing);
+        }
+        try {
+            Object value = distributed ? loadWithLock(key, time, loader, previous) : load(key, time, loader);
+            future.complete(value);
+            return (T) value;
+        }
+        catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            loading.remove(key, future);
+        }
+    }
+
+    @Override
+    public List<Object> mGet(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return redisTemplate.opsForValue().multiGet(keys);
+    }
+
+    @Override
+    public void mSet(Map<String, ?> map) {
+        if (map.isEmpty()) {
+            return;
+        }
+        redisTemplate.opsForValue().multiSet(map);
+    }
+
+    @Override
+    public void mSet(Map<String, ?> map, long time) {
+        if (map.isEmpty()) {
+            return;
+        }
+        // MSET 不支持过期时间，用管道发送多个 SET EX
+        executePipelined(operations -> {
+            for (Map.Entry<String, ?> entry : map.entrySet()) {
+                operations.opsForValue().set(entry.getKey(), entry.getValue(), time, TimeUnit.SECONDS);
+            }
+        });
+    }
+
     @Override
     public Boolean del(String key) {
         return redisTemplate.delete(key);
@@ -73,10 +189,18 @@ public class RedisServiceImpl implements RedisService {
         return redisTemplate.opsForHash().get(key, hashKey);
     }
 
+    @Override
+    public List<Object> hMultiGet(String key, Collection<String> hashKeys) {
+        if (hashKeys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return redisTemplate.opsForHash().multiGet(key, new ArrayList<>(hashKeys));
+    }
+
     @Override
     public Boolean hSet(String key, String hashKey, Object value, long time) {
-        redisTemplate.opsForHash().put(key, hashKey, value);
-        return expire(key, time);
+        writeWithExpire("HSET", key, time, hashKeySerializer().serialize(hashKey), hashValueSerializer().serialize(value));
+        return true;
     }
 
     @Override
@@ -91,8 +215,16 @@ public class RedisServiceImpl implements RedisService {
 
     @Override
     public Boolean hSetAll(String key, Map<String, Object> map, long time) {
-        redisTemplate.opsForHash().putAll(key, map);
-        return expire(key, time);
+        if (map.isEmpty()) {
+            return expire(key, time);
+        }
+        List<byte[]> args = new ArrayList<>(map.size() * 2);
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            args.add(hashKeySerializer().serialize(entry.getKey()));
+            args.add(hashValueSerializer().serialize(entry.getValue()));
+        }
+        writeWithExpire("HSET", key, time, args.toArray(new byte[0][]));
+        return true;
     }
 
     @Override
@@ -132,9 +264,7 @@ public class RedisServiceImpl implements RedisService {
 
     @Override
     public Long sAdd(String key, long time, Object... values) {
-        Long count = redisTemplate.opsForSet().add(key, values);
-        expire(key, time);
-        return count;
+        return writeWithExpire("SADD", key, time, serializeValues(values));
     }
 
     @Override
@@ -174,9 +304,7 @@ public class RedisServiceImpl implements RedisService {
 
     @Override
     public Long lPush(String key, Object value, long time) {
-        Long index = redisTemplate.opsForList().rightPush(key, value);
-        expire(key, time);
-        return index;
+        return writeWithExpire("RPUSH", key, time, valueSerializer().serialize(value));
     }
 
     @Override
@@ -186,13 +314,165 @@ public class RedisServiceImpl implements RedisService {
 
     @Override
     public Long lPushAll(String key, Long time, Object... values) {
-        Long count = redisTemplate.opsForList().rightPushAll(key, values);
-        expire(key, time);
-        return count;
+        return writeWithExpire("RPUSH", key, time, serializeValues(values));
     }
 
     @Override
     public Long lRemove(String key, long count, Object value) {
         return redisTemplate.opsForList().remove(key, count, value);
     }
+
+    @Override
+    public Boolean zAdd(String key, Object value, double score) {
+        return redisTemplate.opsForZSet().add(key, value, score);
+    }
+
+    @Override
+    public Set<Object> zRangeByScore(String key, double min, double max) {
+        return redisTemplate.opsForZSet().rangeByScore(key, min, max);
+    }
+
+    @Override
+    public Long zRemoveRangeByScore(String key, double min, double max) {
+        return redisTemplate.opsForZSet().removeRangeByScore(key, min, max);
+    }
+
+    @Override
+    public Long zRemove(String key, Object... values) {
+        return redisTemplate.opsForZSet().remove(key, values);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Object> executePipelined(Consumer<RedisOperations<String, Object>> commands) {
+        return redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                commands.accept((RedisOperations<String, Object>) operations);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 执行写入命令并设置过期时间，一次往返并且是原子的
+     *
+     * @param command 写入命令
+     * @param key     key
+     * @param time    过期时间(秒)
+     * @param args    已经序列化的命令参数
+     */
+    private Long writeWithExpire(String command, String key, long time, byte[]... args) {
+        Object[] scriptArgs = new Object[args.length + 2];
+        scriptArgs[0] = command.getBytes(StandardCharsets.UTF_8);
+        scriptArgs[1] = String.valueOf(time).getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(args, 0, scriptArgs, 2, args.length);
+        return redisTemplate.execute(WRITE_WITH_EXPIRE_SCRIPT, RedisSerializer.byteArray(),
+                new GenericToStringSerializer<>(Long.class), Collections.singletonList(key), scriptArgs);
+    }
+
+    private byte[][] serializeValues(Object... values) {
+        byte[][] result = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = valueSerializer().serialize(values[i]);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> valueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> hashKeySerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getHashKeySerializer();
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> hashValueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getHashValueSerializer();
+    }
+
+    /**
+     * 加载并保存，记录加载耗时用于提前刷新
+     */
+    private Object load(String key, long time, Supplier<?> loader) {
+        long start = System.currentTimeMillis();
+        Object value = loader.get();
+        long now = System.currentTimeMillis();
+        set(key, new CachedValue(value, now + TimeUnit.SECONDS.toMillis(time), now - start), time);
+        return value;
+    }
+
+    /**
+     * 拿到 Redis 锁的节点加载，其它节点等待加载结果，等待超时后自己加载
+     */
+    private Object loadWithLock(String key, long time, Supplier<?> loader, CachedValue previous) {
+        String lockKey = key + LOCK_SUFFIX;
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + LOCK_WAIT_MILLIS;
+        while (true) {
+            Boolean locked = redisTemplate.opsForValue().setIfAbsent(lockKey, token, LOCK_MILLIS, TimeUnit.MILLISECONDS);
+            if (Boolean.TRUE.equals(locked)) {
+                try {
+                    // 拿到锁之前其它节点可能已经加载完
+                    CachedValue current = getNewer(key, previous);
+                    return current != null ? current.getValue() : load(key, time, loader);
+                }
+                finally {
+                    redisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(lockKey), token);
+                }
+            }
+            // 其它节点正在刷新，继续使用旧值
+            if (previous != null) {
+                return previous.getValue();
+            }
+            CachedValue current = getNewer(key, null);
+            if (current != null) {
+                return current.getValue();
+            }
+            if (System.currentTimeMillis() > deadline) {
+                return load(key, time, loader);
+            }
+            try {
+                Thread.sleep(LOCK_RETRY_MILLIS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return load(key, time, loader);
+            }
+        }
+    }
+
+    /**
+     * 获取比 previous 新的值，没有时返回null
+     */
+    private CachedValue getNewer(String key, CachedValue previous) {
+        Object cached = get(key);
+        if (!(cached instanceof CachedValue)) {
+            return null;
+        }
+        CachedValue current = (CachedValue) cached;
+        if (previous != null && current.getExpireAt() <= previous.getExpireAt()) {
+            return null;
+        }
+        return current;
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        }
+        catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
 }
@@ -0,0 +1,117 @@
+package com.fsocity.framework.redis.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 采样的热点key统计(Space-Saving 算法)。
+ * <p>
+ * 最多保存 capacity 个key的计数，满了以后新的key替换计数最小的key，并继承它的计数作为误差上限。
+ * 访问次数排在前面的key一定在结果中，计数是按采样率放大后的估计值。
+ *
+ * @author zail
+ * @date 2022/7/19
+ */
+public class HotKeyTracker {
+    
+    private final int capacity;
+    
+    private final int sampleRate;
+    
+    // key -> 计数
+    private final Map<String, Counter> counters = new HashMap<>();
+    
+    public HotKeyTracker(int capacity, int sampleRate) {
+        this.capacity = capacity;
+        this.sampleRate = Math.max(sampleRate, 1);
+    }
+    
+    /**
+     * 记录一次访问，按采样率决定是否真正计数
+     */
+    public void record(String key) {
+        if (key == null || capacity <= 0) {
+            return;
+        }
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return;
+        }
+        add(key, sampleRate);
+    }
+    
+    synchronized void add(String key, long count) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count += count;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new Counter(count, 0L));
+            return;
+        }
+        // 替换计数最小的key
+        Map.Entry<String, Counter> min = null;
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            if (min == null || entry.getValue().count < min.getValue().count) {
+                min = entry;
+            }
+        }
+        counters.remove(min.getKey());
+        counters.put(key, new Counter(min.getValue().count + count, min.getValue().count));
+    }
+    
+    /**
+     * 访问次数最多的前 n 个key
+     */
+    public synchronized List<HotKey> top(int n) {
+        List<HotKey> hotKeys = new ArrayList<>(counters.size());
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            hotKeys.add(new HotKey(entry.getKey(), entry.getValue().count, entry.getValue().error));
+        }
+        hotKeys.sort(Comparator.comparingLong(HotKey::getCount).reversed());
+        return hotKeys.size() > n ? new ArrayList<>(hotKeys.subList(0, n)) : hotKeys;
+    }
+    
+    /**
+     * 清空统计
+     */
+    public synchronized void reset() {
+        counters.clear();
+    }
+    
+    private static class Counter {
+        
+        private long count;
+        
+        private final long error;
+        
+        Counter(long count, long error) {
+            this.count = count;
+            this.error = error;
+        }
+    
+    }
+    
+    @Data
+    @AllArgsConstructor
+    public static class HotKey {
+        
+        // key
+        private String key;
+        
+        // 估计的访问次数
+        private long count;
+        
+        // 计数的误差上限
+        private long error;
+    
+    }
+    
+}
@@ -0,0 +1,43 @@
+package com.fsocity.framework.redis.metrics;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * 记录序列化大小和耗时的 RedisSerializer 包装
+ *
+ * @author zail
+ * @date 2022/7/19
+ */
+public class MeteredRedisSerializer implements RedisSerializer<Object> {
+    
+    private final RedisSerializer<Object> delegate;
+    
+    private final RedisMetrics redisMetrics;
+    
+    public MeteredRedisSerializer(RedisSerializer<Object> delegate, RedisMetrics redisMetrics) {
+        this.delegate = delegate;
+        this.redisMetrics = redisMetrics;
+    }
+    
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        long start = System.nanoTime();
+        byte[] bytes = delegate.serialize(value);
+        if (value != null && bytes != null) {
+            redisMetrics.recordSerialization("write", value.getClass().getSimpleName(), bytes.length, System.nanoTime() - start);
+        }
+        return bytes;
+    }
+    
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        long start = System.nanoTime();
+        Object value = delegate.deserialize(bytes);
+        if (value != null && bytes != null) {
+            redisMetrics.recordSerialization("read", value.getClass().getSimpleName(), bytes.length, System.nanoTime() - start);
+        }
+        return value;
+    }
+    
+}
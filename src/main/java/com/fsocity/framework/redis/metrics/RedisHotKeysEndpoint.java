@@ -0,0 +1,38 @@
+package com.fsocity.framework.redis.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * 热点key的 actuator 端点：GET /actuator/redishotkeys 查看，DELETE 清空统计
+ *
+ * @author zail
+ * @date 2022/7/19
+ */
+@Endpoint(id = "redishotkeys")
+public class RedisHotKeysEndpoint {
+    
+    // 默认返回的数量
+    private static final int DEFAULT_LIMIT = 20;
+    
+    private final RedisMetrics redisMetrics;
+    
+    public RedisHotKeysEndpoint(RedisMetrics redisMetrics) {
+        this.redisMetrics = redisMetrics;
+    }
+    
+    @ReadOperation
+    public List<HotKeyTracker.HotKey> hotKeys(@Nullable Integer limit) {
+        return redisMetrics.getHotKeyTracker().top(limit == null ? DEFAULT_LIMIT : limit);
+    }
+    
+    @DeleteOperation
+    public void reset() {
+        redisMetrics.getHotKeyTracker().reset();
+    }
+    
+}
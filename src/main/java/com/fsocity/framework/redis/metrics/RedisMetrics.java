@@ -0,0 +1,162 @@
+package com.fsocity.framework.redis.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 监控指标，注册到 actuator 的 MeterRegistry 中：
+ * <ul>
+ *     <li>fsocity.redis.command：按操作和key前缀统计的耗时直方图</li>
+ *     <li>fsocity.redis.lookup：按key前缀统计的命中/未命中次数，包括缓存(前缀为 cache:缓存名称)</li>
+ *     <li>fsocity.redis.payload：按方向(read/write)和值类型统计的序列化后大小</li>
+ *     <li>fsocity.redis.serialization：按方向和值类型统计的序列化耗时</li>
+ * </ul>
+ * 热点key通过 /actuator/redishotkeys 查看。
+ *
+ * @author zail
+ * @date 2022/7/19
+ */
+public class RedisMetrics {
+    
+    // 前缀超过数量限制时使用的标签
+    private static final String OTHER_PREFIX = "other";
+    
+    private final MeterRegistry registry;
+    
+    private final RedisMetricsProperties properties;
+    
+    private final HotKeyTracker hotKeyTracker;
+    
+    // 已经出现过的前缀，用于限制标签数量
+    private final Set<String> prefixes = ConcurrentHashMap.newKeySet();
+    
+    private final ConcurrentMap<String, Timer> commandTimers = new ConcurrentHashMap<>();
+    
+    private final ConcurrentMap<String, Counter> lookupCounters = new ConcurrentHashMap<>();
+    
+    private final ConcurrentMap<String, DistributionSummary> payloadSummaries = new ConcurrentHashMap<>();
+    
+    private final ConcurrentMap<String, Timer> serializationTimers = new ConcurrentHashMap<>();
+    
+    public RedisMetrics(MeterRegistry registry, RedisMetricsProperties properties) {
+        this.registry = registry;
+        this.properties = properties;
+        this.hotKeyTracker = new HotKeyTracker(properties.getHotKeyCapacity(), properties.getHotKeySampleRate());
+    }
+    
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+    
+    public HotKeyTracker getHotKeyTracker() {
+        return hotKeyTracker;
+    }
+    
+    /**
+     * 记录一次命令的耗时，同时按采样记录热点key
+     */
+    public void recordCommand(String operation, String key, long nanos) {
+        String prefix = prefix(key);
+        commandTimers.computeIfAbsent(operation + '|' + prefix, k -> Timer.builder("fsocity.redis.command")
+                .description("Redis 命令耗时")
+                .tags("operation", operation, "prefix", prefix)
+                .publishPercentileHistogram()
+                .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        hotKeyTracker.record(key);
+    }
+    
+    /**
+     * 记录一次查询是否命中
+     */
+    public void recordLookup(String key, boolean hit) {
+        recordLookupByPrefix(prefix(key), hit);
+    }
+    
+    /**
+     * 记录一次缓存查询是否命中
+     */
+    public void recordCacheLookup(String cacheName, boolean hit) {
+        recordLookupByPrefix(limitPrefix("cache:" + cacheName), hit);
+    }
+    
+    /**
+     * 记录一次序列化或反序列化
+     *
+     * @param direction write 或 read
+     * @param type      值的类型
+     * @param bytes     序列化后的字节数
+     * @param nanos     耗时(纳秒)
+     */
+    public void recordSerialization(String direction, String type, int bytes, long nanos) {
+        String id = direction + '|' + type;
+        payloadSummaries.computeIfAbsent(id, k -> DistributionSummary.builder("fsocity.redis.payload")
+                .description("Redis 值序列化后的大小")
+                .baseUnit("bytes")
+                .tags("direction", direction, "type", type)
+                .publishPercentileHistogram()
+                .register(registry))
+                .record(bytes);
+        serializationTimers.computeIfAbsent(id, k -> Timer.builder("fsocity.redis.serialization")
+                .description("Redis 值序列化耗时")
+                .tags("direction", direction, "type", type)
+                .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    private void recordLookupByPrefix(String prefix, boolean hit) {
+        String result = hit ? "hit" : "miss";
+        lookupCounters.computeIfAbsent(prefix + '|' + result, k -> Counter.builder("fsocity.redis.lookup")
+                .description("Redis 查询命中次数")
+                .tags("prefix", prefix, "result", result)
+                .register(registry))
+                .increment();
+    }
+    
+    /**
+     * key 的前几段作为前缀，例如 admin:jwttoken:zail -> admin:jwttoken
+     */
+    String prefix(String key) {
+        if (key == null || key.isEmpty()) {
+            return OTHER_PREFIX;
+        }
+        StringBuilder prefix = new StringBuilder();
+        int depth = 0;
+        int start = 0;
+        while (depth < properties.getKeyPrefixDepth() && start < key.length()) {
+            int end = key.indexOf(':', start);
+            // 最后一段通常是ID、用户名等，不作为前缀
+            if (end < 0) {
+                break;
+            }
+            if (end > start) {
+                if (prefix.length() > 0) {
+                    prefix.append(':');
+                }
+                prefix.append(key, start, end);
+                depth++;
+            }
+            start = end + 1;
+        }
+        return prefix.length() == 0 ? OTHER_PREFIX : limitPrefix(prefix.toString());
+    }
+    
+    private String limitPrefix(String prefix) {
+        if (prefixes.contains(prefix)) {
+            return prefix;
+        }
+        if (prefixes.size() >= properties.getMaxKeyPrefixes()) {
+            return OTHER_PREFIX;
+        }
+        prefixes.add(prefix);
+        return prefix;
+    }
+    
+}
@@ -0,0 +1,64 @@
+package com.fsocity.framework.redis.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 记录 RedisService 和 AsyncRedisService 每次调用的耗时、命中情况和热点key。
+ * 异步调用在 CompletableFuture 完成时记录。
+ *
+ * @author zail
+ * @date 2022/7/19
+ */
+@Aspect
+public class RedisMetricsAspect {
+    
+    // 结果为null表示未命中的操作
+    private static final Set<String> LOOKUP_OPERATIONS = new HashSet<>(Arrays.asList("get", "hGet"));
+    
+    private final RedisMetrics redisMetrics;
+    
+    public RedisMetricsAspect(RedisMetrics redisMetrics) {
+        this.redisMetrics = redisMetrics;
+    }
+    
+    @Around("execution(* com.fsocity.framework.redis.RedisService.*(..)) " +
+            "|| execution(* com.fsocity.framework.redis.AsyncRedisService.*(..))")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getName();
+        Object[] args = joinPoint.getArgs();
+        String key = args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+        long start = System.nanoTime();
+        Object result = null;
+        boolean success = false;
+        boolean async = false;
+        try {
+            result = joinPoint.proceed();
+            success = true;
+            if (result instanceof CompletableFuture) {
+                async = true;
+                ((CompletableFuture<?>) result).whenComplete((value, e) -> record(operation, key, start, e == null, value));
+            }
+            return result;
+        }
+        finally {
+            if (!async) {
+                record(operation, key, start, success, result);
+            }
+        }
+    }
+    
+    private void record(String operation, String key, long start, boolean success, Object value) {
+        redisMetrics.recordCommand(operation, key, System.nanoTime() - start);
+        if (success && LOOKUP_OPERATIONS.contains(operation)) {
+            redisMetrics.recordLookup(key, value != null);
+        }
+    }
+    
+}
@@ -0,0 +1,33 @@
+package com.fsocity.framework.redis.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis 监控指标配置
+ *
+ * @author zail
+ * @date 2022/7/19
+ */
+@Data
+@ConfigurationProperties(prefix = "fsocity.redis.metrics")
+@Component
+public class RedisMetricsProperties {
+    
+    // 是否开启
+    private boolean enable = true;
+    
+    // key 前缀取前几段(以":"分隔)，例如 admin:jwttoken:zail 取2段为 admin:jwttoken
+    private int keyPrefixDepth = 2;
+    
+    // 最多记录多少个不同的前缀，超过的归为 other
+    private int maxKeyPrefixes = 200;
+    
+    // 热点key的采样率，每N次访问记录1次
+    private int hotKeySampleRate = 100;
+    
+    // 热点key统计的数量
+    private int hotKeyCapacity = 100;
+    
+}
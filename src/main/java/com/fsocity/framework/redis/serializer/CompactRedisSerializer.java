@@ -0,0 +1,188 @@
+package com.fsocity.framework.redis.serializer;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 紧凑的二进制 Redis 序列化器。
+ * <p>
+ * 格式：1字节魔数 + 1字节版本 + 1字节标志 + 内容。内容是 Smile(二进制JSON)，
+ * 重复的属性名只写一次；类型信息使用 {@link CompactTypeIdResolver} 的简短别名。
+ * 内容超过阈值时用 Deflate 压缩。
+ * <p>
+ * 读取时不是以魔数开头的数据交给旧的序列化器(JSON)，可以直接读取升级前写入的数据。
+ *
+ * @author zail
+ * @date 2022/7/18
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+    
+    // 魔数，JSON 不会以这个字节开头
+    static final byte MAGIC = (byte) 0xC5;
+    
+    // 当前格式版本
+    static final byte VERSION = 1;
+    
+    // 标志：内容已压缩
+    static final int FLAG_DEFLATE = 1;
+    
+    private static final int HEADER_LENGTH = 3;
+    
+    private final ObjectMapper objectMapper;
+    
+    // 旧格式的序列化器
+    private final RedisSerializer<Object> legacySerializer;
+    
+    // 超过多少字节时压缩，小于等于0表示不压缩
+    private final int compressThreshold;
+    
+    public CompactRedisSerializer(Map<String, Class<?>> typeAliases, RedisSerializer<Object> legacySerializer,
+                                  int compressThreshold) {
+        this.objectMapper = createObjectMapper(typeAliases);
+        this.legacySerializer = legacySerializer;
+        this.compressThreshold = compressThreshold;
+    }
+    
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] content;
+        try {
+            content = objectMapper.writeValueAsBytes(new Holder(value));
+        }
+        catch (IOException e) {
+            throw new SerializationException("序列化失败：" + e.getMessage(), e);
+        }
+        int flags = 0;
+        if (compressThreshold > 0 && content.length > compressThreshold) {
+            byte[] compressed = deflate(content);
+            if (compressed.length < content.length) {
+                content = compressed;
+                flags |= FLAG_DEFLATE;
+            }
+        }
+        byte[] bytes = new byte[HEADER_LENGTH + content.length];
+        bytes[0] = MAGIC;
+        bytes[1] = VERSION;
+        bytes[2] = (byte) flags;
+        System.arraycopy(content, 0, bytes, HEADER_LENGTH, content.length);
+        return bytes;
+    }
+    
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return legacySerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH || bytes[1] != VERSION) {
+            throw new SerializationException("不支持的序列化版本：" + (bytes.length > 1 ? bytes[1] : -1));
+        }
+        try {
+            byte[] content;
+            if ((bytes[2] & FLAG_DEFLATE) != 0) {
+                content = inflate(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+            }
+            else {
+                content = new byte[bytes.length - HEADER_LENGTH];
+                System.arraycopy(bytes, HEADER_LENGTH, content, 0, content.length);
+            }
+            return objectMapper.readValue(content, Holder.class).value;
+        }
+        catch (IOException | DataFormatException e) {
+            throw new SerializationException("反序列化失败：" + e.getMessage(), e);
+        }
+    }
+    
+    private static ObjectMapper createObjectMapper(Map<String, Class<?>> typeAliases) {
+        SmileFactory smileFactory = new SmileFactory();
+        // 重复的短字符串(例如状态、部门名称)也只写一次
+        smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        ObjectMapper objectMapper = new ObjectMapper(smileFactory);
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        objectMapper.registerModule(new JavaTimeModule());
+        ObjectMapper.DefaultTypeResolverBuilder typeResolverBuilder = new ObjectMapper.DefaultTypeResolverBuilder(
+                ObjectMapper.DefaultTyping.NON_FINAL, LaissezFaireSubTypeValidator.instance);
+        typeResolverBuilder.init(JsonTypeInfo.Id.CUSTOM, new CompactTypeIdResolver(typeAliases));
+        typeResolverBuilder.inclusion(JsonTypeInfo.As.WRAPPER_ARRAY);
+        objectMapper.setDefaultTyping(typeResolverBuilder);
+        return objectMapper;
+    }
+    
+    private static byte[] deflate(byte[] content) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        }
+        finally {
+            deflater.end();
+        }
+    }
+    
+    private static byte[] inflate(byte[] bytes, int offset, int length) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("压缩数据不完整");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        }
+        finally {
+            inflater.end();
+        }
+    }
+    
+    /**
+     * 顶层的值可能是 Long 等 final 类型，直接序列化不会写类型信息，读回来会变成 Integer。
+     * 包一层声明为 Object 的字段，由默认类型处理统一写入类型信息
+     */
+    static final class Holder {
+        
+        private Object value;
+        
+        Holder() {
+        }
+        
+        Holder(Object value) {
+            this.value = value;
+        }
+    
+    }
+    
+}
@@ -0,0 +1,102 @@
+package com.fsocity.framework.redis.serializer;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
+import com.fasterxml.jackson.databind.util.ClassUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 类型ID解析：注册过的类型使用简短的别名(例如 AdminUser)，其它类型仍然使用完整类名。
+ * <p>
+ * 别名中不含 "."，与完整类名不会冲突。
+ *
+ * @author zail
+ * @date 2022/7/18
+ */
+public class CompactTypeIdResolver extends TypeIdResolverBase {
+    
+    // 类型 -> 别名
+    private final Map<Class<?>, String> aliases;
+    
+    // 别名 -> 类型
+    private final Map<String, Class<?>> types;
+    
+    public CompactTypeIdResolver(Map<String, Class<?>> types) {
+        Map<Class<?>, String> aliases = new HashMap<>();
+        for (Map.Entry<String, Class<?>> entry : types.entrySet()) {
+            if (entry.getKey().indexOf('.') >= 0) {
+                throw new IllegalArgumentException("类型别名不能包含'.'：" + entry.getKey());
+            }
+            aliases.put(entry.getValue(), entry.getKey());
+        }
+        this.aliases = aliases;
+        this.types = Collections.unmodifiableMap(new HashMap<>(types));
+    }
+    
+    @Override
+    public String idFromValue(Object value) {
+        return idFromClass(value.getClass());
+    }
+    
+    @Override
+    public String idFromValueAndType(Object value, Class<?> suggestedType) {
+        return idFromClass(value != null ? value.getClass() : suggestedType);
+    }
+    
+    @Override
+    public JavaType typeFromId(DatabindContext context, String id) throws IOException {
+        Class<?> type = types.get(id);
+        if (type != null) {
+            return context.constructType(type);
+        }
+        try {
+            return context.constructType(ClassUtil.findClass(id));
+        }
+        catch (ClassNotFoundException e) {
+            throw new IOException("无法识别的类型：" + id, e);
+        }
+    }
+    
+    @Override
+    public String getDescForKnownTypeIds() {
+        return types.keySet().toString();
+    }
+    
+    @Override
+    public JsonTypeInfo.Id getMechanism() {
+        return JsonTypeInfo.Id.CUSTOM;
+    }
+    
+    private String idFromClass(Class<?> type) {
+        // 带方法体的枚举常量是匿名子类
+        if (Enum.class.isAssignableFrom(type) && !type.isEnum()) {
+            type = type.getSuperclass();
+        }
+        // Arrays.asList、Collections.unmodifiableXxx 等私有实现类无法反序列化，与 Jackson 一样换成公开的实现
+        String name = type.getName();
+        if (name.startsWith("java.util.Arrays$") || name.startsWith("java.util.Collections$")) {
+            if (List.class.isAssignableFrom(type)) {
+                type = ArrayList.class;
+            }
+            else if (Set.class.isAssignableFrom(type)) {
+                type = HashSet.class;
+            }
+            else if (Map.class.isAssignableFrom(type)) {
+                type = HashMap.class;
+            }
+        }
+        String alias = aliases.get(type);
+        return alias != null ? alias : type.getName();
+    }
+    
+}
@@ -1,16 +1,21 @@
 package com.fsocity.framework.security.admin;
 
-import com.fsocity.framework.redis.RedisService;
+import cn.hutool.core.util.IdUtil;
+import com.fsocity.framework.redis.AsyncRedisService;
 import com.fsocity.framework.security.properties.WebSecurityProperties;
 import com.fsocity.framework.security.jwt.JwtTokenUtils;
-import com.fsocity.framework.security.validation.DefaultValidationCode;
-import com.fsocity.framework.security.validation.ImageValidationCode;
+import com.fsocity.framework.security.permission.AdminPermissionRegistry;
+import com.fsocity.framework.security.properties.RateLimitProperties;
+import com.fsocity.framework.security.ratelimit.RequestRateLimiter;
 import com.fsocity.framework.security.validation.ImageValidationCodeGenerator;
-import com.fsocity.framework.security.validation.ValidationCode;
+import com.fsocity.framework.security.validation.ImageValidationCodePool;
+import com.fsocity.framework.security.validation.RedisValidationCodeStore;
 import com.fsocity.framework.web.JsonResult;
 import com.fsocity.framework.web.ResponseStatusEnum;
+import com.fsocity.modules.admin.service.AdminMenuTreeService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -22,11 +27,11 @@ import org.springframework.security.web.savedrequest.HttpSessionRequestCache;
 import org.springframework.security.web.savedrequest.RequestCache;
 import org.springframework.security.web.savedrequest.SavedRequest;
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import javax.imageio.ImageIO;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -41,12 +46,16 @@ import java.io.IOException;
 public class AdminSecurityController {
     
     private final RequestCache requestCache = new HttpSessionRequestCache();
-    // 验证码保存到 session 中的名称
-    public static final String VALIDATION_CODE_SESSION_KEY = "__VALIDATION_CODE_SESSION_KEY";
+    // 获取验证码时客户端生成的随机数，登录时原样提交
+    public static final String VALIDATION_CODE_NONCE_PARAMETER = "validationCodeNonce";
+    // 客户端没有传随机数时，通过这个响应头返回生成的随机数
+    public static final String VALIDATION_CODE_NONCE_HEADER = "X-Validation-Code-Nonce";
     
     @Autowired
     private ImageValidationCodeGenerator imageValidationCodeGenerator;
     @Autowired
+    private ImageValidationCodePool imageValidationCodePool;
+    @Autowired
     private WebSecurityProperties webSecurityProperties;
     @Autowired
     private UserDetailsService userDetailsService;
@@ -55,7 +64,13 @@ public class AdminSecurityController {
     @Autowired
     private JwtTokenUtils jwtTokenUtils;
     @Autowired
-    private RedisService redisService;
+    private AsyncRedisService asyncRedisService;
+    @Autowired
+    private AdminMenuTreeService adminMenuTreeService;
+    @Autowired
+    private RequestRateLimiter requestRateLimiter;
+    @Autowired
+    private RedisValidationCodeStore adminValidationCodeStore;
     
     @GetMapping("/login")
     public String login() {
@@ -65,7 +80,19 @@ public class AdminSecurityController {
     @PostMapping("/api/login")
     @ResponseBody
     public JsonResult apiLogin(@RequestBody @Validated AdminLoginForm form,
-                               BindingResult bindingResult) {
+                               BindingResult bindingResult,
+                               HttpServletRequest request,
+                               HttpServletResponse response) {
+        // 用户名在请求体中，限流过滤器拿不到，在校验密码之前计数
+        if (webSecurityProperties.getRateLimit().isEnable()) {
+            RateLimitProperties.Rule rule = requestRateLimiter.checkUsername(request, form.getUsername());
+            if (rule != null) {
+                log.warn("登录过于频繁 rule = {}, username = {}", rule.getName(), form.getUsername());
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(rule.getWindow().getSeconds()));
+                return JsonResult.err(ResponseStatusEnum.TOO_MANY_REQUESTS);
+            }
+        }
         UserDetails userDetails = null;
         try {
             userDetails = userDetailsService.loadUserByUsername(form.getUsername());
@@ -79,13 +106,22 @@ public class AdminSecurityController {
         if (!match) {
             return JsonResult.err(1, "密码错误！");
         }
+        if (!userDetails.isEnabled()) {
+            return JsonResult.err(1, "用户已停用！");
+        }
         String token = jwtTokenUtils.generateToken(userDetails);
-        redisService.set("admin:jwttoken:" + userDetails.getUsername(), token, webSecurityProperties.getAdmin().getRememberMeSeconds());
+        // 保存到redis里，不等待写入完成
+        String username = userDetails.getUsername();
+        asyncRedisService.set("admin:jwttoken:" + username, token, webSecurityProperties.getAdmin().getRememberMeSeconds())
+                .whenComplete((success, e) -> {
+                    if (e != null) {
+                        log.warn("保存token失败 username = {}", username, e);
+                    }
+                });
         
         AdminLoginResult result = new AdminLoginResult();
         result.setUsername(userDetails.getUsername());
         result.setJwtToken(token);
-        // 保存到redis里
         return JsonResult.ok(result);
     }
     
@@ -126,25 +162,48 @@ public class AdminSecurityController {
     }
     
     @GetMapping({"", "/index"})
-    public String index() {
+    public String index(@AuthenticationPrincipal UserDetails userDetails, Model model) {
+        if (userDetails != null) {
+            model.addAttribute("menus", adminMenuTreeService.getNavigation(
+                    AdminPermissionRegistry.getRoleKeys(userDetails.getAuthorities())));
+        }
         return "thymeleaf/admin/index";
     }
     
     /**
-     * 图形验证码
+     * 当前用户的导航菜单，直接返回缓存的JSON
+     */
+    @GetMapping(value = "/api/navigation", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public String navigation(@AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return "[]";
+        }
+        return adminMenuTreeService.getNavigationJson(
+                AdminPermissionRegistry.getRoleKeys(userDetails.getAuthorities()));
+    }
+    
+    /**
+     * 图形验证码，保存到 Redis 中，不使用 session
      */
     @GetMapping("/validationCode/image")
-    public void imageCode(HttpServletRequest request,
+    public void imageCode(@RequestParam(value = "nonce", required = false) String nonce,
                           HttpServletResponse response) throws IOException {
-        // 创建验证码
-        ImageValidationCode imageValidationCode = imageValidationCodeGenerator.generate();
+        if (!RedisValidationCodeStore.isValidNonce(nonce)) {
+            nonce = IdUtil.simpleUUID();
+        }
+        
+        // 取出预先生成的验证码
+        ImageValidationCodePool.PngValidationCode validationCode = imageValidationCodePool.take();
         
-        // 保存到 session 中
-        ValidationCode validationCode = new DefaultValidationCode(imageValidationCode.getCode(), imageValidationCode.getExpireTime());
-        request.getSession().setAttribute(VALIDATION_CODE_SESSION_KEY, validationCode);
+        // 保存到 Redis 中
+        adminValidationCodeStore.save(nonce, validationCode.getCode(), imageValidationCodeGenerator.getExpireIn());
         
         // 写到响应中
+        response.setHeader(VALIDATION_CODE_NONCE_HEADER, nonce);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
         response.setContentType(MediaType.IMAGE_PNG_VALUE);
-        ImageIO.write(imageValidationCode.getImage(), "png", response.getOutputStream());
+        response.setContentLength(validationCode.getImage().length);
+        response.getOutputStream().write(validationCode.getImage());
     }
 }
@@ -1,5 +1,6 @@
 package com.fsocity.framework.security.admin;
 
+import com.fsocity.framework.security.permission.PermissionBitSet;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 
@@ -16,18 +17,39 @@ public class AdminUserDetails extends User {
     
     private final String realname;
     
+    // 部门ID
+    private final Integer departmentId;
+    
+    // 数据范围，多个角色时取范围最大的，见 DataScopeType
+    private final Integer dataScope;
+    
+    // 权限位图，由 AdminPermissionRegistry 按需计算
+    private transient volatile PermissionBitSet permissions;
+    
     public AdminUserDetails(Integer userId,
                             String realname,
                             String username,
                             String password,
                             Collection<? extends GrantedAuthority> authorities) {
-        super(username, password, authorities);
-        this.userId = userId;
-        this.realname = realname;
+        this(userId, realname, null, null, username, password, true, true, true, true, authorities);
+    }
+    
+    public AdminUserDetails(Integer userId,
+                            String realname,
+                            String username,
+                            String password,
+                            boolean enabled,
+                            boolean accountNonExpired,
+                            boolean credentialsNonExpired,
+                            boolean accountNonLocked,
+                            Collection<? extends GrantedAuthority> authorities) {
+        this(userId, realname, null, null, username, password, enabled, accountNonExpired, credentialsNonExpired, accountNonLocked, authorities);
     }
     
     public AdminUserDetails(Integer userId,
                             String realname,
+                            Integer departmentId,
+                            Integer dataScope,
                             String username,
                             String password,
                             boolean enabled,
@@ -38,6 +60,8 @@ public class AdminUserDetails extends User {
         super(username, password, enabled, accountNonExpired, credentialsNonExpired, accountNonLocked, authorities);
         this.userId = userId;
         this.realname = realname;
+        this.departmentId = departmentId;
+        this.dataScope = dataScope;
     }
     
     public Integer getUserId() {
@@ -47,4 +71,20 @@ public class AdminUserDetails extends User {
     public String getRealname() {
         return realname;
     }
+    
+    public Integer getDepartmentId() {
+        return departmentId;
+    }
+    
+    public Integer getDataScope() {
+        return dataScope;
+    }
+    
+    public PermissionBitSet getPermissions() {
+        return permissions;
+    }
+    
+    public void setPermissions(PermissionBitSet permissions) {
+        this.permissions = permissions;
+    }
 }
@@ -0,0 +1,154 @@
+package com.fsocity.framework.security.admin;
+
+import com.fsocity.framework.redis.cache.CacheInvalidationTopic;
+import com.fsocity.framework.redis.cache.LocalCacheInvalidationListener;
+import com.fsocity.framework.security.properties.WebSecurityProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已登录用户信息(AdminUserDetails)的本地缓存。
+ * <p>
+ * JWT过滤器优先从这里取用户信息，未命中时才查询数据库。用户、角色、权限变更时，
+ * 相关的 Service 调用 evict / evictAll 使缓存失效，同时记录失效时间：
+ * 在失效时间之前签发的、负载中带有权限信息的token，不再直接信任其中的权限，
+ * 而是重新从数据库加载。
+ * <p>
+ * 失效通过 {@link CacheInvalidationTopic} 广播到其它节点，其它节点同样删除缓存并记录失效时间。
+ * 广播的消息可能丢失(例如订阅连接断开)，因此负载中的权限只在签发后的
+ * jwt.embed-authorities-max-age 内信任，超过后总是重新加载。
+ *
+ * @author zail
+ * @date 2022/7/13
+ */
+@Component
+@Slf4j
+public class AdminUserDetailsCache implements LocalCacheInvalidationListener {
+    
+    // 失效消息使用的缓存名称
+    private static final String CACHE_NAME = "adminUserDetails";
+    
+    // 用户名 -> 用户信息
+    private final Cache<String, UserDetails> cache;
+    
+    // 用户名 -> 最后一次失效的时间
+    private final Cache<String, Long> invalidatedAt;
+    
+    // 全部失效的时间
+    private volatile long allInvalidatedAt = 0L;
+    
+    // 用于通知其它节点
+    private final CacheInvalidationTopic invalidationTopic;
+    
+    public AdminUserDetailsCache(WebSecurityProperties webSecurityProperties, CacheInvalidationTopic invalidationTopic) {
+        this.invalidationTopic = invalidationTopic;
+        AdminWebSecurityProperties admin = webSecurityProperties.getAdmin();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(admin.getUserDetailsCacheSize())
+                .expireAfterWrite(admin.getUserDetailsCacheSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        // 失效记录至少要保留到在此之前签发的token都过期为止
+        this.invalidatedAt = Caffeine.newBuilder()
+                .expireAfterWrite(admin.getJwt().getExpiration(), TimeUnit.SECONDS)
+                .build();
+    }
+    
+    /**
+     * 获取缓存的用户信息，不存在时返回null
+     */
+    public UserDetails get(String username) {
+        return cache.getIfPresent(username);
+    }
+    
+    /**
+     * 缓存用户信息
+     */
+    public void put(UserDetails userDetails) {
+        cache.put(userDetails.getUsername(), userDetails);
+    }
+    
+    /**
+     * 使某个用户的缓存失效，同时通知其它节点
+     */
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        evictLocal(username);
+        invalidationTopic.publish(CACHE_NAME, username);
+    }
+    
+    /**
+     * 使多个用户的缓存失效
+     */
+    public void evict(Collection<String> usernames) {
+        for (String username : usernames) {
+            evict(username);
+        }
+    }
+    
+    /**
+     * 使全部用户的缓存失效(例如菜单权限标识变更)，同时通知其它节点
+     */
+    public void evictAll() {
+        evictLocal(null);
+        invalidationTopic.publish(CACHE_NAME, null);
+    }
+    
+    @Override
+    public void onInvalidation(String cacheName, String key) {
+        if (CACHE_NAME.equals(cacheName)) {
+            evictLocal(key);
+        }
+    }
+    
+    private void evictLocal(String username) {
+        if (username == null) {
+            allInvalidatedAt = System.currentTimeMillis();
+            cache.invalidateAll();
+            log.info("全部用户信息缓存失效");
+        }
+        else {
+            invalidatedAt.put(username, System.currentTimeMillis());
+            cache.invalidate(username);
+            log.info("用户信息缓存失效 username = {}", username);
+        }
+    }
+    
+    /**
+     * 在 issuedAt 时间签发的用户信息是否已经过时
+     *
+     * @param username 用户名
+     * @param issuedAt 签发时间(毫秒)
+     */
+    public boolean isStale(String username, long issuedAt) {
+        if (issuedAt <= allInvalidatedAt) {
+            return true;
+        }
+        Long time = invalidatedAt.getIfPresent(username);
+        return time != null && issuedAt <= time;
+    }
+    
+    /**
+     * 命中、未命中、淘汰次数等统计
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+    
+    /**
+     * 底层缓存，用于注册监控指标
+     */
+    public Cache<String, UserDetails> getNativeCache() {
+        return cache;
+    }
+    
+}
@@ -0,0 +1,76 @@
+package com.fsocity.framework.security.admin;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.mybatis.datascope.DataScopeType;
+import com.fsocity.framework.security.authentication.GrantedAuthorityPool;
+import com.fsocity.modules.admin.entity.AdminUser;
+import com.fsocity.modules.admin.mapper.AdminMenuMapper;
+import com.fsocity.modules.admin.mapper.AdminRoleMapper;
+import com.fsocity.modules.admin.mapper.AdminUserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 后台用户的 UserDetailsService。
+ * <p>
+ * 固定三次查询：用户、联表查出的角色和菜单权限标识、角色的数据范围，
+ * 不会随角色数量增加而产生 N+1 查询。权限对象来自 {@link GrantedAuthorityPool}，所有会话共享。
+ *
+ * @author zail
+ * @date 2022/7/14
+ */
+@Service
+@Slf4j
+public class AdminUserDetailsServiceImpl implements UserDetailsService {
+    
+    // 正常状态
+    private static final int STATUS_NORMAL = 0;
+    
+    @Autowired
+    private AdminUserMapper adminUserMapper;
+    @Autowired
+    private AdminMenuMapper adminMenuMapper;
+    @Autowired
+    private AdminRoleMapper adminRoleMapper;
+    
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        LambdaQueryWrapper<AdminUser> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(AdminUser::getUsername, username);
+        queryWrapper.eq(AdminUser::getDelFlag, STATUS_NORMAL);
+        queryWrapper.last("LIMIT 1");
+        AdminUser adminUser = adminUserMapper.selectOne(queryWrapper);
+        if (adminUser == null) {
+            throw new UsernameNotFoundException("用户不存在！");
+        }
+        
+        List<String> authorities = adminMenuMapper.selectAuthoritiesByUserId(adminUser.getId());
+        List<GrantedAuthority> grantedAuthorities = GrantedAuthorityPool.createAuthorityList(authorities);
+        log.debug("加载用户信息 username = {}, authorities = {}", username, grantedAuthorities.size());
+        
+        // 多个角色时取范围最大的数据权限
+        DataScopeType dataScope = DataScopeType.widest(adminRoleMapper.selectDataScopesByUserId(adminUser.getId()));
+        
+        boolean enabled = adminUser.getStatus() == null || adminUser.getStatus() == STATUS_NORMAL;
+        return new AdminUserDetails(
+                adminUser.getId(),
+                adminUser.getRealname(),
+                adminUser.getDepartmentId(),
+                dataScope == null ? null : dataScope.getCode(),
+                adminUser.getUsername(),
+                adminUser.getPassword(),
+                enabled,
+                true,
+                true,
+                true,
+                grantedAuthorities);
+    }
+    
+}
@@ -1,19 +1,32 @@
 package com.fsocity.framework.security.admin;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fsocity.framework.security.authentication.JwtTokenAuthenticationFilter;
 import com.fsocity.framework.security.authentication.WebAuthenticationFailureHandler;
+import com.fsocity.framework.security.filter.RateLimitFilter;
 import com.fsocity.framework.security.filter.ValidationCodeFilter;
+import com.fsocity.framework.security.matcher.SecurityUrlMatcher;
+import com.fsocity.framework.security.properties.RateLimitProperties;
 import com.fsocity.framework.security.properties.WebSecurityProperties;
+import com.fsocity.framework.security.ratelimit.RequestRateLimiter;
+import com.fsocity.framework.security.ratelimit.SlidingWindowRateLimiter;
 import com.fsocity.framework.security.rememberme.MyJdbcTokenRepositoryImpl;
 import com.fsocity.framework.security.jwt.JwtTokenUtils;
+import com.fsocity.framework.security.validation.RedisValidationCodeStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 import org.springframework.security.web.authentication.rememberme.PersistentTokenRepository;
 
 import javax.sql.DataSource;
+import java.time.Duration;
 
 /**
  * @author zail
@@ -42,29 +55,87 @@ public class AdminWebSecurityBeanConfig {
         return persistentTokenRepository;
     }
     
+    /**
+     * 验证码保存在 Redis 中，多个节点共享
+     */
     @Bean
-    public ValidationCodeFilter adminValidationCodeFilter() {
+    public RedisValidationCodeStore adminValidationCodeStore(StringRedisTemplate stringRedisTemplate) {
+        return new RedisValidationCodeStore(stringRedisTemplate, "admin:validationcode:");
+    }
+    
+    @Bean
+    public ValidationCodeFilter adminValidationCodeFilter(RedisValidationCodeStore adminValidationCodeStore) {
         return new ValidationCodeFilter(
                 "POST",
                 webSecurityProperties.getAdmin().getLoginProcessingUrl(),
-                AdminSecurityController.VALIDATION_CODE_SESSION_KEY,
+                AdminSecurityController.VALIDATION_CODE_NONCE_PARAMETER,
+                adminValidationCodeStore,
                 authenticationFailureHandler
         );
     }
     
+    /**
+     * 登录和接口限流，多个节点通过 Redis 共享计数
+     */
     @Bean
-    public JwtTokenUtils jwtTokenUtils() {
-        return new JwtTokenUtils(webSecurityProperties.getAdmin().getJwt());
+    public RequestRateLimiter requestRateLimiter(StringRedisTemplate stringRedisTemplate) {
+        RateLimitProperties rateLimit = webSecurityProperties.getRateLimit();
+        Duration maxWindow = rateLimit.getRules().stream()
+                .map(RateLimitProperties.Rule::getWindow)
+                .max(Duration::compareTo)
+                .orElse(Duration.ofMinutes(1));
+        SlidingWindowRateLimiter rateLimiter = new SlidingWindowRateLimiter(
+                stringRedisTemplate, rateLimit.getKeyPrefix(), rateLimit.getLocalCacheSize(), maxWindow);
+        return new RequestRateLimiter(rateLimiter, rateLimit);
     }
     
     @Bean
-    public JwtTokenAuthenticationFilter adminJwtAuthenticationTokenFilter() {
-        return new JwtTokenAuthenticationFilter(
+    public RateLimitFilter adminRateLimitFilter(RequestRateLimiter requestRateLimiter, ObjectMapper objectMapper) {
+        return new RateLimitFilter(requestRateLimiter, objectMapper);
+    }
+    
+    /**
+     * 限流过滤器只在安全过滤链中生效，不再被 Spring Boot 注册到 /*，
+     * 否则 fsocity.security.rate-limit.enable=false 时仍然会限流
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> adminRateLimitFilterRegistration(RateLimitFilter adminRateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(adminRateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+    
+    @Bean
+    public JwtTokenUtils jwtTokenUtils(ObjectProvider<MeterRegistry> meterRegistry) {
+        JwtTokenUtils jwtTokenUtils = new JwtTokenUtils(webSecurityProperties.getAdmin().getJwt());
+        // 把负载缓存的命中、未命中、淘汰次数注册到 actuator 指标中
+        if (jwtTokenUtils.getClaimsCache() != null) {
+            meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(
+                    registry, jwtTokenUtils.getClaimsCache().getNativeCache(), "adminJwtClaims"));
+        }
+        return jwtTokenUtils;
+    }
+    
+    /**
+     * 预编译的安全链接匹配器，JWT过滤器和安全过滤链共用
+     */
+    @Bean
+    public SecurityUrlMatcher adminSecurityUrlMatcher() {
+        return new SecurityUrlMatcher(
                 webSecurityProperties.getAdmin().getAuthenticatedUrls(),
                 webSecurityProperties.getAdmin().getUnauthenticatedUrls(),
+                webSecurityProperties.getAdmin().getUrlMatchCacheSize());
+    }
+    
+    @Bean
+    public JwtTokenAuthenticationFilter adminJwtAuthenticationTokenFilter(JwtTokenUtils jwtTokenUtils,
+                                                                          AdminUserDetailsCache adminUserDetailsCache) {
+        return new JwtTokenAuthenticationFilter(
+                adminSecurityUrlMatcher(),
                 webSecurityProperties.getAdmin().getJwt(),
-                jwtTokenUtils(),
+                jwtTokenUtils,
                 userDetailsService,
+                adminUserDetailsCache,
                 webAuthenticationFailureHandler);
     }
 }
@@ -4,7 +4,9 @@ import com.fsocity.framework.security.authentication.JwtTokenAuthenticationFilte
 import com.fsocity.framework.security.authentication.WebAccessDeniedHandler;
 import com.fsocity.framework.security.authentication.WebAuthenticationFailureHandler;
 import com.fsocity.framework.security.authentication.WebAuthenticationSuccessHandler;
+import com.fsocity.framework.security.filter.RateLimitFilter;
 import com.fsocity.framework.security.filter.ValidationCodeFilter;
+import com.fsocity.framework.security.matcher.SecurityUrlMatcher;
 import com.fsocity.framework.security.properties.WebSecurityProperties;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
@@ -13,12 +15,9 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.authentication.rememberme.PersistentTokenRepository;
-import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
-import org.springframework.security.web.util.matcher.OrRequestMatcher;
 import org.springframework.security.web.util.matcher.RequestMatcher;
-
-import java.util.ArrayList;
-import java.util.List;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.security.SpringSessionBackedSessionRegistry;
 
 
 /**
@@ -47,6 +46,13 @@ public class AdminWebSecurityConfigurer extends WebSecurityConfigurerAdapter {
     private UserDetailsService userDetailsService;
     @Autowired
     private ValidationCodeFilter adminValidationCodeFilter;
+    @Autowired
+    private SecurityUrlMatcher adminSecurityUrlMatcher;
+    @Autowired
+    private RateLimitFilter adminRateLimitFilter;
+    // spring.session.store-type=redis 时存在
+    @Autowired(required = false)
+    private FindByIndexNameSessionRepository<?> sessionRepository;
     
     @Override
     protected void configure(HttpSecurity http) throws Exception {
@@ -66,11 +72,23 @@ public class AdminWebSecurityConfigurer extends WebSecurityConfigurerAdapter {
             return;
         }
         
+        // 限流放在最前面，超过限制的请求不再校验验证码和密码
+        if (webSecurityProperties.getRateLimit().isEnable()) {
+            http.addFilterBefore(adminRateLimitFilter, UsernamePasswordAuthenticationFilter.class);
+        }
+        
         // 是否开启JWT认证
         if (webSecurityProperties.getAdmin().getJwt().isEnable()) {
             http.addFilterBefore(adminJwtAuthenticationTokenFilter, UsernamePasswordAuthenticationFilter.class);
         }
         
+        // session 保存在 Redis 中时，同一用户的会话数量在所有节点上统计
+        if (sessionRepository != null) {
+            http.sessionManagement()
+                    .maximumSessions(1)
+                    .sessionRegistry(new SpringSessionBackedSessionRegistry<>(sessionRepository));
+        }
+        
         http
                 // 增加验证码验证过滤器
                 .addFilterBefore(adminValidationCodeFilter, UsernamePasswordAuthenticationFilter.class)
@@ -109,11 +127,11 @@ public class AdminWebSecurityConfigurer extends WebSecurityConfigurerAdapter {
                 .authorizeRequests()
                 
                 // 配置不需要身份认证的链接
-                .antMatchers(webSecurityProperties.getAdmin().getUnauthenticatedUrls())
+                .requestMatchers(adminSecurityUrlMatcher.unauthenticatedRequestMatcher())
                 .permitAll()
                 
                 // 配置需要身份认证的链接
-                .antMatchers(webSecurityProperties.getAdmin().getAuthenticatedUrls())
+                .requestMatchers(adminSecurityUrlMatcher.authenticatedRequestMatcher())
                 .authenticated()
                 .and()
                 
@@ -130,12 +148,7 @@ public class AdminWebSecurityConfigurer extends WebSecurityConfigurerAdapter {
     }
     
     public RequestMatcher getRequestMatcher() {
-        List<RequestMatcher> matchers = new ArrayList<>();
-        for (String authenticatedUrl : webSecurityProperties.getAdmin().getAuthenticatedUrls()) {
-            AntPathRequestMatcher matcher = new AntPathRequestMatcher(authenticatedUrl);
-            matchers.add(matcher);
-        }
-        return new OrRequestMatcher(matchers);
+        return adminSecurityUrlMatcher.authenticatedRequestMatcher();
     }
     
 }
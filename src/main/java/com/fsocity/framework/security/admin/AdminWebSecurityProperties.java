@@ -20,6 +20,9 @@ public class AdminWebSecurityProperties {
     // 不需要身份认证的匹配链接
     private String[] unauthenticatedUrls = {};
     
+    // 链接匹配结果的缓存数量
+    private Long urlMatchCacheSize = 10000L;
+    
     // 提示需要登录页面
     private String requireAuthenticationUrl = "/admin/authentication/require";
     
@@ -50,4 +53,10 @@ public class AdminWebSecurityProperties {
     // jwt 配置
     private JWTProperties jwt = new JWTProperties();
     
+    // 用户信息缓存数量
+    private Long userDetailsCacheSize = 10000L;
+    
+    // 用户信息缓存时间(单位秒)
+    private Long userDetailsCacheSeconds = 300L;
+    
 }
@@ -0,0 +1,60 @@
+package com.fsocity.framework.security.authentication;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * GrantedAuthority 常量池。
+ * <p>
+ * 权限标识的种类很少(角色 + 菜单权限标识)，但每个登录用户都会持有一份权限集合。
+ * 同一个权限标识在整个应用中只创建一个 GrantedAuthority 实例，所有会话共享，
+ * 减少每个会话的堆内存占用。
+ *
+ * @author zail
+ * @date 2022/7/14
+ */
+public final class GrantedAuthorityPool {
+    
+    private static final ConcurrentMap<String, GrantedAuthority> POOL = new ConcurrentHashMap<>();
+    
+    private GrantedAuthorityPool() {
+    }
+    
+    /**
+     * 获取权限标识对应的共享实例
+     */
+    public static GrantedAuthority intern(String authority) {
+        GrantedAuthority grantedAuthority = POOL.get(authority);
+        if (grantedAuthority == null) {
+            grantedAuthority = POOL.computeIfAbsent(authority, SimpleGrantedAuthority::new);
+        }
+        return grantedAuthority;
+    }
+    
+    /**
+     * 把权限标识转换成共享的 GrantedAuthority，忽略空值
+     */
+    public static List<GrantedAuthority> createAuthorityList(Collection<String> authorities) {
+        List<GrantedAuthority> list = new ArrayList<>(authorities.size());
+        for (String authority : authorities) {
+            if (authority != null && !authority.isEmpty()) {
+                list.add(intern(authority));
+            }
+        }
+        return list;
+    }
+    
+    /**
+     * 池中权限的数量
+     */
+    public static int size() {
+        return POOL.size();
+    }
+    
+}
@@ -1,7 +1,11 @@
 package com.fsocity.framework.security.authentication;
 
+import com.fsocity.framework.security.admin.AdminUserDetails;
+import com.fsocity.framework.security.admin.AdminUserDetailsCache;
 import com.fsocity.framework.security.properties.JWTProperties;
+import com.fsocity.framework.security.jwt.JwtTokenClaims;
 import com.fsocity.framework.security.jwt.JwtTokenUtils;
+import com.fsocity.framework.security.matcher.SecurityUrlMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -11,7 +15,6 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import javax.servlet.FilterChain;
@@ -28,13 +31,8 @@ public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
     
     private static final Logger LOGGER = LoggerFactory.getLogger(JwtTokenAuthenticationFilter.class);
     
-    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
-    
-    // 需要身份认证的匹配链接
-    private final String[] authenticatedUrls;
-    
-    // 不需要身份认证的匹配链接
-    private final String[] unauthenticatedUrls;
+    // 安全链接匹配器
+    private final SecurityUrlMatcher securityUrlMatcher;
     
     // jwt 配置
     private final JWTProperties jwtProperties;
@@ -44,33 +42,38 @@ public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
     
     private final UserDetailsService userDetailsService;
     
+    // 用户信息缓存
+    private final AdminUserDetailsCache userDetailsCache;
+    
     // 登录失败处理器
     private final AuthenticationFailureHandler authenticationFailureHandler;
     
-    public JwtTokenAuthenticationFilter(String[] authenticatedUrls, String[] unauthenticatedUrls, JWTProperties jwtProperties, JwtTokenUtils jwtTokenUtils, UserDetailsService userDetailsService, AuthenticationFailureHandler authenticationFailureHandler) {
-        this.authenticatedUrls = authenticatedUrls;
-        this.unauthenticatedUrls = unauthenticatedUrls;
+    public JwtTokenAuthenticationFilter(SecurityUrlMatcher securityUrlMatcher, JWTProperties jwtProperties, JwtTokenUtils jwtTokenUtils, UserDetailsService userDetailsService, AdminUserDetailsCache userDetailsCache, AuthenticationFailureHandler authenticationFailureHandler) {
+        this.securityUrlMatcher = securityUrlMatcher;
         this.jwtProperties = jwtProperties;
         this.jwtTokenUtils = jwtTokenUtils;
         this.userDetailsService = userDetailsService;
+        this.userDetailsCache = userDetailsCache;
         this.authenticationFailureHandler = authenticationFailureHandler;
     }
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
-        boolean matched = match(request.getRequestURI());
+        boolean matched = securityUrlMatcher.requiresAuthentication(request.getRequestURI());
         if (matched) {
             // 获取header的值
             String authHeader = request.getHeader(jwtProperties.getHttpHeaderName());
             if (authHeader != null && authHeader.startsWith(jwtProperties.getTokenHead())) {
                 // The part after "Bearer "
                 String authToken = authHeader.substring(jwtProperties.getTokenHead().length());
-                String username = jwtTokenUtils.getUserNameFromToken(authToken);
+                // 只解析校验一次，后续直接使用解析结果
+                JwtTokenClaims claims = jwtTokenUtils.parseToken(authToken);
+                String username = claims == null ? null : claims.getUsername();
                 LOGGER.info("checking username:{}", username);
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                     UserDetails userDetails = null;
                     try {
-                        userDetails = userDetailsService.loadUserByUsername(username);
+                        userDetails = loadUserDetails(claims);
                     }
                     catch (UsernameNotFoundException e) {
                         // e.printStackTrace();
@@ -78,7 +81,7 @@ public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
                         authenticationFailureHandler.onAuthenticationFailure(request, response, e);
                         return;
                     }
-                    if (userDetails != null && jwtTokenUtils.validateToken(authToken, userDetails)) {
+                    if (userDetails != null && jwtTokenUtils.validateToken(claims, userDetails)) {
                         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                         authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                         LOGGER.info("authenticated user:{}", username);
@@ -91,22 +94,51 @@ public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
         chain.doFilter(request, response);
     }
     
-    private boolean match(String uri) {
-        // 不验证的链接
-        for (String unauthenticatedUrl : unauthenticatedUrls) {
-            boolean match = antPathMatcher.match(unauthenticatedUrl, uri);
-            if (match) {
-                return false;
-            }
+    /**
+     * 加载用户信息：先查缓存，再从token负载中恢复，最后才查询数据库
+     */
+    private UserDetails loadUserDetails(JwtTokenClaims claims) {
+        UserDetails userDetails = userDetailsCache.get(claims.getUsername());
+        if (userDetails != null) {
+            return userDetails;
         }
-        // 需要验证的链接
-        for (String authenticatedUrl : authenticatedUrls) {
-            boolean match = antPathMatcher.match(authenticatedUrl, uri);
-            if (match) {
-                return true;
-            }
+        userDetails = loadUserDetailsFromClaims(claims);
+        if (userDetails == null) {
+            userDetails = userDetailsService.loadUserByUsername(claims.getUsername());
+        }
+        if (userDetails != null) {
+            userDetailsCache.put(userDetails);
+        }
+        return userDetails;
+    }
+    
+    /**
+     * 从token负载中恢复用户信息，负载中没有权限、权限已经变更或token签发太久时返回null
+     */
+    private UserDetails loadUserDetailsFromClaims(JwtTokenClaims claims) {
+        if (!jwtProperties.isEmbedAuthorities() || claims.getAuthorities() == null) {
+            return null;
+        }
+        // 失效记录是广播到各节点的，消息丢失时靠这个时限兜底，超过后从数据库重新加载
+        long maxAgeMillis = jwtProperties.getEmbedAuthoritiesMaxAge() * 1000L;
+        if (System.currentTimeMillis() - claims.getCreatedMillis() > maxAgeMillis) {
+            return null;
+        }
+        if (userDetailsCache.isStale(claims.getUsername(), claims.getCreatedMillis())) {
+            return null;
         }
-        return false;
+        return new AdminUserDetails(
+                claims.getUserId(),
+                claims.getRealname(),
+                claims.getDepartmentId(),
+                claims.getDataScope(),
+                claims.getUsername(),
+                "",
+                true,
+                true,
+                true,
+                true,
+                GrantedAuthorityPool.createAuthorityList(claims.getAuthorities()));
     }
     
 }
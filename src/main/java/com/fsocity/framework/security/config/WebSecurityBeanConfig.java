@@ -1,11 +1,14 @@
 package com.fsocity.framework.security.config;
 
 import com.fsocity.framework.security.properties.WebSecurityProperties;
+import com.fsocity.framework.security.properties.ValidationCodeProperties;
 import com.fsocity.framework.security.validation.ImageValidationCodeGenerator;
+import com.fsocity.framework.security.validation.ImageValidationCodePool;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -18,6 +21,7 @@ import java.util.Map;
  * @date 2022/1/24
  */
 @Configuration
+@EnableGlobalMethodSecurity(prePostEnabled = true)
 public class WebSecurityBeanConfig {
     
     @Autowired
@@ -54,4 +58,14 @@ public class WebSecurityBeanConfig {
         return generator;
     }
     
+    /**
+     * 预先生成的图形验证码
+     */
+    @Bean
+    public ImageValidationCodePool imageValidationCodePool(ImageValidationCodeGenerator imageValidationCodeGenerator) {
+        ValidationCodeProperties properties = webSecurityProperties.getAdmin().getValidationCode();
+        return new ImageValidationCodePool(imageValidationCodeGenerator,
+                properties.getPoolSize(), properties.getPoolMaxAge(), properties.getPoolRefillPerSecond());
+    }
+    
 }
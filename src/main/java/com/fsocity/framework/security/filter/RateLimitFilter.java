@@ -0,0 +1,65 @@
+package com.fsocity.framework.security.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fsocity.framework.security.properties.RateLimitProperties;
+import com.fsocity.framework.security.ratelimit.RequestRateLimiter;
+import com.fsocity.framework.web.JsonResult;
+import com.fsocity.framework.web.ResponseStatusEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 限流过滤器，放在登录和验证码校验之前，超过限制的请求不会执行密码校验。
+ *
+ * @author zail
+ * @date 2022/7/20
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    private final RequestRateLimiter requestRateLimiter;
+    
+    private final ObjectMapper objectMapper;
+    
+    public RateLimitFilter(RequestRateLimiter requestRateLimiter, ObjectMapper objectMapper) {
+        this.requestRateLimiter = requestRateLimiter;
+        this.objectMapper = objectMapper;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        RateLimitProperties.Rule rule = requestRateLimiter.check(request);
+        if (rule != null) {
+            log.warn("请求过于频繁 rule = {}, ip = {}, uri = {}", rule.getName(), request.getRemoteAddr(), request.getRequestURI());
+            writeTooManyRequests(request, response, rule);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+    
+    /**
+     * 返回 429，json 请求返回 json 数据
+     */
+    private void writeTooManyRequests(HttpServletRequest request, HttpServletResponse response,
+                                      RateLimitProperties.Rule rule) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(rule.getWindow().getSeconds()));
+        String accept = request.getHeader("Accept");
+        if (accept != null && accept.contains(MediaType.APPLICATION_JSON_VALUE)) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(objectMapper.writeValueAsString(JsonResult.err(ResponseStatusEnum.TOO_MANY_REQUESTS)));
+            return;
+        }
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), ResponseStatusEnum.TOO_MANY_REQUESTS.getMessage());
+    }
+    
+}
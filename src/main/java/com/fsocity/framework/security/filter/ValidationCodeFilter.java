@@ -1,7 +1,7 @@
 package com.fsocity.framework.security.filter;
 
 import com.fsocity.framework.exception.WebException;
-import com.fsocity.framework.security.validation.DefaultValidationCode;
+import com.fsocity.framework.security.validation.RedisValidationCodeStore;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.core.AuthenticationException;
@@ -13,7 +13,6 @@ import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
 
 /**
@@ -26,15 +25,20 @@ public class ValidationCodeFilter extends OncePerRequestFilter {
     private final String httpMethod;
     // 处理登录的链接
     private final String loginProcessingUrl;
-    // 验证码保存到 session 中的名称
-    private final String sessionKey;
+    // 获取验证码时使用的随机数的参数名称
+    private final String nonceParameter;
+    // 验证码存储
+    private final RedisValidationCodeStore validationCodeStore;
     // 登录失败处理器
     private final AuthenticationFailureHandler authenticationFailureHandler;
     
-    public ValidationCodeFilter(String httpMethod, String loginProcessingUrl, String sessionKey, AuthenticationFailureHandler authenticationFailureHandler) {
+    public ValidationCodeFilter(String httpMethod, String loginProcessingUrl, String nonceParameter,
+                                RedisValidationCodeStore validationCodeStore,
+                                AuthenticationFailureHandler authenticationFailureHandler) {
         this.httpMethod = httpMethod;
         this.loginProcessingUrl = loginProcessingUrl;
-        this.sessionKey = sessionKey;
+        this.nonceParameter = nonceParameter;
+        this.validationCodeStore = validationCodeStore;
         this.authenticationFailureHandler = authenticationFailureHandler;
     }
     
@@ -66,27 +70,19 @@ public class ValidationCodeFilter extends OncePerRequestFilter {
      * 校验验证码
      */
     private void validate(ServletWebRequest servletWebRequest) throws WebException {
-        HttpSession session = servletWebRequest.getRequest().getSession();
-        DefaultValidationCode validationCode =
-                (DefaultValidationCode) session.getAttribute(sessionKey);
-        
         String formValidationCode = servletWebRequest.getParameter("validationCode");
         
         if (StringUtils.isBlank(formValidationCode)) {
             throw new WebException("验证码不能为空!");
         }
+        
+        // 取出的同时删除，无论是否正确都要重新获取验证码
+        String validationCode = validationCodeStore.consume(servletWebRequest.getParameter(nonceParameter));
         if (validationCode == null) {
-            throw new WebException("验证码不存在!");
+            throw new WebException("验证码不存在或已过期!");
         }
-        if (!validationCode.isNonExpired()) {
-            servletWebRequest.getRequest().getSession().removeAttribute(sessionKey);
-            throw new WebException("验证码已过期!");
-        }
-        if (!formValidationCode.toUpperCase().equals(validationCode.getCode().toUpperCase())) {
+        if (!formValidationCode.equalsIgnoreCase(validationCode)) {
             throw new WebException("验证码错误!");
         }
-        
-        // 最后删除验证码
-        servletWebRequest.getRequest().getSession().removeAttribute(sessionKey);
     }
 }
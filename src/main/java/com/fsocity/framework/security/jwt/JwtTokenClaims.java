@@ -0,0 +1,139 @@
+package com.fsocity.framework.security.jwt;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 已通过签名校验的JWT负载。
+ * <p>
+ * 只保存认证需要的字段，并且不可变，所以可以放到缓存里被多个请求线程共享。
+ *
+ * @author zail
+ * @date 2022/7/12
+ */
+public class JwtTokenClaims {
+    
+    // 登录用户名
+    private final String username;
+    
+    // 创建时间(毫秒)
+    private final long created;
+    
+    // 过期时间(毫秒)
+    private final long expiration;
+    
+    // 用户ID，未写入负载时为null
+    private final Integer userId;
+    
+    // 姓名，未写入负载时为null
+    private final String realname;
+    
+    // 权限，未写入负载时为null
+    private final List<String> authorities;
+    
+    // 部门ID，未写入负载时为null
+    private final Integer departmentId;
+    
+    // 数据范围，未写入负载时为null
+    private final Integer dataScope;
+    
+    public JwtTokenClaims(String username, long created, long expiration) {
+        this(username, created, expiration, null, null, null);
+    }
+    
+    public JwtTokenClaims(String username, long created, long expiration,
+                          Integer userId, String realname, List<String> authorities) {
+        this(username, created, expiration, userId, realname, authorities, null, null);
+    }
+    
+    public JwtTokenClaims(String username, long created, long expiration,
+                          Integer userId, String realname, List<String> authorities,
+                          Integer departmentId, Integer dataScope) {
+        this.username = username;
+        this.created = created;
+        this.expiration = expiration;
+        this.userId = userId;
+        this.realname = realname;
+        this.authorities = authorities == null ? null : Collections.unmodifiableList(authorities);
+        this.departmentId = departmentId;
+        this.dataScope = dataScope;
+    }
+    
+    /**
+     * 从jjwt的负载中构建
+     */
+    public static JwtTokenClaims of(Claims claims) {
+        Date created = claims.get(JwtTokenUtils.CLAIM_KEY_CREATED, Date.class);
+        Date expiration = claims.getExpiration();
+        Object authorities = claims.get(JwtTokenUtils.CLAIM_KEY_AUTHORITIES);
+        List<String> authorityList = null;
+        if (authorities instanceof Collection) {
+            authorityList = new ArrayList<>();
+            for (Object authority : (Collection<?>) authorities) {
+                authorityList.add(String.valueOf(authority));
+            }
+        }
+        return new JwtTokenClaims(
+                claims.getSubject(),
+                created == null ? 0L : created.getTime(),
+                expiration == null ? Long.MAX_VALUE : expiration.getTime(),
+                claims.get(JwtTokenUtils.CLAIM_KEY_USER_ID, Integer.class),
+                claims.get(JwtTokenUtils.CLAIM_KEY_REALNAME, String.class),
+                authorityList,
+                claims.get(JwtTokenUtils.CLAIM_KEY_DEPARTMENT_ID, Integer.class),
+                claims.get(JwtTokenUtils.CLAIM_KEY_DATA_SCOPE, Integer.class));
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public Date getCreated() {
+        return new Date(created);
+    }
+    
+    public Date getExpiration() {
+        return new Date(expiration);
+    }
+    
+    public long getExpirationMillis() {
+        return expiration;
+    }
+    
+    public long getCreatedMillis() {
+        return created;
+    }
+    
+    public Integer getUserId() {
+        return userId;
+    }
+    
+    public String getRealname() {
+        return realname;
+    }
+    
+    public List<String> getAuthorities() {
+        return authorities;
+    }
+    
+    public Integer getDepartmentId() {
+        return departmentId;
+    }
+    
+    public Integer getDataScope() {
+        return dataScope;
+    }
+    
+    /**
+     * 是否已经过期
+     */
+    public boolean isExpired() {
+        return expiration <= System.currentTimeMillis();
+    }
+    
+}
@@ -0,0 +1,107 @@
+package com.fsocity.framework.security.jwt;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已验证JWT负载的本地缓存。
+ * <p>
+ * key 为 token 的 SHA-256 摘要，value 在 token 的 exp 到达时自动失效，
+ * 同一个会话的后续请求命中缓存后不再做 HMAC 校验和 base64/JSON 解码。
+ * 被篡改的 token 摘要不同，不会命中缓存，仍然走完整的签名校验。
+ *
+ * @author zail
+ * @date 2022/7/12
+ */
+public class JwtTokenClaimsCache {
+    
+    private final Cache<String, JwtTokenClaims> cache;
+    
+    public JwtTokenClaimsCache(long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ClaimsExpiry())
+                .recordStats()
+                .build();
+    }
+    
+    /**
+     * 查找已验证的负载，不存在或已过期返回null
+     */
+    public JwtTokenClaims get(String token) {
+        JwtTokenClaims claims = cache.getIfPresent(key(token));
+        if (claims != null && claims.isExpired()) {
+            return null;
+        }
+        return claims;
+    }
+    
+    /**
+     * 缓存已验证的负载，已过期的不缓存
+     */
+    public void put(String token, JwtTokenClaims claims) {
+        if (claims != null && !claims.isExpired()) {
+            cache.put(key(token), claims);
+        }
+    }
+    
+    /**
+     * 使某个token失效(例如退出登录)
+     */
+    public void invalidate(String token) {
+        cache.invalidate(key(token));
+    }
+    
+    /**
+     * 命中、未命中、淘汰次数等统计
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+    
+    /**
+     * 当前缓存的数量(近似值)
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+    
+    /**
+     * 底层缓存，用于注册监控指标
+     */
+    public Cache<String, JwtTokenClaims> getNativeCache() {
+        return cache;
+    }
+    
+    private static String key(String token) {
+        return DigestUtil.sha256Hex(token);
+    }
+    
+    /**
+     * 按 token 的 exp 设置每个缓存项的存活时间
+     */
+    private static class ClaimsExpiry implements Expiry<String, JwtTokenClaims> {
+        
+        @Override
+        public long expireAfterCreate(String key, JwtTokenClaims value, long currentTime) {
+            long millis = value.getExpirationMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0L));
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, JwtTokenClaims value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(String key, JwtTokenClaims value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+    
+}
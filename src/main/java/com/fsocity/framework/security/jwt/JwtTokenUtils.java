@@ -2,16 +2,20 @@ package com.fsocity.framework.security.jwt;
 
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
+import com.fsocity.framework.security.admin.AdminUserDetails;
 import com.fsocity.framework.security.properties.JWTProperties;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,13 +32,27 @@ public class JwtTokenUtils {
     
     private static final Logger LOGGER = LoggerFactory.getLogger(JwtTokenUtils.class);
     
-    private static final String CLAIM_KEY_USERNAME = "sub";
-    private static final String CLAIM_KEY_CREATED = "created";
+    static final String CLAIM_KEY_USERNAME = "sub";
+    static final String CLAIM_KEY_CREATED = "created";
+    static final String CLAIM_KEY_USER_ID = "uid";
+    static final String CLAIM_KEY_REALNAME = "realname";
+    static final String CLAIM_KEY_AUTHORITIES = "authorities";
+    static final String CLAIM_KEY_DEPARTMENT_ID = "dept";
+    static final String CLAIM_KEY_DATA_SCOPE = "dataScope";
     
     private final JWTProperties jwtProperties;
     
+    // 已验证负载的缓存，为null时不缓存
+    private final JwtTokenClaimsCache claimsCache;
+    
     public JwtTokenUtils(JWTProperties jwtProperties) {
         this.jwtProperties = jwtProperties;
+        if (jwtProperties.getClaimsCacheSize() != null && jwtProperties.getClaimsCacheSize() > 0) {
+            this.claimsCache = new JwtTokenClaimsCache(jwtProperties.getClaimsCacheSize());
+        }
+        else {
+            this.claimsCache = null;
+        }
     }
     
     /**
@@ -73,18 +91,39 @@ public class JwtTokenUtils {
     }
     
     /**
-     * 从token中获取登录用户名
+     * 解析并校验token，签名正确且未过期时返回负载，否则返回null。
+     * 同一个token只做一次签名校验，之后直接从缓存中读取。
      */
-    public String getUserNameFromToken(String token) {
-        String username;
-        try {
-            Claims claims = getClaimsFromToken(token);
-            username = claims.getSubject();
+    public JwtTokenClaims parseToken(String token) {
+        if (StrUtil.isEmpty(token)) {
+            return null;
         }
-        catch (Exception e) {
-            username = null;
+        if (claimsCache != null) {
+            JwtTokenClaims cached = claimsCache.get(token);
+            if (cached != null) {
+                return cached;
+            }
         }
-        return username;
+        Claims claims = getClaimsFromToken(token);
+        if (claims == null) {
+            return null;
+        }
+        JwtTokenClaims tokenClaims = JwtTokenClaims.of(claims);
+        if (tokenClaims.isExpired()) {
+            return null;
+        }
+        if (claimsCache != null) {
+            claimsCache.put(token, tokenClaims);
+        }
+        return tokenClaims;
+    }
+    
+    /**
+     * 从token中获取登录用户名
+     */
+    public String getUserNameFromToken(String token) {
+        JwtTokenClaims claims = parseToken(token);
+        return claims == null ? null : claims.getUsername();
     }
     
     /**
@@ -94,24 +133,44 @@ public class JwtTokenUtils {
      * @param userDetails 从数据库中查询出来的用户信息
      */
     public boolean validateToken(String token, UserDetails userDetails) {
-        String username = getUserNameFromToken(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return validateToken(parseToken(token), userDetails);
     }
     
     /**
-     * 判断token是否已经失效
+     * 验证已解析的token是否还有效
+     *
+     * @param claims      parseToken 的返回值
+     * @param userDetails 从数据库中查询出来的用户信息
      */
-    private boolean isTokenExpired(String token) {
-        Date expiredDate = getExpiredDateFromToken(token);
-        return expiredDate.before(new Date());
+    public boolean validateToken(JwtTokenClaims claims, UserDetails userDetails) {
+        return claims != null
+                && claims.getUsername() != null
+                && claims.getUsername().equals(userDetails.getUsername())
+                && !claims.isExpired();
     }
     
     /**
-     * 从token中获取过期时间
+     * 使token的缓存失效(退出登录时调用)
      */
-    private Date getExpiredDateFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return claims.getExpiration();
+    public void invalidateToken(String token) {
+        if (claimsCache != null && StrUtil.isNotEmpty(token)) {
+            claimsCache.invalidate(token);
+        }
+    }
+    
+    /**
+     * 已验证负载的缓存，未开启时返回null
+     */
+    public JwtTokenClaimsCache getClaimsCache() {
+        return claimsCache;
+    }
+    
+    /**
+     * 判断token是否已经失效
+     */
+    private boolean isTokenExpired(Claims claims) {
+        Date expiredDate = claims.getExpiration();
+        return expiredDate.before(new Date());
     }
     
     /**
@@ -121,6 +180,20 @@ public class JwtTokenUtils {
         Map<String, Object> claims = new HashMap<>();
         claims.put(CLAIM_KEY_USERNAME, userDetails.getUsername());
         claims.put(CLAIM_KEY_CREATED, new Date());
+        // 把权限写入负载，用户信息缓存未命中时可以直接从token中恢复
+        if (jwtProperties.isEmbedAuthorities()) {
+            if (userDetails instanceof AdminUserDetails) {
+                claims.put(CLAIM_KEY_USER_ID, ((AdminUserDetails) userDetails).getUserId());
+                claims.put(CLAIM_KEY_REALNAME, ((AdminUserDetails) userDetails).getRealname());
+                claims.put(CLAIM_KEY_DEPARTMENT_ID, ((AdminUserDetails) userDetails).getDepartmentId());
+                claims.put(CLAIM_KEY_DATA_SCOPE, ((AdminUserDetails) userDetails).getDataScope());
+            }
+            List<String> authorities = new ArrayList<>();
+            for (GrantedAuthority authority : userDetails.getAuthorities()) {
+                authorities.add(authority.getAuthority());
+            }
+            claims.put(CLAIM_KEY_AUTHORITIES, authorities);
+        }
         return generateToken(claims);
     }
     
@@ -143,15 +216,21 @@ public class JwtTokenUtils {
             return null;
         }
         //如果token已经过期，不支持刷新
-        if (isTokenExpired(token)) {
+        if (isTokenExpired(claims)) {
             return null;
         }
         //如果token在30分钟之内刚刷新过，返回原token
-        if (tokenRefreshJustBefore(token, 30 * 60)) {
+        if (tokenRefreshJustBefore(claims, 30 * 60)) {
             return token;
         }
         else {
             claims.put(CLAIM_KEY_CREATED, new Date());
+            // 刷新后的token不再携带旧的权限，避免绕过权限变更后的失效检查
+            claims.remove(CLAIM_KEY_USER_ID);
+            claims.remove(CLAIM_KEY_REALNAME);
+            claims.remove(CLAIM_KEY_AUTHORITIES);
+            claims.remove(CLAIM_KEY_DEPARTMENT_ID);
+            claims.remove(CLAIM_KEY_DATA_SCOPE);
             return generateToken(claims);
         }
     }
@@ -159,11 +238,10 @@ public class JwtTokenUtils {
     /**
      * 判断token在指定时间内是否刚刚刷新过
      *
-     * @param token 原token
-     * @param time  指定时间（秒）
+     * @param claims 原token的负载
+     * @param time   指定时间（秒）
      */
-    private boolean tokenRefreshJustBefore(String token, int time) {
-        Claims claims = getClaimsFromToken(token);
+    private boolean tokenRefreshJustBefore(Claims claims, int time) {
         Date created = claims.get(CLAIM_KEY_CREATED, Date.class);
         Date refreshDate = new Date();
         //刷新时间在创建时间的指定时间内
@@ -0,0 +1,109 @@
+package com.fsocity.framework.security.matcher;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 安全链接匹配器。
+ * <p>
+ * 把"需要身份认证的链接"和"不需要身份认证的链接"预编译成 {@link UrlPatternTrie}，
+ * 并按请求路径缓存匹配结果。JWT 过滤器和 Spring Security 的过滤链共用同一个实例，
+ * 同一个路径在整个请求中只匹配一次。
+ *
+ * @author zail
+ * @date 2022/7/14
+ */
+public class SecurityUrlMatcher {
+    
+    // 匹配"需要身份认证的链接"
+    private static final int AUTHENTICATED = 1;
+    
+    // 匹配"不需要身份认证的链接"
+    private static final int UNAUTHENTICATED = 1 << 1;
+    
+    private final UrlPatternTrie authenticatedUrls;
+    
+    private final UrlPatternTrie unauthenticatedUrls;
+    
+    // 请求路径 -> 匹配结果
+    private final Cache<String, Integer> cache;
+    
+    public SecurityUrlMatcher(String[] authenticatedUrls, String[] unauthenticatedUrls, long cacheSize) {
+        this.authenticatedUrls = new UrlPatternTrie(authenticatedUrls);
+        this.unauthenticatedUrls = new UrlPatternTrie(unauthenticatedUrls);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+    
+    /**
+     * 是否匹配需要身份认证的链接
+     */
+    public boolean isAuthenticatedUrl(String path) {
+        return (match(path) & AUTHENTICATED) != 0;
+    }
+    
+    /**
+     * 是否匹配不需要身份认证的链接
+     */
+    public boolean isUnauthenticatedUrl(String path) {
+        return (match(path) & UNAUTHENTICATED) != 0;
+    }
+    
+    /**
+     * 是否需要身份认证：不在白名单中，并且匹配需要身份认证的链接
+     */
+    public boolean requiresAuthentication(String path) {
+        int result = match(path);
+        return (result & UNAUTHENTICATED) == 0 && (result & AUTHENTICATED) != 0;
+    }
+    
+    /**
+     * 需要身份认证的链接对应的 RequestMatcher
+     */
+    public RequestMatcher authenticatedRequestMatcher() {
+        return request -> isAuthenticatedUrl(getRequestPath(request));
+    }
+    
+    /**
+     * 不需要身份认证的链接对应的 RequestMatcher
+     */
+    public RequestMatcher unauthenticatedRequestMatcher() {
+        return request -> isUnauthenticatedUrl(getRequestPath(request));
+    }
+    
+    private int match(String path) {
+        if (path == null) {
+            return 0;
+        }
+        Integer result = cache.getIfPresent(path);
+        if (result == null) {
+            int value = 0;
+            if (authenticatedUrls.matches(path)) {
+                value |= AUTHENTICATED;
+            }
+            if (unauthenticatedUrls.matches(path)) {
+                value |= UNAUTHENTICATED;
+            }
+            result = value;
+            cache.put(path, result);
+        }
+        return result;
+    }
+    
+    /**
+     * 与 AntPathRequestMatcher 取路径的方式一致
+     */
+    private static String getRequestPath(HttpServletRequest request) {
+        String url = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        if (pathInfo != null) {
+            url = url == null || url.isEmpty() ? pathInfo : url + pathInfo;
+        }
+        return url;
+    }
+    
+}
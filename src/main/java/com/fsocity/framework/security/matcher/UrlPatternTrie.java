@@ -0,0 +1,263 @@
+package com.fsocity.framework.security.matcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 预编译的 Ant 风格链接匹配树。
+ * <p>
+ * 所有规则在构建时按 "/" 切分成段并合并成一棵前缀树，每个段只解析一次：
+ * 普通段放在 HashMap 中精确查找，"*"、"**" 单独存放，带通配符的段预编译成正则。
+ * 匹配时只需要对请求路径切分一次，然后沿着树向下查找，
+ * 不需要像 AntPathMatcher 那样对每条规则逐个重新解析。
+ * <p>
+ * 匹配语义与 {@link org.springframework.util.AntPathMatcher#match(String, String)} 保持一致。
+ *
+ * @author zail
+ * @date 2022/7/14
+ */
+public class UrlPatternTrie {
+    
+    private static final String SEPARATOR = "/";
+    
+    private static final String ANY_SEGMENT = "*";
+    
+    private static final String ANY_PATH = "**";
+    
+    // 与 AntPathMatcher.AntPathStringMatcher 相同的通配符
+    private static final Pattern GLOB_PATTERN = Pattern.compile("\\?|\\*|\\{((?:\\{[^/]+?\\}|[^/{}]|\\\\[{}])+?)\\}");
+    
+    // 以 "/" 开头的规则
+    private final Node absoluteRoot = new Node(false);
+    
+    // 不以 "/" 开头的规则
+    private final Node relativeRoot = new Node(false);
+    
+    private final List<String> patterns = new ArrayList<>();
+    
+    public UrlPatternTrie(String... patterns) {
+        if (patterns != null) {
+            for (String pattern : patterns) {
+                add(pattern);
+            }
+        }
+    }
+    
+    /**
+     * 添加一条规则
+     */
+    public void add(String pattern) {
+        if (pattern == null) {
+            return;
+        }
+        Node node = pattern.startsWith(SEPARATOR) ? absoluteRoot : relativeRoot;
+        for (String segment : tokenize(pattern)) {
+            node = node.child(segment);
+        }
+        if (pattern.endsWith(SEPARATOR)) {
+            node.terminalWithSeparator = true;
+        }
+        else {
+            node.terminal = true;
+        }
+        patterns.add(pattern);
+    }
+    
+    /**
+     * 路径是否匹配任意一条规则
+     */
+    public boolean matches(String path) {
+        if (path == null) {
+            return false;
+        }
+        Node root = path.startsWith(SEPARATOR) ? absoluteRoot : relativeRoot;
+        String[] segments = tokenize(path);
+        return match(root, segments, 0, path.endsWith(SEPARATOR));
+    }
+    
+    public List<String> getPatterns() {
+        return Collections.unmodifiableList(patterns);
+    }
+    
+    private boolean match(Node node, String[] segments, int index, boolean endsWithSeparator) {
+        if (index == segments.length) {
+            return matchEnd(node, endsWithSeparator);
+        }
+        String segment = segments[index];
+        Node literal = node.literals.get(segment);
+        if (literal != null && match(literal, segments, index + 1, endsWithSeparator)) {
+            return true;
+        }
+        if (node.anySegment != null && match(node.anySegment, segments, index + 1, endsWithSeparator)) {
+            return true;
+        }
+        for (WildcardSegment wildcard : node.wildcards) {
+            if (wildcard.matches(segment) && match(wildcard.node, segments, index + 1, endsWithSeparator)) {
+                return true;
+            }
+        }
+        if (node.anyPathNode != null) {
+            // "**" 匹配零个或多个段
+            for (int i = index; i <= segments.length; i++) {
+                if (match(node.anyPathNode, segments, i, endsWithSeparator)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 路径已经匹配完，判断当前节点能否结束
+     */
+    private boolean matchEnd(Node node, boolean endsWithSeparator) {
+        if (node.anyPath) {
+            // 以 "**" 结尾的规则不区分结尾的 "/"
+            if (node.terminal || node.terminalWithSeparator) {
+                return true;
+            }
+        }
+        else if (endsWithSeparator ? node.terminalWithSeparator : node.terminal) {
+            return true;
+        }
+        // 剩下的规则全是 "**" 时可以匹配
+        if (node.anyPathNode != null && matchEnd(node.anyPathNode, endsWithSeparator)) {
+            return true;
+        }
+        // 与 AntPathMatcher 一致："/a/*" 可以匹配 "/a/"
+        return endsWithSeparator && node.anySegment != null && node.anySegment.terminal;
+    }
+    
+    private static String[] tokenize(String path) {
+        List<String> tokens = new ArrayList<>();
+        int start = 0;
+        int length = path.length();
+        for (int i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == '/') {
+                if (i > start) {
+                    tokens.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+    
+    /**
+     * 把带通配符的段转换成正则，规则与 AntPathMatcher 相同
+     */
+    private static Pattern compileSegment(String segment) {
+        StringBuilder regex = new StringBuilder();
+        Matcher matcher = GLOB_PATTERN.matcher(segment);
+        int end = 0;
+        while (matcher.find()) {
+            regex.append(quote(segment, end, matcher.start()));
+            String match = matcher.group();
+            if ("?".equals(match)) {
+                regex.append('.');
+            }
+            else if ("*".equals(match)) {
+                regex.append(".*");
+            }
+            else {
+                String variable = match.substring(1, match.length() - 1);
+                int colonIdx = variable.indexOf(':');
+                if (colonIdx == -1) {
+                    regex.append("(.*)");
+                }
+                else {
+                    regex.append('(').append(variable, colonIdx + 1, variable.length()).append(')');
+                }
+            }
+            end = matcher.end();
+        }
+        regex.append(quote(segment, end, segment.length()));
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+    
+    private static String quote(String s, int start, int end) {
+        if (start == end) {
+            return "";
+        }
+        return Pattern.quote(s.substring(start, end));
+    }
+    
+    private static boolean hasWildcard(String segment) {
+        return segment.indexOf('*') != -1 || segment.indexOf('?') != -1 || segment.indexOf('{') != -1;
+    }
+    
+    private static class Node {
+        
+        // 是否是 "**" 节点
+        private final boolean anyPath;
+        
+        private final Map<String, Node> literals = new HashMap<>();
+        
+        private final List<WildcardSegment> wildcards = new ArrayList<>();
+        
+        private Node anySegment;
+        
+        private Node anyPathNode;
+        
+        // 有规则在此结束(不以 "/" 结尾)
+        private boolean terminal;
+        
+        // 有规则在此结束(以 "/" 结尾)
+        private boolean terminalWithSeparator;
+        
+        Node(boolean anyPath) {
+            this.anyPath = anyPath;
+        }
+        
+        Node child(String segment) {
+            if (ANY_PATH.equals(segment)) {
+                if (anyPathNode == null) {
+                    anyPathNode = new Node(true);
+                }
+                return anyPathNode;
+            }
+            if (ANY_SEGMENT.equals(segment)) {
+                if (anySegment == null) {
+                    anySegment = new Node(false);
+                }
+                return anySegment;
+            }
+            if (hasWildcard(segment)) {
+                for (WildcardSegment wildcard : wildcards) {
+                    if (wildcard.segment.equals(segment)) {
+                        return wildcard.node;
+                    }
+                }
+                WildcardSegment wildcard = new WildcardSegment(segment, compileSegment(segment), new Node(false));
+                wildcards.add(wildcard);
+                return wildcard.node;
+            }
+            return literals.computeIfAbsent(segment, k -> new Node(false));
+        }
+    }
+    
+    private static class WildcardSegment {
+        
+        private final String segment;
+        
+        private final Pattern pattern;
+        
+        private final Node node;
+        
+        WildcardSegment(String segment, Pattern pattern, Node node) {
+            this.segment = segment;
+            this.pattern = pattern;
+            this.node = node;
+        }
+        
+        boolean matches(String value) {
+            return pattern.matcher(value).matches();
+        }
+    }
+    
+}
@@ -0,0 +1,322 @@
+package com.fsocity.framework.security.permission;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.redis.cache.CacheInvalidationTopic;
+import com.fsocity.framework.redis.cache.LocalCacheInvalidationListener;
+import com.fsocity.framework.security.admin.AdminUserDetails;
+import com.fsocity.modules.admin.entity.AdminMenu;
+import com.fsocity.modules.admin.entity.AdminRole;
+import com.fsocity.modules.admin.entity.AdminRoleMenu;
+import com.fsocity.modules.admin.mapper.AdminMenuMapper;
+import com.fsocity.modules.admin.mapper.AdminRoleMapper;
+import com.fsocity.modules.admin.mapper.AdminRoleMenuMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 菜单权限标识的位图注册表。
+ * <p>
+ * 每个菜单权限标识(perms)分配一个稠密的整数ID，每个角色编译成一个 {@link PermissionBitSet}，
+ * 用户的权限是其全部角色位图的按位或，权限判断只需一次位运算。
+ * <p>
+ * 角色菜单关联、角色、菜单变更时只重新编译受影响的角色，并增加版本号；
+ * 用户的位图缓存在 {@link AdminUserDetails} 上，版本号变化后在下一次判断时重新合并。
+ * <p>
+ * 重新编译后通过 {@link CacheInvalidationTopic} 通知其它节点，其它节点从数据库重新编译同一个角色。
+ *
+ * @author zail
+ * @date 2022/7/15
+ */
+@Component
+@Slf4j
+public class AdminPermissionRegistry implements LocalCacheInvalidationListener {
+    
+    // 角色权限的前缀
+    public static final String ROLE_PREFIX = "ROLE_";
+    
+    // 失效消息使用的缓存名称，消息的key是角色ID，为null时重新编译全部角色
+    private static final String CACHE_NAME = "adminPermission";
+    
+    // 正常状态
+    private static final int STATUS_NORMAL = 0;
+    
+    @Autowired
+    private AdminRoleMapper adminRoleMapper;
+    @Autowired
+    private AdminRoleMenuMapper adminRoleMenuMapper;
+    @Autowired
+    private AdminMenuMapper adminMenuMapper;
+    @Autowired
+    private CacheInvalidationTopic invalidationTopic;
+    
+    // 权限标识 -> 权限ID，ID只增不减，已经分配的ID不会复用
+    private final ConcurrentMap<String, Integer> permissionIds = new ConcurrentHashMap<>();
+    
+    // 下一个权限ID，只在持有锁时修改
+    private int nextPermissionId = 0;
+    
+    // 当前的角色位图，编译时整体替换，读取时不加锁
+    private volatile Snapshot snapshot = null;
+    
+    /**
+     * 用户是否拥有某个权限
+     */
+    public boolean hasPermission(UserDetails userDetails, String permission) {
+        if (userDetails == null || permission == null) {
+            return false;
+        }
+        Integer id = permissionIds.get(permission);
+        if (id == null) {
+            ensureLoaded();
+            id = permissionIds.get(permission);
+            if (id == null) {
+                return false;
+            }
+        }
+        return getPermissions(userDetails).contains(id);
+    }
+    
+    /**
+     * 用户的权限位图，AdminUserDetails 上缓存的位图版本一致时直接返回
+     */
+    public PermissionBitSet getPermissions(UserDetails userDetails) {
+        Snapshot current = ensureLoaded();
+        if (userDetails instanceof AdminUserDetails) {
+            AdminUserDetails adminUserDetails = (AdminUserDetails) userDetails;
+            PermissionBitSet permissions = adminUserDetails.getPermissions();
+            if (permissions != null && permissions.getVersion() == current.version) {
+                return permissions;
+            }
+            permissions = compute(userDetails.getAuthorities(), current);
+            adminUserDetails.setPermissions(permissions);
+            return permissions;
+        }
+        return compute(userDetails.getAuthorities(), current);
+    }
+    
+    /**
+     * 权限标识对应的ID，不存在时返回null
+     */
+    public Integer getPermissionId(String permission) {
+        ensureLoaded();
+        return permissionIds.get(permission);
+    }
+    
+    /**
+     * 重新编译全部角色，同时通知其它节点
+     */
+    public void reload() {
+        reloadLocal();
+        invalidationTopic.publish(CACHE_NAME, null);
+    }
+    
+    /**
+     * 重新编译一个角色(角色或角色菜单关联变更)，同时通知其它节点
+     */
+    public void rebuildRole(Integer roleId) {
+        if (roleId == null) {
+            return;
+        }
+        rebuildRoleLocal(roleId);
+        invalidationTopic.publish(CACHE_NAME, roleId.toString());
+    }
+    
+    @Override
+    public synchronized void onInvalidation(String cacheName, String key) {
+        // 本节点还没有加载过时不处理，下一次使用时会加载最新的数据
+        if (!CACHE_NAME.equals(cacheName) || snapshot == null) {
+            return;
+        }
+        if (key == null) {
+            reloadLocal();
+        }
+        else {
+            rebuildRoleLocal(Integer.valueOf(key));
+        }
+    }
+    
+    private synchronized void reloadLocal() {
+        List<AdminRole> roles = adminRoleMapper.selectList(new LambdaQueryWrapper<AdminRole>()
+                .eq(AdminRole::getStatus, STATUS_NORMAL));
+        Map<Integer, AdminMenu> menus = new HashMap<>();
+        for (AdminMenu menu : adminMenuMapper.selectList(new LambdaQueryWrapper<AdminMenu>()
+                .eq(AdminMenu::getStatus, STATUS_NORMAL))) {
+            menus.put(menu.getId(), menu);
+        }
+        Map<Integer, List<Integer>> roleMenuIds = new HashMap<>();
+        for (AdminRoleMenu roleMenu : adminRoleMenuMapper.selectList(null)) {
+            roleMenuIds.computeIfAbsent(roleMenu.getRoleId(), k -> new ArrayList<>()).add(roleMenu.getMenuId());
+        }
+        
+        Snapshot next = new Snapshot(version() + 1);
+        for (AdminRole role : roles) {
+            List<Integer> menuIds = roleMenuIds.get(role.getId());
+            List<AdminMenu> roleMenus = new ArrayList<>();
+            if (menuIds != null) {
+                for (Integer menuId : menuIds) {
+                    AdminMenu menu = menus.get(menuId);
+                    if (menu != null) {
+                        roleMenus.add(menu);
+                    }
+                }
+            }
+            putRole(role, roleMenus, next);
+        }
+        snapshot = next;
+        log.info("权限位图加载完成 roles = {}, permissions = {}", next.roleBitSets.size(), permissionIds.size());
+    }
+    
+    private synchronized void rebuildRoleLocal(Integer roleId) {
+        if (snapshot == null) {
+            reloadLocal();
+            return;
+        }
+        Snapshot next = new Snapshot(snapshot);
+        String oldKey = next.roleKeys.remove(roleId);
+        if (oldKey != null) {
+            next.roleBitSets.remove(oldKey);
+        }
+        AdminRole role = adminRoleMapper.selectById(roleId);
+        if (role != null && role.getStatus() != null && role.getStatus() == STATUS_NORMAL) {
+            List<Integer> menuIds = new ArrayList<>();
+            for (AdminRoleMenu roleMenu : adminRoleMenuMapper.selectList(new LambdaQueryWrapper<AdminRoleMenu>()
+                    .eq(AdminRoleMenu::getRoleId, roleId))) {
+                menuIds.add(roleMenu.getMenuId());
+            }
+            List<AdminMenu> menus = new ArrayList<>();
+            if (!menuIds.isEmpty()) {
+                for (AdminMenu menu : adminMenuMapper.selectBatchIds(menuIds)) {
+                    if (menu.getStatus() != null && menu.getStatus() == STATUS_NORMAL) {
+                        menus.add(menu);
+                    }
+                }
+            }
+            putRole(role, menus, next);
+        }
+        snapshot = next;
+        log.info("角色权限位图重新编译 roleId = {}", roleId);
+    }
+    
+    /**
+     * 重新编译包含某个菜单的角色(菜单的权限标识或状态变更)，同时通知其它节点
+     */
+    public synchronized void rebuildMenu(Integer menuId) {
+        if (menuId == null) {
+            return;
+        }
+        if (snapshot == null) {
+            reload();
+            return;
+        }
+        Set<Integer> roleIds = new HashSet<>();
+        for (AdminRoleMenu roleMenu : adminRoleMenuMapper.selectList(new LambdaQueryWrapper<AdminRoleMenu>()
+                .eq(AdminRoleMenu::getMenuId, menuId))) {
+            roleIds.add(roleMenu.getRoleId());
+        }
+        for (Integer roleId : roleIds) {
+            rebuildRole(roleId);
+        }
+    }
+    
+    /**
+     * 从权限中取出角色权限字符串(去掉 ROLE_ 前缀)
+     */
+    public static List<String> getRoleKeys(Collection<? extends GrantedAuthority> authorities) {
+        List<String> roleKeys = new ArrayList<>();
+        for (GrantedAuthority authority : authorities) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith(ROLE_PREFIX)) {
+                roleKeys.add(name.substring(ROLE_PREFIX.length()));
+            }
+        }
+        return roleKeys;
+    }
+    
+    /**
+     * 当前版本号，每次编译后加一
+     */
+    public long getVersion() {
+        return version();
+    }
+    
+    private long version() {
+        Snapshot current = snapshot;
+        return current == null ? 0L : current.version;
+    }
+    
+    private Snapshot ensureLoaded() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reloadLocal();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+    
+    private void putRole(AdminRole role, List<AdminMenu> menus, Snapshot target) {
+        List<Integer> ids = new ArrayList<>();
+        for (AdminMenu menu : menus) {
+            String perms = menu.getPerms();
+            if (perms != null && !perms.isEmpty()) {
+                ids.add(permissionIds.computeIfAbsent(perms, k -> nextPermissionId++));
+            }
+        }
+        target.roleKeys.put(role.getId(), role.getKey());
+        target.roleBitSets.put(role.getKey(), PermissionBitSet.of(ids, target.version));
+    }
+    
+    private PermissionBitSet compute(Collection<? extends GrantedAuthority> authorities, Snapshot current) {
+        List<PermissionBitSet> bitSets = new ArrayList<>();
+        for (String roleKey : getRoleKeys(authorities)) {
+            PermissionBitSet bitSet = current.roleBitSets.get(roleKey);
+            if (bitSet != null) {
+                bitSets.add(bitSet);
+            }
+        }
+        return PermissionBitSet.or(bitSets, current.version);
+    }
+    
+    /**
+     * 某个版本的全部角色位图
+     */
+    private static class Snapshot {
+        
+        private final long version;
+        
+        // 角色ID -> 角色权限字符串
+        private final Map<Integer, String> roleKeys;
+        
+        // 角色权限字符串 -> 角色的权限位图
+        private final Map<String, PermissionBitSet> roleBitSets;
+        
+        Snapshot(long version) {
+            this.version = version;
+            this.roleKeys = new HashMap<>();
+            this.roleBitSets = new HashMap<>();
+        }
+        
+        Snapshot(Snapshot previous) {
+            this.version = previous.version + 1;
+            this.roleKeys = new HashMap<>(previous.roleKeys);
+            this.roleBitSets = new HashMap<>(previous.roleBitSets);
+        }
+    }
+    
+}
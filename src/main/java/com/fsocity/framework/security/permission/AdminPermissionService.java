@@ -0,0 +1,56 @@
+package com.fsocity.framework.security.permission;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+/**
+ * 后台权限判断，供 SpEL 表达式使用。
+ * <p>
+ * 例如：{@code @PreAuthorize("@ps.hasPermission('system:user:view')")}，
+ * 或在页面中 {@code ${@ps.hasPermission('system:user:add')}}。
+ *
+ * @author zail
+ * @date 2022/7/15
+ */
+@Service("ps")
+public class AdminPermissionService {
+    
+    @Autowired
+    private AdminPermissionRegistry adminPermissionRegistry;
+    
+    /**
+     * 当前用户是否拥有某个权限
+     */
+    public boolean hasPermission(String permission) {
+        UserDetails userDetails = currentUser();
+        return userDetails != null && adminPermissionRegistry.hasPermission(userDetails, permission);
+    }
+    
+    /**
+     * 当前用户是否拥有任意一个权限
+     */
+    public boolean hasAnyPermission(String... permissions) {
+        UserDetails userDetails = currentUser();
+        if (userDetails == null) {
+            return false;
+        }
+        for (String permission : permissions) {
+            if (adminPermissionRegistry.hasPermission(userDetails, permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private UserDetails currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetails)) {
+            return null;
+        }
+        return (UserDetails) authentication.getPrincipal();
+    }
+    
+}
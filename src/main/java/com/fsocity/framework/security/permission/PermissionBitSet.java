@@ -0,0 +1,108 @@
+package com.fsocity.framework.security.permission;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 不可变的权限位图。
+ * <p>
+ * 每个权限标识对应一个稠密的整数ID，位图中第 ID 位为1表示拥有该权限，
+ * 权限判断是一次数组下标访问加一次位运算。
+ *
+ * @author zail
+ * @date 2022/7/15
+ */
+public final class PermissionBitSet {
+    
+    public static final PermissionBitSet EMPTY = new PermissionBitSet(new long[0], 0L);
+    
+    private final long[] words;
+    
+    // 构建时权限注册表的版本，用于判断是否需要重新计算
+    private final long version;
+    
+    private PermissionBitSet(long[] words, long version) {
+        this.words = words;
+        this.version = version;
+    }
+    
+    /**
+     * 由权限ID构建
+     */
+    public static PermissionBitSet of(Collection<Integer> ids, long version) {
+        int max = -1;
+        for (Integer id : ids) {
+            max = Math.max(max, id);
+        }
+        long[] words = new long[(max >> 6) + 1];
+        for (Integer id : ids) {
+            words[id >> 6] |= 1L << id;
+        }
+        return new PermissionBitSet(words, version);
+    }
+    
+    /**
+     * 多个位图按位或，用于合并用户多个角色的权限
+     */
+    public static PermissionBitSet or(Collection<PermissionBitSet> bitSets, long version) {
+        int length = 0;
+        for (PermissionBitSet bitSet : bitSets) {
+            length = Math.max(length, bitSet.words.length);
+        }
+        long[] words = new long[length];
+        for (PermissionBitSet bitSet : bitSets) {
+            for (int i = 0; i < bitSet.words.length; i++) {
+                words[i] |= bitSet.words[i];
+            }
+        }
+        return new PermissionBitSet(words, version);
+    }
+    
+    /**
+     * 是否包含某个权限ID
+     */
+    public boolean contains(int id) {
+        int index = id >> 6;
+        return id >= 0 && index < words.length && (words[index] & (1L << id)) != 0;
+    }
+    
+    /**
+     * 权限数量
+     */
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PermissionBitSet)) {
+            return false;
+        }
+        return Arrays.equals(trim(words), trim(((PermissionBitSet) o).words));
+    }
+    
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(trim(words));
+    }
+    
+    private static long[] trim(long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+        return length == words.length ? words : Arrays.copyOf(words, length);
+    }
+    
+}
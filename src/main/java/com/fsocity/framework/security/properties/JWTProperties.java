@@ -18,4 +18,10 @@ public class JWTProperties {
     private Long expiration = 604800L;
     // token head
     private String tokenHead = "Bearer ";
+    // 已验证token负载的缓存数量(0表示不缓存)
+    private Long claimsCacheSize = 10000L;
+    // 是否把用户权限写入token负载，开启后用户信息缓存未命中时无需查询数据库
+    private boolean embedAuthorities = false;
+    // 负载中的权限只在签发后多久(秒)内信任，超过后重新加载，用于兜底丢失的失效消息
+    private Long embedAuthoritiesMaxAge = 300L;
 }
@@ -0,0 +1,68 @@
+package com.fsocity.framework.security.properties;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 限流配置
+ *
+ * @author zail
+ * @date 2022/7/20
+ */
+@Data
+public class RateLimitProperties {
+    
+    // 是否开启
+    private boolean enable = true;
+    
+    // Redis key 前缀
+    private String keyPrefix = "fsocity:ratelimit:";
+    
+    // 本地保存的计数数量
+    private long localCacheSize = 100000L;
+    
+    // 表单登录的用户名参数
+    private String usernameParameter = "username";
+    
+    // 限流规则
+    private List<Rule> rules = new ArrayList<>();
+    
+    @Data
+    public static class Rule {
+        
+        // 规则名称，作为 Redis key 的一部分
+        private String name;
+        
+        // 匹配的链接
+        private String[] urls = {};
+        
+        // 匹配的请求方法，为空时匹配所有方法
+        private String method;
+        
+        // 按什么计数
+        private Dimension dimension = Dimension.IP;
+        
+        // 一个窗口内允许的次数
+        private int limit = 60;
+        
+        // 窗口长度
+        private Duration window = Duration.ofMinutes(1);
+        
+        // 每次从 Redis 申请的次数，申请到的次数在本地使用，大于1时可以减少访问 Redis
+        private int localBatch = 1;
+    
+    }
+    
+    public enum Dimension {
+        // 按客户端IP
+        IP,
+        // 按登录的用户名
+        USERNAME,
+        // 按链接，所有客户端共用
+        ROUTE,
+    }
+    
+}
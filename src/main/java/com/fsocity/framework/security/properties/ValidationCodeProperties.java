@@ -17,6 +17,12 @@ public class ValidationCodeProperties {
     private int length = 4;
     // 过期时间, 默认30分钟
     private int expireIn = 1800;
+    // 预先生成的图片数量，0表示不预先生成
+    private int poolSize = 200;
+    // 预先生成的图片有效期(秒)
+    private int poolMaxAge = 600;
+    // 每秒最多预先生成多少张
+    private int poolRefillPerSecond = 50;
     
     static enum ValidationCodeType {
         CODE,
@@ -23,4 +23,7 @@ public class WebSecurityProperties {
     // CORS配置
     private CorsProperties cors = new CorsProperties();
     
+    // 限流配置
+    private RateLimitProperties rateLimit = new RateLimitProperties();
+    
 }
@@ -0,0 +1,122 @@
+package com.fsocity.framework.security.ratelimit;
+
+import com.fsocity.framework.security.properties.RateLimitProperties;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按配置的规则对请求限流。
+ * <p>
+ * 表单登录的用户名从请求参数中读取；JSON 登录的用户名在请求体中，
+ * 由接口调用 {@link #checkUsername} 计数。
+ *
+ * @author zail
+ * @date 2022/7/20
+ */
+public class RequestRateLimiter {
+    
+    private final SlidingWindowRateLimiter rateLimiter;
+    
+    private final String usernameParameter;
+    
+    private final List<CompiledRule> rules = new ArrayList<>();
+    
+    public RequestRateLimiter(SlidingWindowRateLimiter rateLimiter, RateLimitProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.usernameParameter = properties.getUsernameParameter();
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            List<AntPathRequestMatcher> matchers = new ArrayList<>();
+            for (String url : rule.getUrls()) {
+                matchers.add(new AntPathRequestMatcher(url, StringUtils.trimToNull(rule.getMethod())));
+            }
+            rules.add(new CompiledRule(rule, matchers));
+        }
+    }
+    
+    /**
+     * 按IP、链接和表单中的用户名计数
+     *
+     * @return 超过限制的规则，没有超过时返回null
+     */
+    public RateLimitProperties.Rule check(HttpServletRequest request) {
+        for (CompiledRule compiled : rules) {
+            String pattern = compiled.match(request);
+            if (pattern == null) {
+                continue;
+            }
+            RateLimitProperties.Rule rule = compiled.rule;
+            String identity;
+            switch (rule.getDimension()) {
+                case IP:
+                    // 经过代理时需要配置 server.forward-headers-strategy，不直接信任请求头
+                    identity = request.getRemoteAddr();
+                    break;
+                case ROUTE:
+                    identity = pattern;
+                    break;
+                default:
+                    identity = StringUtils.trimToNull(request.getParameter(usernameParameter));
+                    break;
+            }
+            if (identity != null && !tryAcquire(rule, identity)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 按用户名计数，用于用户名不在请求参数中的登录接口
+     *
+     * @return 超过限制的规则，没有超过时返回null
+     */
+    public RateLimitProperties.Rule checkUsername(HttpServletRequest request, String username) {
+        if (StringUtils.isBlank(username)) {
+            return null;
+        }
+        for (CompiledRule compiled : rules) {
+            RateLimitProperties.Rule rule = compiled.rule;
+            if (rule.getDimension() == RateLimitProperties.Dimension.USERNAME
+                    && compiled.match(request) != null
+                    && !tryAcquire(rule, username.trim())) {
+                return rule;
+            }
+        }
+        return null;
+    }
+    
+    private boolean tryAcquire(RateLimitProperties.Rule rule, String identity) {
+        return rateLimiter.tryAcquire(rule.getName() + ":" + identity,
+                rule.getLimit(), rule.getWindow(), rule.getLocalBatch());
+    }
+    
+    private static final class CompiledRule {
+        
+        private final RateLimitProperties.Rule rule;
+        
+        private final List<AntPathRequestMatcher> matchers;
+        
+        CompiledRule(RateLimitProperties.Rule rule, List<AntPathRequestMatcher> matchers) {
+            this.rule = rule;
+            this.matchers = matchers;
+        }
+        
+        /**
+         * @return 匹配的链接，不匹配时返回null
+         */
+        String match(HttpServletRequest request) {
+            for (AntPathRequestMatcher matcher : matchers) {
+                if (matcher.matches(request)) {
+                    return matcher.getPattern();
+                }
+            }
+            return null;
+        }
+    
+    }
+    
+}
@@ -0,0 +1,135 @@
+package com.fsocity.framework.security.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * 基于 Redis 的滑动窗口限流。
+ * <p>
+ * 每个窗口一个计数，当前次数 = 上一个窗口的次数 * 上一个窗口仍在滑动窗口内的比例 + 当前窗口的次数，
+ * 检查和计数在同一个 Lua 脚本中完成，多个节点共享同一个限制。
+ * <p>
+ * 本地先过滤，大部分请求不访问 Redis：
+ * <ul>
+ *     <li>每次从 Redis 申请 batch 个许可，在本地用完后再申请</li>
+ *     <li>被拒绝后，到当前窗口结束前直接在本地拒绝</li>
+ * </ul>
+ * Redis 不可用时放行，只记录日志。
+ *
+ * @author zail
+ * @date 2022/7/20
+ */
+@Slf4j
+public class SlidingWindowRateLimiter {
+    
+    /**
+     * KEYS[1] 当前窗口计数，KEYS[2] 上一个窗口计数
+     * ARGV[1] 限制次数，ARGV[2] 上一个窗口的权重(千分比)，ARGV[3] 申请的许可数，ARGV[4] 计数有效期(毫秒)
+     * 返回申请到的许可数
+     */
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(
+            "local current = tonumber(redis.call('GET', KEYS[1]) or '0') " +
+                    "local previous = tonumber(redis.call('GET', KEYS[2]) or '0') " +
+                    "local available = tonumber(ARGV[1]) - math.floor(previous * tonumber(ARGV[2]) / 1000) - current " +
+                    "if available <= 0 then return 0 end " +
+                    "local permits = math.min(available, tonumber(ARGV[3])) " +
+                    "redis.call('INCRBY', KEYS[1], permits) " +
+                    "redis.call('PEXPIRE', KEYS[1], ARGV[4]) " +
+                    "return permits", Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    
+    private final String keyPrefix;
+    
+    // key -> 本地许可
+    private final Cache<String, Lease> leases;
+    
+    /**
+     * @param maxWindow 最长的窗口，本地许可在两个窗口内未使用时删除
+     */
+    public SlidingWindowRateLimiter(StringRedisTemplate redisTemplate, String keyPrefix,
+                                    long localCacheSize, Duration maxWindow) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(localCacheSize)
+                .expireAfterAccess(maxWindow.multipliedBy(2))
+                .build();
+    }
+    
+    /**
+     * 申请一次许可
+     *
+     * @param key    计数的key，例如 login-ip:127.0.0.1
+     * @param limit  一个窗口内允许的次数
+     * @param window 窗口长度
+     * @param batch  每次从 Redis 申请的许可数
+     * @return 是否允许
+     */
+    public boolean tryAcquire(String key, int limit, Duration window, int batch) {
+        long windowMillis = window.toMillis();
+        long now = System.currentTimeMillis();
+        long windowIndex = now / windowMillis;
+        Lease lease = leases.get(key, k -> new Lease());
+        synchronized (lease) {
+            if (now < lease.blockedUntil) {
+                return false;
+            }
+            if (lease.window == windowIndex && lease.permits > 0) {
+                lease.permits--;
+                return true;
+            }
+            long granted = acquire(key, windowIndex, now, limit, windowMillis, Math.max(batch, 1));
+            if (granted <= 0) {
+                lease.blockedUntil = (windowIndex + 1) * windowMillis;
+                return false;
+            }
+            lease.window = windowIndex;
+            lease.permits = (int) granted - 1;
+            return true;
+        }
+    }
+    
+    /**
+     * 从 Redis 申请许可
+     *
+     * @return 申请到的许可数
+     */
+    protected long acquire(String key, long windowIndex, long now, int limit, long windowMillis, int permits) {
+        // 同一个 key 的两个窗口放在同一个槽中
+        String hashKey = keyPrefix + "{" + key + "}:";
+        long previousWeight = 1000 - (now % windowMillis) * 1000 / windowMillis;
+        try {
+            Long granted = redisTemplate.execute(ACQUIRE_SCRIPT,
+                    Arrays.asList(hashKey + windowIndex, hashKey + (windowIndex - 1)),
+                    String.valueOf(limit), String.valueOf(previousWeight), String.valueOf(permits),
+                    String.valueOf(windowMillis * 2));
+            return granted != null ? granted : 0L;
+        }
+        catch (Exception e) {
+            log.warn("限流计数失败，放行请求 key = {}", key, e);
+            return permits;
+        }
+    }
+    
+    private static final class Lease {
+        
+        // 许可所属的窗口
+        private long window = -1;
+        
+        // 剩余的本地许可
+        private int permits;
+        
+        // 被拒绝后，在这个时间之前直接拒绝
+        private long blockedUntil;
+    
+    }
+    
+}
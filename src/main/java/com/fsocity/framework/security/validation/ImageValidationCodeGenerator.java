@@ -3,6 +3,7 @@ package com.fsocity.framework.security.validation;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author zail
@@ -30,6 +31,9 @@ public class ImageValidationCodeGenerator implements ValidationCodeGenerator {
     // 干扰线数量
     private int lines;
     
+    // 字体，所有字符共用
+    private volatile Font font;
+    
     @Override
     public ImageValidationCode generate() {
         String code = ValidateCodeUtils.randomChars(length);
@@ -51,18 +55,17 @@ public class ImageValidationCodeGenerator implements ValidationCodeGenerator {
         graphic.fillRect(0, 0, width, height);
         
         // 5.画字符
+        graphic.setFont(getFont());
         for (int i = 0; i < code.length(); i++) {
             char c = code.charAt(i);
             // 设置随机颜色
             graphic.setColor(getRandomColor());
-            // 设置字体大小
-            graphic.setFont(new Font(null, Font.BOLD + Font.ITALIC, fontSize));
             // 画字符
-            graphic.drawString(c + "", i * width / code.length(), height * 2 / 3);
+            graphic.drawString(String.valueOf(c), i * width / code.length(), height * 2 / 3);
         }
         
         // 6.画干扰线
-        Random random = new Random();
+        Random random = ThreadLocalRandom.current();
         for (int i = 0; i < lines; i++) {
             // 设置随机颜色
             graphic.setColor(getRandomColor());
@@ -73,6 +76,7 @@ public class ImageValidationCodeGenerator implements ValidationCodeGenerator {
                     random.nextInt(width),
                     random.nextInt(height));
         }
+        graphic.dispose();
         return image;
     }
     
@@ -80,7 +84,7 @@ public class ImageValidationCodeGenerator implements ValidationCodeGenerator {
      * 随机取色
      */
     private Color getRandomColor() {
-        Random ran = new Random();
+        Random ran = ThreadLocalRandom.current();
         
         return new Color(
                 ran.nextInt(RGB_NUMBER + 1),
@@ -88,6 +92,15 @@ public class ImageValidationCodeGenerator implements ValidationCodeGenerator {
                 ran.nextInt(RGB_NUMBER + 1));
     }
     
+    private Font getFont() {
+        Font font = this.font;
+        if (font == null) {
+            font = new Font(null, Font.BOLD + Font.ITALIC, fontSize);
+            this.font = font;
+        }
+        return font;
+    }
+    
     public int getLength() {
         return length;
     }
@@ -126,6 +139,7 @@ public class ImageValidationCodeGenerator implements ValidationCodeGenerator {
     
     public void setFontSize(int fontSize) {
         this.fontSize = fontSize;
+        this.font = null;
     }
     
     public int getLines() {
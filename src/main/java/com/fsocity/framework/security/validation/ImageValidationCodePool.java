@@ -0,0 +1,161 @@
+package com.fsocity.framework.security.validation;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预先生成的图形验证码池。
+ * <p>
+ * 后台线程提前画好图片并编码成 PNG，请求时直接取出字节写到响应中。
+ * 每张图片只使用一次，超过有效期的图片丢弃；池中没有图片时在请求线程中直接生成。
+ *
+ * @author zail
+ * @date 2022/7/20
+ */
+@Slf4j
+public class ImageValidationCodePool implements AutoCloseable {
+    
+    private final ImageValidationCodeGenerator generator;
+    
+    // 池中图片的有效期(毫秒)
+    private final long maxAgeMillis;
+    
+    // 每秒最多生成多少张
+    private final int refillPerSecond;
+    
+    private final BlockingQueue<PngValidationCode> pool;
+    
+    private final ScheduledExecutorService executor;
+    
+    /**
+     * @param size            池的大小，小于等于0时不使用池
+     * @param maxAgeSeconds   池中图片的有效期(秒)
+     * @param refillPerSecond 每秒最多生成多少张
+     */
+    public ImageValidationCodePool(ImageValidationCodeGenerator generator, int size, int maxAgeSeconds, int refillPerSecond) {
+        this.generator = generator;
+        this.maxAgeMillis = TimeUnit.SECONDS.toMillis(maxAgeSeconds);
+        this.refillPerSecond = Math.max(refillPerSecond, 1);
+        if (size > 0) {
+            this.pool = new ArrayBlockingQueue<>(size);
+            this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "validation-code-pool");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // 每100毫秒补充一次
+            this.executor.scheduleWithFixedDelay(this::refill, 0, 100, TimeUnit.MILLISECONDS);
+        }
+        else {
+            this.pool = null;
+            this.executor = null;
+        }
+    }
+    
+    /**
+     * 取出一张验证码图片，池中没有时直接生成
+     */
+    public PngValidationCode take() {
+        if (pool != null) {
+            long now = System.currentTimeMillis();
+            PngValidationCode code;
+            while ((code = pool.poll()) != null) {
+                if (now - code.getCreateTime() < maxAgeMillis) {
+                    return code;
+                }
+            }
+        }
+        return generate();
+    }
+    
+    /**
+     * 池中剩余的数量
+     */
+    public int size() {
+        return pool != null ? pool.size() : 0;
+    }
+    
+    private void refill() {
+        try {
+            // 队列头部是最早生成的，先丢弃过期的
+            long now = System.currentTimeMillis();
+            PngValidationCode head;
+            while ((head = pool.peek()) != null && now - head.getCreateTime() >= maxAgeMillis) {
+                pool.remove(head);
+            }
+            int count = Math.max(refillPerSecond / 10, 1);
+            for (int i = 0; i < count && pool.remainingCapacity() > 0; i++) {
+                pool.offer(generate());
+            }
+        }
+        catch (Exception e) {
+            log.warn("生成验证码图片失败", e);
+        }
+    }
+    
+    private PngValidationCode generate() {
+        ImageValidationCode imageValidationCode = generator.generate();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2048);
+        // 使用内存缓冲，ImageIO 默认会在临时目录中创建缓存文件
+        try (ImageOutputStream imageOut = new MemoryCacheImageOutputStream(out)) {
+            ImageIO.write(imageValidationCode.getImage(), "png", imageOut);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("验证码图片编码失败", e);
+        }
+        return new PngValidationCode(imageValidationCode.getCode(), out.toByteArray(), System.currentTimeMillis());
+    }
+    
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * 编码好的验证码图片
+     */
+    public static class PngValidationCode {
+        
+        // 验证码
+        private final String code;
+        
+        // PNG 图片
+        private final byte[] image;
+        
+        // 生成时间(毫秒)
+        private final long createTime;
+        
+        public PngValidationCode(String code, byte[] image, long createTime) {
+            this.code = code;
+            this.image = image;
+            this.createTime = createTime;
+        }
+        
+        public String getCode() {
+            return code;
+        }
+        
+        public byte[] getImage() {
+            return image;
+        }
+        
+        public long getCreateTime() {
+            return createTime;
+        }
+    
+    }
+    
+}
@@ -0,0 +1,66 @@
+package com.fsocity.framework.security.validation;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 验证码保存在 Redis 中，按客户端生成的随机数(nonce)区分，不依赖 session，
+ * 获取验证码和登录可以落在不同的节点上。
+ *
+ * @author zail
+ * @date 2022/7/20
+ */
+public class RedisValidationCodeStore {
+    
+    // 读取并删除，同一个验证码只能校验一次
+    private static final RedisScript<String> CONSUME_SCRIPT = new DefaultRedisScript<>(
+            "local code = redis.call('GET', KEYS[1]) " +
+                    "if code then redis.call('DEL', KEYS[1]) end " +
+                    "return code", String.class);
+    
+    // 限制 nonce 的格式，避免用任意字符串写入 Redis
+    private static final Pattern NONCE_PATTERN = Pattern.compile("[A-Za-z0-9_-]{16,64}");
+    
+    private final StringRedisTemplate redisTemplate;
+    
+    private final String keyPrefix;
+    
+    public RedisValidationCodeStore(StringRedisTemplate redisTemplate, String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+    
+    /**
+     * nonce 格式是否正确
+     */
+    public static boolean isValidNonce(String nonce) {
+        return nonce != null && NONCE_PATTERN.matcher(nonce).matches();
+    }
+    
+    /**
+     * 保存验证码，同一个 nonce 重新获取时覆盖旧的验证码
+     *
+     * @param expireIn 有效期(秒)
+     */
+    public void save(String nonce, String code, int expireIn) {
+        redisTemplate.opsForValue().set(keyPrefix + nonce, code, expireIn, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * 取出并删除验证码
+     *
+     * @return 验证码，不存在或已过期时返回null
+     */
+    public String consume(String nonce) {
+        if (!isValidNonce(nonce)) {
+            return null;
+        }
+        return redisTemplate.execute(CONSUME_SCRIPT, Collections.singletonList(keyPrefix + nonce));
+    }
+    
+}
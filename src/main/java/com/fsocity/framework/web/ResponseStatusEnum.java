@@ -16,7 +16,8 @@ public enum ResponseStatusEnum implements CodeEnum {
     ERR(1, "错误！"),
     UNAUTHORIZED(2, "暂未登录或token已经过期！"),
     VALIDATE_FAILED(3, "参数检验失败！"),
-    FORBIDDEN(4, "没有相关权限！");
+    FORBIDDEN(4, "没有相关权限！"),
+    TOO_MANY_REQUESTS(5, "请求过于频繁，请稍后再试！");
     
     ;
     
@@ -0,0 +1,55 @@
+package com.fsocity.framework.web.export;
+
+import java.util.Locale;
+
+/**
+ * 导出文件格式
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+public enum ExportFormat {
+    
+    /**
+     * CSV，第一行为表头，带 UTF-8 BOM，Excel 可以直接打开
+     */
+    CSV("text/csv;charset=UTF-8", "csv"),
+    
+    /**
+     * 每行一个 JSON 对象
+     */
+    NDJSON("application/x-ndjson;charset=UTF-8", "ndjson");
+    
+    private final String contentType;
+    
+    private final String extension;
+    
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+    
+    /**
+     * 根据请求参数获取，为空或不认识时使用 CSV
+     */
+    public static ExportFormat of(String name) {
+        if (name == null || name.isEmpty()) {
+            return CSV;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+        catch (IllegalArgumentException e) {
+            return CSV;
+        }
+    }
+    
+}
@@ -0,0 +1,39 @@
+package com.fsocity.framework.web.export;
+
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 逐行写出导出数据，写满缓冲区后直接写入响应，不在内存中保存已写出的行
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+public class ExportWriter<T> implements Closeable {
+    
+    private final SequenceWriter sequenceWriter;
+    
+    // 已写出的行数
+    private long count;
+    
+    ExportWriter(SequenceWriter sequenceWriter) {
+        this.sequenceWriter = sequenceWriter;
+    }
+    
+    public void write(T row) throws IOException {
+        sequenceWriter.write(row);
+        count++;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        sequenceWriter.close();
+    }
+    
+}
@@ -0,0 +1,139 @@
+package com.fsocity.framework.web.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 流式导出：数据一边查询一边写入响应，不设置 Content-Length，使用分块传输。
+ * <p>
+ * 配合 MyBatis 的 Cursor 使用，无论导出多少行，内存占用都只有一行数据和输出缓冲区。
+ * 响应开始写出后出错无法再返回错误信息，只能中断连接，客户端收到的是不完整的分块响应。
+ * <p>
+ * CSV 中以 = + - @ 制表符 回车 开头的文本会被 Excel 当作公式执行，导出时在前面加 ' 转为普通文本。
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+@Component
+public class StreamingExporter {
+    
+    private static final DateTimeFormatter FILE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private final CsvMapper csvMapper = createCsvMapper();
+    
+    // 类型 -> CSV 列定义
+    private final ConcurrentMap<Class<?>, CsvSchema> csvSchemas = new ConcurrentHashMap<>();
+    
+    /**
+     * 设置响应头并创建写出器，写出器关闭时结束响应
+     *
+     * @param response 响应
+     * @param fileName 下载的文件名(不含时间和扩展名)，只能是 ASCII 字符
+     * @param format   导出格式
+     * @param type     每行数据的类型
+     */
+    public <T> ExportWriter<T> open(HttpServletResponse response, String fileName, ExportFormat format,
+                                    Class<T> type) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "-"
+                + FILE_TIME_FORMATTER.format(LocalDateTime.now()) + "." + format.getExtension() + "\"");
+        // 不让 nginx 缓冲整个响应
+        response.setHeader("X-Accel-Buffering", "no");
+        OutputStream out = response.getOutputStream();
+        
+        SequenceWriter sequenceWriter;
+        if (format == ExportFormat.CSV) {
+            out.write(UTF8_BOM);
+            CsvSchema schema = csvSchemas.computeIfAbsent(type, k -> csvMapper.schemaFor(k).withHeader());
+            // 默认每写一行就 flush 一次，会产生大量很小的分块
+            sequenceWriter = csvMapper.writer(schema)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .writeValues(out);
+        }
+        else {
+            sequenceWriter = objectMapper.writerFor(type)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(out);
+        }
+        return new ExportWriter<>(sequenceWriter);
+    }
+    
+    static CsvMapper createCsvMapper() {
+        JavaTimeModule javaTimeModule = new JavaTimeModule();
+        javaTimeModule.addSerializer(LocalDateTime.class,
+                new LocalDateTimeSerializer(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        CsvMapper csvMapper = new CsvMapper();
+        csvMapper.registerModule(javaTimeModule);
+        // 操作日志的参数、URL 等都是用户输入，防止打开 CSV 时执行公式
+        SimpleModule formulaModule = new SimpleModule();
+        formulaModule.addSerializer(String.class, new FormulaEscapingStringSerializer());
+        csvMapper.registerModule(formulaModule);
+        // CsvMapper 默认按属性名排序，改为按字段声明顺序，与表结构一致
+        csvMapper.disable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY);
+        csvMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return csvMapper;
+    }
+    
+    /**
+     * 以公式开头字符开头的文本前面加 '
+     */
+    static String escapeFormula(String value) {
+        if (value.isEmpty()) {
+            return value;
+        }
+        switch (value.charAt(0)) {
+            case '=':
+            case '+':
+            case '-':
+            case '@':
+            case '\t':
+            case '\r':
+                return "'" + value;
+            default:
+                return value;
+        }
+    }
+    
+    private static class FormulaEscapingStringSerializer extends StdScalarSerializer<String> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        FormulaEscapingStringSerializer() {
+            super(String.class);
+        }
+        
+        @Override
+        public void serialize(String value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeString(escapeFormula(value));
+        }
+    
+    }
+    
+}
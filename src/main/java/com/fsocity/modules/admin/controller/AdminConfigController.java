@@ -11,11 +11,15 @@ import com.fsocity.modules.admin.service.AdminConfigService;
 import io.swagger.annotations.ApiOperation;
 import com.fsocity.modules.admin.entity.AdminConfig;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
+import com.fsocity.framework.mybatis.KeysetPage;
 import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
 import com.fsocity.framework.web.JsonResult;
 import com.fsocity.framework.web.FieldErrorInfo;
 import com.fsocity.framework.web.ResponseStatusEnum;
 import com.fsocity.framework.util.ValidationUtils;
+import com.fsocity.framework.log.BusinessType;
+import com.fsocity.framework.log.OperationLog;
 
 import java.util.List;
 
@@ -38,8 +42,16 @@ public class AdminConfigController {
     @GetMapping({"", "/list"})
     public JsonResult list(@RequestParam(value = "pageNum", defaultValue = "1") Integer pageNum,
                            @RequestParam(value = "pageSize", defaultValue = "10") Integer pageSize,
+                           @RequestParam(value = "count", required = false) String count,
+                           @RequestParam(value = "cursor", required = false) String cursor,
                            AdminConfig form) {
-        Page<AdminConfig> list = adminConfigService.findAll(form, pageNum, pageSize);
+        // 传了 cursor 参数时使用游标分页(第一页传空字符串)，不执行COUNT
+        if (cursor != null) {
+            KeysetPage<AdminConfig> keysetPage = adminConfigService.findAllByKeyset(form, cursor, pageSize);
+            return JsonResult.ok(keysetPage);
+        }
+        // count：exact 每次执行COUNT(默认)，cached 缓存COUNT结果，none 不执行COUNT只返回是否有下一页
+        Page<AdminConfig> list = adminConfigService.findAll(form, pageNum, pageSize, CountMode.of(count));
         return JsonResult.ok(list);
     }
 
@@ -51,6 +63,7 @@ public class AdminConfigController {
     }
 
     @ApiOperation("保存")
+    @OperationLog(title = "参数配置表", businessType = BusinessType.SAVE)
     @PostMapping({"", "/save"})
     public JsonResult save(@RequestBody @Validated AdminConfig adminConfig,
                            BindingResult bindingResult) {
@@ -64,6 +77,7 @@ public class AdminConfigController {
     }
 
     @ApiOperation("删除")
+    @OperationLog(title = "参数配置表", businessType = BusinessType.DELETE)
     @DeleteMapping("/{id}")
     public JsonResult delete(@PathVariable Integer id) {
         boolean flag = adminConfigService.deleteById(id);
@@ -11,11 +11,16 @@ import com.fsocity.modules.admin.service.AdminJobService;
 import io.swagger.annotations.ApiOperation;
 import com.fsocity.modules.admin.entity.AdminJob;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
+import com.fsocity.framework.mybatis.KeysetPage;
 import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
 import com.fsocity.framework.web.JsonResult;
 import com.fsocity.framework.web.FieldErrorInfo;
 import com.fsocity.framework.web.ResponseStatusEnum;
 import com.fsocity.framework.util.ValidationUtils;
+import com.fsocity.framework.log.BusinessType;
+import com.fsocity.framework.log.OperationLog;
+import org.springframework.scheduling.support.CronExpression;
 
 import java.util.List;
 
@@ -38,8 +43,16 @@ public class AdminJobController {
     @GetMapping({"", "/list"})
     public JsonResult list(@RequestParam(value = "pageNum", defaultValue = "1") Integer pageNum,
                            @RequestParam(value = "pageSize", defaultValue = "10") Integer pageSize,
+                           @RequestParam(value = "count", required = false) String count,
+                           @RequestParam(value = "cursor", required = false) String cursor,
                            AdminJob form) {
-        Page<AdminJob> list = adminJobService.findAll(form, pageNum, pageSize);
+        // 传了 cursor 参数时使用游标分页(第一页传空字符串)，不执行COUNT
+        if (cursor != null) {
+            KeysetPage<AdminJob> keysetPage = adminJobService.findAllByKeyset(form, cursor, pageSize);
+            return JsonResult.ok(keysetPage);
+        }
+        // count：exact 每次执行COUNT(默认)，cached 缓存COUNT结果，none 不执行COUNT只返回是否有下一页
+        Page<AdminJob> list = adminJobService.findAll(form, pageNum, pageSize, CountMode.of(count));
         return JsonResult.ok(list);
     }
 
@@ -51,6 +64,7 @@ public class AdminJobController {
     }
 
     @ApiOperation("保存")
+    @OperationLog(title = "定时任务调度表", businessType = BusinessType.SAVE)
     @PostMapping({"", "/save"})
     public JsonResult save(@RequestBody @Validated AdminJob adminJob,
                            BindingResult bindingResult) {
@@ -59,11 +73,16 @@ public class AdminJobController {
             String errorMsg = "字段：" + errors.get(0).getName() + "；错误信息:" + errors.get(0).getErrorMessage();
             return JsonResult.err(ResponseStatusEnum.VALIDATE_FAILED.getCode(), errorMsg);
         }
-        boolean flag = adminJobService.save(adminJob);
+        if (adminJob.getCronExpression() != null && !CronExpression.isValidExpression(adminJob.getCronExpression())) {
+            return JsonResult.err(ResponseStatusEnum.VALIDATE_FAILED.getCode(), "字段：cronExpression；错误信息:cron表达式格式错误");
+        }
+        // 有ID时修改，没有时新增
+        boolean flag = adminJobService.saveOrUpdate(adminJob);
         return JsonResult.ok(flag);
     }
 
     @ApiOperation("删除")
+    @OperationLog(title = "定时任务调度表", businessType = BusinessType.DELETE)
     @DeleteMapping("/{id}")
     public JsonResult delete(@PathVariable Integer id) {
         boolean flag = adminJobService.deleteById(id);
@@ -11,12 +11,21 @@ import com.fsocity.modules.admin.service.AdminOperationLogService;
 import io.swagger.annotations.ApiOperation;
 import com.fsocity.modules.admin.entity.AdminOperationLog;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
+import com.fsocity.framework.mybatis.KeysetPage;
 import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
 import com.fsocity.framework.web.JsonResult;
 import com.fsocity.framework.web.FieldErrorInfo;
 import com.fsocity.framework.web.ResponseStatusEnum;
 import com.fsocity.framework.util.ValidationUtils;
+import com.fsocity.framework.log.BusinessType;
+import com.fsocity.framework.log.OperationLog;
+import com.fsocity.framework.web.export.ExportFormat;
+import com.fsocity.framework.web.export.ExportWriter;
+import com.fsocity.framework.web.export.StreamingExporter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -33,16 +42,38 @@ public class AdminOperationLogController {
 
     @Autowired
     private AdminOperationLogService adminOperationLogService;
+    @Autowired
+    private StreamingExporter streamingExporter;
 
     @ApiOperation("列表")
     @GetMapping({"", "/list"})
     public JsonResult list(@RequestParam(value = "pageNum", defaultValue = "1") Integer pageNum,
                            @RequestParam(value = "pageSize", defaultValue = "10") Integer pageSize,
+                           @RequestParam(value = "count", required = false) String count,
+                           @RequestParam(value = "cursor", required = false) String cursor,
                            AdminOperationLog form) {
-        Page<AdminOperationLog> list = adminOperationLogService.findAll(form, pageNum, pageSize);
+        // 传了 cursor 参数时使用游标分页(第一页传空字符串)，不执行COUNT
+        if (cursor != null) {
+            KeysetPage<AdminOperationLog> keysetPage = adminOperationLogService.findAllByKeyset(form, cursor, pageSize);
+            return JsonResult.ok(keysetPage);
+        }
+        // count：exact 每次执行COUNT(默认)，cached 缓存COUNT结果，none 不执行COUNT只返回是否有下一页
+        Page<AdminOperationLog> list = adminOperationLogService.findAll(form, pageNum, pageSize, CountMode.of(count));
         return JsonResult.ok(list);
     }
 
+    @ApiOperation("导出")
+    @GetMapping("/export")
+    public void export(@RequestParam(value = "format", required = false) String format,
+                       AdminOperationLog form,
+                       HttpServletResponse response) throws IOException {
+        // format：csv(默认) 或 ndjson，查询条件与列表相同，边查询边写出
+        try (ExportWriter<AdminOperationLog> writer = streamingExporter.open(response, "adminOperationLog",
+                ExportFormat.of(format), AdminOperationLog.class)) {
+            adminOperationLogService.export(form, writer);
+        }
+    }
+
     @ApiOperation("详情")
     @GetMapping("/{id}")
     public JsonResult detail(@PathVariable Integer id) {
@@ -51,6 +82,7 @@ public class AdminOperationLogController {
     }
 
     @ApiOperation("保存")
+    @OperationLog(title = "操作日志记录", businessType = BusinessType.SAVE)
     @PostMapping({"", "/save"})
     public JsonResult save(@RequestBody @Validated AdminOperationLog adminOperationLog,
                            BindingResult bindingResult) {
@@ -64,6 +96,7 @@ public class AdminOperationLogController {
     }
 
     @ApiOperation("删除")
+    @OperationLog(title = "操作日志记录", businessType = BusinessType.DELETE)
     @DeleteMapping("/{id}")
     public JsonResult delete(@PathVariable Integer id) {
         boolean flag = adminOperationLogService.deleteById(id);
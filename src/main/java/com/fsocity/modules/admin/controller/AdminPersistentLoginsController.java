@@ -11,11 +11,14 @@ import com.fsocity.modules.admin.service.AdminPersistentLoginsService;
 import io.swagger.annotations.ApiOperation;
 import com.fsocity.modules.admin.entity.AdminPersistentLogins;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
 import com.fsocity.framework.web.JsonResult;
 import com.fsocity.framework.web.FieldErrorInfo;
 import com.fsocity.framework.web.ResponseStatusEnum;
 import com.fsocity.framework.util.ValidationUtils;
+import com.fsocity.framework.log.BusinessType;
+import com.fsocity.framework.log.OperationLog;
 
 import java.util.List;
 
@@ -38,8 +41,10 @@ public class AdminPersistentLoginsController {
     @GetMapping({"", "/list"})
     public JsonResult list(@RequestParam(value = "pageNum", defaultValue = "1") Integer pageNum,
                            @RequestParam(value = "pageSize", defaultValue = "10") Integer pageSize,
+                           @RequestParam(value = "count", required = false) String count,
                            AdminPersistentLogins form) {
-        Page<AdminPersistentLogins> list = adminPersistentLoginsService.findAll(form, pageNum, pageSize);
+        // count：exact 每次执行COUNT(默认)，cached 缓存COUNT结果，none 不执行COUNT只返回是否有下一页
+        Page<AdminPersistentLogins> list = adminPersistentLoginsService.findAll(form, pageNum, pageSize, CountMode.of(count));
         return JsonResult.ok(list);
     }
 
@@ -51,6 +56,7 @@ public class AdminPersistentLoginsController {
     }
 
     @ApiOperation("保存")
+    @OperationLog(title = "登录持久化表", businessType = BusinessType.SAVE, saveParam = false)
     @PostMapping({"", "/save"})
     public JsonResult save(@RequestBody @Validated AdminPersistentLogins adminPersistentLogins,
                            BindingResult bindingResult) {
@@ -64,6 +70,7 @@ public class AdminPersistentLoginsController {
     }
 
     @ApiOperation("删除")
+    @OperationLog(title = "登录持久化表", businessType = BusinessType.DELETE)
     @DeleteMapping("/{id}")
     public JsonResult delete(@PathVariable Integer id) {
         boolean flag = adminPersistentLoginsService.deleteById(id);
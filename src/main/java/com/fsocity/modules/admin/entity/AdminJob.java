@@ -1,6 +1,7 @@
 package com.fsocity.modules.admin.entity;
 
 import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import java.io.Serializable;
@@ -35,6 +36,7 @@ public class AdminJob implements Serializable {
     private Integer id;
 
     @ApiModelProperty("任务组名")
+    @TableField("`group`")
     private String group;
 
     @ApiModelProperty("任务名称")
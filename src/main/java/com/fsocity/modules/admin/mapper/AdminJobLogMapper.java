@@ -1,7 +1,11 @@
 package com.fsocity.modules.admin.mapper;
 
 import com.fsocity.modules.admin.entity.AdminJobLog;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 /**
  * <p>
@@ -13,4 +17,9 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  */
 public interface AdminJobLogMapper extends BaseMapper<AdminJobLog> {
 
+    /**
+     * 流式查询，逐行从数据库读取，需要在事务中遍历
+     */
+    Cursor<AdminJobLog> selectCursor(@Param(Constants.WRAPPER) Wrapper<AdminJobLog> queryWrapper);
+
 }
@@ -2,6 +2,9 @@ package com.fsocity.modules.admin.mapper;
 
 import com.fsocity.modules.admin.entity.AdminMenu;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * <p>
@@ -12,5 +15,10 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  * @since 2022-07-07
  */
 public interface AdminMenuMapper extends BaseMapper<AdminMenu> {
+    
+    /**
+     * 一次查询出用户的全部权限：角色(ROLE_前缀) + 菜单权限标识
+     */
+    List<String> selectAuthoritiesByUserId(@Param("userId") Integer userId);
 
 }
@@ -2,6 +2,9 @@ package com.fsocity.modules.admin.mapper;
 
 import com.fsocity.modules.admin.entity.AdminRole;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * <p>
@@ -12,5 +15,10 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  * @since 2022-07-07
  */
 public interface AdminRoleMapper extends BaseMapper<AdminRole> {
+    
+    /**
+     * 用户全部正常状态角色的数据范围
+     */
+    List<Integer> selectDataScopesByUserId(@Param("userId") Integer userId);
 
 }
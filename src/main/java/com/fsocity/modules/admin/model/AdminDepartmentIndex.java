@@ -0,0 +1,324 @@
+package com.fsocity.modules.admin.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 部门层级的内存索引(不可变)。
+ * <p>
+ * 按先序遍历给每个部门编号，一个部门的全部下级部门在遍历序列中是连续的一段 [enter, exit]：
+ * <ul>
+ *     <li>判断 A 是否是 B 的上级：比较两个区间，O(1)</li>
+ *     <li>A 的全部下级部门ID：遍历序列的子列表，O(1) 得到视图，可直接用于 SQL 的 IN 条件</li>
+ *     <li>A 的上级路径：构建时物化保存</li>
+ * </ul>
+ * 部门变更时由 {@link #withParent(Integer, Integer)} / {@link #without(Integer)} 生成新的索引：
+ * 把变更部门的子树从遍历序列中整段移到新的位置，只平移受影响的区间、只重建移动的部门的路径，
+ * 不重新排序和遍历整棵树，也不需要查询数据库。
+ *
+ * @author zail
+ * @date 2022/7/15
+ */
+public final class AdminDepartmentIndex {
+    
+    public static final AdminDepartmentIndex EMPTY = build(Collections.emptyMap());
+    
+    // 部门ID -> 父部门ID
+    private final Map<Integer, Integer> parents;
+    
+    // 先序遍历的部门ID
+    private final List<Integer> order;
+    
+    // 部门ID -> {enter, exit}
+    private final Map<Integer, int[]> intervals;
+    
+    // 部门ID -> 从根部门到自身的路径
+    private final Map<Integer, List<Integer>> paths;
+    
+    private AdminDepartmentIndex(Map<Integer, Integer> parents, List<Integer> order,
+                                 Map<Integer, int[]> intervals, Map<Integer, List<Integer>> paths) {
+        this.parents = parents;
+        this.order = order;
+        this.intervals = intervals;
+        this.paths = paths;
+    }
+    
+    /**
+     * 由 部门ID -> 父部门ID 构建索引，父部门不存在的部门作为根部门
+     */
+    public static AdminDepartmentIndex build(Map<Integer, Integer> parents) {
+        Map<Integer, Integer> copy = new HashMap<>(parents);
+        Map<Integer, List<Integer>> children = new HashMap<>();
+        List<Integer> roots = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : copy.entrySet()) {
+            Integer parentId = entry.getValue();
+            if (parentId != null && copy.containsKey(parentId)) {
+                children.computeIfAbsent(parentId, k -> new ArrayList<>()).add(entry.getKey());
+            }
+            else {
+                roots.add(entry.getKey());
+            }
+        }
+        Collections.sort(roots);
+        for (List<Integer> list : children.values()) {
+            Collections.sort(list);
+        }
+        
+        List<Integer> order = new ArrayList<>(copy.size());
+        Map<Integer, int[]> intervals = new HashMap<>();
+        Map<Integer, List<Integer>> paths = new HashMap<>();
+        // 迭代的深度优先遍历，避免层级很深时栈溢出；成环的部门从根部门不可达，不会进入索引
+        Deque<Integer> stack = new ArrayDeque<>();
+        for (int i = roots.size() - 1; i >= 0; i--) {
+            stack.push(roots.get(i));
+        }
+        while (!stack.isEmpty()) {
+            Integer id = stack.pop();
+            int[] interval = intervals.get(id);
+            if (interval != null) {
+                // 第二次出栈：子部门都已遍历完
+                interval[1] = order.size() - 1;
+                continue;
+            }
+            intervals.put(id, new int[]{order.size(), order.size()});
+            order.add(id);
+            
+            List<Integer> parentPath = paths.get(copy.get(id));
+            List<Integer> path = new ArrayList<>(parentPath == null ? 1 : parentPath.size() + 1);
+            if (parentPath != null) {
+                path.addAll(parentPath);
+            }
+            path.add(id);
+            paths.put(id, Collections.unmodifiableList(path));
+            
+            stack.push(id);
+            List<Integer> list = children.get(id);
+            if (list != null) {
+                for (int i = list.size() - 1; i >= 0; i--) {
+                    stack.push(list.get(i));
+                }
+            }
+        }
+        return new AdminDepartmentIndex(copy, Collections.unmodifiableList(order), intervals, paths);
+    }
+    
+    /**
+     * 新增或移动部门后的索引
+     */
+    public AdminDepartmentIndex withParent(Integer id, Integer parentId) {
+        boolean exists = parents.containsKey(id);
+        if (exists && Objects.equals(parents.get(id), parentId)) {
+            return this;
+        }
+        // 以下情况涉及成环或不可达的部门，重新构建，与 build 的结果保持一致
+        if ((exists && !intervals.containsKey(id))
+                || (!exists && parents.containsValue(id))
+                || (parents.containsKey(parentId) && !intervals.containsKey(parentId))
+                || Objects.equals(id, parentId)
+                || isDescendant(id, parentId)) {
+            Map<Integer, Integer> copy = new HashMap<>(parents);
+            copy.put(id, parentId);
+            return build(copy);
+        }
+        Editor editor = new Editor(this);
+        List<Integer> segment = exists ? editor.detach(id) : Collections.singletonList(id);
+        editor.parents.put(id, parentId);
+        editor.attach(segment, parentId);
+        return editor.toIndex();
+    }
+    
+    /**
+     * 删除部门后的索引，下级部门变为根部门
+     */
+    public AdminDepartmentIndex without(Integer id) {
+        if (!parents.containsKey(id)) {
+            return this;
+        }
+        if (!intervals.containsKey(id)) {
+            Map<Integer, Integer> copy = new HashMap<>(parents);
+            copy.remove(id);
+            return build(copy);
+        }
+        Editor editor = new Editor(this);
+        List<Integer> segment = editor.detach(id);
+        editor.parents.remove(id);
+        editor.intervals.remove(id);
+        editor.paths.remove(id);
+        // 直接下级部门的子树在 segment 中是连续的，逐个作为根部门放回
+        int i = 1;
+        while (i < segment.size()) {
+            int[] interval = intervals.get(segment.get(i));
+            int length = interval[1] - interval[0] + 1;
+            editor.attach(segment.subList(i, i + length), null);
+            i += length;
+        }
+        return editor.toIndex();
+    }
+    
+    /**
+     * departmentId 是否是 ancestorId 本身或其下级部门
+     */
+    public boolean isDescendant(Integer ancestorId, Integer departmentId) {
+        int[] ancestor = intervals.get(ancestorId);
+        int[] department = intervals.get(departmentId);
+        if (ancestor == null || department == null) {
+            return false;
+        }
+        return ancestor[0] <= department[0] && department[1] <= ancestor[1];
+    }
+    
+    /**
+     * 部门本身及其全部下级部门ID，部门不存在时返回空列表
+     */
+    public List<Integer> getDescendantIds(Integer departmentId) {
+        int[] interval = intervals.get(departmentId);
+        if (interval == null) {
+            return Collections.emptyList();
+        }
+        return order.subList(interval[0], interval[1] + 1);
+    }
+    
+    /**
+     * 从根部门到部门本身的路径，部门不存在时返回空列表
+     */
+    public List<Integer> getAncestorIds(Integer departmentId) {
+        List<Integer> path = paths.get(departmentId);
+        return path == null ? Collections.<Integer>emptyList() : path;
+    }
+    
+    /**
+     * 部门在先序遍历中的区间 {enter, exit}，可用于范围条件；部门不存在时返回null
+     */
+    public int[] getInterval(Integer departmentId) {
+        int[] interval = intervals.get(departmentId);
+        return interval == null ? null : Arrays.copyOf(interval, 2);
+    }
+    
+    public boolean contains(Integer departmentId) {
+        return intervals.containsKey(departmentId);
+    }
+    
+    public int size() {
+        return order.size();
+    }
+    
+    /**
+     * 在索引的副本上移动子树，int[] 区间可能被旧索引共享，修改时总是替换为新数组
+     */
+    private static final class Editor {
+        
+        private final Map<Integer, Integer> parents;
+        
+        private final List<Integer> order;
+        
+        private final Map<Integer, int[]> intervals;
+        
+        private final Map<Integer, List<Integer>> paths;
+        
+        Editor(AdminDepartmentIndex index) {
+            this.parents = new HashMap<>(index.parents);
+            this.order = new ArrayList<>(index.order);
+            this.intervals = new HashMap<>(index.intervals);
+            this.paths = new HashMap<>(index.paths);
+        }
+        
+        /**
+         * 从遍历序列中取出部门及其全部下级部门，返回的部门保持原来的先序和区间
+         */
+        List<Integer> detach(Integer id) {
+            int[] interval = intervals.get(id);
+            int start = interval[0];
+            int length = interval[1] - interval[0] + 1;
+            List<Integer> range = order.subList(start, start + length);
+            List<Integer> segment = new ArrayList<>(range);
+            range.clear();
+            List<Integer> path = paths.get(id);
+            for (int i = 0; i < path.size() - 1; i++) {
+                resize(path.get(i), -length);
+            }
+            shift(start, -length);
+            return segment;
+        }
+        
+        /**
+         * 把 detach 取出的子树(或一个新部门)放到父部门下，同级部门按ID排序
+         */
+        void attach(List<Integer> segment, Integer parentId) {
+            Integer id = segment.get(0);
+            List<Integer> parentPath = intervals.containsKey(parentId)
+                    ? paths.get(parentId)
+                    : Collections.<Integer>emptyList();
+            int position = insertPosition(id, parentId);
+            int length = segment.size();
+            order.addAll(position, segment);
+            shift(position + length, length);
+            for (Integer ancestor : parentPath) {
+                resize(ancestor, length);
+            }
+            
+            int[] root = intervals.get(id);
+            int offset = root == null ? 0 : position - root[0];
+            int depth = root == null ? 0 : paths.get(id).size() - 1;
+            for (Integer member : segment) {
+                int[] interval = intervals.get(member);
+                intervals.put(member, interval == null
+                        ? new int[]{position, position}
+                        : new int[]{interval[0] + offset, interval[1] + offset});
+                List<Integer> oldPath = paths.get(member);
+                List<Integer> path = new ArrayList<>(parentPath.size() + (oldPath == null ? 1 : oldPath.size() - depth));
+                path.addAll(parentPath);
+                if (oldPath == null) {
+                    path.add(member);
+                }
+                else {
+                    path.addAll(oldPath.subList(depth, oldPath.size()));
+                }
+                paths.put(member, Collections.unmodifiableList(path));
+            }
+        }
+        
+        AdminDepartmentIndex toIndex() {
+            return new AdminDepartmentIndex(parents, Collections.unmodifiableList(order), intervals, paths);
+        }
+        
+        /**
+         * 父部门下第一个ID比 id 大的子部门的位置，没有时放在父部门区间的末尾
+         */
+        private int insertPosition(Integer id, Integer parentId) {
+            int[] parent = intervals.get(parentId);
+            int position = parent == null ? 0 : parent[0] + 1;
+            int end = parent == null ? order.size() : parent[1] + 1;
+            while (position < end) {
+                Integer sibling = order.get(position);
+                if (sibling.compareTo(id) > 0) {
+                    break;
+                }
+                position = intervals.get(sibling)[1] + 1;
+            }
+            return position;
+        }
+        
+        // 从 from 开始的部门整体平移
+        private void shift(int from, int delta) {
+            for (int i = from; i < order.size(); i++) {
+                Integer id = order.get(i);
+                int[] interval = intervals.get(id);
+                intervals.put(id, new int[]{interval[0] + delta, interval[1] + delta});
+            }
+        }
+        
+        // 上级部门的区间伸缩
+        private void resize(Integer id, int delta) {
+            int[] interval = intervals.get(id);
+            intervals.put(id, new int[]{interval[0], interval[1] + delta});
+        }
+    }
+    
+}
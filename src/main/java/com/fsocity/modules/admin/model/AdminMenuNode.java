@@ -0,0 +1,85 @@
+package com.fsocity.modules.admin.model;
+
+import com.fsocity.modules.admin.entity.AdminMenu;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 菜单树的节点。
+ * <p>
+ * 不可变，同一个节点会被多个角色的导航缓存共享。
+ *
+ * @author zail
+ * @date 2022/7/15
+ */
+@Getter
+public class AdminMenuNode {
+    
+    private final Integer id;
+    
+    private final Integer parentId;
+    
+    // 菜单类型（0：目录；1：菜单；2：按钮）
+    private final Integer type;
+    
+    private final String name;
+    
+    private final Integer orderNum;
+    
+    private final String url;
+    
+    // 打开方式（0：默认打开；1：打开页标签；2：打开新窗口）
+    private final Integer target;
+    
+    // 菜单状态（0：显示；1：隐藏）
+    private final Integer visible;
+    
+    // 是否刷新（0：刷新；1：不刷新）
+    private final Integer isRefresh;
+    
+    private final String perms;
+    
+    private final String icon;
+    
+    private final List<AdminMenuNode> children;
+    
+    public AdminMenuNode(AdminMenu menu, List<AdminMenuNode> children) {
+        this.id = menu.getId();
+        this.parentId = menu.getParentId();
+        this.type = menu.getType();
+        this.name = menu.getName();
+        this.orderNum = menu.getOrderNum();
+        this.url = menu.getUrl();
+        this.target = menu.getTarget();
+        this.visible = menu.getVisible();
+        this.isRefresh = menu.getIsRefresh();
+        this.perms = menu.getPerms();
+        this.icon = menu.getIcon();
+        this.children = Collections.unmodifiableList(children);
+    }
+    
+    private AdminMenuNode(AdminMenuNode node, List<AdminMenuNode> children) {
+        this.id = node.id;
+        this.parentId = node.parentId;
+        this.type = node.type;
+        this.name = node.name;
+        this.orderNum = node.orderNum;
+        this.url = node.url;
+        this.target = node.target;
+        this.visible = node.visible;
+        this.isRefresh = node.isRefresh;
+        this.perms = node.perms;
+        this.icon = node.icon;
+        this.children = Collections.unmodifiableList(children);
+    }
+    
+    /**
+     * 复制当前节点，替换子节点(用于按角色裁剪菜单树)
+     */
+    public AdminMenuNode withChildren(List<AdminMenuNode> children) {
+        return new AdminMenuNode(this, children);
+    }
+    
+}
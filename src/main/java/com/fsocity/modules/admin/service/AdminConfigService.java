@@ -3,6 +3,8 @@ package com.fsocity.modules.admin.service;
 import com.fsocity.modules.admin.entity.AdminConfig;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
+import com.fsocity.framework.mybatis.KeysetPage;
 
 /**
  * <p>
@@ -15,9 +17,14 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 public interface AdminConfigService extends IService<AdminConfig> {
     
     /**
-     * 分页查找
+     * 分页查找，countMode 为总数的查询方式
      */
-    Page<AdminConfig> findAll(AdminConfig form, Integer pageNum, Integer pageSize);
+    Page<AdminConfig> findAll(AdminConfig form, Integer pageNum, Integer pageSize, CountMode countMode);
+    
+    /**
+     * 游标分页查找，按ID倒序，不执行COUNT
+     */
+    KeysetPage<AdminConfig> findAllByKeyset(AdminConfig form, String cursor, Integer pageSize);
     
     /**
      * 根据ID删除
@@ -0,0 +1,42 @@
+package com.fsocity.modules.admin.service;
+
+import java.util.List;
+
+/**
+ * 部门层级服务，用于数据权限等需要判断上下级部门的场景
+ *
+ * @author zail
+ * @date 2022/7/15
+ */
+public interface AdminDepartmentHierarchyService {
+    
+    /**
+     * departmentId 是否是 ancestorId 本身或其下级部门
+     */
+    boolean isDescendant(Integer ancestorId, Integer departmentId);
+    
+    /**
+     * 部门本身及其全部下级部门ID
+     */
+    List<Integer> getDescendantIds(Integer departmentId);
+    
+    /**
+     * 从根部门到部门本身的路径
+     */
+    List<Integer> getAncestorIds(Integer departmentId);
+    
+    /**
+     * 新增或移动部门
+     */
+    void put(Integer departmentId, Integer parentId);
+    
+    /**
+     * 删除部门
+     */
+    void remove(Integer departmentId);
+    
+    /**
+     * 从数据库重新加载
+     */
+    void reload();
+}
@@ -3,6 +3,11 @@ package com.fsocity.modules.admin.service;
 import com.fsocity.modules.admin.entity.AdminJobLog;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
+import com.fsocity.framework.mybatis.KeysetPage;
+import com.fsocity.framework.web.export.ExportWriter;
+
+import java.io.IOException;
 
 /**
  * <p>
@@ -15,9 +20,19 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 public interface AdminJobLogService extends IService<AdminJobLog> {
     
     /**
-     * 分页查找
+     * 分页查找，countMode 为总数的查询方式
+     */
+    Page<AdminJobLog> findAll(AdminJobLog form, Integer pageNum, Integer pageSize, CountMode countMode);
+    
+    /**
+     * 游标分页查找，按ID倒序，不执行COUNT
+     */
+    KeysetPage<AdminJobLog> findAllByKeyset(AdminJobLog form, String cursor, Integer pageSize);
+    
+    /**
+     * 流式导出所有符合条件的数据，返回导出的行数
      */
-    Page<AdminJobLog> findAll(AdminJobLog form, Integer pageNum, Integer pageSize);
+    long export(AdminJobLog form, ExportWriter<AdminJobLog> writer) throws IOException;
     
     /**
      * 根据ID删除
@@ -0,0 +1,39 @@
+package com.fsocity.modules.admin.service;
+
+import com.fsocity.modules.admin.model.AdminMenuNode;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 菜单树服务
+ *
+ * @author zail
+ * @date 2022/7/15
+ */
+public interface AdminMenuTreeService {
+    
+    /**
+     * 全部正常状态的菜单组成的树，按 orderNum 排序
+     */
+    List<AdminMenuNode> getMenuTree();
+    
+    /**
+     * 角色可见的导航菜单(目录和菜单，不含按钮和隐藏菜单)
+     *
+     * @param roleKeys 角色权限字符串
+     */
+    List<AdminMenuNode> getNavigation(Collection<String> roleKeys);
+    
+    /**
+     * 角色可见的导航菜单序列化后的JSON
+     *
+     * @param roleKeys 角色权限字符串
+     */
+    String getNavigationJson(Collection<String> roleKeys);
+    
+    /**
+     * 菜单、角色或角色菜单关联变更后，使缓存的菜单树失效
+     */
+    void invalidate();
+}
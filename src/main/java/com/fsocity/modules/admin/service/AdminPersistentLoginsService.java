@@ -3,6 +3,7 @@ package com.fsocity.modules.admin.service;
 import com.fsocity.modules.admin.entity.AdminPersistentLogins;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 
 /**
  * <p>
@@ -15,9 +16,9 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 public interface AdminPersistentLoginsService extends IService<AdminPersistentLogins> {
     
     /**
-     * 分页查找
+     * 分页查找，countMode 为总数的查询方式
      */
-    Page<AdminPersistentLogins> findAll(AdminPersistentLogins form, Integer pageNum, Integer pageSize);
+    Page<AdminPersistentLogins> findAll(AdminPersistentLogins form, Integer pageNum, Integer pageSize, CountMode countMode);
     
     /**
      * 根据ID删除
@@ -3,6 +3,10 @@ package com.fsocity.modules.admin.service;
 import com.fsocity.modules.admin.entity.AdminUser;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
+import com.fsocity.framework.mybatis.KeysetPage;
+
+import java.util.List;
 
 /**
  * <p>
@@ -15,12 +19,22 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 public interface AdminUserService extends IService<AdminUser> {
     
     /**
-     * 分页查找
+     * 分页查找，countMode 为总数的查询方式
+     */
+    Page<AdminUser> findAll(AdminUser form, Integer pageNum, Integer pageSize, CountMode countMode);
+    
+    /**
+     * 游标分页查找，按ID倒序，不执行COUNT
      */
-    Page<AdminUser> findAll(AdminUser form, Integer pageNum, Integer pageSize);
+    KeysetPage<AdminUser> findAllByKeyset(AdminUser form, String cursor, Integer pageSize);
     
     /**
      * 根据ID删除
      */
     boolean deleteById(Integer id);
+    
+    /**
+     * 查找拥有某个角色的用户名
+     */
+    List<String> findUsernamesByRoleId(Integer roleId);
 }
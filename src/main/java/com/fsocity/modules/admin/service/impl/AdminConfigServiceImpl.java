@@ -7,7 +7,10 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.mybatis.KeysetPage;
+import com.fsocity.framework.mybatis.KeysetPagination;
 
 /**
  * <p>
@@ -24,7 +27,20 @@ public class AdminConfigServiceImpl extends ServiceImpl<AdminConfigMapper, Admin
     private AdminConfigMapper adminConfigMapper;
     
     @Override
-    public Page<AdminConfig> findAll(AdminConfig form, Integer pageNum, Integer pageSize) {
+    public Page<AdminConfig> findAll(AdminConfig form, Integer pageNum, Integer pageSize, CountMode countMode) {
+        Page<AdminConfig> page = countMode.newPage(pageNum, pageSize);
+        return this.page(page, buildQueryWrapper(form));
+    }
+    
+    @Override
+    public KeysetPage<AdminConfig> findAllByKeyset(AdminConfig form, String cursor, Integer pageSize) {
+        return KeysetPagination.page(this, buildQueryWrapper(form), AdminConfig::getId, cursor, pageSize);
+    }
+    
+    /**
+     * 查询条件
+     */
+    private LambdaQueryWrapper<AdminConfig> buildQueryWrapper(AdminConfig form) {
         LambdaQueryWrapper<AdminConfig> queryWrapper = new LambdaQueryWrapper<>();
                 if (form.getId() != null) {
             queryWrapper.eq(AdminConfig::getId, form.getId());
@@ -60,8 +76,7 @@ public class AdminConfigServiceImpl extends ServiceImpl<AdminConfigMapper, Admin
             queryWrapper.eq(AdminConfig::getUpdateTime, form.getUpdateTime());
         }
                 
-        Page<AdminConfig> page = new Page<>(pageNum, pageSize);
-        return this.page(page, queryWrapper);
+        return queryWrapper;
     }
     
     @Override
@@ -0,0 +1,143 @@
+package com.fsocity.modules.admin.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.redis.cache.CacheInvalidationTopic;
+import com.fsocity.framework.redis.cache.LocalCacheInvalidationListener;
+import com.fsocity.framework.web.enums.DeleteStatusEnum;
+import com.fsocity.modules.admin.entity.AdminDepartment;
+import com.fsocity.modules.admin.mapper.AdminDepartmentMapper;
+import com.fsocity.modules.admin.model.AdminDepartmentIndex;
+import com.fsocity.modules.admin.service.AdminDepartmentHierarchyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 部门层级服务实现。
+ * <p>
+ * 首次使用时查询一次全部部门构建 {@link AdminDepartmentIndex}，之后的查询都在内存中完成；
+ * 部门新增、移动、删除时在内存中增量生成新的索引并整体替换，读取不加锁。
+ * <p>
+ * 变更的部门ID通过 {@link CacheInvalidationTopic} 通知其它节点，其它节点从数据库读取这个部门的父部门后同样增量更新。
+ *
+ * @author zail
+ * @date 2022/7/15
+ */
+@Service
+@Slf4j
+public class AdminDepartmentHierarchyServiceImpl implements AdminDepartmentHierarchyService, LocalCacheInvalidationListener {
+    
+    // 失效消息使用的缓存名称，消息的key是部门ID，为null时重新加载
+    private static final String CACHE_NAME = "adminDepartmentHierarchy";
+    
+    @Autowired
+    private AdminDepartmentMapper adminDepartmentMapper;
+    @Autowired
+    private CacheInvalidationTopic invalidationTopic;
+    
+    private volatile AdminDepartmentIndex index;
+    
+    @Override
+    public boolean isDescendant(Integer ancestorId, Integer departmentId) {
+        return load().isDescendant(ancestorId, departmentId);
+    }
+    
+    @Override
+    public List<Integer> getDescendantIds(Integer departmentId) {
+        return load().getDescendantIds(departmentId);
+    }
+    
+    @Override
+    public List<Integer> getAncestorIds(Integer departmentId) {
+        return load().getAncestorIds(departmentId);
+    }
+    
+    @Override
+    public void put(Integer departmentId, Integer parentId) {
+        if (departmentId == null) {
+            return;
+        }
+        putLocal(departmentId, parentId);
+        invalidationTopic.publish(CACHE_NAME, departmentId.toString());
+    }
+    
+    @Override
+    public void remove(Integer departmentId) {
+        if (departmentId == null) {
+            return;
+        }
+        removeLocal(departmentId);
+        invalidationTopic.publish(CACHE_NAME, departmentId.toString());
+    }
+    
+    @Override
+    public void reload() {
+        reloadLocal();
+        invalidationTopic.publish(CACHE_NAME, null);
+    }
+    
+    @Override
+    public synchronized void onInvalidation(String cacheName, String key) {
+        // 本节点还没有加载过时不处理，下一次使用时会加载最新的数据
+        if (!CACHE_NAME.equals(cacheName) || index == null) {
+            return;
+        }
+        if (key == null) {
+            reloadLocal();
+            return;
+        }
+        Integer departmentId = Integer.valueOf(key);
+        AdminDepartment department = adminDepartmentMapper.selectById(departmentId);
+        if (department == null || !isExists(department)) {
+            removeLocal(departmentId);
+        }
+        else {
+            putLocal(departmentId, department.getParentId());
+        }
+    }
+    
+    private synchronized void putLocal(Integer departmentId, Integer parentId) {
+        index = load().withParent(departmentId, parentId);
+        log.info("部门层级变更 departmentId = {}, parentId = {}", departmentId, parentId);
+    }
+    
+    private synchronized void removeLocal(Integer departmentId) {
+        index = load().without(departmentId);
+        log.info("部门层级删除 departmentId = {}", departmentId);
+    }
+    
+    private synchronized void reloadLocal() {
+        LambdaQueryWrapper<AdminDepartment> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(AdminDepartment::getId, AdminDepartment::getParentId)
+                .eq(AdminDepartment::getStatus, DeleteStatusEnum.EXISTS.getCode());
+        Map<Integer, Integer> parents = new HashMap<>();
+        for (AdminDepartment department : adminDepartmentMapper.selectList(queryWrapper)) {
+            parents.put(department.getId(), department.getParentId());
+        }
+        index = AdminDepartmentIndex.build(parents);
+        log.info("部门层级加载完成 departments = {}", index.size());
+    }
+    
+    // 标记为删除的部门不在层级中
+    private static boolean isExists(AdminDepartment department) {
+        return String.valueOf(DeleteStatusEnum.EXISTS.getCode()).equals(department.getStatus());
+    }
+    
+    private AdminDepartmentIndex load() {
+        AdminDepartmentIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    reloadLocal();
+                }
+                current = index;
+            }
+        }
+        return current;
+    }
+    
+}
@@ -7,7 +7,15 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.mybatis.KeysetPage;
+import com.fsocity.framework.mybatis.KeysetPagination;
+import com.fsocity.framework.exception.ApiException;
+import com.fsocity.framework.web.enums.DeleteStatusEnum;
+import com.fsocity.modules.admin.service.AdminDepartmentHierarchyService;
+
+import java.io.Serializable;
 
 /**
  * <p>
@@ -22,9 +30,24 @@ public class AdminDepartmentServiceImpl extends ServiceImpl<AdminDepartmentMappe
     
     @Autowired
     private AdminDepartmentMapper adminDepartmentMapper;
+    @Autowired
+    private AdminDepartmentHierarchyService adminDepartmentHierarchyService;
+    
+    @Override
+    public Page<AdminDepartment> findAll(AdminDepartment form, Integer pageNum, Integer pageSize, CountMode countMode) {
+        Page<AdminDepartment> page = countMode.newPage(pageNum, pageSize);
+        return this.page(page, buildQueryWrapper(form));
+    }
     
     @Override
-    public Page<AdminDepartment> findAll(AdminDepartment form, Integer pageNum, Integer pageSize) {
+    public KeysetPage<AdminDepartment> findAllByKeyset(AdminDepartment form, String cursor, Integer pageSize) {
+        return KeysetPagination.page(this, buildQueryWrapper(form), AdminDepartment::getId, cursor, pageSize);
+    }
+    
+    /**
+     * 查询条件
+     */
+    private LambdaQueryWrapper<AdminDepartment> buildQueryWrapper(AdminDepartment form) {
         LambdaQueryWrapper<AdminDepartment> queryWrapper = new LambdaQueryWrapper<>();
                 if (form.getId() != null) {
             queryWrapper.eq(AdminDepartment::getId, form.getId());
@@ -63,8 +86,7 @@ public class AdminDepartmentServiceImpl extends ServiceImpl<AdminDepartmentMappe
             queryWrapper.eq(AdminDepartment::getUpdateTime, form.getUpdateTime());
         }
                 
-        Page<AdminDepartment> page = new Page<>(pageNum, pageSize);
-        return this.page(page, queryWrapper);
+        return queryWrapper;
     }
     
     @Override
@@ -74,5 +96,41 @@ public class AdminDepartmentServiceImpl extends ServiceImpl<AdminDepartmentMappe
         // adminDepartment.setStatus(DeleteStatusEnum.DELETED.getCode());
         return this.updateById(adminDepartment);
     }
+    
+    @Override
+    public boolean save(AdminDepartment entity) {
+        boolean flag = super.save(entity);
+        if (flag) {
+            adminDepartmentHierarchyService.put(entity.getId(), entity.getParentId());
+        }
+        return flag;
+    }
+    
+    @Override
+    public boolean updateById(AdminDepartment entity) {
+        Integer parentId = entity.getParentId();
+        // 不能移动到自己或自己的下级部门下，否则部门层级成环
+        if (parentId != null && adminDepartmentHierarchyService.isDescendant(entity.getId(), parentId)) {
+            throw new ApiException("不能把部门移动到自己或下级部门下");
+        }
+        boolean flag = super.updateById(entity);
+        if (flag && String.valueOf(DeleteStatusEnum.DELETED.getCode()).equals(entity.getStatus())) {
+            // 标记为删除的部门不再属于任何数据权限范围
+            adminDepartmentHierarchyService.remove(entity.getId());
+        }
+        else if (flag && parentId != null) {
+            adminDepartmentHierarchyService.put(entity.getId(), parentId);
+        }
+        return flag;
+    }
+    
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean flag = super.removeById(id);
+        if (flag) {
+            adminDepartmentHierarchyService.remove(Integer.valueOf(id.toString()));
+        }
+        return flag;
+    }
 
 }
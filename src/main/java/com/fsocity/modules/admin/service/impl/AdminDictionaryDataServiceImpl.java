@@ -7,7 +7,10 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.mybatis.KeysetPage;
+import com.fsocity.framework.mybatis.KeysetPagination;
 
 /**
  * <p>
@@ -24,7 +27,20 @@ public class AdminDictionaryDataServiceImpl extends ServiceImpl<AdminDictionaryD
     private AdminDictionaryDataMapper adminDictionaryDataMapper;
     
     @Override
-    public Page<AdminDictionaryData> findAll(AdminDictionaryData form, Integer pageNum, Integer pageSize) {
+    public Page<AdminDictionaryData> findAll(AdminDictionaryData form, Integer pageNum, Integer pageSize, CountMode countMode) {
+        Page<AdminDictionaryData> page = countMode.newPage(pageNum, pageSize);
+        return this.page(page, buildQueryWrapper(form));
+    }
+    
+    @Override
+    public KeysetPage<AdminDictionaryData> findAllByKeyset(AdminDictionaryData form, String cursor, Integer pageSize) {
+        return KeysetPagination.page(this, buildQueryWrapper(form), AdminDictionaryData::getId, cursor, pageSize);
+    }
+    
+    /**
+     * 查询条件
+     */
+    private LambdaQueryWrapper<AdminDictionaryData> buildQueryWrapper(AdminDictionaryData form) {
         LambdaQueryWrapper<AdminDictionaryData> queryWrapper = new LambdaQueryWrapper<>();
                 if (form.getId() != null) {
             queryWrapper.eq(AdminDictionaryData::getId, form.getId());
@@ -63,8 +79,7 @@ public class AdminDictionaryDataServiceImpl extends ServiceImpl<AdminDictionaryD
             queryWrapper.eq(AdminDictionaryData::getUpdateTime, form.getUpdateTime());
         }
                 
-        Page<AdminDictionaryData> page = new Page<>(pageNum, pageSize);
-        return this.page(page, queryWrapper);
+        return queryWrapper;
     }
     
     @Override
@@ -7,7 +7,10 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.mybatis.KeysetPage;
+import com.fsocity.framework.mybatis.KeysetPagination;
 
 /**
  * <p>
@@ -24,7 +27,20 @@ public class AdminDictionaryTypeServiceImpl extends ServiceImpl<AdminDictionaryT
     private AdminDictionaryTypeMapper adminDictionaryTypeMapper;
     
     @Override
-    public Page<AdminDictionaryType> findAll(AdminDictionaryType form, Integer pageNum, Integer pageSize) {
+    public Page<AdminDictionaryType> findAll(AdminDictionaryType form, Integer pageNum, Integer pageSize, CountMode countMode) {
+        Page<AdminDictionaryType> page = countMode.newPage(pageNum, pageSize);
+        return this.page(page, buildQueryWrapper(form));
+    }
+    
+    @Override
+    public KeysetPage<AdminDictionaryType> findAllByKeyset(AdminDictionaryType form, String cursor, Integer pageSize) {
+        return KeysetPagination.page(this, buildQueryWrapper(form), AdminDictionaryType::getId, cursor, pageSize);
+    }
+    
+    /**
+     * 查询条件
+     */
+    private LambdaQueryWrapper<AdminDictionaryType> buildQueryWrapper(AdminDictionaryType form) {
         LambdaQueryWrapper<AdminDictionaryType> queryWrapper = new LambdaQueryWrapper<>();
                 if (form.getId() != null) {
             queryWrapper.eq(AdminDictionaryType::getId, form.getId());
@@ -54,8 +70,7 @@ public class AdminDictionaryTypeServiceImpl extends ServiceImpl<AdminDictionaryT
             queryWrapper.eq(AdminDictionaryType::getUpdateTime, form.getUpdateTime());
         }
                 
-        Page<AdminDictionaryType> page = new Page<>(pageNum, pageSize);
-        return this.page(page, queryWrapper);
+        return queryWrapper;
     }
     
     @Override
@@ -7,7 +7,15 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.mybatis.KeysetPage;
+import com.fsocity.framework.mybatis.KeysetPagination;
+import com.fsocity.framework.web.export.ExportWriter;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
 
 /**
  * <p>
@@ -24,7 +32,34 @@ public class AdminJobLogServiceImpl extends ServiceImpl<AdminJobLogMapper, Admin
     private AdminJobLogMapper adminJobLogMapper;
     
     @Override
-    public Page<AdminJobLog> findAll(AdminJobLog form, Integer pageNum, Integer pageSize) {
+    public Page<AdminJobLog> findAll(AdminJobLog form, Integer pageNum, Integer pageSize, CountMode countMode) {
+        Page<AdminJobLog> page = countMode.newPage(pageNum, pageSize);
+        return this.page(page, buildQueryWrapper(form));
+    }
+    
+    @Override
+    public KeysetPage<AdminJobLog> findAllByKeyset(AdminJobLog form, String cursor, Integer pageSize) {
+        return KeysetPagination.page(this, buildQueryWrapper(form), AdminJobLog::getId, cursor, pageSize);
+    }
+    
+    /**
+     * Cursor 在事务结束时关闭，遍历和写出都要在事务中
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long export(AdminJobLog form, ExportWriter<AdminJobLog> writer) throws IOException {
+        try (Cursor<AdminJobLog> cursor = adminJobLogMapper.selectCursor(buildQueryWrapper(form))) {
+            for (AdminJobLog row : cursor) {
+                writer.write(row);
+            }
+        }
+        return writer.getCount();
+    }
+    
+    /**
+     * 查询条件
+     */
+    private LambdaQueryWrapper<AdminJobLog> buildQueryWrapper(AdminJobLog form) {
         LambdaQueryWrapper<AdminJobLog> queryWrapper = new LambdaQueryWrapper<>();
                 if (form.getId() != null) {
             queryWrapper.eq(AdminJobLog::getId, form.getId());
@@ -50,9 +85,15 @@ public class AdminJobLogServiceImpl extends ServiceImpl<AdminJobLogMapper, Admin
         if (form.getCreateTime() != null) {
             queryWrapper.eq(AdminJobLog::getCreateTime, form.getCreateTime());
         }
+        // 日志表按时间分区，带上时间范围时只扫描范围内的分区
+        if (form.getBeginTime() != null) {
+            queryWrapper.ge(AdminJobLog::getCreateTime, form.getBeginTime());
+        }
+        if (form.getEndTime() != null) {
+            queryWrapper.lt(AdminJobLog::getCreateTime, form.getEndTime());
+        }
                 
-        Page<AdminJobLog> page = new Page<>(pageNum, pageSize);
-        return this.page(page, queryWrapper);
+        return queryWrapper;
     }
     
     @Override
@@ -7,7 +7,13 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.mybatis.KeysetPage;
+import com.fsocity.framework.mybatis.KeysetPagination;
+import com.fsocity.framework.job.AdminJobChangedEvent;
+import com.fsocity.framework.web.enums.DeleteStatusEnum;
+import org.springframework.context.ApplicationEventPublisher;
 
 /**
  * <p>
@@ -22,9 +28,24 @@ public class AdminJobServiceImpl extends ServiceImpl<AdminJobMapper, AdminJob> i
     
     @Autowired
     private AdminJobMapper adminJobMapper;
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+    
+    @Override
+    public Page<AdminJob> findAll(AdminJob form, Integer pageNum, Integer pageSize, CountMode countMode) {
+        Page<AdminJob> page = countMode.newPage(pageNum, pageSize);
+        return this.page(page, buildQueryWrapper(form));
+    }
     
     @Override
-    public Page<AdminJob> findAll(AdminJob form, Integer pageNum, Integer pageSize) {
+    public KeysetPage<AdminJob> findAllByKeyset(AdminJob form, String cursor, Integer pageSize) {
+        return KeysetPagination.page(this, buildQueryWrapper(form), AdminJob::getId, cursor, pageSize);
+    }
+    
+    /**
+     * 查询条件
+     */
+    private LambdaQueryWrapper<AdminJob> buildQueryWrapper(AdminJob form) {
         LambdaQueryWrapper<AdminJob> queryWrapper = new LambdaQueryWrapper<>();
                 if (form.getId() != null) {
             queryWrapper.eq(AdminJob::getId, form.getId());
@@ -66,16 +87,37 @@ public class AdminJobServiceImpl extends ServiceImpl<AdminJobMapper, AdminJob> i
             queryWrapper.eq(AdminJob::getUpdateTime, form.getUpdateTime());
         }
                 
-        Page<AdminJob> page = new Page<>(pageNum, pageSize);
-        return this.page(page, queryWrapper);
+        return queryWrapper;
     }
     
     @Override
     public boolean deleteById(Integer id) {
         AdminJob adminJob = new AdminJob();
         adminJob.setId(id);
-        // adminJob.setStatus(DeleteStatusEnum.DELETED.getCode());
+        // 标记删除后调度器停止这个任务
+        adminJob.setStatus(DeleteStatusEnum.DELETED.getCode());
         return this.updateById(adminJob);
     }
+    
+    /**
+     * 新增和修改后通知调度器重新加载，不需要重启
+     */
+    @Override
+    public boolean save(AdminJob entity) {
+        boolean flag = super.save(entity);
+        if (flag) {
+            applicationEventPublisher.publishEvent(new AdminJobChangedEvent(this, entity.getId()));
+        }
+        return flag;
+    }
+    
+    @Override
+    public boolean updateById(AdminJob entity) {
+        boolean flag = super.updateById(entity);
+        if (flag) {
+            applicationEventPublisher.publishEvent(new AdminJobChangedEvent(this, entity.getId()));
+        }
+        return flag;
+    }
 
 }
@@ -7,7 +7,15 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.mybatis.KeysetPage;
+import com.fsocity.framework.mybatis.KeysetPagination;
+import com.fsocity.framework.security.admin.AdminUserDetailsCache;
+import com.fsocity.framework.security.permission.AdminPermissionRegistry;
+import com.fsocity.modules.admin.service.AdminMenuTreeService;
+
+import java.io.Serializable;
 
 /**
  * <p>
@@ -22,9 +30,28 @@ public class AdminMenuServiceImpl extends ServiceImpl<AdminMenuMapper, AdminMenu
     
     @Autowired
     private AdminMenuMapper adminMenuMapper;
+    @Autowired
+    private AdminUserDetailsCache adminUserDetailsCache;
+    @Autowired
+    private AdminPermissionRegistry adminPermissionRegistry;
+    @Autowired
+    private AdminMenuTreeService adminMenuTreeService;
     
     @Override
-    public Page<AdminMenu> findAll(AdminMenu form, Integer pageNum, Integer pageSize) {
+    public Page<AdminMenu> findAll(AdminMenu form, Integer pageNum, Integer pageSize, CountMode countMode) {
+        Page<AdminMenu> page = countMode.newPage(pageNum, pageSize);
+        return this.page(page, buildQueryWrapper(form));
+    }
+    
+    @Override
+    public KeysetPage<AdminMenu> findAllByKeyset(AdminMenu form, String cursor, Integer pageSize) {
+        return KeysetPagination.page(this, buildQueryWrapper(form), AdminMenu::getId, cursor, pageSize);
+    }
+    
+    /**
+     * 查询条件
+     */
+    private LambdaQueryWrapper<AdminMenu> buildQueryWrapper(AdminMenu form) {
         LambdaQueryWrapper<AdminMenu> queryWrapper = new LambdaQueryWrapper<>();
                 if (form.getId() != null) {
             queryWrapper.eq(AdminMenu::getId, form.getId());
@@ -78,8 +105,7 @@ public class AdminMenuServiceImpl extends ServiceImpl<AdminMenuMapper, AdminMenu
             queryWrapper.eq(AdminMenu::getUpdateTime, form.getUpdateTime());
         }
                 
-        Page<AdminMenu> page = new Page<>(pageNum, pageSize);
-        return this.page(page, queryWrapper);
+        return queryWrapper;
     }
     
     @Override
@@ -89,5 +115,31 @@ public class AdminMenuServiceImpl extends ServiceImpl<AdminMenuMapper, AdminMenu
         // adminMenu.setStatus(DeleteStatusEnum.DELETED.getCode());
         return this.updateById(adminMenu);
     }
+    
+    @Override
+    public boolean save(AdminMenu entity) {
+        boolean flag = super.save(entity);
+        adminMenuTreeService.invalidate();
+        return flag;
+    }
+    
+    @Override
+    public boolean updateById(AdminMenu entity) {
+        boolean flag = super.updateById(entity);
+        // 权限标识可能变更，重新编译包含该菜单的角色，全部登录信息缓存失效
+        adminPermissionRegistry.rebuildMenu(entity.getId());
+        adminMenuTreeService.invalidate();
+        adminUserDetailsCache.evictAll();
+        return flag;
+    }
+    
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean flag = super.removeById(id);
+        adminPermissionRegistry.rebuildMenu(Integer.valueOf(id.toString()));
+        adminMenuTreeService.invalidate();
+        adminUserDetailsCache.evictAll();
+        return flag;
+    }
 
 }
@@ -0,0 +1,253 @@
+package com.fsocity.modules.admin.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fsocity.framework.exception.ApiException;
+import com.fsocity.framework.redis.cache.CacheInvalidationTopic;
+import com.fsocity.framework.redis.cache.LocalCacheInvalidationListener;
+import com.fsocity.modules.admin.entity.AdminMenu;
+import com.fsocity.modules.admin.entity.AdminRole;
+import com.fsocity.modules.admin.entity.AdminRoleMenu;
+import com.fsocity.modules.admin.mapper.AdminMenuMapper;
+import com.fsocity.modules.admin.mapper.AdminRoleMapper;
+import com.fsocity.modules.admin.mapper.AdminRoleMenuMapper;
+import com.fsocity.modules.admin.model.AdminMenuNode;
+import com.fsocity.modules.admin.service.AdminMenuTreeService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 菜单树服务实现。
+ * <p>
+ * 全部菜单只加载一次，在内存中组装成树；按角色裁剪出的导航菜单(以及序列化后的JSON)
+ * 按角色组合缓存，渲染侧边栏不再查询数据库，也不再重新组装树。
+ * 菜单、角色、角色菜单关联变更时调用 {@link #invalidate()}，下一次访问时重新加载；
+ * 失效同时通过 {@link CacheInvalidationTopic} 通知其它节点。
+ *
+ * @author zail
+ * @date 2022/7/15
+ */
+@Service
+@Slf4j
+public class AdminMenuTreeServiceImpl implements AdminMenuTreeService, LocalCacheInvalidationListener {
+    
+    // 失效消息使用的缓存名称
+    private static final String CACHE_NAME = "adminMenuTree";
+    
+    // 正常状态
+    private static final int STATUS_NORMAL = 0;
+    
+    // 按钮类型的菜单
+    private static final int TYPE_BUTTON = 2;
+    
+    // 显示的菜单
+    private static final int VISIBLE_SHOW = 0;
+    
+    // 缓存的角色组合数量
+    private static final long NAVIGATION_CACHE_SIZE = 1000L;
+    
+    @Autowired
+    private AdminMenuMapper adminMenuMapper;
+    @Autowired
+    private AdminRoleMapper adminRoleMapper;
+    @Autowired
+    private AdminRoleMenuMapper adminRoleMenuMapper;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private CacheInvalidationTopic invalidationTopic;
+    
+    // 当前的菜单树，失效时置为null
+    private volatile MenuTree menuTree;
+    
+    @Override
+    public List<AdminMenuNode> getMenuTree() {
+        return load().roots;
+    }
+    
+    @Override
+    public List<AdminMenuNode> getNavigation(Collection<String> roleKeys) {
+        return navigation(roleKeys).nodes;
+    }
+    
+    @Override
+    public String getNavigationJson(Collection<String> roleKeys) {
+        return navigation(roleKeys).json;
+    }
+    
+    @Override
+    public void invalidate() {
+        invalidateLocal();
+        invalidationTopic.publish(CACHE_NAME, null);
+    }
+    
+    @Override
+    public void onInvalidation(String cacheName, String key) {
+        if (CACHE_NAME.equals(cacheName)) {
+            invalidateLocal();
+        }
+    }
+    
+    private synchronized void invalidateLocal() {
+        menuTree = null;
+        log.info("菜单树缓存失效");
+    }
+    
+    private Navigation navigation(Collection<String> roleKeys) {
+        MenuTree tree = load();
+        // 角色组合排序后作为缓存的key，同样的角色组合共享一份导航菜单
+        Set<String> sortedKeys = new TreeSet<>(roleKeys);
+        return tree.navigations.get(String.join(",", sortedKeys), key -> buildNavigation(tree, sortedKeys));
+    }
+    
+    private MenuTree load() {
+        MenuTree tree = menuTree;
+        if (tree == null) {
+            synchronized (this) {
+                tree = menuTree;
+                if (tree == null) {
+                    tree = buildMenuTree();
+                    menuTree = tree;
+                }
+            }
+        }
+        return tree;
+    }
+    
+    private MenuTree buildMenuTree() {
+        List<AdminMenu> menus = adminMenuMapper.selectList(new LambdaQueryWrapper<AdminMenu>()
+                .eq(AdminMenu::getStatus, STATUS_NORMAL));
+        Map<Integer, String> roleKeys = new HashMap<>();
+        for (AdminRole role : adminRoleMapper.selectList(new LambdaQueryWrapper<AdminRole>()
+                .eq(AdminRole::getStatus, STATUS_NORMAL))) {
+            roleKeys.put(role.getId(), role.getKey());
+        }
+        Map<String, Set<Integer>> roleMenuIds = new HashMap<>();
+        for (AdminRoleMenu roleMenu : adminRoleMenuMapper.selectList(null)) {
+            String roleKey = roleKeys.get(roleMenu.getRoleId());
+            if (roleKey != null) {
+                roleMenuIds.computeIfAbsent(roleKey, k -> new HashSet<>()).add(roleMenu.getMenuId());
+            }
+        }
+        
+        // 按父菜单分组，同级按 orderNum 排序
+        Map<Integer, List<AdminMenu>> childrenMap = new HashMap<>();
+        Set<Integer> menuIds = new HashSet<>();
+        for (AdminMenu menu : menus) {
+            menuIds.add(menu.getId());
+            childrenMap.computeIfAbsent(menu.getParentId(), k -> new ArrayList<>()).add(menu);
+        }
+        Comparator<AdminMenu> comparator = Comparator.comparing(AdminMenu::getOrderNum,
+                Comparator.nullsLast(Comparator.naturalOrder()));
+        for (List<AdminMenu> children : childrenMap.values()) {
+            children.sort(comparator);
+        }
+        // 父菜单不存在(包括 parentId = 0)的作为根节点
+        List<AdminMenu> rootMenus = new ArrayList<>();
+        for (AdminMenu menu : menus) {
+            if (!menuIds.contains(menu.getParentId())) {
+                rootMenus.add(menu);
+            }
+        }
+        rootMenus.sort(comparator);
+        
+        List<AdminMenuNode> roots = buildNodes(rootMenus, childrenMap);
+        log.info("菜单树加载完成 menus = {}, roles = {}", menus.size(), roleMenuIds.size());
+        return new MenuTree(roots, roleMenuIds);
+    }
+    
+    private List<AdminMenuNode> buildNodes(List<AdminMenu> menus, Map<Integer, List<AdminMenu>> childrenMap) {
+        List<AdminMenuNode> nodes = new ArrayList<>(menus.size());
+        for (AdminMenu menu : menus) {
+            List<AdminMenu> children = childrenMap.getOrDefault(menu.getId(), Collections.emptyList());
+            nodes.add(new AdminMenuNode(menu, buildNodes(children, childrenMap)));
+        }
+        return Collections.unmodifiableList(nodes);
+    }
+    
+    private Navigation buildNavigation(MenuTree tree, Set<String> roleKeys) {
+        Set<Integer> allowed = new HashSet<>();
+        for (String roleKey : roleKeys) {
+            allowed.addAll(tree.roleMenuIds.getOrDefault(roleKey, Collections.emptySet()));
+        }
+        List<AdminMenuNode> nodes = filter(tree.roots, allowed);
+        try {
+            return new Navigation(nodes, objectMapper.writeValueAsString(nodes));
+        }
+        catch (JsonProcessingException e) {
+            throw new ApiException("菜单序列化失败", e);
+        }
+    }
+    
+    /**
+     * 只保留角色拥有的、显示状态的目录和菜单；父菜单没有权限时整棵子树都不显示
+     */
+    private List<AdminMenuNode> filter(List<AdminMenuNode> nodes, Set<Integer> allowed) {
+        List<AdminMenuNode> result = new ArrayList<>();
+        for (AdminMenuNode node : nodes) {
+            if (!allowed.contains(node.getId())) {
+                continue;
+            }
+            if (node.getType() != null && node.getType() == TYPE_BUTTON) {
+                continue;
+            }
+            if (node.getVisible() != null && node.getVisible() != VISIBLE_SHOW) {
+                continue;
+            }
+            result.add(node.withChildren(filter(node.getChildren(), allowed)));
+        }
+        return Collections.unmodifiableList(result);
+    }
+    
+    /**
+     * 某一时刻加载的菜单树，以及基于它裁剪出的导航菜单缓存
+     */
+    private static class MenuTree {
+        
+        private final List<AdminMenuNode> roots;
+        
+        // 角色权限字符串 -> 菜单ID
+        private final Map<String, Set<Integer>> roleMenuIds;
+        
+        // 角色组合 -> 导航菜单
+        private final Cache<String, Navigation> navigations = Caffeine.newBuilder()
+                .maximumSize(NAVIGATION_CACHE_SIZE)
+                .build();
+        
+        MenuTree(List<AdminMenuNode> roots, Map<String, Set<Integer>> roleMenuIds) {
+            this.roots = roots;
+            this.roleMenuIds = roleMenuIds;
+        }
+    }
+    
+    /**
+     * 裁剪后的导航菜单和它的JSON
+     */
+    private static class Navigation {
+        
+        private final List<AdminMenuNode> nodes;
+        
+        private final String json;
+        
+        Navigation(List<AdminMenuNode> nodes, String json) {
+            this.nodes = nodes;
+            this.json = json;
+        }
+    }
+    
+}
@@ -7,7 +7,10 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.mybatis.KeysetPage;
+import com.fsocity.framework.mybatis.KeysetPagination;
 
 /**
  * <p>
@@ -24,7 +27,20 @@ public class AdminNoticeServiceImpl extends ServiceImpl<AdminNoticeMapper, Admin
     private AdminNoticeMapper adminNoticeMapper;
     
     @Override
-    public Page<AdminNotice> findAll(AdminNotice form, Integer pageNum, Integer pageSize) {
+    public Page<AdminNotice> findAll(AdminNotice form, Integer pageNum, Integer pageSize, CountMode countMode) {
+        Page<AdminNotice> page = countMode.newPage(pageNum, pageSize);
+        return this.page(page, buildQueryWrapper(form));
+    }
+    
+    @Override
+    public KeysetPage<AdminNotice> findAllByKeyset(AdminNotice form, String cursor, Integer pageSize) {
+        return KeysetPagination.page(this, buildQueryWrapper(form), AdminNotice::getId, cursor, pageSize);
+    }
+    
+    /**
+     * 查询条件
+     */
+    private LambdaQueryWrapper<AdminNotice> buildQueryWrapper(AdminNotice form) {
         LambdaQueryWrapper<AdminNotice> queryWrapper = new LambdaQueryWrapper<>();
                 if (form.getId() != null) {
             queryWrapper.eq(AdminNotice::getId, form.getId());
@@ -57,8 +73,7 @@ public class AdminNoticeServiceImpl extends ServiceImpl<AdminNoticeMapper, Admin
             queryWrapper.eq(AdminNotice::getUpdateTime, form.getUpdateTime());
         }
                 
-        Page<AdminNotice> page = new Page<>(pageNum, pageSize);
-        return this.page(page, queryWrapper);
+        return queryWrapper;
     }
     
     @Override
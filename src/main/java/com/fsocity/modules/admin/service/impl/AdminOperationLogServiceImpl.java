@@ -7,7 +7,15 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.mybatis.KeysetPage;
+import com.fsocity.framework.mybatis.KeysetPagination;
+import com.fsocity.framework.web.export.ExportWriter;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
 
 /**
  * <p>
@@ -24,7 +32,34 @@ public class AdminOperationLogServiceImpl extends ServiceImpl<AdminOperationLogM
     private AdminOperationLogMapper adminOperationLogMapper;
     
     @Override
-    public Page<AdminOperationLog> findAll(AdminOperationLog form, Integer pageNum, Integer pageSize) {
+    public Page<AdminOperationLog> findAll(AdminOperationLog form, Integer pageNum, Integer pageSize, CountMode countMode) {
+        Page<AdminOperationLog> page = countMode.newPage(pageNum, pageSize);
+        return this.page(page, buildQueryWrapper(form));
+    }
+    
+    @Override
+    public KeysetPage<AdminOperationLog> findAllByKeyset(AdminOperationLog form, String cursor, Integer pageSize) {
+        return KeysetPagination.page(this, buildQueryWrapper(form), AdminOperationLog::getId, cursor, pageSize);
+    }
+    
+    /**
+     * Cursor 在事务结束时关闭，遍历和写出都要在事务中
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long export(AdminOperationLog form, ExportWriter<AdminOperationLog> writer) throws IOException {
+        try (Cursor<AdminOperationLog> cursor = adminOperationLogMapper.selectCursor(buildQueryWrapper(form))) {
+            for (AdminOperationLog row : cursor) {
+                writer.write(row);
+            }
+        }
+        return writer.getCount();
+    }
+    
+    /**
+     * 查询条件
+     */
+    private LambdaQueryWrapper<AdminOperationLog> buildQueryWrapper(AdminOperationLog form) {
         LambdaQueryWrapper<AdminOperationLog> queryWrapper = new LambdaQueryWrapper<>();
                 if (form.getId() != null) {
             queryWrapper.eq(AdminOperationLog::getId, form.getId());
@@ -74,9 +109,15 @@ public class AdminOperationLogServiceImpl extends ServiceImpl<AdminOperationLogM
         if (form.getOperationTime() != null) {
             queryWrapper.eq(AdminOperationLog::getOperationTime, form.getOperationTime());
         }
+        // 日志表按时间分区，带上时间范围时只扫描范围内的分区
+        if (form.getBeginTime() != null) {
+            queryWrapper.ge(AdminOperationLog::getOperationTime, form.getBeginTime());
+        }
+        if (form.getEndTime() != null) {
+            queryWrapper.lt(AdminOperationLog::getOperationTime, form.getEndTime());
+        }
                 
-        Page<AdminOperationLog> page = new Page<>(pageNum, pageSize);
-        return this.page(page, queryWrapper);
+        return queryWrapper;
     }
     
     @Override
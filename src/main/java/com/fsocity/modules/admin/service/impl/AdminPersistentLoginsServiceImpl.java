@@ -7,6 +7,7 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 
 /**
@@ -24,7 +25,7 @@ public class AdminPersistentLoginsServiceImpl extends ServiceImpl<AdminPersisten
     private AdminPersistentLoginsMapper adminPersistentLoginsMapper;
     
     @Override
-    public Page<AdminPersistentLogins> findAll(AdminPersistentLogins form, Integer pageNum, Integer pageSize) {
+    public Page<AdminPersistentLogins> findAll(AdminPersistentLogins form, Integer pageNum, Integer pageSize, CountMode countMode) {
         LambdaQueryWrapper<AdminPersistentLogins> queryWrapper = new LambdaQueryWrapper<>();
                 if (form.getSeries() != null) {
             queryWrapper.eq(AdminPersistentLogins::getSeries, form.getSeries());
@@ -39,7 +40,7 @@ public class AdminPersistentLoginsServiceImpl extends ServiceImpl<AdminPersisten
             queryWrapper.eq(AdminPersistentLogins::getLastUsed, form.getLastUsed());
         }
                 
-        Page<AdminPersistentLogins> page = new Page<>(pageNum, pageSize);
+        Page<AdminPersistentLogins> page = countMode.newPage(pageNum, pageSize);
         return this.page(page, queryWrapper);
     }
     
@@ -7,7 +7,16 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.mybatis.KeysetPage;
+import com.fsocity.framework.mybatis.KeysetPagination;
+import com.fsocity.framework.security.admin.AdminUserDetailsCache;
+import com.fsocity.framework.security.permission.AdminPermissionRegistry;
+import com.fsocity.modules.admin.service.AdminMenuTreeService;
+import com.fsocity.modules.admin.service.AdminUserService;
+
+import java.io.Serializable;
 
 /**
  * <p>
@@ -22,9 +31,30 @@ public class AdminRoleMenuServiceImpl extends ServiceImpl<AdminRoleMenuMapper, A
     
     @Autowired
     private AdminRoleMenuMapper adminRoleMenuMapper;
+    @Autowired
+    private AdminUserService adminUserService;
+    @Autowired
+    private AdminUserDetailsCache adminUserDetailsCache;
+    @Autowired
+    private AdminPermissionRegistry adminPermissionRegistry;
+    @Autowired
+    private AdminMenuTreeService adminMenuTreeService;
+    
+    @Override
+    public Page<AdminRoleMenu> findAll(AdminRoleMenu form, Integer pageNum, Integer pageSize, CountMode countMode) {
+        Page<AdminRoleMenu> page = countMode.newPage(pageNum, pageSize);
+        return this.page(page, buildQueryWrapper(form));
+    }
     
     @Override
-    public Page<AdminRoleMenu> findAll(AdminRoleMenu form, Integer pageNum, Integer pageSize) {
+    public KeysetPage<AdminRoleMenu> findAllByKeyset(AdminRoleMenu form, String cursor, Integer pageSize) {
+        return KeysetPagination.page(this, buildQueryWrapper(form), AdminRoleMenu::getId, cursor, pageSize);
+    }
+    
+    /**
+     * 查询条件
+     */
+    private LambdaQueryWrapper<AdminRoleMenu> buildQueryWrapper(AdminRoleMenu form) {
         LambdaQueryWrapper<AdminRoleMenu> queryWrapper = new LambdaQueryWrapper<>();
                 if (form.getId() != null) {
             queryWrapper.eq(AdminRoleMenu::getId, form.getId());
@@ -36,8 +66,7 @@ public class AdminRoleMenuServiceImpl extends ServiceImpl<AdminRoleMenuMapper, A
             queryWrapper.eq(AdminRoleMenu::getMenuId, form.getMenuId());
         }
                 
-        Page<AdminRoleMenu> page = new Page<>(pageNum, pageSize);
-        return this.page(page, queryWrapper);
+        return queryWrapper;
     }
     
     @Override
@@ -47,5 +76,44 @@ public class AdminRoleMenuServiceImpl extends ServiceImpl<AdminRoleMenuMapper, A
         // adminRoleMenu.setStatus(DeleteStatusEnum.DELETED.getCode());
         return this.updateById(adminRoleMenu);
     }
+    
+    @Override
+    public boolean save(AdminRoleMenu entity) {
+        boolean flag = super.save(entity);
+        evictUserDetails(entity.getRoleId());
+        return flag;
+    }
+    
+    @Override
+    public boolean updateById(AdminRoleMenu entity) {
+        AdminRoleMenu old = entity.getId() == null ? null : this.getById(entity.getId());
+        boolean flag = super.updateById(entity);
+        if (old != null) {
+            evictUserDetails(old.getRoleId());
+        }
+        evictUserDetails(entity.getRoleId());
+        return flag;
+    }
+    
+    @Override
+    public boolean removeById(Serializable id) {
+        AdminRoleMenu old = this.getById(id);
+        boolean flag = super.removeById(id);
+        if (old != null) {
+            evictUserDetails(old.getRoleId());
+        }
+        return flag;
+    }
+    
+    /**
+     * 角色的权限变更，重新编译角色权限位图，拥有该角色的用户登录信息缓存失效
+     */
+    private void evictUserDetails(Integer roleId) {
+        if (roleId != null) {
+            adminPermissionRegistry.rebuildRole(roleId);
+            adminMenuTreeService.invalidate();
+            adminUserDetailsCache.evict(adminUserService.findUsernamesByRoleId(roleId));
+        }
+    }
 
 }
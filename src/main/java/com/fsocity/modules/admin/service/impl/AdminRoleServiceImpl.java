@@ -7,7 +7,16 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.mybatis.KeysetPage;
+import com.fsocity.framework.mybatis.KeysetPagination;
+import com.fsocity.framework.security.admin.AdminUserDetailsCache;
+import com.fsocity.framework.security.permission.AdminPermissionRegistry;
+import com.fsocity.modules.admin.service.AdminMenuTreeService;
+import com.fsocity.modules.admin.service.AdminUserService;
+
+import java.io.Serializable;
 
 /**
  * <p>
@@ -22,9 +31,30 @@ public class AdminRoleServiceImpl extends ServiceImpl<AdminRoleMapper, AdminRole
     
     @Autowired
     private AdminRoleMapper adminRoleMapper;
+    @Autowired
+    private AdminUserService adminUserService;
+    @Autowired
+    private AdminUserDetailsCache adminUserDetailsCache;
+    @Autowired
+    private AdminPermissionRegistry adminPermissionRegistry;
+    @Autowired
+    private AdminMenuTreeService adminMenuTreeService;
     
     @Override
-    public Page<AdminRole> findAll(AdminRole form, Integer pageNum, Integer pageSize) {
+    public Page<AdminRole> findAll(AdminRole form, Integer pageNum, Integer pageSize, CountMode countMode) {
+        Page<AdminRole> page = countMode.newPage(pageNum, pageSize);
+        return this.page(page, buildQueryWrapper(form));
+    }
+    
+    @Override
+    public KeysetPage<AdminRole> findAllByKeyset(AdminRole form, String cursor, Integer pageSize) {
+        return KeysetPagination.page(this, buildQueryWrapper(form), AdminRole::getId, cursor, pageSize);
+    }
+    
+    /**
+     * 查询条件
+     */
+    private LambdaQueryWrapper<AdminRole> buildQueryWrapper(AdminRole form) {
         LambdaQueryWrapper<AdminRole> queryWrapper = new LambdaQueryWrapper<>();
                 if (form.getId() != null) {
             queryWrapper.eq(AdminRole::getId, form.getId());
@@ -60,8 +90,7 @@ public class AdminRoleServiceImpl extends ServiceImpl<AdminRoleMapper, AdminRole
             queryWrapper.eq(AdminRole::getUpdateTime, form.getUpdateTime());
         }
                 
-        Page<AdminRole> page = new Page<>(pageNum, pageSize);
-        return this.page(page, queryWrapper);
+        return queryWrapper;
     }
     
     @Override
@@ -71,5 +100,30 @@ public class AdminRoleServiceImpl extends ServiceImpl<AdminRoleMapper, AdminRole
         // adminRole.setStatus(DeleteStatusEnum.DELETED.getCode());
         return this.updateById(adminRole);
     }
+    
+    @Override
+    public boolean updateById(AdminRole entity) {
+        boolean flag = super.updateById(entity);
+        evictUserDetails(entity.getId());
+        return flag;
+    }
+    
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean flag = super.removeById(id);
+        evictUserDetails(Integer.valueOf(id.toString()));
+        return flag;
+    }
+    
+    /**
+     * 角色变更，重新编译角色权限位图，拥有该角色的用户登录信息缓存失效
+     */
+    private void evictUserDetails(Integer roleId) {
+        if (roleId != null) {
+            adminPermissionRegistry.rebuildRole(roleId);
+            adminMenuTreeService.invalidate();
+            adminUserDetailsCache.evict(adminUserService.findUsernamesByRoleId(roleId));
+        }
+    }
 
 }
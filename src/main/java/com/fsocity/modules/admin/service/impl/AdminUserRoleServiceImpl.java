@@ -7,7 +7,15 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.mybatis.KeysetPage;
+import com.fsocity.framework.mybatis.KeysetPagination;
+import com.fsocity.framework.security.admin.AdminUserDetailsCache;
+import com.fsocity.modules.admin.entity.AdminUser;
+import com.fsocity.modules.admin.mapper.AdminUserMapper;
+
+import java.io.Serializable;
 
 /**
  * <p>
@@ -22,9 +30,26 @@ public class AdminUserRoleServiceImpl extends ServiceImpl<AdminUserRoleMapper, A
     
     @Autowired
     private AdminUserRoleMapper adminUserRoleMapper;
+    @Autowired
+    private AdminUserMapper adminUserMapper;
+    @Autowired
+    private AdminUserDetailsCache adminUserDetailsCache;
+    
+    @Override
+    public Page<AdminUserRole> findAll(AdminUserRole form, Integer pageNum, Integer pageSize, CountMode countMode) {
+        Page<AdminUserRole> page = countMode.newPage(pageNum, pageSize);
+        return this.page(page, buildQueryWrapper(form));
+    }
     
     @Override
-    public Page<AdminUserRole> findAll(AdminUserRole form, Integer pageNum, Integer pageSize) {
+    public KeysetPage<AdminUserRole> findAllByKeyset(AdminUserRole form, String cursor, Integer pageSize) {
+        return KeysetPagination.page(this, buildQueryWrapper(form), AdminUserRole::getId, cursor, pageSize);
+    }
+    
+    /**
+     * 查询条件
+     */
+    private LambdaQueryWrapper<AdminUserRole> buildQueryWrapper(AdminUserRole form) {
         LambdaQueryWrapper<AdminUserRole> queryWrapper = new LambdaQueryWrapper<>();
                 if (form.getId() != null) {
             queryWrapper.eq(AdminUserRole::getId, form.getId());
@@ -36,8 +61,7 @@ public class AdminUserRoleServiceImpl extends ServiceImpl<AdminUserRoleMapper, A
             queryWrapper.eq(AdminUserRole::getRoleId, form.getRoleId());
         }
                 
-        Page<AdminUserRole> page = new Page<>(pageNum, pageSize);
-        return this.page(page, queryWrapper);
+        return queryWrapper;
     }
     
     @Override
@@ -47,5 +71,46 @@ public class AdminUserRoleServiceImpl extends ServiceImpl<AdminUserRoleMapper, A
         // adminUserRole.setStatus(DeleteStatusEnum.DELETED.getCode());
         return this.updateById(adminUserRole);
     }
+    
+    @Override
+    public boolean save(AdminUserRole entity) {
+        boolean flag = super.save(entity);
+        evictUserDetails(entity.getUserId());
+        return flag;
+    }
+    
+    @Override
+    public boolean updateById(AdminUserRole entity) {
+        AdminUserRole old = entity.getId() == null ? null : this.getById(entity.getId());
+        boolean flag = super.updateById(entity);
+        if (old != null) {
+            evictUserDetails(old.getUserId());
+        }
+        evictUserDetails(entity.getUserId());
+        return flag;
+    }
+    
+    @Override
+    public boolean removeById(Serializable id) {
+        AdminUserRole old = this.getById(id);
+        boolean flag = super.removeById(id);
+        if (old != null) {
+            evictUserDetails(old.getUserId());
+        }
+        return flag;
+    }
+    
+    /**
+     * 用户的角色变更，登录信息缓存失效
+     */
+    private void evictUserDetails(Integer userId) {
+        if (userId == null) {
+            return;
+        }
+        AdminUser adminUser = adminUserMapper.selectById(userId);
+        if (adminUser != null) {
+            adminUserDetailsCache.evict(adminUser.getUsername());
+        }
+    }
 
 }
@@ -7,7 +7,18 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fsocity.framework.mybatis.pagination.CountMode;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fsocity.framework.mybatis.KeysetPage;
+import com.fsocity.framework.mybatis.KeysetPagination;
+import com.fsocity.framework.mybatis.datascope.DataScope;
+import com.fsocity.framework.security.admin.AdminUserDetailsCache;
+import com.fsocity.modules.admin.entity.AdminUserRole;
+import com.fsocity.modules.admin.mapper.AdminUserRoleMapper;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * <p>
@@ -22,9 +33,28 @@ public class AdminUserServiceImpl extends ServiceImpl<AdminUserMapper, AdminUser
     
     @Autowired
     private AdminUserMapper adminUserMapper;
+    @Autowired
+    private AdminUserRoleMapper adminUserRoleMapper;
+    @Autowired
+    private AdminUserDetailsCache adminUserDetailsCache;
+    
+    @Override
+    @DataScope
+    public Page<AdminUser> findAll(AdminUser form, Integer pageNum, Integer pageSize, CountMode countMode) {
+        Page<AdminUser> page = countMode.newPage(pageNum, pageSize);
+        return this.page(page, buildQueryWrapper(form));
+    }
     
     @Override
-    public Page<AdminUser> findAll(AdminUser form, Integer pageNum, Integer pageSize) {
+    @DataScope
+    public KeysetPage<AdminUser> findAllByKeyset(AdminUser form, String cursor, Integer pageSize) {
+        return KeysetPagination.page(this, buildQueryWrapper(form), AdminUser::getId, cursor, pageSize);
+    }
+    
+    /**
+     * 查询条件
+     */
+    private LambdaQueryWrapper<AdminUser> buildQueryWrapper(AdminUser form) {
         LambdaQueryWrapper<AdminUser> queryWrapper = new LambdaQueryWrapper<>();
                 if (form.getId() != null) {
             queryWrapper.eq(AdminUser::getId, form.getId());
@@ -90,8 +120,7 @@ public class AdminUserServiceImpl extends ServiceImpl<AdminUserMapper, AdminUser
             queryWrapper.eq(AdminUser::getUpdateTime, form.getUpdateTime());
         }
                 
-        Page<AdminUser> page = new Page<>(pageNum, pageSize);
-        return this.page(page, queryWrapper);
+        return queryWrapper;
     }
     
     @Override
@@ -101,5 +130,45 @@ public class AdminUserServiceImpl extends ServiceImpl<AdminUserMapper, AdminUser
         // adminUser.setStatus(DeleteStatusEnum.DELETED.getCode());
         return this.updateById(adminUser);
     }
+    
+    @Override
+    public List<String> findUsernamesByRoleId(Integer roleId) {
+        LambdaQueryWrapper<AdminUserRole> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(AdminUserRole::getRoleId, roleId);
+        List<Integer> userIds = new ArrayList<>();
+        for (AdminUserRole adminUserRole : adminUserRoleMapper.selectList(queryWrapper)) {
+            userIds.add(adminUserRole.getUserId());
+        }
+        List<String> usernames = new ArrayList<>();
+        if (userIds.isEmpty()) {
+            return usernames;
+        }
+        for (AdminUser adminUser : this.listByIds(userIds)) {
+            usernames.add(adminUser.getUsername());
+        }
+        return usernames;
+    }
+    
+    @Override
+    public boolean updateById(AdminUser entity) {
+        AdminUser old = entity.getId() == null ? null : this.getById(entity.getId());
+        boolean flag = super.updateById(entity);
+        // 用户信息变更，登录信息缓存失效
+        if (old != null) {
+            adminUserDetailsCache.evict(old.getUsername());
+        }
+        adminUserDetailsCache.evict(entity.getUsername());
+        return flag;
+    }
+    
+    @Override
+    public boolean removeById(Serializable id) {
+        AdminUser old = this.getById(id);
+        boolean flag = super.removeById(id);
+        if (old != null) {
+            adminUserDetailsCache.evict(old.getUsername());
+        }
+        return flag;
+    }
 
 }
@@ -0,0 +1,29 @@
+package com.fsocity.task;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定时任务示例，对应 tb_admin_job 中的默认任务。
+ * 定时任务只能调用 fsocity.job.allowed-packages 中的类，默认只有这个包
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+@Slf4j
+@Component("ryTask")
+public class RyTask {
+    
+    public void ryNoParams() {
+        log.info("执行无参方法");
+    }
+    
+    public void ryParams(String params) {
+        log.info("执行有参方法：{}", params);
+    }
+    
+    public void ryMultipleParams(String s, Boolean b, Long l, Double d, Integer i) {
+        log.info("执行多参方法：字符串类型{}，布尔类型{}，长整型{}，浮点型{}，整形{}", s, b, l, d, i);
+    }
+    
+}
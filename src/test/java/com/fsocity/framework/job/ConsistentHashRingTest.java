@@ -0,0 +1,53 @@
+package com.fsocity.framework.job;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/22
+ */
+class ConsistentHashRingTest {
+    
+    @Test
+    public void balance() {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("a", "b", "c"), 160);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            counts.merge(ring.nodeFor("DEFAULT/job-" + i), 1, Integer::sum);
+        }
+        assertEquals(3, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > 700 && count < 1300, "分布不均匀：" + counts);
+        }
+    }
+    
+    @Test
+    public void removeNode() {
+        ConsistentHashRing before = new ConsistentHashRing(Arrays.asList("a", "b", "c"), 160);
+        ConsistentHashRing after = new ConsistentHashRing(Arrays.asList("a", "b"), 160);
+        for (int i = 0; i < 1000; i++) {
+            String key = "DEFAULT/job-" + i;
+            String node = before.nodeFor(key);
+            // 只有下线节点的任务换节点
+            if (!"c".equals(node)) {
+                assertEquals(node, after.nodeFor(key));
+            }
+            else {
+                assertNotEquals("c", after.nodeFor(key));
+            }
+        }
+    }
+    
+    @Test
+    public void empty() {
+        assertNull(new ConsistentHashRing(Collections.emptyList(), 160).nodeFor("DEFAULT/job"));
+    }
+    
+}
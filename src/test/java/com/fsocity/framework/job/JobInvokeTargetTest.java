@@ -0,0 +1,56 @@
+package com.fsocity.framework.job;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/22
+ */
+class JobInvokeTargetTest {
+    
+    @Test
+    public void parseWithoutArgs() {
+        JobInvokeTarget target = JobInvokeTarget.parse("ryTask.ryNoParams");
+        assertEquals("ryTask", target.getTarget());
+        assertEquals("ryNoParams", target.getMethod());
+        assertTrue(target.getArgs().isEmpty());
+        assertFalse(target.isClassName());
+        
+        assertTrue(JobInvokeTarget.parse("ryTask.ryNoParams()").getArgs().isEmpty());
+    }
+    
+    @Test
+    public void parseArgs() {
+        JobInvokeTarget target = JobInvokeTarget.parse("com.fsocity.task.DemoTask.run('a,b', true, 2000L, 316.50D, 100)");
+        assertEquals("com.fsocity.task.DemoTask", target.getTarget());
+        assertEquals("run", target.getMethod());
+        assertTrue(target.isClassName());
+        assertEquals(Arrays.asList("a,b", true, 2000L, 316.50D, 100), target.getArgs());
+        
+        assertEquals(Collections.singletonList("ry"), JobInvokeTarget.parse("ryTask.ryParams(\"ry\")").getArgs());
+    }
+    
+    @Test
+    public void parseInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> JobInvokeTarget.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> JobInvokeTarget.parse("ryTask"));
+        assertThrows(IllegalArgumentException.class, () -> JobInvokeTarget.parse("ryTask.run('a)"));
+        assertThrows(IllegalArgumentException.class, () -> JobInvokeTarget.parse("ryTask.run(abc)"));
+        assertThrows(IllegalArgumentException.class, () -> JobInvokeTarget.parse("ryTask.run(1,)"));
+    }
+    
+    @Test
+    public void misfireRuns() {
+        assertEquals(3, MisfirePolicy.FIRE_NOW.runs(3, 10));
+        assertEquals(10, MisfirePolicy.FIRE_NOW.runs(30, 10));
+        assertEquals(1, MisfirePolicy.FIRE_ONCE.runs(30, 10));
+        assertEquals(0, MisfirePolicy.DO_NOTHING.runs(3, 10));
+        assertEquals(MisfirePolicy.DO_NOTHING, MisfirePolicy.of(3));
+    }
+    
+}
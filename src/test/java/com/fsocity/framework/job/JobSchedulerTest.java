@@ -0,0 +1,152 @@
+package com.fsocity.framework.job;
+
+import com.fsocity.modules.admin.entity.AdminJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/22
+ */
+class JobSchedulerTest {
+    
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+    
+    private static final Instant NOW = Instant.parse("2022-07-22T02:00:00Z");
+    
+    private final JobProperties properties = new JobProperties();
+    
+    // 任务日志只进入队列，不写数据库
+    private final JobLogWriter jobLogWriter = new JobLogWriter(new JdbcTemplate() {
+        @Override
+        public int update(String sql, Object... args) {
+            return 0;
+        }
+    }, properties);
+    
+    private final JobScheduler scheduler = new JobScheduler(null, jobLogWriter, new LocalJobCoordinator(),
+            properties, null, Clock.fixed(NOW, ZONE));
+    
+    @AfterEach
+    public void close() throws InterruptedException {
+        scheduler.destroy();
+        jobLogWriter.close();
+    }
+    
+    @Test
+    public void onTimeRunsOnce() throws Exception {
+        for (MisfirePolicy policy : MisfirePolicy.values()) {
+            AtomicInteger runs = new AtomicInteger();
+            scheduler.execute(job(policy, true, runs::incrementAndGet), fireTime(0), 0);
+            // 晚了但没有超过 misfireThreshold，不算错过
+            scheduler.execute(job(policy, true, runs::incrementAndGet), fireTime(-4), 0);
+            assertEquals(2, runs.get(), policy.name());
+        }
+    }
+    
+    @Test
+    public void lateFiresByPolicy() throws Exception {
+        properties.setMaxMisfireRuns(3);
+        for (boolean concurrent : new boolean[]{true, false}) {
+            // 本次晚了60秒，之前还错过了4次
+            assertEquals(0, lateRuns(MisfirePolicy.DO_NOTHING, concurrent, 4));
+            assertEquals(3, lateRuns(MisfirePolicy.FIRE_NOW, concurrent, 4));
+            assertEquals(2, lateRuns(MisfirePolicy.FIRE_NOW, concurrent, 1));
+            assertEquals(1, lateRuns(MisfirePolicy.FIRE_ONCE, concurrent, 4));
+        }
+    }
+    
+    @Test
+    public void overlappingFiresReplayedByRunningThread() throws Exception {
+        // 第一次执行期间又触发了两次
+        assertEquals(1, overlappingRuns(MisfirePolicy.DO_NOTHING, 2));
+        assertEquals(3, overlappingRuns(MisfirePolicy.FIRE_NOW, 2));
+        assertEquals(2, overlappingRuns(MisfirePolicy.FIRE_ONCE, 2));
+    }
+    
+    private int lateRuns(MisfirePolicy policy, boolean concurrent, int skipped) throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.execute(job(policy, concurrent, runs::incrementAndGet), fireTime(-60), skipped);
+        return runs.get();
+    }
+    
+    /**
+     * 禁止并发的任务，第一次执行卡住时再触发 overlaps 次，返回总共执行的次数
+     */
+    private int overlappingRuns(MisfirePolicy policy, int overlaps) throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ScheduledJob job = job(policy, false, () -> {
+            if (runs.incrementAndGet() == 1) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Thread first = new Thread(() -> scheduler.execute(job, fireTime(0), 0));
+        first.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        
+        // 拿不到锁，记为错过后立即返回，不等待也不执行
+        for (int i = 0; i < overlaps; i++) {
+            scheduler.execute(job, fireTime(0), 0);
+        }
+        assertEquals(1, runs.get());
+        assertEquals(overlaps, job.getMissed().get());
+        
+        // 正在执行的线程结束后按错过策略补执行
+        release.countDown();
+        first.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(first.isAlive());
+        assertEquals(0, job.getMissed().get());
+        return runs.get();
+    }
+    
+    private static ZonedDateTime fireTime(long offsetSeconds) {
+        return ZonedDateTime.ofInstant(NOW.plusSeconds(offsetSeconds), ZONE);
+    }
+    
+    private static ScheduledJob job(MisfirePolicy policy, boolean concurrent, Runnable task) throws Exception {
+        AdminJob adminJob = AdminJob.builder()
+                .id(1)
+                .group("DEFAULT")
+                .name("test")
+                .invokeTarget("ryTask.noParams()")
+                .cronExpression("0 * * * * ?")
+                .misfirePolicy(policy.ordinal())
+                .concurrent(concurrent ? 1 : 0)
+                .status(0)
+                .build();
+        return new ScheduledJob(adminJob, ScheduledJob.definitionOf(adminJob),
+                CronExpression.parse(adminJob.getCronExpression()), invoker(task), null);
+    }
+    
+    private static JobInvoker invoker(Runnable task) throws ReflectiveOperationException {
+        MethodHandle handle = MethodHandles.publicLookup()
+                .findVirtual(Runnable.class, "run", MethodType.methodType(void.class))
+                .bindTo(task)
+                .asType(MethodType.methodType(Object.class));
+        return new JobInvoker(handle);
+    }
+    
+}
@@ -0,0 +1,267 @@
+package com.fsocity.framework.job;
+
+import com.fsocity.framework.redis.RedisService;
+import com.fsocity.modules.admin.entity.AdminJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 两个节点共用内存中的 RedisService
+ *
+ * @author zail
+ * @date 2022/7/22
+ */
+class RedisJobCoordinatorTest {
+    
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+    
+    private static final Instant T0 = Instant.parse("2022-07-22T02:00:00Z");
+    
+    private final JobProperties properties = new JobProperties();
+    
+    @Test
+    public void oneFireRunsOnce() throws Exception {
+        MutableClock clock = new MutableClock(T0);
+        RedisService redisService = fakeRedisService();
+        Node a = new Node(redisService, clock);
+        Node b = new Node(redisService, clock);
+        try {
+            a.coordinator.heartbeat();
+            assertEquals(a.coordinator.getNodes(), b.coordinator.getNodes());
+            assertEquals(2, a.coordinator.getNodes().size());
+            AdminJob adminJob = adminJob(1, MisfirePolicy.DO_NOTHING);
+            assertNotEquals(a.coordinator.isOwner(adminJob), b.coordinator.isOwner(adminJob));
+            
+            // 节点变化期间两个节点可能都认为自己负责，同一次执行只在抢到的节点执行
+            AtomicInteger runs = new AtomicInteger();
+            ScheduledJob jobA = job(adminJob, runs::incrementAndGet);
+            ScheduledJob jobB = job(adminJob, runs::incrementAndGet);
+            a.scheduler.execute(jobA, fireTime(0), 0);
+            b.scheduler.execute(jobB, fireTime(0), 0);
+            assertEquals(1, runs.get());
+            
+            b.scheduler.execute(jobB, fireTime(10), 0);
+            a.scheduler.execute(jobA, fireTime(10), 0);
+            assertEquals(2, runs.get());
+        }
+        finally {
+            a.close();
+            b.close();
+        }
+    }
+    
+    @Test
+    public void survivorReplaysByPolicy() throws Exception {
+        // 下线节点执行了第一次，之后的两次由接管的节点按错过策略补执行
+        assertEquals(0, replayAfterOwnerDies(MisfirePolicy.DO_NOTHING));
+        assertEquals(2, replayAfterOwnerDies(MisfirePolicy.FIRE_NOW));
+        assertEquals(1, replayAfterOwnerDies(MisfirePolicy.FIRE_ONCE));
+    }
+    
+    private int replayAfterOwnerDies(MisfirePolicy policy) throws Exception {
+        MutableClock clock = new MutableClock(T0);
+        RedisService redisService = fakeRedisService();
+        Node a = new Node(redisService, clock);
+        Node b = new Node(redisService, clock);
+        AtomicInteger runs = new AtomicInteger();
+        try {
+            a.coordinator.heartbeat();
+            AdminJob adminJob = adminJob(policy.ordinal() + 1, policy);
+            Node owner = a.coordinator.isOwner(adminJob) ? a : b;
+            Node survivor = owner == a ? b : a;
+            assertFalse(survivor.coordinator.isOwner(adminJob));
+            ScheduledJob job = job(adminJob, runs::incrementAndGet);
+            survivor.scheduler.schedule(job);
+            
+            // 负责的节点执行了 T0 后下线，不再心跳
+            assertTrue(owner.coordinator.tryAcquire(adminJob, T0.toEpochMilli()));
+            // 不负责的节点只记录计划执行时间
+            for (int i = 0; i < 3; i++) {
+                clock.set(T0.plusSeconds(i * 10));
+                survivor.scheduler.fire(new JobScheduler.Trigger(job, fireTime(i * 10)));
+            }
+            survivor.scheduler.recoverPendingJobs();
+            assertEquals(0, runs.get());
+            
+            // 下线节点的心跳过期后重新计算哈希环，接管任务并抢占记录的计划执行时间
+            clock.set(T0.plusSeconds(31));
+            survivor.coordinator.heartbeat();
+            assertEquals(1, survivor.coordinator.getNodes().size());
+            assertTrue(survivor.coordinator.isOwner(adminJob));
+            survivor.scheduler.recoverPendingJobs();
+            String nodeId = survivor.coordinator.getNodeId();
+            String keyPrefix = properties.getCluster().getKeyPrefix() + "fire:" + adminJob.getId() + ":";
+            await(() -> nodeId.equals(redisService.get(keyPrefix + T0.plusSeconds(10).toEpochMilli()))
+                    && nodeId.equals(redisService.get(keyPrefix + T0.plusSeconds(20).toEpochMilli())));
+            int expected = policy.runs(2, properties.getMaxMisfireRuns());
+            await(() -> runs.get() >= expected);
+            assertNotEquals(nodeId, redisService.get(keyPrefix + T0.toEpochMilli()));
+        }
+        finally {
+            a.close();
+            b.close();
+        }
+        return runs.get();
+    }
+    
+    private static ZonedDateTime fireTime(long offsetSeconds) {
+        return ZonedDateTime.ofInstant(T0.plusSeconds(offsetSeconds), ZONE);
+    }
+    
+    private static AdminJob adminJob(int id, MisfirePolicy policy) {
+        return AdminJob.builder()
+                .id(id)
+                .group("DEFAULT")
+                .name("job-" + id)
+                .invokeTarget("ryTask.noParams()")
+                .cronExpression("*/10 * * * * ?")
+                .misfirePolicy(policy.ordinal())
+                .concurrent(1)
+                .status(0)
+                .build();
+    }
+    
+    private static ScheduledJob job(AdminJob adminJob, Runnable task) throws ReflectiveOperationException {
+        MethodHandle handle = MethodHandles.publicLookup()
+                .findVirtual(Runnable.class, "run", MethodType.methodType(void.class))
+                .bindTo(task)
+                .asType(MethodType.methodType(Object.class));
+        return new ScheduledJob(adminJob, ScheduledJob.definitionOf(adminJob),
+                CronExpression.parse(adminJob.getCronExpression()), new JobInvoker(handle), null);
+    }
+    
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+    
+    /**
+     * 只实现协调器用到的命令，SET NX 的过期时间不生效
+     */
+    private static RedisService fakeRedisService() {
+        Map<String, Object> values = new ConcurrentHashMap<>();
+        Map<String, Map<Object, Double>> zSets = new ConcurrentHashMap<>();
+        return (RedisService) Proxy.newProxyInstance(RedisService.class.getClassLoader(),
+                new Class<?>[]{RedisService.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "get":
+                            return values.get((String) args[0]);
+                        case "setIfAbsent":
+                            return values.putIfAbsent((String) args[0], args[1]) == null;
+                        case "zAdd":
+                            zSets.computeIfAbsent((String) args[0], k -> new ConcurrentHashMap<>())
+                                    .put(args[1], (Double) args[2]);
+                            return true;
+                        case "zRangeByScore": {
+                            Set<Object> members = new HashSet<>();
+                            zSets.getOrDefault((String) args[0], new ConcurrentHashMap<>()).forEach((member, score) -> {
+                                if (score >= (Double) args[1] && score <= (Double) args[2]) {
+                                    members.add(member);
+                                }
+                            });
+                            return members;
+                        }
+                        case "zRemoveRangeByScore": {
+                            Map<Object, Double> zSet = zSets.getOrDefault((String) args[0], new ConcurrentHashMap<>());
+                            int size = zSet.size();
+                            zSet.values().removeIf(score -> score >= (Double) args[1] && score <= (Double) args[2]);
+                            return (long) (size - zSet.size());
+                        }
+                        case "zRemove": {
+                            Map<Object, Double> zSet = zSets.getOrDefault((String) args[0], new ConcurrentHashMap<>());
+                            long removed = 0;
+                            for (Object member : (Object[]) args[1]) {
+                                if (zSet.remove(member) != null) {
+                                    removed++;
+                                }
+                            }
+                            return removed;
+                        }
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+    
+    /**
+     * 一个节点：协调器、调度器和不写数据库的任务日志
+     */
+    private final class Node {
+        
+        private final RedisJobCoordinator coordinator;
+        
+        private final JobLogWriter jobLogWriter;
+        
+        private final JobScheduler scheduler;
+        
+        Node(RedisService redisService, Clock clock) {
+            this.coordinator = new RedisJobCoordinator(redisService, properties.getCluster(), clock);
+            this.jobLogWriter = new JobLogWriter(new JdbcTemplate() {
+                @Override
+                public int update(String sql, Object... args) {
+                    return 0;
+                }
+            }, properties);
+            this.scheduler = new JobScheduler(null, jobLogWriter, coordinator, properties, null, clock);
+        }
+        
+        void close() throws InterruptedException {
+            scheduler.destroy();
+            jobLogWriter.close();
+            coordinator.close();
+        }
+    
+    }
+    
+    private static final class MutableClock extends Clock {
+        
+        private volatile Instant instant;
+        
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+        
+        void set(Instant instant) {
+            this.instant = instant;
+        }
+        
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+        
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    
+    }
+    
+}
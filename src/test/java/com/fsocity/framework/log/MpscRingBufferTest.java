@@ -0,0 +1,71 @@
+package com.fsocity.framework.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/21
+ */
+class MpscRingBufferTest {
+    
+    @Test
+    public void offerAndPoll() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        // 已满
+        assertFalse(buffer.offer(4));
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        
+        List<Integer> list = new ArrayList<>();
+        assertEquals(4, buffer.drainTo(list, 10));
+        assertEquals(Arrays.asList(1, 2, 3, 4), list);
+        assertNull(buffer.poll());
+    }
+    
+    @Test
+    public void multipleProducers() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 100_000;
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(1024);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        // 每个生产者的元素按顺序出现，并且不丢失、不重复
+        int[] next = new int[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            Integer value = buffer.poll();
+            if (value == null) {
+                Thread.yield();
+                continue;
+            }
+            int producer = value / perProducer;
+            assertEquals(next[producer], value % perProducer);
+            next[producer]++;
+            received++;
+        }
+        done.await();
+        assertNull(buffer.poll());
+    }
+    
+}
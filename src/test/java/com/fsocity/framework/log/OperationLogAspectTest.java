@@ -0,0 +1,57 @@
+package com.fsocity.framework.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/21
+ */
+class OperationLogAspectTest {
+    
+    @Test
+    public void maskSensitiveFields() {
+        OperationLogAspect aspect = new OperationLogAspect(null, new ObjectMapper(), 2000,
+                Arrays.asList("Password", "token"));
+        Map<String, Object> role = new LinkedHashMap<>();
+        role.put("accessToken", "abc");
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("username", "zail");
+        user.put("password", "123456");
+        user.put("rememberMeToken", null);
+        user.put("roles", Collections.singletonList(role));
+        assertEquals("[{\"username\":\"zail\",\"password\":\"******\",\"rememberMeToken\":null,"
+                        + "\"roles\":[{\"accessToken\":\"******\"}]}]",
+                aspect.toJson(Collections.singletonList(user)));
+    }
+    
+    @Test
+    public void placeholderWhenUnserializable() {
+        OperationLogAspect aspect = new OperationLogAspect(null, new ObjectMapper(), 2000,
+                Collections.singletonList("password"));
+        String json = aspect.toJson(new Unserializable());
+        assertEquals("[unserializable " + Unserializable.class.getName() + "]", json);
+        assertFalse(json.contains("123456"));
+    }
+    
+    static class Unserializable {
+        
+        public String getPassword() {
+            throw new IllegalStateException("not loaded");
+        }
+        
+        @Override
+        public String toString() {
+            return "Unserializable(password=123456)";
+        }
+    
+    }
+    
+}
@@ -0,0 +1,124 @@
+package com.fsocity.framework.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fsocity.modules.admin.entity.AdminOperationLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/21
+ */
+class OperationLogWriterTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    
+    @Test
+    public void resumeReplayAndRejectBadRows(@TempDir Path dir) throws Exception {
+        File spillFile = dir.resolve("spill.jsonl").toFile();
+        File replayFile = new File(spillFile.getPath() + ".replay");
+        File offsetFile = new File(spillFile.getPath() + ".replay.offset");
+        File rejectedFile = new File(spillFile.getPath() + ".rejected");
+        List<String> lines = new ArrayList<>();
+        for (String title : Arrays.asList("a", "b", "bad")) {
+            lines.add(line(title));
+        }
+        lines.add("{not json");
+        lines.add(line("d"));
+        lines.add(line("e"));
+        Files.write(spillFile.toPath(), lines, StandardCharsets.UTF_8);
+        
+        OperationLogProperties properties = new OperationLogProperties();
+        properties.setSpillFile(spillFile.getPath());
+        properties.setBatchSize(2);
+        FakeJdbcTemplate jdbcTemplate = new FakeJdbcTemplate();
+        jdbcTemplate.down = true;
+        
+        // 第三批写入时数据库不可用，前两批已经记录位置
+        OperationLogWriter writer = new OperationLogWriter(jdbcTemplate, objectMapper, properties);
+        try {
+            await(() -> jdbcTemplate.failures.get() > 0);
+        }
+        finally {
+            writer.close();
+        }
+        assertEquals(Arrays.asList("a", "b"), jdbcTemplate.titles);
+        assertEquals("4", new String(Files.readAllBytes(offsetFile.toPath()), StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList("{not json", line("bad")), Files.readAllLines(rejectedFile.toPath()));
+        
+        // 重启后从记录的位置继续，不重复写入前两批，也不再重试被拒绝的行
+        jdbcTemplate.down = false;
+        writer = new OperationLogWriter(jdbcTemplate, objectMapper, properties);
+        try {
+            await(() -> !replayFile.exists());
+        }
+        finally {
+            writer.close();
+        }
+        assertEquals(Arrays.asList("a", "b", "d", "e"), jdbcTemplate.titles);
+        assertFalse(offsetFile.exists());
+        assertEquals(2, Files.readAllLines(rejectedFile.toPath()).size());
+    }
+    
+    private String line(String title) throws Exception {
+        AdminOperationLog operationLog = new AdminOperationLog();
+        operationLog.setTitle(title);
+        return objectMapper.writeValueAsString(operationLog);
+    }
+    
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+    
+    /**
+     * 只记录写入的标题，标题为 bad 的行违反约束，down 时包含 d 的批次写入失败
+     */
+    static class FakeJdbcTemplate extends JdbcTemplate {
+        
+        private final List<String> titles = Collections.synchronizedList(new ArrayList<>());
+        
+        private final AtomicInteger failures = new AtomicInteger();
+        
+        private volatile boolean down;
+        
+        @Override
+        public int update(String sql, Object... args) {
+            List<String> rows = new ArrayList<>();
+            for (int i = 0; i < args.length; i += 15) {
+                rows.add((String) args[i]);
+            }
+            if (down && rows.contains("d")) {
+                failures.incrementAndGet();
+                throw new DataAccessResourceFailureException("Communications link failure");
+            }
+            if (rows.contains("bad")) {
+                throw new DataIntegrityViolationException("Data too long for column 'title'");
+            }
+            titles.addAll(rows);
+            return rows.size();
+        }
+    
+    }
+    
+}
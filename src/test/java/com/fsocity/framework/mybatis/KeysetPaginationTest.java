@@ -0,0 +1,29 @@
+package com.fsocity.framework.mybatis;
+
+import com.fsocity.framework.exception.ApiException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/16
+ */
+class KeysetPaginationTest {
+    
+    @Test
+    public void cursor() {
+        String cursor = KeysetPagination.encodeCursor(12345);
+        assertFalse(cursor.contains("12345"));
+        assertEquals(Integer.valueOf(12345), KeysetPagination.decodeCursor(cursor));
+        assertNull(KeysetPagination.decodeCursor(""));
+        assertNull(KeysetPagination.decodeCursor(null));
+    }
+    
+    @Test
+    public void invalidCursor() {
+        assertThrows(ApiException.class, () -> KeysetPagination.decodeCursor("12345"));
+        assertThrows(ApiException.class, () -> KeysetPagination.decodeCursor("%%%"));
+    }
+    
+}
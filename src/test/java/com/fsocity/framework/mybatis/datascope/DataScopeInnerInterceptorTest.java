@@ -0,0 +1,45 @@
+package com.fsocity.framework.mybatis.datascope;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/16
+ */
+class DataScopeInnerInterceptorTest {
+    
+    private final DataScopeInnerInterceptor interceptor = new DataScopeInnerInterceptor()
+            .addTable("tb_admin_user", "department_id", "id");
+    
+    @Test
+    public void departments() {
+        String sql = interceptor.parserSingle("SELECT id FROM tb_admin_user u WHERE u.status = 0 OR u.type = 1",
+                DataScopeCondition.departments(Arrays.asList(103, 105)));
+        assertTrue(sql.contains("(u.status = 0 OR u.type = 1) AND (u.department_id IN (103, 105))"), sql);
+    }
+    
+    @Test
+    public void self() {
+        String sql = interceptor.parserSingle("SELECT id FROM `tb_admin_user`", DataScopeCondition.self(2));
+        assertTrue(sql.contains("WHERE (`tb_admin_user`.id = 2)"), sql);
+    }
+    
+    @Test
+    public void otherTable() {
+        String sql = interceptor.parserSingle("SELECT id FROM tb_admin_role",
+                DataScopeCondition.departments(Arrays.asList(103)));
+        assertFalse(sql.contains("WHERE"), sql);
+    }
+    
+    @Test
+    public void widest() {
+        assertEquals(DataScopeType.ALL, DataScopeType.widest(Arrays.asList(3, 1, 5)));
+        assertEquals(DataScopeType.DEPARTMENT_AND_CHILD, DataScopeType.widest(Arrays.asList(3, 4)));
+        assertNull(DataScopeType.widest(Arrays.asList(0, null)));
+    }
+    
+}
@@ -0,0 +1,67 @@
+package com.fsocity.framework.mybatis.pagination;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/17
+ */
+class CountModePageTest {
+    
+    @Test
+    public void noneProbesOneMoreRow() {
+        CountModePage<Integer> page = new CountModePage<>(3L, 10L, CountMode.NONE);
+        assertFalse(page.searchCount());
+        
+        // 生成 LIMIT 时多取一条，偏移量仍按每页10条计算
+        page.setProbing(true);
+        assertEquals(11L, page.getSize());
+        assertEquals(20L, page.offset());
+        page.setProbing(false);
+        assertEquals(10L, page.getSize());
+        assertEquals(20L, page.offset());
+    }
+    
+    @Test
+    public void noneHasNext() {
+        CountModePage<Integer> page = new CountModePage<>(1L, 3L, CountMode.NONE);
+        page.setRecords(Arrays.asList(1, 2, 3, 4));
+        assertTrue(page.getHasNext());
+        assertEquals(Arrays.asList(1, 2, 3), page.getRecords());
+        assertEquals(0L, page.getTotal());
+        
+        // 刚好一页或不足一页时没有下一页
+        CountModePage<Integer> full = new CountModePage<>(2L, 3L, CountMode.NONE);
+        full.setRecords(Arrays.asList(4, 5, 6));
+        assertFalse(full.getHasNext());
+        assertEquals(3, full.getRecords().size());
+        
+        CountModePage<Integer> last = new CountModePage<>(3L, 3L, CountMode.NONE);
+        List<Integer> records = Arrays.asList(7);
+        last.setRecords(records);
+        assertFalse(last.getHasNext());
+        assertEquals(records, last.getRecords());
+    }
+    
+    @Test
+    public void exactHasNextByTotal() {
+        CountModePage<Integer> page = new CountModePage<>(1L, 10L, CountMode.EXACT);
+        assertTrue(page.searchCount());
+        page.setTotal(25L);
+        assertTrue(page.getHasNext());
+        
+        // 超过每页数量的记录不会被截断
+        page.setRecords(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11));
+        assertEquals(11, page.getRecords().size());
+        
+        CountModePage<Integer> last = new CountModePage<>(3L, 10L, CountMode.CACHED);
+        last.setTotal(25L);
+        assertFalse(last.getHasNext());
+    }
+    
+}
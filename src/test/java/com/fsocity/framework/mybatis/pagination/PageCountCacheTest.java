@@ -0,0 +1,41 @@
+package com.fsocity.framework.mybatis.pagination;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/17
+ */
+class PageCountCacheTest {
+    
+    @Test
+    public void invalidateByTable() {
+        PageCountCache cache = new PageCountCache(100L, 60L);
+        String userKey = cache.key("tb_admin_user", "SELECT * FROM tb_admin_user WHERE status = ?|0");
+        String logKey = cache.key("tb_admin_operation_log", "SELECT * FROM tb_admin_operation_log");
+        cache.put(userKey, 12L);
+        cache.put(logKey, 100000L);
+        assertEquals(12L, cache.get(userKey));
+        
+        // 写入用户表后，相同条件生成新的键，旧的结果不再命中
+        cache.invalidate("tb_admin_user");
+        String newUserKey = cache.key("tb_admin_user", "SELECT * FROM tb_admin_user WHERE status = ?|0");
+        assertNotEquals(userKey, newUserKey);
+        assertNull(cache.get(newUserKey));
+        // 其它表不受影响
+        assertEquals(logKey, cache.key("tb_admin_operation_log", "SELECT * FROM tb_admin_operation_log"));
+        assertEquals(100000L, cache.get(logKey));
+    }
+    
+    @Test
+    public void countModeOf() {
+        assertEquals(CountMode.EXACT, CountMode.of(null));
+        assertEquals(CountMode.EXACT, CountMode.of(""));
+        assertEquals(CountMode.NONE, CountMode.of("none"));
+        assertEquals(CountMode.CACHED, CountMode.of(" Cached "));
+        assertEquals(CountMode.EXACT, CountMode.of("unknown"));
+    }
+    
+}
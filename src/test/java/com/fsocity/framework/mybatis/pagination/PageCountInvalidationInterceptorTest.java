@@ -0,0 +1,140 @@
+package com.fsocity.framework.mybatis.pagination;
+
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/17
+ */
+class PageCountInvalidationInterceptorTest {
+    
+    private static final String TABLE = "tb_count_test";
+    
+    private static final String QUERY = "SELECT * FROM tb_count_test";
+    
+    private static final String NAMESPACE = "com.fsocity.framework.mybatis.pagination.CountTestMapper";
+    
+    private static MybatisConfiguration configuration;
+    
+    private final PageCountCache pageCountCache = new PageCountCache(100L, 60L);
+    
+    private final PageCountInvalidationInterceptor interceptor = new PageCountInvalidationInterceptor(pageCountCache);
+    
+    // 执行 update 时缓存键的快照
+    private final AtomicReference<String> keyDuringUpdate = new AtomicReference<>();
+    
+    @BeforeAll
+    public static void initTableInfo() {
+        configuration = new MybatisConfiguration();
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(configuration, "");
+        assistant.setCurrentNamespace(NAMESPACE);
+        TableInfoHelper.initTableInfo(assistant, CountTestEntity.class);
+    }
+    
+    @Test
+    public void invalidateAfterUpdateWithoutTransaction() throws Throwable {
+        String key = pageCountCache.key(TABLE, QUERY);
+        
+        assertEquals(1, interceptor.intercept(update(NAMESPACE)));
+        
+        // update 执行时缓存还没有失效，返回后才失效
+        assertEquals(key, keyDuringUpdate.get());
+        assertNotEquals(key, pageCountCache.key(TABLE, QUERY));
+    }
+    
+    @Test
+    public void invalidateAfterCommit() throws Throwable {
+        String key = pageCountCache.key(TABLE, QUERY);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            interceptor.intercept(update(NAMESPACE));
+            
+            // 提交之前其它事务看不到写入，缓存不能失效
+            assertEquals(key, pageCountCache.key(TABLE, QUERY));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+            assertNotEquals(key, pageCountCache.key(TABLE, QUERY));
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    @Test
+    public void keepCacheOnRollback() throws Throwable {
+        String key = pageCountCache.key(TABLE, QUERY);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            interceptor.intercept(update(NAMESPACE));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+            assertEquals(key, pageCountCache.key(TABLE, QUERY));
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    @Test
+    public void ignoreMapperWithoutTable() throws Throwable {
+        String key = pageCountCache.key(TABLE, QUERY);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            interceptor.intercept(update("com.fsocity.framework.mybatis.pagination.UnknownMapper"));
+            assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+            assertEquals(key, pageCountCache.key(TABLE, QUERY));
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    /**
+     * 构造 Executor#update 调用，执行时记录当前的缓存键
+     */
+    private Invocation update(String namespace) throws NoSuchMethodException {
+        MappedStatement ms = new MappedStatement.Builder(configuration, namespace + ".insert",
+                new StaticSqlSource(configuration, "INSERT INTO tb_count_test (id) VALUES (1)"), SqlCommandType.INSERT)
+                .build();
+        Executor executor = (Executor) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Executor.class},
+                (proxy, method, args) -> {
+                    if ("update".equals(method.getName())) {
+                        keyDuringUpdate.set(pageCountCache.key(TABLE, QUERY));
+                        return 1;
+                    }
+                    return null;
+                });
+        return new Invocation(executor, Executor.class.getMethod("update", MappedStatement.class, Object.class),
+                new Object[]{ms, null});
+    }
+    
+    @TableName(TABLE)
+    static class CountTestEntity {
+        
+        @TableId
+        private Long id;
+    
+    }
+    
+}
@@ -0,0 +1,70 @@
+package com.fsocity.framework.mybatis.partition;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/22
+ */
+class PartitionManagerTest {
+    
+    private static final LocalDate TODAY = LocalDate.of(2022, 7, 22);
+    
+    @Test
+    public void planEmptyTable() {
+        PartitionManager.Plan plan = PartitionManager.plan(Collections.emptyList(), PartitionUnit.MONTH, 6, 2, TODAY);
+        assertEquals(Arrays.asList("p202207<2022-08-01", "p202208<2022-09-01", "p202209<2022-10-01"), names(plan));
+        assertTrue(plan.getDrop().isEmpty());
+    }
+    
+    @Test
+    public void planRollAndDrop() {
+        List<PartitionManager.Partition> partitions = Arrays.asList(
+                new PartitionManager.Partition("p202112", LocalDate.of(2022, 1, 1)),
+                new PartitionManager.Partition("p202201", LocalDate.of(2022, 2, 1)),
+                new PartitionManager.Partition("p202207", LocalDate.of(2022, 8, 1)),
+                new PartitionManager.Partition("p202208", LocalDate.of(2022, 9, 1)));
+        PartitionManager.Plan plan = PartitionManager.plan(partitions, PartitionUnit.MONTH, 6, 2, TODAY);
+        assertEquals(Collections.singletonList("p202209<2022-10-01"), names(plan));
+        // 保留 2022-01 到 2022-06 以及当前分区
+        assertEquals(Collections.singletonList("p202112"), plan.getDrop());
+        
+        // 已经创建过的不再创建
+        PartitionManager.Plan again = PartitionManager.plan(partitions, PartitionUnit.MONTH, 0, 1, TODAY);
+        assertTrue(again.getAdd().isEmpty());
+        assertTrue(again.getDrop().isEmpty());
+    }
+    
+    @Test
+    public void planDay() {
+        List<PartitionManager.Partition> partitions = Collections.singletonList(
+                new PartitionManager.Partition("p20220720", LocalDate.of(2022, 7, 21)));
+        PartitionManager.Plan plan = PartitionManager.plan(partitions, PartitionUnit.DAY, 1, 1, TODAY);
+        assertEquals(Arrays.asList("p20220721<2022-07-22", "p20220722<2022-07-23", "p20220723<2022-07-24"), names(plan));
+        assertEquals(Collections.singletonList("p20220720"), plan.getDrop());
+    }
+    
+    @Test
+    public void addPartitionSql() {
+        List<PartitionManager.Partition> add = Collections.singletonList(
+                new PartitionManager.Partition("p202208", LocalDate.of(2022, 9, 1)));
+        assertEquals("ALTER TABLE `t` REORGANIZE PARTITION p_future INTO ("
+                        + "PARTITION p202208 VALUES LESS THAN ('2022-09-01 00:00:00'), "
+                        + "PARTITION p_future VALUES LESS THAN (MAXVALUE))",
+                PartitionManager.addPartitionSql("t", add, "p_future"));
+        assertEquals(LocalDate.of(2022, 9, 1), PartitionManager.parseBound("'2022-09-01 00:00:00'"));
+    }
+    
+    private static List<String> names(PartitionManager.Plan plan) {
+        return plan.getAdd().stream().map(PartitionManager.Partition::toString).collect(Collectors.toList());
+    }
+    
+}
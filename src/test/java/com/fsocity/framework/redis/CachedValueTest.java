@@ -0,0 +1,36 @@
+package com.fsocity.framework.redis;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/19
+ */
+class CachedValueTest {
+    
+    @Test
+    public void shouldRefresh() {
+        long now = System.currentTimeMillis();
+        // 离过期还很远，不刷新
+        CachedValue fresh = new CachedValue("value", now + 3600_000L, 10L);
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(fresh.shouldRefresh(now));
+        }
+        // 已经过期，一定刷新
+        CachedValue expired = new CachedValue("value", now, 10L);
+        assertTrue(expired.shouldRefresh(now));
+        
+        // 加载耗时与剩余时间相当时，一部分请求提前刷新
+        CachedValue expiring = new CachedValue("value", now + 100L, 100L);
+        int refreshCount = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (expiring.shouldRefresh(now)) {
+                refreshCount++;
+            }
+        }
+        assertTrue(refreshCount > 0 && refreshCount < 1000, String.valueOf(refreshCount));
+    }
+    
+}
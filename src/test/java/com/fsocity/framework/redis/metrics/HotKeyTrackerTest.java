@@ -0,0 +1,36 @@
+package com.fsocity.framework.redis.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/19
+ */
+class HotKeyTrackerTest {
+    
+    @Test
+    public void top() {
+        HotKeyTracker tracker = new HotKeyTracker(10, 1);
+        for (int i = 0; i < 1000; i++) {
+            tracker.record("admin:user:1");
+            if (i % 2 == 0) {
+                tracker.record("admin:user:2");
+            }
+            // 大量只访问一次的key
+            tracker.record("admin:user:other" + i);
+        }
+        List<HotKeyTracker.HotKey> hotKeys = tracker.top(2);
+        assertEquals(2, hotKeys.size());
+        assertEquals("admin:user:1", hotKeys.get(0).getKey());
+        assertEquals("admin:user:2", hotKeys.get(1).getKey());
+        assertTrue(hotKeys.get(0).getCount() >= 1000);
+        
+        tracker.reset();
+        assertTrue(tracker.top(10).isEmpty());
+    }
+    
+}
@@ -0,0 +1,85 @@
+package com.fsocity.framework.redis.serializer;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fsocity.modules.admin.entity.AdminUser;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/18
+ */
+class CompactRedisSerializerTest {
+    
+    private final Jackson2JsonRedisSerializer<Object> jsonSerializer = jsonSerializer();
+    
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(aliases(), jsonSerializer, 1024);
+    
+    @Test
+    public void roundTrip() {
+        List<AdminUser> users = users(100);
+        byte[] bytes = serializer.serialize(users);
+        assertEquals(CompactRedisSerializer.MAGIC, bytes[0]);
+        assertEquals(users, serializer.deserialize(bytes));
+        
+        // 比带完整类名的JSON小得多
+        byte[] json = jsonSerializer.serialize(users);
+        assertTrue(bytes.length * 3 < json.length, bytes.length + " / " + json.length);
+    }
+    
+    @Test
+    public void keepNumberType() {
+        assertEquals(1L, serializer.deserialize(serializer.serialize(1L)));
+        assertEquals("token", serializer.deserialize(serializer.serialize("token")));
+        assertEquals(Collections.singletonList("a"), serializer.deserialize(serializer.serialize(Collections.singletonList("a"))));
+    }
+    
+    @Test
+    public void readLegacyJson() {
+        AdminUser user = users(1).get(0);
+        byte[] json = jsonSerializer.serialize(user);
+        assertEquals(user, serializer.deserialize(json));
+    }
+    
+    private static List<AdminUser> users(int count) {
+        List<AdminUser> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            AdminUser user = new AdminUser();
+            user.setId(i);
+            user.setDepartmentId(100 + i % 5);
+            user.setUsername("user" + i);
+            user.setRealname("用户" + i);
+            user.setEmail("user" + i + "@fsocity.com");
+            users.add(user);
+        }
+        return users;
+    }
+    
+    private static Map<String, Class<?>> aliases() {
+        Map<String, Class<?>> aliases = new HashMap<>();
+        aliases.put("L", ArrayList.class);
+        aliases.put("AdminUser", AdminUser.class);
+        return aliases;
+    }
+    
+    private static Jackson2JsonRedisSerializer<Object> jsonSerializer() {
+        Jackson2JsonRedisSerializer<Object> serializer = new Jackson2JsonRedisSerializer<>(Object.class);
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        serializer.setObjectMapper(objectMapper);
+        return serializer;
+    }
+    
+}
@@ -0,0 +1,58 @@
+package com.fsocity.framework.security.jwt;
+
+import com.fsocity.framework.security.properties.JWTProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/12
+ */
+class JwtTokenUtilsTest {
+    
+    private final UserDetails admin = new User("admin", "", Collections.emptyList());
+    
+    @Test
+    public void parseTokenOnce() {
+        JwtTokenUtils jwtTokenUtils = new JwtTokenUtils(new JWTProperties());
+        String token = jwtTokenUtils.generateToken(admin);
+        
+        JwtTokenClaims claims = jwtTokenUtils.parseToken(token);
+        assertNotNull(claims);
+        assertEquals("admin", claims.getUsername());
+        assertTrue(jwtTokenUtils.validateToken(claims, admin));
+        
+        // 第二次解析命中缓存
+        assertSame(claims, jwtTokenUtils.parseToken(token));
+        assertEquals(1, jwtTokenUtils.getClaimsCache().stats().hitCount());
+        assertEquals(1, jwtTokenUtils.getClaimsCache().stats().missCount());
+    }
+    
+    @Test
+    public void rejectTamperedToken() {
+        JwtTokenUtils jwtTokenUtils = new JwtTokenUtils(new JWTProperties());
+        String token = jwtTokenUtils.generateToken(admin);
+        jwtTokenUtils.parseToken(token);
+        
+        String tampered = token.substring(0, token.lastIndexOf('.') + 1) + "invalid";
+        assertNull(jwtTokenUtils.parseToken(tampered));
+        assertNull(jwtTokenUtils.getUserNameFromToken("not-a-token"));
+    }
+    
+    @Test
+    public void withoutCache() {
+        JWTProperties properties = new JWTProperties();
+        properties.setClaimsCacheSize(0L);
+        JwtTokenUtils jwtTokenUtils = new JwtTokenUtils(properties);
+        String token = jwtTokenUtils.generateToken(admin);
+        
+        assertNull(jwtTokenUtils.getClaimsCache());
+        assertTrue(jwtTokenUtils.validateToken(token, admin));
+    }
+    
+}
@@ -0,0 +1,59 @@
+package com.fsocity.framework.security.matcher;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/14
+ */
+class UrlPatternTrieTest {
+    
+    private final String[] patterns = {
+            "/admin",
+            "/admin/**",
+            "/admin/validationCode/**",
+            "/api/*/detail",
+            "/api/user-{id}",
+            "/static/**/*.js",
+            "/file?.txt",
+    };
+    
+    private final String[] paths = {
+            "/", "", "/admin", "/admin/", "/admin/user/list", "/adminx",
+            "/admin/validationCode/image", "/api/user/detail", "/api/user/x/detail",
+            "/api/user-1", "/api/user-", "/static/js/app.js", "/static/app.js",
+            "/static/a/b/c.css", "/file1.txt", "/file12.txt", "/other",
+    };
+    
+    @Test
+    public void sameAsAntPathMatcher() {
+        AntPathMatcher antPathMatcher = new AntPathMatcher();
+        UrlPatternTrie trie = new UrlPatternTrie(patterns);
+        for (String path : paths) {
+            boolean expected = false;
+            for (String pattern : patterns) {
+                expected |= antPathMatcher.match(pattern, path);
+            }
+            assertEquals(expected, trie.matches(path), path);
+        }
+    }
+    
+    @Test
+    public void requiresAuthentication() {
+        SecurityUrlMatcher matcher = new SecurityUrlMatcher(
+                new String[]{"/admin", "/admin/**"},
+                new String[]{"/admin/login", "/admin/validationCode/**"},
+                100L);
+        assertTrue(matcher.requiresAuthentication("/admin/index"));
+        assertTrue(matcher.requiresAuthentication("/admin"));
+        assertFalse(matcher.requiresAuthentication("/admin/login"));
+        assertFalse(matcher.requiresAuthentication("/admin/validationCode/image"));
+        assertFalse(matcher.requiresAuthentication("/index"));
+        // 第二次走缓存，结果一致
+        assertTrue(matcher.requiresAuthentication("/admin/index"));
+    }
+    
+}
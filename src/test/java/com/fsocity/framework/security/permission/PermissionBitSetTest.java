@@ -0,0 +1,45 @@
+package com.fsocity.framework.security.permission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/15
+ */
+class PermissionBitSetTest {
+    
+    @Test
+    public void contains() {
+        PermissionBitSet bitSet = PermissionBitSet.of(Arrays.asList(0, 5, 63, 64, 200), 1L);
+        assertTrue(bitSet.contains(0));
+        assertTrue(bitSet.contains(63));
+        assertTrue(bitSet.contains(64));
+        assertTrue(bitSet.contains(200));
+        assertFalse(bitSet.contains(1));
+        assertFalse(bitSet.contains(201));
+        assertFalse(bitSet.contains(-1));
+        assertFalse(bitSet.contains(100000));
+        assertEquals(5, bitSet.cardinality());
+    }
+    
+    @Test
+    public void or() {
+        PermissionBitSet role1 = PermissionBitSet.of(Arrays.asList(1, 2), 1L);
+        PermissionBitSet role2 = PermissionBitSet.of(Arrays.asList(2, 130), 1L);
+        PermissionBitSet user = PermissionBitSet.or(Arrays.asList(role1, role2), 2L);
+        assertTrue(user.contains(1));
+        assertTrue(user.contains(130));
+        assertEquals(3, user.cardinality());
+        assertEquals(2L, user.getVersion());
+        
+        PermissionBitSet empty = PermissionBitSet.or(Collections.emptyList(), 2L);
+        assertFalse(empty.contains(0));
+        assertEquals(PermissionBitSet.EMPTY, empty);
+    }
+    
+}
@@ -0,0 +1,44 @@
+package com.fsocity.framework.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/20
+ */
+class SlidingWindowRateLimiterTest {
+    
+    @Test
+    public void tryAcquire() {
+        AtomicInteger redisCalls = new AtomicInteger();
+        AtomicInteger used = new AtomicInteger();
+        // 用内存计数代替 Redis
+        SlidingWindowRateLimiter rateLimiter = new SlidingWindowRateLimiter(null, "test:", 100, Duration.ofHours(1)) {
+            @Override
+            protected long acquire(String key, long windowIndex, long now, int limit, long windowMillis, int permits) {
+                redisCalls.incrementAndGet();
+                int granted = Math.min(limit - used.get(), permits);
+                if (granted <= 0) {
+                    return 0;
+                }
+                used.addAndGet(granted);
+                return granted;
+            }
+        };
+        int allowed = 0;
+        for (int i = 0; i < 100; i++) {
+            if (rateLimiter.tryAcquire("login-ip:127.0.0.1", 10, Duration.ofHours(1), 4)) {
+                allowed++;
+            }
+        }
+        assertEquals(10, allowed);
+        // 4 + 4 + 2 次许可，加上一次被拒绝，之后都在本地拒绝
+        assertEquals(4, redisCalls.get());
+    }
+    
+}
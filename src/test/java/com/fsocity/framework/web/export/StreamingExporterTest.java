@@ -0,0 +1,48 @@
+package com.fsocity.framework.web.export;
+
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/22
+ */
+class StreamingExporterTest {
+    
+    @Test
+    public void escapeFormula() {
+        assertEquals("'=1+1", StreamingExporter.escapeFormula("=1+1"));
+        assertEquals("'+1", StreamingExporter.escapeFormula("+1"));
+        assertEquals("'-1", StreamingExporter.escapeFormula("-1"));
+        assertEquals("'@SUM(A1:A2)", StreamingExporter.escapeFormula("@SUM(A1:A2)"));
+        assertEquals("'\t=1", StreamingExporter.escapeFormula("\t=1"));
+        assertEquals("'\r=1", StreamingExporter.escapeFormula("\r=1"));
+        assertEquals("", StreamingExporter.escapeFormula(""));
+        assertEquals("a=1", StreamingExporter.escapeFormula("a=1"));
+    }
+    
+    @Test
+    public void escapeCsvCells() throws Exception {
+        CsvMapper csvMapper = StreamingExporter.createCsvMapper();
+        Row row = new Row();
+        row.title = "=HYPERLINK(1)";
+        row.url = "/admin/api/user";
+        row.status = -1;
+        // 只处理文本，数字不加 '
+        assertEquals("'=HYPERLINK(1),/admin/api/user,-1\n",
+                csvMapper.writer(csvMapper.schemaFor(Row.class)).writeValueAsString(row));
+    }
+    
+    static class Row {
+        
+        public String title;
+        
+        public String url;
+        
+        public Integer status;
+    
+    }
+    
+}
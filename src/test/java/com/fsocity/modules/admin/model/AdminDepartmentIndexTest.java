@@ -0,0 +1,104 @@
+package com.fsocity.modules.admin.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author zail
+ * @date 2022/7/15
+ */
+class AdminDepartmentIndexTest {
+    
+    // 与 admin_schema.sql 中的部门数据一致
+    private AdminDepartmentIndex index() {
+        Map<Integer, Integer> parents = new HashMap<>();
+        parents.put(100, 0);
+        parents.put(101, 100);
+        parents.put(102, 100);
+        parents.put(103, 101);
+        parents.put(104, 101);
+        parents.put(105, 101);
+        parents.put(106, 101);
+        parents.put(107, 101);
+        parents.put(108, 102);
+        parents.put(109, 102);
+        return AdminDepartmentIndex.build(parents);
+    }
+    
+    @Test
+    public void descendants() {
+        AdminDepartmentIndex index = index();
+        assertEquals(10, index.size());
+        assertTrue(index.isDescendant(100, 109));
+        assertTrue(index.isDescendant(101, 101));
+        assertFalse(index.isDescendant(101, 108));
+        assertFalse(index.isDescendant(103, 101));
+        assertEquals(new HashSet<>(Arrays.asList(102, 108, 109)), new HashSet<>(index.getDescendantIds(102)));
+        assertEquals(Arrays.asList(100, 101, 105), index.getAncestorIds(105));
+        assertTrue(index.getDescendantIds(999).isEmpty());
+    }
+    
+    @Test
+    public void move() {
+        AdminDepartmentIndex index = index().withParent(101, 102);
+        assertTrue(index.isDescendant(102, 103));
+        assertEquals(Arrays.asList(100, 102, 101, 103), index.getAncestorIds(103));
+        assertEquals(9, index.getDescendantIds(102).size());
+        
+        index = index.without(102);
+        assertFalse(index.isDescendant(100, 101));
+        assertEquals(Arrays.asList(101, 103), index.getAncestorIds(103));
+    }
+    
+    @Test
+    public void incrementalSameAsBuild() {
+        Random random = new Random(42);
+        Map<Integer, Integer> parents = new HashMap<>();
+        AdminDepartmentIndex index = AdminDepartmentIndex.EMPTY;
+        for (int i = 0; i < 2000; i++) {
+            int id = random.nextInt(60);
+            if (random.nextInt(5) == 0) {
+                parents.remove(id);
+                index = index.without(id);
+            }
+            else {
+                int parentId = random.nextInt(65);
+                // 与 AdminDepartmentServiceImpl 一致，不会移动到自己或下级部门下
+                if (index.isDescendant(id, parentId)) {
+                    continue;
+                }
+                parents.put(id, parentId);
+                index = index.withParent(id, parentId);
+            }
+            assertSameIndex(AdminDepartmentIndex.build(parents), index);
+        }
+    }
+    
+    private void assertSameIndex(AdminDepartmentIndex expected, AdminDepartmentIndex actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int id = 0; id < 65; id++) {
+            assertArrayEquals(expected.getInterval(id), actual.getInterval(id));
+            assertEquals(expected.getAncestorIds(id), actual.getAncestorIds(id));
+            assertEquals(expected.getDescendantIds(id), actual.getDescendantIds(id));
+        }
+    }
+    
+    @Test
+    public void cycle() {
+        Map<Integer, Integer> parents = new HashMap<>();
+        parents.put(1, 2);
+        parents.put(2, 1);
+        parents.put(3, 0);
+        AdminDepartmentIndex index = AdminDepartmentIndex.build(parents);
+        assertEquals(1, index.size());
+        assertFalse(index.contains(1));
+    }
+    
+}